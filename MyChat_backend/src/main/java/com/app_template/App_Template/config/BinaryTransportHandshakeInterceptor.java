@@ -0,0 +1,26 @@
+package com.app_template.App_Template.config;
+
+import java.util.Map;
+
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.server.HandshakeInterceptor;
+
+// Marchează sesiunile deschise pe endpoint-ul WebSocket nativ: doar acestea pot primi frame-uri binare
+public class BinaryTransportHandshakeInterceptor implements HandshakeInterceptor {
+
+    public static final String ATTRIBUTE = "wire.binary-transport";
+
+    @Override
+    public boolean beforeHandshake(ServerHttpRequest request, ServerHttpResponse response,
+                                   WebSocketHandler wsHandler, Map<String, Object> attributes) {
+        attributes.put(ATTRIBUTE, Boolean.TRUE);
+        return true;
+    }
+
+    @Override
+    public void afterHandshake(ServerHttpRequest request, ServerHttpResponse response,
+                               WebSocketHandler wsHandler, Exception exception) {
+    }
+}
@@ -0,0 +1,42 @@
+package com.app_template.App_Template.config;
+
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.SubscribableChannel;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.messaging.SubProtocolWebSocketHandler;
+
+// Sesiunile primesc BoundedWebSocketSession în loc de ConcurrentWebSocketSessionDecorator; limitele vin
+// din WebSocketConfig.configureWebSocketTransport (setate pe handler de configurația Spring)
+public class BoundedSubProtocolWebSocketHandler extends SubProtocolWebSocketHandler {
+
+    private final SlowConsumerPolicy policy;
+    private final OutboundBacklogMonitor monitor;
+    // null = fără agregarea frame-urilor
+    private final BoundedWebSocketSession.Batching batching;
+
+    public BoundedSubProtocolWebSocketHandler(MessageChannel clientInboundChannel,
+                                              SubscribableChannel clientOutboundChannel,
+                                              SlowConsumerPolicy policy,
+                                              OutboundBacklogMonitor monitor,
+                                              BoundedWebSocketSession.Batching batching) {
+        super(clientInboundChannel, clientOutboundChannel);
+        this.policy = policy;
+        this.monitor = monitor;
+        this.batching = batching;
+    }
+
+    @Override
+    protected WebSocketSession decorateSession(WebSocketSession session) {
+        BoundedWebSocketSession bounded = new BoundedWebSocketSession(
+                session, getSendTimeLimit(), getSendBufferSizeLimit(), policy, monitor, batching);
+        monitor.register(bounded);
+        return bounded;
+    }
+
+    @Override
+    public void afterConnectionClosed(WebSocketSession session, CloseStatus closeStatus) throws Exception {
+        monitor.unregister(session.getId());
+        super.afterConnectionClosed(session, closeStatus);
+    }
+}
@@ -0,0 +1,248 @@
+package com.app_template.App_Template.config;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.springframework.web.socket.BinaryMessage;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.SessionLimitExceededException;
+import org.springframework.web.socket.handler.WebSocketSessionDecorator;
+
+// Înlocuiește ConcurrentWebSocketSessionDecorator: un singur thread scrie în socket la un moment dat, celelalte
+// pun frame-urile în coadă și se întorc. Coada e limitată în bytes; la depășire decide SlowConsumerPolicy.
+// Dacă o scriere durează peste sendTimeLimit, sesiunea e închisă (clientul nu mai citește deloc).
+// Cu Batching, frame-urile MESSAGE consecutive din coadă pleacă într-o singură scriere WebSocket: frame-urile
+// STOMP se termină cu NUL, deci clientul le desparte singur (stomp.js și StompDecoder acceptă mai multe per mesaj).
+public class BoundedWebSocketSession extends WebSocketSessionDecorator implements SlowConsumerPolicy.Backlog {
+
+    private final int sendTimeLimit;
+    private final int bufferSizeLimit;
+    private final SlowConsumerPolicy policy;
+    private final OutboundBacklogMonitor monitor;
+    // null = fiecare frame e scris separat
+    private final Batching batching;
+
+    private final Deque<OutboundFrame> buffer = new ArrayDeque<>();
+    private final ReentrantLock flushLock = new ReentrantLock();
+    // Modificat doar sub lock-ul pe buffer; volatile pentru citirea din metrici
+    private volatile int bufferBytes;
+    private volatile long sendStartTime;
+    private volatile boolean limitExceeded;
+
+    public BoundedWebSocketSession(WebSocketSession delegate, int sendTimeLimit, int bufferSizeLimit,
+                                   SlowConsumerPolicy policy, OutboundBacklogMonitor monitor) {
+        this(delegate, sendTimeLimit, bufferSizeLimit, policy, monitor, null);
+    }
+
+    public BoundedWebSocketSession(WebSocketSession delegate, int sendTimeLimit, int bufferSizeLimit,
+                                   SlowConsumerPolicy policy, OutboundBacklogMonitor monitor, Batching batching) {
+        super(delegate);
+        this.sendTimeLimit = sendTimeLimit;
+        this.bufferSizeLimit = bufferSizeLimit;
+        this.policy = policy;
+        this.monitor = monitor;
+        this.batching = batching;
+    }
+
+    @Override
+    public void sendMessage(WebSocketMessage<?> message) throws IOException {
+        if (limitExceeded || !isOpen()) {
+            return;
+        }
+        OutboundFrame frame = OutboundFrame.of(message);
+        synchronized (buffer) {
+            if (!buffer.isEmpty() && bufferBytes + frame.size() > bufferSizeLimit) {
+                SlowConsumerPolicy.Decision decision = policy.onOverflow(this, frame);
+                if (decision == SlowConsumerPolicy.Decision.DROP) {
+                    monitor.dropped(frame);
+                    return;
+                }
+                if (decision == SlowConsumerPolicy.Decision.DISCONNECT || bufferBytes + frame.size() > bufferSizeLimit) {
+                    limitExceeded("Buffer size " + bufferBytes + " bytes exceeds the limit " + bufferSizeLimit, "buffer");
+                }
+            }
+            buffer.add(frame);
+            bufferBytes += frame.size();
+        }
+
+        do {
+            if (!tryFlush()) {
+                checkSendTime();
+                break;
+            }
+        } while (hasBacklog() && !limitExceeded);
+    }
+
+    public int getBufferedFrames() {
+        synchronized (buffer) {
+            return buffer.size();
+        }
+    }
+
+    public int getBufferedBytes() {
+        return bufferBytes;
+    }
+
+    // 0 dacă nu e nicio scriere în curs
+    public long getTimeSinceSendStarted() {
+        long start = sendStartTime;
+        return start > 0 ? System.currentTimeMillis() - start : 0;
+    }
+
+    @Override
+    public Iterator<OutboundFrame> iterator() {
+        Iterator<OutboundFrame> iterator = buffer.iterator();
+        return new Iterator<>() {
+            private OutboundFrame current;
+
+            @Override
+            public boolean hasNext() {
+                return iterator.hasNext();
+            }
+
+            @Override
+            public OutboundFrame next() {
+                current = iterator.next();
+                return current;
+            }
+
+            @Override
+            public void remove() {
+                iterator.remove();
+                bufferBytes -= current.size();
+                monitor.evicted(current);
+            }
+        };
+    }
+
+    @Override
+    public int bytes() {
+        return bufferBytes;
+    }
+
+    @Override
+    public int limit() {
+        return bufferSizeLimit;
+    }
+
+    private boolean hasBacklog() {
+        synchronized (buffer) {
+            return !buffer.isEmpty();
+        }
+    }
+
+    private boolean tryFlush() throws IOException {
+        if (!flushLock.tryLock()) {
+            return false;
+        }
+        try {
+            // Un frame singur pleacă imediat (cazul obișnuit, ex. fan-out-ul unei camere): așteptarea ar ține
+            // ocupat un thread din pool-ul outbound per sesiune. Doar într-o rafală deja începută (mai multe
+            // frame-uri în coadă, lotul încă neplin) se mai așteaptă o dată, ca următoarele să intre în aceeași
+            // scriere; altfel lotul se formează din frame-urile venite cât timp scrierea anterioară era în curs.
+            if (batching != null && batching.windowNanos() > 0 && getBufferedFrames() > 1
+                    && bufferBytes < batching.maxBytes()) {
+                LockSupport.parkNanos(batching.windowNanos());
+            }
+            while (!limitExceeded) {
+                List<OutboundFrame> frames = pollBatch();
+                if (frames.isEmpty()) {
+                    break;
+                }
+                WebSocketMessage<?> message = frames.size() == 1 ? frames.get(0).message() : join(frames);
+                sendStartTime = System.currentTimeMillis();
+                getDelegate().sendMessage(message);
+                sendStartTime = 0;
+                if (batching != null) {
+                    monitor.batched(frames.size());
+                }
+            }
+        } finally {
+            sendStartTime = 0;
+            flushLock.unlock();
+        }
+        return true;
+    }
+
+    // Primul frame din coadă plus, cu batching, frame-urile MESSAGE de același tip (text/binar) care urmează,
+    // cât timp totalul rămâne sub batching.maxBytes
+    private List<OutboundFrame> pollBatch() {
+        List<OutboundFrame> frames = new ArrayList<>();
+        synchronized (buffer) {
+            OutboundFrame first = buffer.poll();
+            if (first == null) {
+                return frames;
+            }
+            bufferBytes -= first.size();
+            frames.add(first);
+            if (batching == null || !batchable(first, first)) {
+                return frames;
+            }
+            int total = first.size();
+            OutboundFrame next;
+            while ((next = buffer.peek()) != null && batchable(first, next) && total + next.size() <= batching.maxBytes()) {
+                buffer.poll();
+                bufferBytes -= next.size();
+                total += next.size();
+                frames.add(next);
+            }
+        }
+        return frames;
+    }
+
+    private static boolean batchable(OutboundFrame first, OutboundFrame frame) {
+        return frame.destination() != null && frame.message().getClass() == first.message().getClass()
+                && (frame.message() instanceof TextMessage || frame.message() instanceof BinaryMessage);
+    }
+
+    private static WebSocketMessage<?> join(List<OutboundFrame> frames) {
+        if (frames.get(0).message() instanceof TextMessage) {
+            StringBuilder payload = new StringBuilder();
+            for (OutboundFrame frame : frames) {
+                payload.append(((TextMessage) frame.message()).getPayload());
+            }
+            return new TextMessage(payload);
+        }
+        int length = 0;
+        for (OutboundFrame frame : frames) {
+            length += frame.size();
+        }
+        ByteBuffer payload = ByteBuffer.allocate(length);
+        for (OutboundFrame frame : frames) {
+            payload.put(((BinaryMessage) frame.message()).getPayload().duplicate());
+        }
+        return new BinaryMessage(payload.flip());
+    }
+
+    private void checkSendTime() {
+        if (getTimeSinceSendStarted() > sendTimeLimit) {
+            limitExceeded("Send time " + getTimeSinceSendStarted() + " ms exceeds the limit " + sendTimeLimit, "time");
+        }
+    }
+
+    // SubProtocolWebSocketHandler prinde excepția și închide sesiunea cu statusul dat
+    private void limitExceeded(String reason, String kind) {
+        limitExceeded = true;
+        synchronized (buffer) {
+            buffer.clear();
+            bufferBytes = 0;
+        }
+        monitor.disconnected(kind);
+        throw new SessionLimitExceededException(reason, CloseStatus.SESSION_NOT_RELIABLE);
+    }
+
+    // windowNanos = cât se așteaptă într-o rafală după alte frame-uri (0 = doar ce e deja în coadă);
+    // maxBytes = limita unei scrieri
+    public record Batching(long windowNanos, int maxBytes) {
+    }
+}
@@ -0,0 +1,8 @@
+package com.app_template.App_Template.config;
+
+import java.security.Principal;
+
+// Publicat de ShardedBrokerMessageHandler după ce o abonare nouă a intrat în index, deci frame-urile trimise
+// de aici încolo pe destinație ajung la sesiune. Destinația e cea rezolvată (ex. /queue/messages-user{sessionId}).
+public record BrokerSubscriptionEvent(String sessionId, String subscriptionId, String destination, Principal user) {
+}
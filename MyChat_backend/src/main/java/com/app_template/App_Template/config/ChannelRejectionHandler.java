@@ -0,0 +1,65 @@
+package com.app_template.App_Template.config;
+
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+// Coada unui canal STOMP e plină (sau pool-ul e oprit). Implicit (AbortPolicy) Spring aruncă TaskRejectedException,
+// iar frame-ul se pierde fără urmă. Aici thread-ul care publică procesează el mesajul (backpressure pe
+// conexiunea/publisher-ul care produce prea repede, fără pierderi). Pe canalul de ieșire asta înseamnă doar
+// punerea frame-ului în coada sesiunii (BoundedWebSocketSession), unde politica de slow consumer decide ce
+// se aruncă. Fiecare respingere e numărată (ws.channel.rejected{channel,action}) și logată cel mult o dată la
+// LOG_INTERVAL. La oprirea pool-ului mesajul e aruncat, ca la ThreadPoolExecutor.CallerRunsPolicy.
+@Slf4j
+class ChannelRejectionHandler implements RejectedExecutionHandler {
+
+    private static final long LOG_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(10);
+
+    private final String channel;
+    private final Counter callerRuns;
+    private final Counter discarded;
+    private final AtomicLong lastLogged = new AtomicLong(System.nanoTime() - LOG_INTERVAL_NANOS);
+    private final AtomicLong sinceLastLog = new AtomicLong();
+
+    ChannelRejectionHandler(String channel, MeterRegistry meterRegistry) {
+        this.channel = channel;
+        this.callerRuns = Counter.builder("ws.channel.rejected")
+                .tag("channel", channel)
+                .tag("action", "caller_runs")
+                .description("Messages rejected by a full STOMP channel executor")
+                .register(meterRegistry);
+        this.discarded = Counter.builder("ws.channel.rejected")
+                .tag("channel", channel)
+                .tag("action", "discarded")
+                .description("Messages rejected by a full STOMP channel executor")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public void rejectedExecution(Runnable task, ThreadPoolExecutor executor) {
+        boolean runHere = !executor.isShutdown();
+        (runHere ? callerRuns : discarded).increment();
+        logRateLimited(executor, runHere);
+        if (runHere) {
+            task.run();
+        }
+    }
+
+    private void logRateLimited(ThreadPoolExecutor executor, boolean runHere) {
+        long pending = sinceLastLog.incrementAndGet();
+        long now = System.nanoTime();
+        long last = lastLogged.get();
+        if (now - last < LOG_INTERVAL_NANOS || !lastLogged.compareAndSet(last, now)) {
+            return;
+        }
+        sinceLastLog.addAndGet(-pending);
+        log.warn("STOMP {} channel executor saturated (active={}, queued={}): {} message(s) rejected since the last "
+                        + "warning, now {}", channel, executor.getActiveCount(), executor.getQueue().size(), pending,
+                runHere ? "running on the caller thread" : "discarded (pool stopped)");
+    }
+}
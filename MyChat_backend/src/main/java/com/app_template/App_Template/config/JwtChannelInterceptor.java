@@ -10,29 +10,25 @@ import org.springframework.messaging.support.ChannelInterceptor;
 import org.springframework.messaging.support.MessageBuilder;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
-import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.stereotype.Component; // Adaugă această adnotare
 
+import io.jsonwebtoken.Claims;
+
 @Component // Adaugă această adnotare pentru a face clasa un Spring Bean
 public class JwtChannelInterceptor implements ChannelInterceptor {
 
     private final JwtService jwtService;
     private final UserDetailsService userDetailsService;
-    private final java.util.Map<String, Authentication> sessionAuthMap = new java.util.concurrent.ConcurrentHashMap<>();
+    private final WebSocketSessionRegistry sessionRegistry;
 
     // Constructor cu @Autowired (opțional în Spring moderne, dar bine de avut)
     @Autowired
-    public JwtChannelInterceptor(JwtService jwtService, UserDetailsService userDetailsService) {
+    public JwtChannelInterceptor(JwtService jwtService, UserDetailsService userDetailsService,
+                                 WebSocketSessionRegistry sessionRegistry) {
         this.jwtService = jwtService;
         this.userDetailsService = userDetailsService;
-    }
-
-    public Authentication getAuthentication(String sessionId) {
-        if (sessionId == null) {
-            return null;
-        }
-        return sessionAuthMap.get(sessionId);
+        this.sessionRegistry = sessionRegistry;
     }
 
     @Override
@@ -50,7 +46,7 @@ public class JwtChannelInterceptor implements ChannelInterceptor {
             }
             String token = authHeader.substring(7);
 
-            // 2) Validează JWT
+            // 2) Validează JWT (singurul acces la baza de date pentru această sesiune)
             try {
                 String username = jwtService.extractUsername(token);
                 var userDetails = userDetailsService.loadUserByUsername(username);
@@ -66,12 +62,14 @@ public class JwtChannelInterceptor implements ChannelInterceptor {
                         userDetails.getAuthorities()
                 );
 
-                // Salvează Authentication în Map pentru această sesiune
+                // Salvează Authentication în registry până la deconectare sau expirarea token-ului
                 if (sessionId != null) {
-                    sessionAuthMap.put(sessionId, auth);
+                    long expiresAt = jwtService.extractClaim(token, Claims::getExpiration).getTime();
+                    sessionRegistry.register(sessionId, auth, expiresAt);
                 }
 
-                SecurityContextHolder.getContext().setAuthentication(auth);
+                // Doar pe sesiune (accessor + registry): SecurityContextHolder e per thread, iar thread-urile
+                // canalului inbound sunt refolosite de toate sesiunile
                 accessor.setUser(auth);
 
                 return MessageBuilder.createMessage(message.getPayload(), accessor.getMessageHeaders());
@@ -80,59 +78,19 @@ public class JwtChannelInterceptor implements ChannelInterceptor {
             }
         }
 
-        // Pentru DISCONNECT, șterge authentication-ul din Map
+        // Pentru DISCONNECT, șterge sesiunea din registry (SessionDisconnectEvent o face și la închiderea bruscă)
         if (StompCommand.DISCONNECT.equals(accessor.getCommand())) {
-            if (sessionId != null) {
-                sessionAuthMap.remove(sessionId);
-            }
+            sessionRegistry.remove(sessionId);
             return message;
         }
 
-        // Pentru alte comenzi STOMP (SEND, SUBSCRIBE, etc.), restaurează Authentication din Map
-        Authentication auth = null;
-
-        // Încearcă să obțină Authentication din SecurityContext (rareori funcționează pentru mesaje STOMP ulterioare)
-        auth = SecurityContextHolder.getContext().getAuthentication();
-
-        // Dacă nu există în SecurityContext, încearcă să-l obții din Map folosind session ID
-        if (auth == null && sessionId != null) {
-            auth = sessionAuthMap.get(sessionId);
-        }
-
-        // Fallback: încearcă să-l obții din Principal (dacă Map-ul nu funcționează)
+        // Pentru alte comenzi STOMP (SEND, SUBSCRIBE, heartbeat etc.): doar registry-ul, fără DB și fără
+        // SecurityContextHolder (thread-ul poate păstra autentificarea altei sesiuni)
+        Authentication auth = sessionRegistry.getAuthentication(sessionId);
         if (auth == null) {
-            java.security.Principal principal = accessor.getUser();
-
-            if (principal instanceof Authentication) {
-                auth = (Authentication) principal;
-            } else if (principal != null) {
-                try {
-                    var userDetails = userDetailsService.loadUserByUsername(principal.getName());
-                    auth = new UsernamePasswordAuthenticationToken(
-                            userDetails.getUsername(),
-                            null,
-                            userDetails.getAuthorities()
-                    );
-                } catch (Exception e) {
-                    // Nu aruncăm excepție aici, vom verifica mai jos
-                }
-            }
-        }
-
-        // Setează Authentication în SecurityContext și pe accessor
-        if (auth != null) {
-            SecurityContextHolder.getContext().setAuthentication(auth);
-            accessor.setUser(auth);
-
-            // Actualizează Map-ul dacă nu exista (pentru siguranță)
-            if (sessionId != null && !sessionAuthMap.containsKey(sessionId)) {
-                sessionAuthMap.put(sessionId, auth);
-            }
-        } else {
-            // Dacă Authentication este încă null, utilizatorul nu este autentificat
+            // Sesiune necunoscută, deconectată sau cu token expirat: clientul trebuie să se reconecteze
             throw new MessageDeliveryException("User not authenticated for STOMP message");
         }
-
         return message;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,98 @@
+package com.app_template.App_Template.config;
+
+import java.security.Principal;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.stereotype.Component;
+
+import com.app_template.App_Template.dto.LaggingSessionDto;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+// Cozile de ieșire ale sesiunilor WebSocket: metrici agregate (fără tag per sesiune, ca să nu explodeze
+// cardinalitatea) și lista sesiunilor cu cea mai mare coadă, pentru /api/admin/websocket/lagging.
+@Component
+public class OutboundBacklogMonitor {
+
+    private final Map<String, BoundedWebSocketSession> sessions = new ConcurrentHashMap<>();
+    private final Counter rejected;
+    private final Counter evicted;
+    private final Counter disconnectedBuffer;
+    private final Counter disconnectedTime;
+    private final DistributionSummary batchFrames;
+
+    public OutboundBacklogMonitor(MeterRegistry meterRegistry) {
+        this.rejected = Counter.builder("ws.outbound.dropped").tag("reason", "rejected")
+                .description("Outbound frames dropped by the slow consumer policy")
+                .register(meterRegistry);
+        this.evicted = Counter.builder("ws.outbound.dropped").tag("reason", "evicted")
+                .description("Outbound frames dropped by the slow consumer policy")
+                .register(meterRegistry);
+        this.disconnectedBuffer = Counter.builder("ws.outbound.disconnected").tag("reason", "buffer")
+                .description("Sessions closed because their outbound queue exceeded a limit")
+                .register(meterRegistry);
+        this.disconnectedTime = Counter.builder("ws.outbound.disconnected").tag("reason", "time")
+                .description("Sessions closed because their outbound queue exceeded a limit")
+                .register(meterRegistry);
+        this.batchFrames = DistributionSummary.builder("ws.outbound.batch.frames")
+                .description("STOMP frames packed into one WebSocket write (only with app.websocket.batching.enabled)")
+                .register(meterRegistry);
+        Gauge.builder("ws.outbound.lagging", this, monitor -> monitor.sessions.values().stream()
+                        .filter(session -> session.getBufferedBytes() > 0).count())
+                .description("Sessions with frames waiting in their outbound queue")
+                .register(meterRegistry);
+        Gauge.builder("ws.outbound.backlog.max", this, monitor -> monitor.sessions.values().stream()
+                        .mapToInt(BoundedWebSocketSession::getBufferedBytes).max().orElse(0))
+                .baseUnit("bytes")
+                .description("Largest outbound queue of a single session")
+                .register(meterRegistry);
+    }
+
+    void register(BoundedWebSocketSession session) {
+        sessions.put(session.getId(), session);
+    }
+
+    void unregister(String sessionId) {
+        sessions.remove(sessionId);
+    }
+
+    void dropped(OutboundFrame frame) {
+        rejected.increment();
+    }
+
+    void evicted(OutboundFrame frame) {
+        evicted.increment();
+    }
+
+    void batched(int frames) {
+        batchFrames.record(frames);
+    }
+
+    void disconnected(String reason) {
+        ("time".equals(reason) ? disconnectedTime : disconnectedBuffer).increment();
+    }
+
+    public List<LaggingSessionDto> topLagging(int limit) {
+        return sessions.values().stream()
+                .filter(session -> session.getBufferedBytes() > 0 || session.getTimeSinceSendStarted() > 0)
+                .sorted(Comparator.comparingInt(BoundedWebSocketSession::getBufferedBytes).reversed())
+                .limit(limit)
+                .map(session -> {
+                    Principal user = session.getPrincipal();
+                    return LaggingSessionDto.builder()
+                            .sessionId(session.getId())
+                            .user(user != null ? user.getName() : null)
+                            .bufferedFrames(session.getBufferedFrames())
+                            .bufferedBytes(session.getBufferedBytes())
+                            .sendInProgressMs(session.getTimeSinceSendStarted())
+                            .build();
+                })
+                .toList();
+    }
+}
@@ -0,0 +1,53 @@
+package com.app_template.App_Template.config;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import org.springframework.web.socket.BinaryMessage;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketMessage;
+
+// Un frame din coada de ieșire a unei sesiuni. Destinația STOMP e citită din header-ele frame-ului, ca politica
+// de slow consumer să poată deosebi frame-urile efemere (typing, presence) de mesajele propriu-zise.
+public record OutboundFrame(WebSocketMessage<?> message, String destination, boolean ephemeral, int size) {
+
+    private static final List<String> EPHEMERAL_SUFFIXES = List.of("/queue/typing", "/queue/presence");
+    private static final String DESTINATION_HEADER = "\ndestination:";
+    private static final int MAX_HEADER_SCAN = 1024;
+
+    public static OutboundFrame of(WebSocketMessage<?> message) {
+        String destination = destinationOf(headerText(message));
+        boolean ephemeral = destination != null && EPHEMERAL_SUFFIXES.stream().anyMatch(destination::endsWith);
+        return new OutboundFrame(message, destination, ephemeral, message.getPayloadLength());
+    }
+
+    private static String headerText(WebSocketMessage<?> message) {
+        if (message instanceof TextMessage text) {
+            String payload = text.getPayload();
+            return payload.length() > MAX_HEADER_SCAN ? payload.substring(0, MAX_HEADER_SCAN) : payload;
+        }
+        if (message instanceof BinaryMessage binary) {
+            ByteBuffer buffer = binary.getPayload().duplicate();
+            byte[] header = new byte[Math.min(buffer.remaining(), MAX_HEADER_SCAN)];
+            buffer.get(header);
+            return new String(header, StandardCharsets.UTF_8);
+        }
+        return null;
+    }
+
+    // Doar în zona de header-e (până la prima linie goală)
+    private static String destinationOf(String frame) {
+        if (frame == null) {
+            return null;
+        }
+        int headersEnd = frame.indexOf("\n\n");
+        int start = frame.indexOf(DESTINATION_HEADER);
+        if (start < 0 || (headersEnd >= 0 && start > headersEnd)) {
+            return null;
+        }
+        start += DESTINATION_HEADER.length();
+        int end = frame.indexOf('\n', start);
+        return end < 0 ? frame.substring(start) : frame.substring(start, end);
+    }
+}
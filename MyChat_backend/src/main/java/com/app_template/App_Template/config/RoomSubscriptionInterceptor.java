@@ -0,0 +1,125 @@
+package com.app_template.App_Template.config;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageDeliveryException;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.security.core.Authentication;
+import org.springframework.stereotype.Component;
+
+import com.app_template.App_Template.service.room.RoomService;
+
+import lombok.extern.slf4j.Slf4j;
+
+// Controlul accesului la topicurile camerelor de grup (/topic/rooms.{roomId}), pe canalul inbound, după
+// JwtChannelInterceptor: doar membrii se pot abona, abonările cu pattern sub /topic sunt refuzate (ar primi
+// mesajele tuturor camerelor), iar clienții nu pot publica direct pe /topic (trimit prin /app/room.send).
+// Abonările acceptate sunt ținute per sesiune, ca scoaterea unui membru să-i poată închide abonarea imediat.
+@Slf4j
+@Component
+public class RoomSubscriptionInterceptor implements ChannelInterceptor {
+
+    private static final String TOPIC_PREFIX = "/topic/";
+
+    private final RoomService roomService;
+    private final WebSocketSessionRegistry sessionRegistry;
+    // Lazy: brokerChannel e creat de aceeași configurație care înregistrează acest interceptor
+    private final MessageChannel brokerChannel;
+    // sessionId -> subscriptionId -> abonarea la o cameră
+    private final Map<String, Map<String, RoomSubscription>> subscriptions = new ConcurrentHashMap<>();
+
+    public RoomSubscriptionInterceptor(
+            RoomService roomService,
+            WebSocketSessionRegistry sessionRegistry,
+            @Lazy @Qualifier("brokerChannel") MessageChannel brokerChannel) {
+        this.roomService = roomService;
+        this.sessionRegistry = sessionRegistry;
+        this.brokerChannel = brokerChannel;
+    }
+
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        SimpMessageType type = SimpMessageHeaderAccessor.getMessageType(message.getHeaders());
+        String sessionId = SimpMessageHeaderAccessor.getSessionId(message.getHeaders());
+        String destination = SimpMessageHeaderAccessor.getDestination(message.getHeaders());
+        if (type == null || sessionId == null) {
+            return message;
+        }
+        switch (type) {
+            case SUBSCRIBE -> checkSubscribe(message, sessionId, destination);
+            case MESSAGE -> {
+                if (destination != null && destination.startsWith(TOPIC_PREFIX)) {
+                    throw new MessageDeliveryException("Clients cannot publish to " + destination);
+                }
+            }
+            case UNSUBSCRIBE -> {
+                Map<String, RoomSubscription> bySubscription = subscriptions.get(sessionId);
+                String subscriptionId = SimpMessageHeaderAccessor.getSubscriptionId(message.getHeaders());
+                if (bySubscription != null && subscriptionId != null) {
+                    bySubscription.remove(subscriptionId);
+                }
+            }
+            case DISCONNECT -> subscriptions.remove(sessionId);
+            default -> {
+            }
+        }
+        return message;
+    }
+
+    // Închide abonările userului la cameră pe acest nod (după ce a fost scos din ea)
+    public void revoke(Long roomId, Long userId) {
+        subscriptions.forEach((sessionId, bySubscription) -> bySubscription.forEach((subscriptionId, subscription) -> {
+            if (subscription.roomId().equals(roomId) && subscription.userId().equals(userId)
+                    && bySubscription.remove(subscriptionId, subscription)) {
+                SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.UNSUBSCRIBE);
+                accessor.setSessionId(sessionId);
+                accessor.setSubscriptionId(subscriptionId);
+                brokerChannel.send(MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders()));
+            }
+        }));
+    }
+
+    int subscriptionCount() {
+        return subscriptions.values().stream().mapToInt(Map::size).sum();
+    }
+
+    private void checkSubscribe(Message<?> message, String sessionId, String destination) {
+        if (destination == null || !destination.startsWith(TOPIC_PREFIX)) {
+            return;
+        }
+        if (destination.indexOf('*') >= 0 || destination.indexOf('{') >= 0) {
+            throw new MessageDeliveryException("Pattern subscriptions are not allowed on " + destination);
+        }
+        if (!destination.startsWith(RoomService.DESTINATION_PREFIX)) {
+            return;
+        }
+        Long roomId;
+        try {
+            roomId = Long.valueOf(destination.substring(RoomService.DESTINATION_PREFIX.length()));
+        } catch (NumberFormatException e) {
+            throw new MessageDeliveryException("Unknown room destination " + destination);
+        }
+        Authentication authentication = sessionRegistry.getAuthentication(sessionId);
+        Long userId = authentication != null ? roomService.memberIdByEmail(roomId, authentication.getName()) : null;
+        if (userId == null) {
+            log.debug("Refused subscription of session {} to room {}", sessionId, roomId);
+            throw new MessageDeliveryException("Not a member of room " + roomId);
+        }
+        String subscriptionId = SimpMessageHeaderAccessor.getSubscriptionId(message.getHeaders());
+        if (subscriptionId != null) {
+            subscriptions.computeIfAbsent(sessionId, key -> new ConcurrentHashMap<>())
+                    .put(subscriptionId, new RoomSubscription(roomId, userId));
+        }
+    }
+
+    private record RoomSubscription(Long roomId, Long userId) {
+    }
+}
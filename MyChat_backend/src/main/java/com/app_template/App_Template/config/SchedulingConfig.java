@@ -0,0 +1,10 @@
+package com.app_template.App_Template.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+// Activează @Scheduled pentru job-urile de mentenanță (partiții, arhivare etc.)
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
@@ -50,6 +50,7 @@ public class SecurityConfigurations {
                                  "/uploads/**"
                                         ).permitAll()
                         .requestMatchers("/ws/**").permitAll()
+                        .requestMatchers("/ws-native").permitAll()
                         .requestMatchers("/login/oauth2/**").permitAll()
                         .requestMatchers("/oauth2/**").permitAll()
                         .requestMatchers("/api/admin/**").hasAnyRole(ADMIN.name())
@@ -0,0 +1,304 @@
+package com.app_template.App_Template.config;
+
+import java.security.Principal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.messaging.SubscribableChannel;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.broker.AbstractBrokerMessageHandler;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.util.PathMatcher;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+
+// Broker STOMP în proces, înlocuitor pentru SimpleBrokerMessageHandler pe aceleași prefixe (/topic, /user).
+// Sesiunile sunt împărțite după hash(sessionId) în N partiții; fiecare partiție are propriul lock (doar pentru
+// abonări/dezabonări), propriul index destinație -> abonați, citit fără lock, și propriul thread de livrare.
+// Toate livrările către o sesiune trec prin thread-ul partiției ei, deci ordinea mesajelor per sesiune se păstrează.
+public class ShardedBrokerMessageHandler extends AbstractBrokerMessageHandler {
+
+    private static final byte[] EMPTY_PAYLOAD = new byte[0];
+
+    private final Partition[] partitions;
+    private final PathMatcher pathMatcher = new AntPathMatcher();
+
+    public ShardedBrokerMessageHandler(
+            SubscribableChannel clientInboundChannel,
+            MessageChannel clientOutboundChannel,
+            SubscribableChannel brokerChannel,
+            Collection<String> destinationPrefixes,
+            int partitionCount,
+            int partitionQueueCapacity,
+            MeterRegistry meterRegistry) {
+        super(clientInboundChannel, clientOutboundChannel, brokerChannel, destinationPrefixes);
+        this.partitions = new Partition[partitionCount];
+        for (int i = 0; i < partitionCount; i++) {
+            partitions[i] = new Partition(i, partitionQueueCapacity, meterRegistry);
+        }
+    }
+
+    @Override
+    protected void startInternal() {
+        publishBrokerAvailableEvent();
+    }
+
+    @Override
+    protected void stopInternal() {
+        for (Partition partition : partitions) {
+            partition.executor.shutdown();
+        }
+        publishBrokerUnavailableEvent();
+    }
+
+    @Override
+    protected void handleMessageInternal(Message<?> message) {
+        MessageHeaders headers = message.getHeaders();
+        String destination = SimpMessageHeaderAccessor.getDestination(headers);
+        String sessionId = SimpMessageHeaderAccessor.getSessionId(headers);
+
+        if (!checkDestinationPrefix(destination)) {
+            return;
+        }
+
+        SimpMessageType messageType = SimpMessageHeaderAccessor.getMessageType(headers);
+        if (SimpMessageType.MESSAGE.equals(messageType)) {
+            if (destination != null) {
+                publish(destination, message);
+            }
+        } else if (SimpMessageType.CONNECT.equals(messageType)) {
+            if (sessionId != null) {
+                partitionOf(sessionId).connect(sessionId);
+                sendConnectAck(sessionId, SimpMessageHeaderAccessor.getUser(headers), message);
+            }
+        } else if (SimpMessageType.DISCONNECT.equals(messageType)) {
+            if (sessionId != null) {
+                partitionOf(sessionId).disconnect(sessionId);
+                sendDisconnectAck(sessionId, SimpMessageHeaderAccessor.getUser(headers), message);
+            }
+        } else if (SimpMessageType.SUBSCRIBE.equals(messageType)) {
+            String subscriptionId = SimpMessageHeaderAccessor.getSubscriptionId(headers);
+            if (sessionId != null && subscriptionId != null && destination != null
+                    && partitionOf(sessionId).subscribe(sessionId, subscriptionId, destination)
+                    && getApplicationEventPublisher() != null) {
+                getApplicationEventPublisher().publishEvent(
+                        new BrokerSubscriptionEvent(sessionId, subscriptionId, destination,
+                                SimpMessageHeaderAccessor.getUser(headers)));
+            }
+        } else if (SimpMessageType.UNSUBSCRIBE.equals(messageType)) {
+            String subscriptionId = SimpMessageHeaderAccessor.getSubscriptionId(headers);
+            if (sessionId != null && subscriptionId != null) {
+                partitionOf(sessionId).unsubscribe(sessionId, subscriptionId);
+            }
+        }
+    }
+
+    // Doar partițiile care au abonați pentru destinație primesc task de livrare
+    private void publish(String destination, Message<?> message) {
+        for (Partition partition : partitions) {
+            if (partition.mayMatch(destination)) {
+                partition.dispatch(destination, message);
+            }
+        }
+    }
+
+    private Partition partitionOf(String sessionId) {
+        return partitions[Math.floorMod(sessionId.hashCode(), partitions.length)];
+    }
+
+    private void deliver(String sessionId, String subscriptionId, Message<?> message) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        accessor.setSessionId(sessionId);
+        accessor.setSubscriptionId(subscriptionId);
+        accessor.copyHeadersIfAbsent(message.getHeaders());
+        accessor.setLeaveMutable(true);
+        Message<?> reply = MessageBuilder.createMessage(message.getPayload(), accessor.getMessageHeaders());
+        try {
+            getClientOutboundChannelForSession(sessionId).send(reply);
+        } catch (Exception e) {
+            logger.error("Failed to send " + message, e);
+        }
+    }
+
+    // STOMP CONNECTED e produs de StompSubProtocolHandler din acest CONNECT_ACK
+    private void sendConnectAck(String sessionId, Principal user, Message<?> connectMessage) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.CONNECT_ACK);
+        accessor.setSessionId(sessionId);
+        if (user != null) {
+            accessor.setUser(user);
+        }
+        accessor.setHeader(SimpMessageHeaderAccessor.CONNECT_MESSAGE_HEADER, connectMessage);
+        accessor.setHeader(SimpMessageHeaderAccessor.HEART_BEAT_HEADER, new long[]{0, 0});
+        getClientOutboundChannel().send(MessageBuilder.createMessage(EMPTY_PAYLOAD, accessor.getMessageHeaders()));
+    }
+
+    private void sendDisconnectAck(String sessionId, Principal user, Message<?> disconnectMessage) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.DISCONNECT_ACK);
+        accessor.setSessionId(sessionId);
+        if (user != null) {
+            accessor.setUser(user);
+        }
+        accessor.setHeader(SimpMessageHeaderAccessor.DISCONNECT_MESSAGE_HEADER, disconnectMessage);
+        getClientOutboundChannel().send(MessageBuilder.createMessage(EMPTY_PAYLOAD, accessor.getMessageHeaders()));
+    }
+
+    private record Subscriber(String sessionId, String subscriptionId, String destination) {
+    }
+
+    private final class Partition {
+        private final ReentrantLock lock = new ReentrantLock();
+        // sessionId -> (subscriptionId -> abonare); modificat doar sub lock
+        private final Map<String, Map<String, Subscriber>> sessions = new ConcurrentHashMap<>();
+        // Destinație exactă -> abonați; listele sunt imutabile și înlocuite sub lock, deci citirea nu blochează
+        private final Map<String, List<Subscriber>> byDestination = new ConcurrentHashMap<>();
+        // Abonări cu pattern (ex. /topic/**), verificate la fiecare mesaj
+        private final List<Subscriber> patterns = new CopyOnWriteArrayList<>();
+        private final AtomicInteger subscriptionCount = new AtomicInteger();
+        private final ThreadPoolExecutor executor;
+
+        private Partition(int index, int queueCapacity, MeterRegistry meterRegistry) {
+            // Coadă plină: publisher-ul așteaptă loc (backpressure) în loc să livreze el, ca ordinea să se păstreze
+            this.executor = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                    new ArrayBlockingQueue<>(queueCapacity),
+                    runnable -> {
+                        Thread thread = new Thread(runnable, "ws-broker-" + index);
+                        thread.setDaemon(true);
+                        return thread;
+                    },
+                    (task, pool) -> {
+                        if (pool.isShutdown()) {
+                            throw new RejectedExecutionException("Broker partition " + index + " is stopped");
+                        }
+                        try {
+                            pool.getQueue().put(task);
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                            throw new RejectedExecutionException(e);
+                        }
+                    });
+            Tags tags = Tags.of("partition", String.valueOf(index));
+            ExecutorServiceMetrics.monitor(meterRegistry, executor, "ws.broker.partition", tags);
+            Gauge.builder("ws.broker.sessions", sessions, Map::size)
+                    .tags(tags)
+                    .description("STOMP sessions with at least one subscription in this broker partition")
+                    .register(meterRegistry);
+            Gauge.builder("ws.broker.subscriptions", subscriptionCount, AtomicInteger::get)
+                    .tags(tags)
+                    .description("Active subscriptions in this broker partition")
+                    .register(meterRegistry);
+        }
+
+        private void connect(String sessionId) {
+            lock.lock();
+            try {
+                sessions.putIfAbsent(sessionId, new HashMap<>());
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        // true pentru o abonare nouă (false dacă a înlocuit una cu același id)
+        private boolean subscribe(String sessionId, String subscriptionId, String destination) {
+            Subscriber subscriber = new Subscriber(sessionId, subscriptionId, destination);
+            lock.lock();
+            try {
+                Subscriber previous = sessions.computeIfAbsent(sessionId, key -> new HashMap<>()).put(subscriptionId, subscriber);
+                if (previous != null) {
+                    removeFromIndex(previous);
+                } else {
+                    subscriptionCount.incrementAndGet();
+                }
+                if (pathMatcher.isPattern(destination)) {
+                    patterns.add(subscriber);
+                } else {
+                    byDestination.compute(destination, (key, current) -> {
+                        List<Subscriber> updated = current == null ? new ArrayList<>(1) : new ArrayList<>(current);
+                        updated.add(subscriber);
+                        return List.copyOf(updated);
+                    });
+                }
+                return previous == null;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private void unsubscribe(String sessionId, String subscriptionId) {
+            lock.lock();
+            try {
+                Map<String, Subscriber> subscriptions = sessions.get(sessionId);
+                Subscriber removed = subscriptions != null ? subscriptions.remove(subscriptionId) : null;
+                if (removed != null) {
+                    removeFromIndex(removed);
+                    subscriptionCount.decrementAndGet();
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private void disconnect(String sessionId) {
+            lock.lock();
+            try {
+                Map<String, Subscriber> subscriptions = sessions.remove(sessionId);
+                if (subscriptions != null) {
+                    subscriptions.values().forEach(this::removeFromIndex);
+                    subscriptionCount.addAndGet(-subscriptions.size());
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private void removeFromIndex(Subscriber subscriber) {
+            if (pathMatcher.isPattern(subscriber.destination())) {
+                patterns.remove(subscriber);
+                return;
+            }
+            byDestination.computeIfPresent(subscriber.destination(), (key, current) -> {
+                List<Subscriber> updated = new ArrayList<>(current);
+                updated.remove(subscriber);
+                return updated.isEmpty() ? null : List.copyOf(updated);
+            });
+        }
+
+        private boolean mayMatch(String destination) {
+            return byDestination.containsKey(destination) || !patterns.isEmpty();
+        }
+
+        private void dispatch(String destination, Message<?> message) {
+            executor.execute(() -> {
+                List<Subscriber> subscribers = byDestination.get(destination);
+                if (subscribers != null) {
+                    for (Subscriber subscriber : subscribers) {
+                        deliver(subscriber.sessionId(), subscriber.subscriptionId(), message);
+                    }
+                }
+                for (Subscriber subscriber : patterns) {
+                    if (pathMatcher.match(subscriber.destination(), destination)) {
+                        deliver(subscriber.sessionId(), subscriber.subscriptionId(), message);
+                    }
+                }
+            });
+        }
+    }
+}
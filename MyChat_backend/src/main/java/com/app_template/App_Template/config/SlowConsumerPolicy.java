@@ -0,0 +1,82 @@
+package com.app_template.App_Template.config;
+
+import java.util.Iterator;
+
+// Ce se întâmplă când coada de ieșire a unei sesiuni ar depăși app.websocket.send-buffer-size-limit.
+// Apelată sub lock-ul cozii; poate scoate frame-uri din backlog (iterator.remove) ca să facă loc.
+// Dacă după decizia ENQUEUE tot nu e loc, sesiunea e închisă: memoria per sesiune rămâne limitată.
+public interface SlowConsumerPolicy {
+
+    enum Decision { ENQUEUE, DROP, DISCONNECT }
+
+    interface Backlog {
+        // Frame-urile din coadă, de la cel mai vechi; remove() actualizează bytes()
+        Iterator<OutboundFrame> iterator();
+
+        int bytes();
+
+        int limit();
+    }
+
+    Decision onOverflow(Backlog backlog, OutboundFrame incoming);
+
+    static SlowConsumerPolicy of(String name) {
+        return switch (name) {
+            case "drop-ephemeral" -> new DropEphemeral();
+            case "coalesce" -> new Coalesce();
+            case "disconnect" -> new Disconnect();
+            default -> throw new IllegalArgumentException("Unknown slow consumer policy: " + name);
+        };
+    }
+
+    private static boolean fits(Backlog backlog, OutboundFrame incoming) {
+        return backlog.bytes() + incoming.size() <= backlog.limit();
+    }
+
+    // Scoate frame-urile efemere, de la cel mai vechi, până încape frame-ul nou
+    private static boolean evictEphemeral(Backlog backlog, OutboundFrame incoming) {
+        for (Iterator<OutboundFrame> iterator = backlog.iterator(); iterator.hasNext() && !fits(backlog, incoming); ) {
+            if (iterator.next().ephemeral()) {
+                iterator.remove();
+            }
+        }
+        return fits(backlog, incoming);
+    }
+
+    // Implicit: cât timp clientul e în urmă nu mai primește typing/presence; mesajele au prioritate
+    final class DropEphemeral implements SlowConsumerPolicy {
+        @Override
+        public Decision onOverflow(Backlog backlog, OutboundFrame incoming) {
+            if (incoming.ephemeral()) {
+                return Decision.DROP;
+            }
+            return evictEphemeral(backlog, incoming) ? Decision.ENQUEUE : Decision.DISCONNECT;
+        }
+    }
+
+    // Ca DropEphemeral, dar un frame efemer nou îl înlocuiește pe cel vechi cu aceeași destinație
+    // (clientul primește ultima stare în loc de niciuna)
+    final class Coalesce implements SlowConsumerPolicy {
+        @Override
+        public Decision onOverflow(Backlog backlog, OutboundFrame incoming) {
+            if (!incoming.ephemeral()) {
+                return evictEphemeral(backlog, incoming) ? Decision.ENQUEUE : Decision.DISCONNECT;
+            }
+            for (Iterator<OutboundFrame> iterator = backlog.iterator(); iterator.hasNext(); ) {
+                OutboundFrame queued = iterator.next();
+                if (queued.ephemeral() && incoming.destination().equals(queued.destination())) {
+                    iterator.remove();
+                }
+            }
+            return fits(backlog, incoming) ? Decision.ENQUEUE : Decision.DROP;
+        }
+    }
+
+    // Comportamentul standard Spring (OverflowStrategy.TERMINATE)
+    final class Disconnect implements SlowConsumerPolicy {
+        @Override
+        public Decision onOverflow(Backlog backlog, OutboundFrame incoming) {
+            return Decision.DISCONNECT;
+        }
+    }
+}
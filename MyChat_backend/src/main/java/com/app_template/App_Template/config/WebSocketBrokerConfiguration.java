@@ -0,0 +1,86 @@
+package com.app_template.App_Template.config;
+
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.messaging.simp.broker.AbstractBrokerMessageHandler;
+import org.springframework.messaging.simp.broker.SimpleBrokerMessageHandler;
+import org.springframework.messaging.simp.user.UserDestinationResolver;
+import org.springframework.messaging.support.AbstractSubscribableChannel;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.config.annotation.DelegatingWebSocketMessageBrokerConfiguration;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+// Înlocuiește @EnableWebSocketMessageBroker: aceeași configurare (WebSocketConfig rămâne configurer-ul),
+// dar broker-ul pentru prefixele din enableSimpleBroker e ShardedBrokerMessageHandler, iar sesiunile
+// au cozi de ieșire limitate cu politică de slow consumer (BoundedSubProtocolWebSocketHandler)
+@Configuration
+public class WebSocketBrokerConfiguration extends DelegatingWebSocketMessageBrokerConfiguration {
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    // 0 = câte un thread de livrare per procesor
+    @Value("${app.websocket.broker.partitions:0}")
+    private int partitions;
+
+    @Value("${app.websocket.broker.partition-queue-capacity:10000}")
+    private int partitionQueueCapacity;
+
+    @Autowired
+    private OutboundBacklogMonitor outboundBacklogMonitor;
+
+    // drop-ephemeral | coalesce | disconnect
+    @Value("${app.websocket.slow-consumer.policy:drop-ephemeral}")
+    private String slowConsumerPolicy;
+
+    // Agregarea frame-urilor MESSAGE ale unei sesiuni într-o singură scriere WebSocket (opt-in)
+    @Value("${app.websocket.batching.enabled:false}")
+    private boolean batchingEnabled;
+
+    @Value("${app.websocket.batching.window-micros:200}")
+    private long batchingWindowMicros;
+
+    @Value("${app.websocket.batching.max-bytes:16384}")
+    private int batchingMaxBytes;
+
+    @Bean
+    @Override
+    public WebSocketHandler subProtocolWebSocketHandler(
+            @Qualifier("clientInboundChannel") AbstractSubscribableChannel clientInboundChannel,
+            @Qualifier("clientOutboundChannel") AbstractSubscribableChannel clientOutboundChannel) {
+        BoundedSubProtocolWebSocketHandler handler = new BoundedSubProtocolWebSocketHandler(
+                clientInboundChannel, clientOutboundChannel, SlowConsumerPolicy.of(slowConsumerPolicy), outboundBacklogMonitor,
+                batchingEnabled ? new BoundedWebSocketSession.Batching(
+                        TimeUnit.MICROSECONDS.toNanos(batchingWindowMicros), batchingMaxBytes) : null);
+        handler.setPhase(getPhase());
+        return handler;
+    }
+
+    @Bean
+    @Override
+    public AbstractBrokerMessageHandler simpleBrokerMessageHandler(
+            @Qualifier("clientInboundChannel") AbstractSubscribableChannel clientInboundChannel,
+            @Qualifier("clientOutboundChannel") AbstractSubscribableChannel clientOutboundChannel,
+            @Qualifier("brokerChannel") AbstractSubscribableChannel brokerChannel,
+            UserDestinationResolver userDestinationResolver) {
+        // Folosit doar ca sursă pentru prefixele și opțiunile din WebSocketConfig.configureMessageBroker; nu e pornit
+        AbstractBrokerMessageHandler configured = super.simpleBrokerMessageHandler(
+                clientInboundChannel, clientOutboundChannel, brokerChannel, userDestinationResolver);
+        if (!(configured instanceof SimpleBrokerMessageHandler registration)) {
+            return null;
+        }
+        int partitionCount = partitions > 0 ? partitions : Runtime.getRuntime().availableProcessors();
+        ShardedBrokerMessageHandler handler = new ShardedBrokerMessageHandler(
+                clientInboundChannel, clientOutboundChannel, brokerChannel,
+                registration.getDestinationPrefixes(), partitionCount, partitionQueueCapacity, meterRegistry);
+        handler.setPreservePublishOrder(registration.isPreservePublishOrder());
+        handler.setPhase(getPhase());
+        return handler;
+    }
+}
@@ -0,0 +1,115 @@
+package com.app_template.App_Template.config;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.Locale;
+
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+
+// Controlul permessage-deflate pentru handshake-urile WebSocket. Tomcat negociază extensia singur, din header-ul
+// Sec-WebSocket-Extensions al cererii, ori de câte ori clientul o oferă; filtrul rescrie header-ul înainte de upgrade:
+// fără compresie îl ascunde, iar fără context takeover adaugă server_no_context_takeover și client_no_context_takeover
+// la ofertele permessage-deflate (fiecare mesaj comprimat separat, fără fereastra zlib păstrată per sesiune).
+public class WebSocketCompressionFilter extends OncePerRequestFilter {
+
+    static final String EXTENSIONS_HEADER = "Sec-WebSocket-Extensions";
+    private static final String PERMESSAGE_DEFLATE = "permessage-deflate";
+    private static final String SERVER_NO_CONTEXT_TAKEOVER = "server_no_context_takeover";
+    private static final String CLIENT_NO_CONTEXT_TAKEOVER = "client_no_context_takeover";
+
+    private final boolean compressionEnabled;
+    private final boolean contextTakeover;
+
+    public WebSocketCompressionFilter(boolean compressionEnabled, boolean contextTakeover) {
+        this.compressionEnabled = compressionEnabled;
+        this.contextTakeover = contextTakeover;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String offered = request.getHeader(EXTENSIONS_HEADER);
+        if (offered == null || (compressionEnabled && contextTakeover)) {
+            chain.doFilter(request, response);
+            return;
+        }
+        List<String> extensions = new ArrayList<>();
+        for (Enumeration<String> values = request.getHeaders(EXTENSIONS_HEADER); values.hasMoreElements(); ) {
+            String rewritten = rewrite(values.nextElement());
+            if (!rewritten.isEmpty()) {
+                extensions.add(rewritten);
+            }
+        }
+        chain.doFilter(new ExtensionsRequest(request, extensions), response);
+    }
+
+    // Un header poate conține mai multe oferte separate prin virgulă, fiecare cu parametri separați prin ';'
+    String rewrite(String header) {
+        List<String> offers = new ArrayList<>();
+        for (String offer : header.split(",")) {
+            String trimmed = offer.trim();
+            String name = trimmed.split(";", 2)[0].trim().toLowerCase(Locale.ROOT);
+            if (!PERMESSAGE_DEFLATE.equals(name)) {
+                offers.add(trimmed);
+                continue;
+            }
+            if (!compressionEnabled) {
+                continue;
+            }
+            String lower = trimmed.toLowerCase(Locale.ROOT);
+            StringBuilder rewritten = new StringBuilder(trimmed);
+            if (!lower.contains(SERVER_NO_CONTEXT_TAKEOVER)) {
+                rewritten.append("; ").append(SERVER_NO_CONTEXT_TAKEOVER);
+            }
+            if (!lower.contains(CLIENT_NO_CONTEXT_TAKEOVER)) {
+                rewritten.append("; ").append(CLIENT_NO_CONTEXT_TAKEOVER);
+            }
+            offers.add(rewritten.toString());
+        }
+        return String.join(", ", offers);
+    }
+
+    private static final class ExtensionsRequest extends HttpServletRequestWrapper {
+
+        private final List<String> extensions;
+
+        private ExtensionsRequest(HttpServletRequest request, List<String> extensions) {
+            super(request);
+            this.extensions = extensions;
+        }
+
+        @Override
+        public String getHeader(String name) {
+            if (EXTENSIONS_HEADER.equalsIgnoreCase(name)) {
+                return extensions.isEmpty() ? null : extensions.get(0);
+            }
+            return super.getHeader(name);
+        }
+
+        @Override
+        public Enumeration<String> getHeaders(String name) {
+            if (EXTENSIONS_HEADER.equalsIgnoreCase(name)) {
+                return Collections.enumeration(extensions);
+            }
+            return super.getHeaders(name);
+        }
+
+        @Override
+        public Enumeration<String> getHeaderNames() {
+            List<String> names = Collections.list(super.getHeaderNames());
+            if (extensions.isEmpty()) {
+                names.removeIf(EXTENSIONS_HEADER::equalsIgnoreCase);
+            }
+            return Collections.enumeration(names);
+        }
+    }
+}
@@ -1,17 +1,26 @@
 package com.app_template.App_Template.config;
 
+import java.util.List;
+
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.messaging.converter.MessageConverter;
 import org.springframework.messaging.simp.config.ChannelRegistration;
 import org.springframework.messaging.simp.config.MessageBrokerRegistry;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.security.core.userdetails.UserDetailsService;
-import org.springframework.web.socket.config.annotation.EnableWebSocketMessageBroker;
 import org.springframework.web.socket.config.annotation.StompEndpointRegistry;
 import org.springframework.web.socket.config.annotation.WebSocketMessageBrokerConfigurer;
+import org.springframework.web.socket.config.annotation.WebSocketTransportRegistration;
+
+import io.micrometer.core.instrument.MeterRegistry;
 
+// Broker-ul e activat de WebSocketBrokerConfiguration (ShardedBrokerMessageHandler), nu de @EnableWebSocketMessageBroker
 @Configuration
-@EnableWebSocketMessageBroker
 @RequiredArgsConstructor
 public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
 
@@ -25,23 +34,135 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
     @Autowired
     private final JwtChannelInterceptor jwtChannelInterceptor;
 
+    @Autowired
+    private final WireFormatInterceptor wireFormatInterceptor;
+
+    @Autowired
+    private final WireMessageConverter wireMessageConverter;
+
+    @Autowired
+    private final RoomSubscriptionInterceptor roomSubscriptionInterceptor;
+
+    @Autowired
+    private final MeterRegistry meterRegistry;
+
+    // Pool-urile canalelor au dimensiuni explicite (implicit Spring folosește 2 x procesoare și coadă nelimitată);
+    // Boot le expune în Micrometer ca executor{name=clientInboundChannelExecutor|clientOutboundChannelExecutor|brokerChannelExecutor}.
+    // Cu coada plină, mesajul rulează pe thread-ul apelant (backpressure, fără pierderi); vezi ChannelRejectionHandler.
+    @Value("${app.websocket.inbound.core-pool-size:8}")
+    private int inboundCorePoolSize;
+
+    @Value("${app.websocket.inbound.max-pool-size:32}")
+    private int inboundMaxPoolSize;
+
+    @Value("${app.websocket.inbound.queue-capacity:10000}")
+    private int inboundQueueCapacity;
+
+    @Value("${app.websocket.outbound.core-pool-size:8}")
+    private int outboundCorePoolSize;
+
+    @Value("${app.websocket.outbound.max-pool-size:32}")
+    private int outboundMaxPoolSize;
+
+    @Value("${app.websocket.outbound.queue-capacity:50000}")
+    private int outboundQueueCapacity;
+
+    @Value("${app.websocket.broker-channel.core-pool-size:4}")
+    private int brokerCorePoolSize;
+
+    @Value("${app.websocket.broker-channel.max-pool-size:16}")
+    private int brokerMaxPoolSize;
+
+    @Value("${app.websocket.broker-channel.queue-capacity:10000}")
+    private int brokerQueueCapacity;
+
+    // Limitele cozii de ieșire per sesiune; la depășire decide app.websocket.slow-consumer.policy
+    @Value("${app.websocket.send-buffer-size-limit:524288}")
+    private int sendBufferSizeLimit;
+
+    @Value("${app.websocket.send-time-limit-ms:10000}")
+    private int sendTimeLimit;
+
+    @Value("${app.websocket.message-size-limit:65536}")
+    private int messageSizeLimit;
+
+    // permessage-deflate e negociat doar dacă e activat aici și clientul îl oferă la handshake
+    @Value("${app.websocket.compression.enabled:false}")
+    private boolean compressionEnabled;
+
+    @Value("${app.websocket.compression.context-takeover:true}")
+    private boolean compressionContextTakeover;
+
+    @Bean
+    public FilterRegistrationBean<WebSocketCompressionFilter> webSocketCompressionFilter() {
+        FilterRegistrationBean<WebSocketCompressionFilter> registration = new FilterRegistrationBean<>(
+                new WebSocketCompressionFilter(compressionEnabled, compressionContextTakeover));
+        registration.addUrlPatterns("/ws/*", "/ws-native");
+        return registration;
+    }
+
     @Override
     public void registerStompEndpoints(StompEndpointRegistry registry) {
         registry.addEndpoint("/ws")
                 .setAllowedOriginPatterns("*")
                 .addInterceptors(new JwtHandshakeInterceptor(jwtService, userDetailsService))
                 .withSockJS();
+        // Fără SockJS: singurul endpoint pe care clienții pot negocia un format binar (wire-codec: cbor|smile)
+        registry.addEndpoint("/ws-native")
+                .setAllowedOriginPatterns("*")
+                .addInterceptors(new JwtHandshakeInterceptor(jwtService, userDetailsService),
+                        new BinaryTransportHandshakeInterceptor());
+    }
+
+    @Override
+    public boolean configureMessageConverters(List<MessageConverter> messageConverters) {
+        // Primul, indiferent de ordinea configurer-elor (Spring Boot își adaugă converterul Jackson în aceeași listă)
+        messageConverters.add(0, wireMessageConverter);
+        return true;
     }
 
     @Override
     public void configureMessageBroker(MessageBrokerRegistry registry) {
         registry.setApplicationDestinationPrefixes("/app");
+        // Prefixele sunt preluate de ShardedBrokerMessageHandler
         registry.enableSimpleBroker("/topic", "/user");
+        registry.configureBrokerChannel().taskExecutor(channelExecutor("brokerChannel"))
+                .corePoolSize(brokerCorePoolSize)
+                .maxPoolSize(brokerMaxPoolSize)
+                .queueCapacity(brokerQueueCapacity);
+    }
+
+    @Override
+    public void configureWebSocketTransport(WebSocketTransportRegistration registration) {
+        registration.setSendBufferSizeLimit(sendBufferSizeLimit)
+                .setSendTimeLimit(sendTimeLimit)
+                .setMessageSizeLimit(messageSizeLimit);
     }
 
     @Override
     public void configureClientInboundChannel(ChannelRegistration registration) {
         // Folosește bean-ul injectat în loc să-l creezi manual
-        registration.interceptors(jwtChannelInterceptor);
+        registration.interceptors(jwtChannelInterceptor, roomSubscriptionInterceptor, wireFormatInterceptor);
+        registration.taskExecutor(channelExecutor("clientInboundChannel"))
+                .corePoolSize(inboundCorePoolSize)
+                .maxPoolSize(inboundMaxPoolSize)
+                .queueCapacity(inboundQueueCapacity);
+    }
+
+    @Override
+    public void configureClientOutboundChannel(ChannelRegistration registration) {
+        registration.interceptors(wireFormatInterceptor);
+        registration.taskExecutor(channelExecutor("clientOutboundChannel"))
+                .corePoolSize(outboundCorePoolSize)
+                .maxPoolSize(outboundMaxPoolSize)
+                .queueCapacity(outboundQueueCapacity);
+    }
+
+    // Executor furnizat de noi: Spring nu-i mai setează prefixul thread-urilor, deci îl păstrăm pe cel implicit
+    private ThreadPoolTaskExecutor channelExecutor(String channel) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setThreadNamePrefix(channel + "-");
+        executor.setRejectedExecutionHandler(new ChannelRejectionHandler(channel, meterRegistry));
+        return executor;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,144 @@
+package com.app_template.App_Template.config;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.security.core.Authentication;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+// Autentificarea sesiunilor STOMP, stabilită o singură dată la CONNECT (JwtChannelInterceptor). Intrările sunt
+// scoase la SessionDisconnectEvent (publicat și la închiderea bruscă a socket-ului), la expirarea token-ului JWT
+// și după idle-timeout-ms fără niciun frame de la client (inclusiv heartbeat-uri), pentru sesiunile pierdute.
+@Slf4j
+@Component
+public class WebSocketSessionRegistry {
+
+    private final Map<String, Entry> sessions = new ConcurrentHashMap<>();
+    private final long idleTimeoutMs;
+    private final long sweepIntervalMs;
+    private final Counter closed;
+    private final Counter expiredToken;
+    private final Counter expiredIdle;
+    private ScheduledExecutorService sweeper;
+
+    public WebSocketSessionRegistry(
+            MeterRegistry meterRegistry,
+            @Value("${app.websocket.sessions.idle-timeout-ms:900000}") long idleTimeoutMs,
+            @Value("${app.websocket.sessions.sweep-interval-ms:60000}") long sweepIntervalMs) {
+        this.idleTimeoutMs = idleTimeoutMs;
+        this.sweepIntervalMs = sweepIntervalMs;
+        this.closed = evictions(meterRegistry, "disconnect");
+        this.expiredToken = evictions(meterRegistry, "token");
+        this.expiredIdle = evictions(meterRegistry, "idle");
+        Gauge.builder("ws.sessions.registered", sessions, Map::size)
+                .description("Authenticated STOMP sessions on this node")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        sweeper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "ws-session-sweeper");
+            thread.setDaemon(true);
+            return thread;
+        });
+        sweeper.scheduleWithFixedDelay(() -> {
+            try {
+                sweep(System.currentTimeMillis());
+            } catch (Exception e) {
+                log.warn("WebSocket session sweep failed: {}", e.getMessage());
+            }
+        }, sweepIntervalMs, sweepIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        sweeper.shutdownNow();
+    }
+
+    public void register(String sessionId, Authentication authentication, long tokenExpiresAt) {
+        sessions.put(sessionId, new Entry(authentication, tokenExpiresAt, System.currentTimeMillis()));
+    }
+
+    // null dacă sesiunea nu e cunoscută sau token-ul a expirat; altfel marchează activitatea sesiunii.
+    // Fără acces la baza de date: apelat pentru fiecare frame primit.
+    public Authentication getAuthentication(String sessionId) {
+        if (sessionId == null) {
+            return null;
+        }
+        Entry entry = sessions.get(sessionId);
+        if (entry == null) {
+            return null;
+        }
+        long now = System.currentTimeMillis();
+        if (now >= entry.tokenExpiresAt) {
+            if (sessions.remove(sessionId, entry)) {
+                expiredToken.increment();
+            }
+            return null;
+        }
+        entry.lastActivity = now;
+        return entry.authentication;
+    }
+
+    public void remove(String sessionId) {
+        if (sessionId != null && sessions.remove(sessionId) != null) {
+            closed.increment();
+        }
+    }
+
+    public int size() {
+        return sessions.size();
+    }
+
+    @EventListener
+    public void onDisconnect(SessionDisconnectEvent event) {
+        remove(event.getSessionId());
+    }
+
+    void sweep(long now) {
+        for (Iterator<Entry> iterator = sessions.values().iterator(); iterator.hasNext(); ) {
+            Entry entry = iterator.next();
+            if (now >= entry.tokenExpiresAt) {
+                iterator.remove();
+                expiredToken.increment();
+            } else if (now - entry.lastActivity > idleTimeoutMs) {
+                iterator.remove();
+                expiredIdle.increment();
+            }
+        }
+    }
+
+    private static Counter evictions(MeterRegistry meterRegistry, String reason) {
+        return Counter.builder("ws.sessions.evicted")
+                .tag("reason", reason)
+                .description("Sessions removed from the WebSocket session registry")
+                .register(meterRegistry);
+    }
+
+    private static final class Entry {
+        private final Authentication authentication;
+        private final long tokenExpiresAt;
+        private volatile long lastActivity;
+
+        private Entry(Authentication authentication, long tokenExpiresAt, long lastActivity) {
+            this.authentication = authentication;
+            this.tokenExpiresAt = tokenExpiresAt;
+            this.lastActivity = lastActivity;
+        }
+    }
+}
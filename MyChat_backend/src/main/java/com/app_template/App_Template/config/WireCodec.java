@@ -0,0 +1,47 @@
+package com.app_template.App_Template.config;
+
+import java.util.Locale;
+
+import org.springframework.util.MimeType;
+import org.springframework.util.MimeTypeUtils;
+
+// Formatele în care pot fi codificate payload-urile trimise clienților. Clientul alege prin header-ul STOMP
+// wire-codec la CONNECT; cele binare sunt acceptate doar pe endpoint-ul WebSocket nativ (SockJS e doar text).
+public enum WireCodec {
+    JSON(MimeTypeUtils.APPLICATION_JSON),
+    CBOR(new MimeType("application", "cbor")),
+    SMILE(new MimeType("application", "x-jackson-smile"));
+
+    public static final String HEADER = "wire-codec";
+
+    private final MimeType mimeType;
+
+    WireCodec(MimeType mimeType) {
+        this.mimeType = mimeType;
+    }
+
+    public MimeType getMimeType() {
+        return mimeType;
+    }
+
+    public boolean isBinary() {
+        return this != JSON;
+    }
+
+    public String headerValue() {
+        return name().toLowerCase(Locale.ROOT);
+    }
+
+    // Header lipsă sau necunoscut = JSON
+    public static WireCodec of(String value) {
+        if (value == null) {
+            return JSON;
+        }
+        for (WireCodec codec : values()) {
+            if (codec.headerValue().equalsIgnoreCase(value.trim())) {
+                return codec;
+            }
+        }
+        return JSON;
+    }
+}
@@ -0,0 +1,122 @@
+package com.app_template.App_Template.config;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageHandler;
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.support.ExecutorChannelInterceptor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.messaging.support.MessageHeaderAccessor;
+import org.springframework.messaging.support.NativeMessageHeaderAccessor;
+import org.springframework.stereotype.Component;
+import org.springframework.util.MimeTypeUtils;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+// Negocierea formatului: pe canalul inbound reține formatul cerut la CONNECT (header-ul wire-codec), pe canalul
+// outbound codifică WirePayload-urile în formatul sesiunii destinatar. Codificarea rulează pe thread-urile
+// canalului outbound (beforeHandle), nu pe cele ale broker-ului. Frame-urile binare au content-type
+// application/octet-stream (singurul pentru care Spring trimite BinaryMessage) și header-ul wire-codec.
+@Slf4j
+@Component
+public class WireFormatInterceptor implements ExecutorChannelInterceptor {
+
+    private final WireMessageConverter converter;
+    // Doar sesiunile care nu folosesc JSON
+    private final Map<String, WireCodec> sessionCodecs = new ConcurrentHashMap<>();
+    private final Map<WireCodec, DistributionSummary> encodedBytes = new ConcurrentHashMap<>();
+    private final MeterRegistry meterRegistry;
+
+    public WireFormatInterceptor(WireMessageConverter converter, MeterRegistry meterRegistry) {
+        this.converter = converter;
+        this.meterRegistry = meterRegistry;
+        Gauge.builder("ws.wire.binary-sessions", sessionCodecs, Map::size)
+                .description("WebSocket sessions that negotiated a binary codec")
+                .register(meterRegistry);
+    }
+
+    public WireCodec codecOf(String sessionId) {
+        return sessionId == null ? WireCodec.JSON : sessionCodecs.getOrDefault(sessionId, WireCodec.JSON);
+    }
+
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        SimpMessageType type = SimpMessageHeaderAccessor.getMessageType(message.getHeaders());
+        String sessionId = SimpMessageHeaderAccessor.getSessionId(message.getHeaders());
+        if (sessionId == null) {
+            return message;
+        }
+        if (type == SimpMessageType.CONNECT) {
+            WireCodec codec = negotiate(message);
+            if (codec.isBinary()) {
+                sessionCodecs.put(sessionId, codec);
+            }
+        } else if (type == SimpMessageType.DISCONNECT) {
+            sessionCodecs.remove(sessionId);
+        }
+        return message;
+    }
+
+    @Override
+    public Message<?> beforeHandle(Message<?> message, MessageChannel channel, MessageHandler handler) {
+        if (!(message.getPayload() instanceof WirePayload payload)) {
+            return message;
+        }
+        WireCodec codec = codecOf(SimpMessageHeaderAccessor.getSessionId(message.getHeaders()));
+        byte[] bytes;
+        try {
+            boolean first = payload.getEncoded(codec) == null;
+            bytes = converter.encode(payload, codec);
+            if (first) {
+                encodedBytes.computeIfAbsent(codec, this::summaryFor).record(bytes.length);
+            }
+        } catch (Exception e) {
+            log.error("Could not encode {} as {}", payload.getValue().getClass().getSimpleName(), codec, e);
+            return null;
+        }
+
+        MessageHeaderAccessor accessor = MessageHeaderAccessor.getMutableAccessor(message);
+        if (codec.isBinary()) {
+            accessor.setHeader(MessageHeaders.CONTENT_TYPE, MimeTypeUtils.APPLICATION_OCTET_STREAM);
+            if (accessor instanceof NativeMessageHeaderAccessor nativeAccessor) {
+                nativeAccessor.setNativeHeader(WireCodec.HEADER, codec.headerValue());
+            }
+        } else {
+            accessor.setHeader(MessageHeaders.CONTENT_TYPE, codec.getMimeType());
+        }
+        return MessageBuilder.createMessage(bytes, accessor.getMessageHeaders());
+    }
+
+    private WireCodec negotiate(Message<?> message) {
+        SimpMessageHeaderAccessor accessor = MessageHeaderAccessor.getAccessor(message, SimpMessageHeaderAccessor.class);
+        if (accessor == null) {
+            return WireCodec.JSON;
+        }
+        WireCodec requested = WireCodec.of(accessor.getFirstNativeHeader(WireCodec.HEADER));
+        if (!requested.isBinary()) {
+            return requested;
+        }
+        Map<String, Object> attributes = accessor.getSessionAttributes();
+        if (attributes == null || !Boolean.TRUE.equals(attributes.get(BinaryTransportHandshakeInterceptor.ATTRIBUTE))) {
+            log.debug("Session {} asked for {} over a text-only transport, using JSON", accessor.getSessionId(), requested);
+            return WireCodec.JSON;
+        }
+        return requested;
+    }
+
+    private DistributionSummary summaryFor(WireCodec codec) {
+        return DistributionSummary.builder("ws.wire.payload.bytes")
+                .description("Size of encoded outbound payloads, counted once per payload and codec")
+                .baseUnit("bytes")
+                .tag("codec", codec.headerValue())
+                .register(meterRegistry);
+    }
+}
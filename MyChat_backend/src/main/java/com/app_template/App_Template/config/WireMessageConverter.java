@@ -0,0 +1,62 @@
+package com.app_template.App_Template.config;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.messaging.converter.AbstractMessageConverter;
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+
+// Primul converter al template-ului de mesagerie: obiectele trimise clienților (convertAndSend/ToUser, @SendTo)
+// nu mai sunt serializate la trimitere, ci împachetate în WirePayload și codificate la ieșire, per format.
+// String și byte[] merg mai departe la converterele implicite; payload-urile primite de la clienți sunt
+// citite în continuare de converterul Jackson.
+@Component
+public class WireMessageConverter extends AbstractMessageConverter {
+
+    private final Map<WireCodec, ObjectMapper> mappers = new EnumMap<>(WireCodec.class);
+
+    // Același ObjectMapper ca pentru JSON (module, formatul datelor), doar cu alt JsonFactory pentru cele binare
+    public WireMessageConverter(ObjectMapper objectMapper) {
+        super(WireCodec.JSON.getMimeType());
+        mappers.put(WireCodec.JSON, objectMapper);
+        mappers.put(WireCodec.CBOR, objectMapper.copyWith(new CBORFactory()));
+        mappers.put(WireCodec.SMILE, objectMapper.copyWith(new SmileFactory()));
+    }
+
+    // Codificarea e memorată în payload: a doua sesiune cu același format primește aceiași bytes
+    public byte[] encode(WirePayload payload, WireCodec codec) throws JsonProcessingException {
+        byte[] bytes = payload.getEncoded(codec);
+        if (bytes == null) {
+            bytes = mappers.get(codec).writeValueAsBytes(payload.getValue());
+            payload.setEncoded(codec, bytes);
+        }
+        return bytes;
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return true;
+    }
+
+    @Override
+    protected boolean canConvertFrom(Message<?> message, Class<?> targetClass) {
+        return false;
+    }
+
+    @Override
+    protected boolean canConvertTo(Object payload, MessageHeaders headers) {
+        return !(payload instanceof String) && !(payload instanceof byte[]) && super.canConvertTo(payload, headers);
+    }
+
+    @Override
+    protected Object convertToInternal(Object payload, MessageHeaders headers, Object conversionHint) {
+        return WirePayload.of(payload);
+    }
+}
@@ -0,0 +1,37 @@
+package com.app_template.App_Template.config;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import com.fasterxml.jackson.annotation.JsonValue;
+
+// Payload-ul unui frame către clienți, încă necodificat. Broker-ul îl copiază neschimbat în mesajul fiecărei
+// sesiuni, iar WireFormatInterceptor îl codifică pe canalul outbound în formatul sesiunii: o singură dată per
+// format, oricâte sesiuni (și oricâte apeluri convertAndSend cu același WirePayload) îl primesc.
+public final class WirePayload {
+
+    private final Object value;
+    // Indexat după WireCodec.ordinal(); două thread-uri pot codifica simultan, rezultatul e același
+    private final AtomicReferenceArray<byte[]> encoded = new AtomicReferenceArray<>(WireCodec.values().length);
+
+    private WirePayload(Object value) {
+        this.value = value;
+    }
+
+    public static WirePayload of(Object value) {
+        return value instanceof WirePayload payload ? payload : new WirePayload(value);
+    }
+
+    // Serializarea Jackson directă (ex. ClusterMessenger.valueToTree) vede doar valoarea
+    @JsonValue
+    public Object getValue() {
+        return value;
+    }
+
+    byte[] getEncoded(WireCodec codec) {
+        return encoded.get(codec.ordinal());
+    }
+
+    void setEncoded(WireCodec codec, byte[] bytes) {
+        encoded.set(codec.ordinal(), bytes);
+    }
+}
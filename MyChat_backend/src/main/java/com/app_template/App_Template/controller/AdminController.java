@@ -5,16 +5,24 @@ import java.util.List;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import com.app_template.App_Template.config.OutboundBacklogMonitor;
+import com.app_template.App_Template.dto.BroadcastProgressDto;
+import com.app_template.App_Template.dto.LaggingSessionDto;
 import com.app_template.App_Template.dto.UserDto;
+import com.app_template.App_Template.entity.User;
+import com.app_template.App_Template.repository.UserRepository;
 import com.app_template.App_Template.service.admin.AdminService;
+import com.app_template.App_Template.service.announcement.AnnouncementService;
 
 import jakarta.persistence.EntityNotFoundException;
 import lombok.RequiredArgsConstructor;
@@ -25,6 +33,14 @@ import lombok.RequiredArgsConstructor;
 public class AdminController {
 
     private final AdminService adminService;
+    private final OutboundBacklogMonitor outboundBacklogMonitor;
+    private final AnnouncementService announcementService;
+    private final UserRepository userRepository;
+
+    public static class BroadcastRequest {
+        public String title;
+        public String content;
+    }
 
     @GetMapping("/users")
     @PreAuthorize("hasRole('ADMIN')")
@@ -71,6 +87,47 @@ public class AdminController {
         }
     }
 
+    // Anunț către toți userii: salvat o dată, trimis live sesiunilor conectate în loturi; progresul vine
+    // pe /user/queue/broadcasts și prin GET /broadcasts/{id}
+    @PostMapping("/broadcasts")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<?> broadcast(@RequestBody BroadcastRequest request, Authentication authentication) {
+        User admin = userRepository.findByEmail(authentication.getName())
+                .orElseThrow(() -> new EntityNotFoundException("User not found"));
+        try {
+            BroadcastProgressDto progress = announcementService.broadcast(
+                    admin.getId(), admin.getEmail(), request.title, request.content);
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(progress);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    @GetMapping("/broadcasts/{announcementId}")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<?> getBroadcastProgress(@PathVariable Long announcementId) {
+        try {
+            return ResponseEntity.ok(announcementService.getProgress(announcementId));
+        } catch (EntityNotFoundException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
+        }
+    }
+
+    @DeleteMapping("/broadcasts/{announcementId}")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<?> cancelBroadcast(@PathVariable Long announcementId) {
+        return announcementService.cancel(announcementId)
+                ? ResponseEntity.ok().build()
+                : ResponseEntity.status(HttpStatus.CONFLICT).build();
+    }
+
+    // Sesiunile WebSocket cu cea mai mare coadă de ieșire (clienții care nu țin pasul)
+    @GetMapping("/websocket/lagging")
+    @PreAuthorize("hasRole('ADMIN')")
+    public List<LaggingSessionDto> getLaggingSessions(@RequestParam(defaultValue = "20") int limit) {
+        return outboundBacklogMonitor.topLagging(Math.min(limit, 500));
+    }
+
     @GetMapping("/get-user/{userId}")
     public ResponseEntity<?> getUser(@PathVariable(name="userId") Long userId) {
         try{
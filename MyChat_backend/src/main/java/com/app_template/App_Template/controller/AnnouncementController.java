@@ -0,0 +1,33 @@
+package com.app_template.App_Template.controller;
+
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.app_template.App_Template.dto.AnnouncementDto;
+import com.app_template.App_Template.service.announcement.AnnouncementService;
+
+import lombok.RequiredArgsConstructor;
+
+@RestController
+@RequestMapping("/api/announcements")
+@RequiredArgsConstructor
+public class AnnouncementController {
+
+    @Autowired
+    private AnnouncementService announcementService;
+
+    // REST endpoint - anunțurile ratate cât userul a fost offline: ?after=<ultimul id văzut>; cele noi vin
+    // live pe /user/queue/announcements
+    @GetMapping
+    public ResponseEntity<List<AnnouncementDto>> getAnnouncements(
+            @RequestParam(required = false) Long after,
+            @RequestParam(defaultValue = "20") int limit) {
+        return ResponseEntity.ok(announcementService.getAnnouncements(after, limit));
+    }
+}
@@ -1,13 +1,18 @@
 package com.app_template.App_Template.controller;
 
 import java.security.Principal;
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Locale;
 
-import com.app_template.App_Template.config.JwtChannelInterceptor;
+import com.app_template.App_Template.config.WebSocketSessionRegistry;
 import jakarta.transaction.Transactional;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.messaging.handler.annotation.MessageMapping;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
@@ -18,11 +23,23 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import com.app_template.App_Template.dto.ChatProfileDto;
+import com.app_template.App_Template.dto.ConversationHistoryDto;
 import com.app_template.App_Template.dto.MessageDto;
+import com.app_template.App_Template.dto.MessageSearchResultDto;
+import com.app_template.App_Template.dto.SyncBatchDto;
 import com.app_template.App_Template.entity.User;
 import com.app_template.App_Template.repository.UserRepository;
+import com.app_template.App_Template.service.message.ConversationExporter;
+import com.app_template.App_Template.service.message.MessageSearchService;
+import com.app_template.App_Template.service.message.MessageSendPipeline;
 import com.app_template.App_Template.service.message.MessageService;
+import com.app_template.App_Template.service.presence.PresenceService;
+import com.app_template.App_Template.service.sync.SyncService;
+import com.app_template.App_Template.service.typing.TypingRelay;
+import com.app_template.App_Template.service.user.UserService;
 
 import jakarta.persistence.EntityNotFoundException;
 import lombok.RequiredArgsConstructor;
@@ -33,17 +50,41 @@ import org.springframework.messaging.handler.annotation.Header;
 @RequiredArgsConstructor
 public class MessageController {
 
+    private static final int DEFAULT_SYNC_BATCH_SIZE = 200;
+    private static final int MAX_PROFILES_PER_REQUEST = 500;
+
     @Autowired
     private SimpMessagingTemplate messagingTemplate;
 
     @Autowired
     private MessageService messageService;
 
+    @Autowired
+    private MessageSearchService messageSearchService;
+
+    @Autowired
+    private SyncService syncService;
+
+    @Autowired
+    private ConversationExporter conversationExporter;
+
+    @Autowired
+    private PresenceService presenceService;
+
+    @Autowired
+    private TypingRelay typingRelay;
+
+    @Autowired
+    private MessageSendPipeline messageSendPipeline;
+
     @Autowired
     private UserRepository userRepository;
 
     @Autowired
-    private JwtChannelInterceptor jwtChannelInterceptor;
+    private UserService userService;
+
+    @Autowired
+    private WebSocketSessionRegistry webSocketSessionRegistry;
 
     // DTO pentru WebSocket
     public static class ChatMessageDto {
@@ -54,10 +95,25 @@ public class MessageController {
         public LocalDateTime timestamp;
         public Long senderId;
         public Long receiverId;
+        // Generat de client (ex. UUID) și păstrat la retrimitere; serverul confirmă cu ACK/NACK
+        public String clientMessageId;
+    }
+
+    // Cerere de sincronizare prin WebSocket (după reconectare)
+    public static class SyncRequestDto {
+        public Long since;
+        public Integer limit;
+    }
+
+    // Indicator "scrie..." prin WebSocket (typing=false la oprire)
+    public static class TypingRequestDto {
+        public Long receiverId;
+        public Boolean typing;
     }
 
 
-    // WebSocket endpoint - trimite mesaj
+    // WebSocket endpoint - trimite mesaj. Nu blochează canalul inbound: salvarea și fan-out-ul rulează în
+    // MessageSendPipeline; cu clientMessageId expeditorul primește ACK/NACK pe /user/queue/acks.
     @MessageMapping("/chat.sendMessage")
     public void sendMessage(
             ChatMessageDto message,
@@ -65,42 +121,62 @@ public class MessageController {
     ) {
         if (message != null && message.receiverId != null) {
             // Obține Authentication din Map folosind session ID
-            Authentication authentication = jwtChannelInterceptor.getAuthentication(sessionId);
+            Authentication authentication = webSocketSessionRegistry.getAuthentication(sessionId);
 
             if (authentication == null || authentication.getName() == null) {
                 throw new RuntimeException("User not authenticated");
             }
 
-            // Extrage username-ul din Authentication
-            String username = authentication.getName();
-
-            User sender = userRepository.findByEmail(username)
-                    .orElseThrow(() -> new EntityNotFoundException("User not found"));
-
-            User receiver = userRepository.findById(message.receiverId)
-                    .orElseThrow(() -> new EntityNotFoundException("Receiver not found"));
-
-            // Salvează mesajul în DB
-            MessageDto savedMessage = messageService.sendMessage(
-                    sender.getId(),
-                    receiver.getId(),
+            messageSendPipeline.submit(
+                    presenceService.userIdOfSession(sessionId),
+                    authentication.getName(),
+                    message.receiverId,
+                    message.clientMessageId,
                     message.content
             );
+        }
+    }
 
-            // Trimite mesajul către receiver prin WebSocket
-            messagingTemplate.convertAndSendToUser(
-                    receiver.getEmail(),
-                    "/queue/messages",
-                    savedMessage
-            );
+    // WebSocket endpoint - typing start/stop, retransmis destinatarului pe /user/queue/typing.
+    // Doar stare în memorie: expeditorul vine din sesiune, fără lookup în DB.
+    @MessageMapping("/chat.typing")
+    public void typing(
+            TypingRequestDto request,
+            @Header("simpSessionId") String sessionId
+    ) {
+        Long senderId = presenceService.userIdOfSession(sessionId);
+        if (senderId == null || request == null || request.receiverId == null || senderId.equals(request.receiverId)) {
+            return;
+        }
+        typingRelay.update(senderId, request.receiverId, !Boolean.FALSE.equals(request.typing));
+    }
 
-            // Trimite și înapoi către sender pentru confirmare
-            messagingTemplate.convertAndSendToUser(
-                    sender.getEmail(),
-                    "/queue/messages",
-                    savedMessage
-            );
+    // WebSocket endpoint - evenimentele ratate de la `since`; răspunsul vine pe /user/queue/sync.
+    // Clientul repetă cererea cu since=lastSeq cât timp hasMore e true.
+    @MessageMapping("/chat.sync")
+    public void sync(
+            SyncRequestDto request,
+            @Header("simpSessionId") String sessionId
+    ) {
+        Authentication authentication = webSocketSessionRegistry.getAuthentication(sessionId);
+
+        if (authentication == null || authentication.getName() == null) {
+            throw new RuntimeException("User not authenticated");
         }
+
+        User currentUser = userRepository.findByEmail(authentication.getName())
+                .orElseThrow(() -> new EntityNotFoundException("User not found"));
+
+        SyncBatchDto batch = syncService.getEventsSince(
+                currentUser.getId(),
+                request != null && request.since != null ? request.since : 0L,
+                request != null && request.limit != null ? request.limit : DEFAULT_SYNC_BATCH_SIZE);
+
+        messagingTemplate.convertAndSendToUser(
+                currentUser.getEmail(),
+                "/queue/sync",
+                batch
+        );
     }
 
     // REST endpoint - obține lista de useri pentru chat
@@ -113,6 +189,17 @@ public class MessageController {
         return ResponseEntity.ok(users);
     }
 
+    // REST endpoint - profilurile userilor din mesajele primite pe WebSocket (?userIds=1,2,3); clientul le ține în cache
+    @GetMapping("/profiles")
+    public ResponseEntity<List<ChatProfileDto>> getProfiles(@RequestParam List<Long> userIds) {
+        if (userIds.size() > MAX_PROFILES_PER_REQUEST) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.maxAge(Duration.ofMinutes(10)).cachePrivate())
+                .body(userService.getChatProfiles(userIds));
+    }
+
     // REST endpoint - obține conversația cu un user
     @GetMapping("/conversation/{userId}")
     public ResponseEntity<List<MessageDto>> getConversation(
@@ -125,6 +212,65 @@ public class MessageController {
         return ResponseEntity.ok(messages);
     }
 
+    // REST endpoint - istoric paginat cu cursor: ?before=<id mesaj>&size=50
+    @GetMapping("/conversation/{userId}/history")
+    public ResponseEntity<ConversationHistoryDto> getConversationHistory(
+            @PathVariable Long userId,
+            @RequestParam(required = false) Long before,
+            @RequestParam(defaultValue = "50") int size,
+            Authentication authentication) {
+        User currentUser = userRepository.findByEmail(authentication.getName())
+                .orElseThrow(() -> new EntityNotFoundException("User not found"));
+
+        ConversationHistoryDto history = messageService.getConversationBefore(currentUser.getId(), userId, before, size);
+        return ResponseEntity.ok(history);
+    }
+
+    // REST endpoint - export complet al conversației, scris incremental: ?format=ndjson|csv
+    @GetMapping("/conversation/{userId}/export")
+    public ResponseEntity<?> exportConversation(
+            @PathVariable Long userId,
+            @RequestParam(defaultValue = "ndjson") String format,
+            Authentication authentication) {
+        User currentUser = userRepository.findByEmail(authentication.getName())
+                .orElseThrow(() -> new EntityNotFoundException("User not found"));
+
+        ConversationExporter.Format exportFormat;
+        try {
+            exportFormat = ConversationExporter.Format.valueOf(format.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body("Unknown export format: " + format);
+        }
+        Long currentUserId = currentUser.getId();
+        StreamingResponseBody body = out -> conversationExporter.export(currentUserId, userId, exportFormat, out);
+
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(exportFormat.getContentType() + ";charset=UTF-8"))
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        "attachment; filename=\"conversation-" + userId + "." + exportFormat.getExtension() + "\"")
+                .body(body);
+    }
+
+    // REST endpoint - căutare full-text în conversațiile proprii: ?q=...&peerId=&cursor=&size=20
+    @GetMapping("/search")
+    public ResponseEntity<?> searchMessages(
+            @RequestParam String q,
+            @RequestParam(required = false) Long peerId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size,
+            Authentication authentication) {
+        User currentUser = userRepository.findByEmail(authentication.getName())
+                .orElseThrow(() -> new EntityNotFoundException("User not found"));
+
+        try {
+            MessageSearchResultDto result = messageSearchService.search(currentUser.getId(), q, peerId, cursor, size);
+            return ResponseEntity.ok(result);
+        } catch (IllegalArgumentException e) {
+            // Cursor invalid
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
     // REST endpoint - marchează mesajele ca citite
     @PostMapping("/mark-read/{userId}")
     public ResponseEntity<Void> markAsRead(
@@ -137,6 +283,32 @@ public class MessageController {
         return ResponseEntity.ok().build();
     }
 
+    // REST endpoint - confirmare de citire: mesajele de la userId până la (inclusiv) id-ul upTo
+    @PostMapping("/read/{userId}")
+    public ResponseEntity<Void> markReadUpTo(
+            @PathVariable Long userId,
+            @RequestParam Long upTo,
+            Authentication authentication) {
+        User currentUser = userRepository.findByEmail(authentication.getName())
+                .orElseThrow(() -> new EntityNotFoundException("User not found"));
+
+        messageService.markReadUpTo(currentUser.getId(), userId, upTo);
+        return ResponseEntity.ok().build();
+    }
+
+    // REST endpoint - delta sync după reconectare: ?since=<seq>&limit=200
+    @GetMapping("/sync")
+    public ResponseEntity<SyncBatchDto> sync(
+            @RequestParam(defaultValue = "0") long since,
+            @RequestParam(defaultValue = "200") int limit,
+            Authentication authentication) {
+        User currentUser = userRepository.findByEmail(authentication.getName())
+                .orElseThrow(() -> new EntityNotFoundException("User not found"));
+
+        SyncBatchDto batch = syncService.getEventsSince(currentUser.getId(), since, limit);
+        return ResponseEntity.ok(batch);
+    }
+
     // REST endpoint - obține numărul de mesaje necitite
     @GetMapping("/unread-count")
     public ResponseEntity<Long> getUnreadCount(Authentication authentication) {
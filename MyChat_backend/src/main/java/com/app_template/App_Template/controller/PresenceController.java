@@ -0,0 +1,43 @@
+package com.app_template.App_Template.controller;
+
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.messaging.handler.annotation.Header;
+import org.springframework.messaging.handler.annotation.MessageMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.app_template.App_Template.dto.PresenceDto;
+import com.app_template.App_Template.service.presence.PresenceService;
+
+import lombok.RequiredArgsConstructor;
+
+@RestController
+@RequestMapping("/api/presence")
+@RequiredArgsConstructor
+public class PresenceController {
+
+    private static final int MAX_USERS_PER_REQUEST = 500;
+
+    @Autowired
+    private PresenceService presenceService;
+
+    // REST endpoint - starea inițială pentru lista de chat: ?userIds=1,2,3; schimbările vin apoi pe /user/queue/presence
+    @GetMapping
+    public ResponseEntity<List<PresenceDto>> getPresence(@RequestParam List<Long> userIds) {
+        if (userIds.size() > MAX_USERS_PER_REQUEST) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(presenceService.getPresence(userIds));
+    }
+
+    // WebSocket endpoint - heartbeat de prezență trimis periodic de client
+    @MessageMapping("/presence.heartbeat")
+    public void heartbeat(@Header("simpSessionId") String sessionId) {
+        presenceService.heartbeat(sessionId);
+    }
+}
@@ -0,0 +1,196 @@
+package com.app_template.App_Template.controller;
+
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.messaging.handler.annotation.Header;
+import org.springframework.messaging.handler.annotation.MessageMapping;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.app_template.App_Template.config.RoomSubscriptionInterceptor;
+import com.app_template.App_Template.config.WebSocketSessionRegistry;
+import com.app_template.App_Template.dto.RoomDto;
+import com.app_template.App_Template.entity.User;
+import com.app_template.App_Template.repository.UserRepository;
+import com.app_template.App_Template.service.message.MessageSendPipeline;
+import com.app_template.App_Template.service.presence.PresenceService;
+import com.app_template.App_Template.service.room.RoomService;
+import com.app_template.App_Template.service.user.UserService;
+
+import jakarta.persistence.EntityNotFoundException;
+
+// Camere de grup. Clienții se abonează la /topic/rooms.{roomId} (doar membrii, vezi RoomSubscriptionInterceptor)
+// și trimit pe /app/room.send; după o reconectare cer mesajele ratate cu GET /{roomId}/messages?after=<ultimul seq>.
+@RestController
+@RequestMapping("/api/rooms")
+public class RoomController {
+
+    @Autowired
+    private RoomService roomService;
+
+    @Autowired
+    private MessageSendPipeline messageSendPipeline;
+
+    @Autowired
+    private PresenceService presenceService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private WebSocketSessionRegistry webSocketSessionRegistry;
+
+    @Autowired
+    private RoomSubscriptionInterceptor roomSubscriptionInterceptor;
+
+    public static class CreateRoomRequest {
+        public String name;
+        public List<Long> memberIds;
+    }
+
+    public static class AddMembersRequest {
+        public List<Long> userIds;
+    }
+
+    // DTO pentru WebSocket
+    public static class RoomMessageRequestDto {
+        public Long roomId;
+        public String content;
+        // Ca la /app/chat.sendMessage: ACK/NACK pe /user/queue/acks, cu roomId
+        public String clientMessageId;
+    }
+
+    // WebSocket endpoint - mesaj într-o cameră; salvarea și publicarea pe topic rulează în MessageSendPipeline
+    @MessageMapping("/room.send")
+    public void sendRoomMessage(
+            RoomMessageRequestDto message,
+            @Header("simpSessionId") String sessionId
+    ) {
+        if (message != null && message.roomId != null) {
+            Authentication authentication = webSocketSessionRegistry.getAuthentication(sessionId);
+
+            if (authentication == null || authentication.getName() == null) {
+                throw new RuntimeException("User not authenticated");
+            }
+
+            messageSendPipeline.submitToRoom(
+                    presenceService.userIdOfSession(sessionId),
+                    authentication.getName(),
+                    message.roomId,
+                    message.clientMessageId,
+                    message.content
+            );
+        }
+    }
+
+    // REST endpoint - creează o cameră; creatorul e OWNER
+    @PostMapping
+    public ResponseEntity<?> createRoom(@RequestBody CreateRoomRequest request, Authentication authentication) {
+        User currentUser = currentUser(authentication);
+        try {
+            RoomDto room = roomService.createRoom(currentUser.getId(), request.name, request.memberIds);
+            return ResponseEntity.status(HttpStatus.CREATED).body(room);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    // REST endpoint - camerele userului curent, cu numărul de mesaje necitite
+    @GetMapping
+    public ResponseEntity<List<RoomDto>> getRooms(Authentication authentication) {
+        return ResponseEntity.ok(roomService.getRooms(currentUser(authentication).getId()));
+    }
+
+    // REST endpoint - profilurile membrilor (pentru numele expeditorilor din mesajele slim)
+    @GetMapping("/{roomId}/members")
+    public ResponseEntity<?> getMembers(@PathVariable Long roomId, Authentication authentication) {
+        try {
+            List<Long> memberIds = roomService.getMemberIds(roomId, currentUser(authentication).getId());
+            return ResponseEntity.ok(userService.getChatProfiles(memberIds));
+        } catch (AccessDeniedException e) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).body(e.getMessage());
+        }
+    }
+
+    // REST endpoint - adaugă membri (doar ownerul); întoarce câți au fost adăugați efectiv
+    @PostMapping("/{roomId}/members")
+    public ResponseEntity<?> addMembers(
+            @PathVariable Long roomId,
+            @RequestBody AddMembersRequest request,
+            Authentication authentication) {
+        if (request == null || request.userIds == null || request.userIds.isEmpty()) {
+            return ResponseEntity.badRequest().build();
+        }
+        try {
+            return ResponseEntity.ok(roomService.addMembers(roomId, currentUser(authentication).getId(), request.userIds));
+        } catch (AccessDeniedException e) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).body(e.getMessage());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        } catch (EntityNotFoundException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
+        }
+    }
+
+    // REST endpoint - scoate un membru (ownerul) sau părăsește camera (userId = userul curent);
+    // dacă pleacă ownerul, cel mai vechi membru rămas devine owner
+    @DeleteMapping("/{roomId}/members/{userId}")
+    public ResponseEntity<?> removeMember(
+            @PathVariable Long roomId,
+            @PathVariable Long userId,
+            Authentication authentication) {
+        try {
+            roomService.removeMember(roomId, currentUser(authentication).getId(), userId);
+            roomSubscriptionInterceptor.revoke(roomId, userId);
+            return ResponseEntity.ok().build();
+        } catch (AccessDeniedException e) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).body(e.getMessage());
+        } catch (EntityNotFoundException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
+        }
+    }
+
+    // REST endpoint - mesajele camerei: ?after=<seq> (ratate, crescător) sau ?before=<seq> (istoric), &limit=50
+    @GetMapping("/{roomId}/messages")
+    public ResponseEntity<?> getMessages(
+            @PathVariable Long roomId,
+            @RequestParam(required = false) Long after,
+            @RequestParam(required = false) Long before,
+            @RequestParam(defaultValue = "50") int limit,
+            Authentication authentication) {
+        try {
+            return ResponseEntity.ok(roomService.getMessages(roomId, currentUser(authentication).getId(), after, before, limit));
+        } catch (AccessDeniedException e) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).body(e.getMessage());
+        }
+    }
+
+    // REST endpoint - avansează watermark-ul de citire până la (inclusiv) seq-ul upTo
+    @PostMapping("/{roomId}/read")
+    public ResponseEntity<Void> markRead(
+            @PathVariable Long roomId,
+            @RequestParam Long upTo,
+            Authentication authentication) {
+        roomService.markRead(roomId, currentUser(authentication).getId(), upTo);
+        return ResponseEntity.ok().build();
+    }
+
+    private User currentUser(Authentication authentication) {
+        return userRepository.findByEmail(authentication.getName())
+                .orElseThrow(() -> new EntityNotFoundException("User not found"));
+    }
+}
@@ -91,6 +91,16 @@ public class UserController {
         }
     }
 
+    @PutMapping("/update-retention/{userId}/{days}")
+    public ResponseEntity<?> updateMessageRetention(@PathVariable("userId") Long userId, @PathVariable("days") int days) {
+        try{
+            UserDto user = userService.updateMessageRetention(userId, days);
+            return new ResponseEntity<>(user, HttpStatus.OK);
+        }catch (EntityNotFoundException e){
+            return ResponseEntity.notFound().build();
+        }
+    }
+
     @PutMapping("/update-language/{userId}/{language}")
     public ResponseEntity<?> updatePreferredLanguage(@PathVariable("userId") Long userId, @PathVariable("language") String language) {
         try{
@@ -0,0 +1,19 @@
+package com.app_template.App_Template.dto;
+
+import java.time.LocalDateTime;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class AnnouncementDto {
+    private Long id;
+    private String title;
+    private String content;
+    private LocalDateTime createdAt;
+}
@@ -0,0 +1,19 @@
+package com.app_template.App_Template.dto;
+
+import java.time.LocalDateTime;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// Un mesaj din tier-ul de arhivă (o linie NDJSON dintr-un MessageArchiveBlock)
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ArchivedMessage {
+    private Long id;
+    private Long senderId;
+    private Long receiverId;
+    private String content;
+    private LocalDateTime timestamp;
+}
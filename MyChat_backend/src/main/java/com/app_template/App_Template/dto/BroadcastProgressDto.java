@@ -0,0 +1,25 @@
+package com.app_template.App_Template.dto;
+
+import java.time.LocalDateTime;
+
+import com.app_template.App_Template.enums.BroadcastStatus;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// Progresul fan-out-ului unui anunț, trimis adminului pe /user/queue/broadcasts și disponibil prin REST
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class BroadcastProgressDto {
+    private Long announcementId;
+    private BroadcastStatus status;
+    // Sesiunile conectate pe acest nod la pornirea fan-out-ului
+    private Integer totalSessions;
+    private Integer deliveredSessions;
+    private LocalDateTime startedAt;
+    private LocalDateTime finishedAt;
+}
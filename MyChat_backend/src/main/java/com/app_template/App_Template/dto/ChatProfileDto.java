@@ -0,0 +1,17 @@
+package com.app_template.App_Template.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// Profilul public al unui user, ținut în cache de client pentru mesajele primite ca WireMessageDto
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ChatProfileDto {
+    private Long userId;
+    private String name;
+    private String imageUrl;
+}
@@ -0,0 +1,20 @@
+package com.app_template.App_Template.dto;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ConversationHistoryDto {
+    // Mesajele paginii, în ordine cronologică
+    private List<MessageDto> messages;
+    // Id-ul de trimis ca "before" pentru pagina următoare (cel mai vechi mesaj din pagină)
+    private Long nextCursor;
+    private boolean hasMore;
+}
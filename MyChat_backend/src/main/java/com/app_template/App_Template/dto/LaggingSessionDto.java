@@ -0,0 +1,19 @@
+package com.app_template.App_Template.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class LaggingSessionDto {
+    private String sessionId;
+    private String user;
+    private int bufferedFrames;
+    private int bufferedBytes;
+    // Cât durează scrierea în curs către client (0 = nicio scriere blocată)
+    private long sendInProgressMs;
+}
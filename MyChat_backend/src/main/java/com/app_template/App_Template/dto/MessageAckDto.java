@@ -0,0 +1,28 @@
+package com.app_template.App_Template.dto;
+
+import java.time.LocalDateTime;
+
+import com.app_template.App_Template.enums.MessageAckStatus;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class MessageAckDto {
+    private String clientMessageId;
+    private MessageAckStatus status;
+    // ACK: id-ul și momentul salvării, ca clientul să-și actualizeze mesajul afișat optimist
+    private Long messageId;
+    private LocalDateTime timestamp;
+    private Long receiverId;
+    // Mesajele trimise într-o cameră de grup (în loc de receiverId)
+    private Long roomId;
+    // NACK
+    private String error;
+    private boolean retryable;
+}
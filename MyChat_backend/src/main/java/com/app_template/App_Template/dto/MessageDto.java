@@ -23,5 +23,17 @@ public class MessageDto {
     private String receiverImageUrl;
     private String content;
     private LocalDateTime timestamp;
+    // Derivat din watermark-ul de citire al destinatarului (ConversationSummary.lastReadMessageId)
     private Boolean read;
+    // Folosit doar în lista de chat (getAllUsersForChat)
+    private Long unreadCount;
+
+    // Folosit de proiecțiile JPQL din MessageRepository (SELECT new ...), fără încărcarea entităților User
+    public MessageDto(Long id, Long senderId, String senderName, String senderEmail, String senderImageUrl,
+                      Long receiverId, String receiverName, String receiverEmail, String receiverImageUrl,
+                      String content, LocalDateTime timestamp) {
+        this(id, senderId, senderName, senderEmail, senderImageUrl,
+                receiverId, receiverName, receiverEmail, receiverImageUrl,
+                content, timestamp, null, null);
+    }
 }
\ No newline at end of file
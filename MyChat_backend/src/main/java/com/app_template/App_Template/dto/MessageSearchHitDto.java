@@ -0,0 +1,19 @@
+package com.app_template.App_Template.dto;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class MessageSearchHitDto {
+    private MessageDto message;
+    private float rank;
+    // Intervale [start, end) în message.content unde apar termenii căutați (clientul le evidențiază)
+    private List<int[]> highlights;
+}
@@ -0,0 +1,19 @@
+package com.app_template.App_Template.dto;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class MessageSearchResultDto {
+    private List<MessageSearchHitDto> hits;
+    // Cursor opac pentru pagina următoare (parametrul "cursor")
+    private String nextCursor;
+    private boolean hasMore;
+}
@@ -0,0 +1,19 @@
+package com.app_template.App_Template.dto;
+
+import java.time.LocalDateTime;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class PresenceDto {
+    private Long userId;
+    private boolean online;
+    // Ultima activitate cunoscută (null dacă userul nu s-a conectat niciodată prin WebSocket)
+    private LocalDateTime lastSeen;
+}
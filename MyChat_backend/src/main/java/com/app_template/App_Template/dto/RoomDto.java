@@ -0,0 +1,27 @@
+package com.app_template.App_Template.dto;
+
+import java.time.LocalDateTime;
+
+import com.app_template.App_Template.enums.RoomRole;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class RoomDto {
+    private Long id;
+    private String name;
+    private Integer memberCount;
+    private LocalDateTime createdAt;
+    // Seq-ul ultimului mesaj din cameră; clientul cere mesajele cu seq > ultimul văzut
+    private Long lastSeq;
+    // Pentru userul curent
+    private RoomRole role;
+    private Long lastReadSeq;
+    private Long unreadCount;
+}
@@ -0,0 +1,27 @@
+package com.app_template.App_Template.dto;
+
+import java.time.LocalDateTime;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// Mesaj de cameră, în forma slim (doar id-uri) folosită și pe /topic/rooms.{roomId}
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class RoomMessageDto {
+    private Long id;
+    private Long roomId;
+    private Long seq;
+    private Long senderId;
+    private String content;
+    private LocalDateTime timestamp;
+    // Doar pe frame-ul live: expeditorul își recunoaște mesajul afișat optimist
+    private String clientMessageId;
+}
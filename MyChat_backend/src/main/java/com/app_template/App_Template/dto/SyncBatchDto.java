@@ -0,0 +1,21 @@
+package com.app_template.App_Template.dto;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class SyncBatchDto {
+    private List<SyncEventDto> events;
+    // Următorul apel: since=lastSeq
+    private Long lastSeq;
+    private boolean hasMore;
+    // Evenimentele de după `since` nu mai există (retenție depășită): clientul reîncarcă conversațiile
+    private boolean resetRequired;
+}
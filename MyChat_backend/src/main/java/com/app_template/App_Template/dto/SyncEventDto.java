@@ -0,0 +1,23 @@
+package com.app_template.App_Template.dto;
+
+import com.app_template.App_Template.enums.SyncEventType;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class SyncEventDto {
+    private Long seq;
+    private SyncEventType type;
+    private Long peerId;
+    // MESSAGE: mesajul (null dacă între timp a fost mutat în arhivă sau șters)
+    private MessageDto message;
+    // READ: cine a citit și până la ce mesaj
+    private Long readerId;
+    private Long lastReadMessageId;
+}
@@ -0,0 +1,16 @@
+package com.app_template.App_Template.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class TypingDto {
+    private Long senderId;
+    // false = a încetat să scrie (explicit sau expirat)
+    private boolean typing;
+}
@@ -15,5 +15,6 @@ public class UserDto {
     private boolean mfaEnabled;
     private String preferredTheme;
     private String preferredLanguage;
+    private Integer messageRetentionDays;
     private LocalDateTime createdAt;
 }
@@ -0,0 +1,30 @@
+package com.app_template.App_Template.dto;
+
+import java.time.LocalDateTime;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// Forma unui mesaj pe WebSocket (/user/queue/messages): doar id-uri, fără numele, email-urile și pozele
+// userilor. Profilurile sunt luate o singură dată de client prin GET /api/messages/profiles.
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class WireMessageDto {
+    private Long id;
+    private Long senderId;
+    private Long receiverId;
+    private String content;
+    private LocalDateTime timestamp;
+
+    public static WireMessageDto from(MessageDto message) {
+        return new WireMessageDto(message.getId(), message.getSenderId(), message.getReceiverId(),
+                message.getContent(), message.getTimestamp());
+    }
+}
@@ -0,0 +1,36 @@
+package com.app_template.App_Template.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+// Anunț trimis de un admin tuturor userilor. Stocat o singură dată (nu câte un rând per user): clienții
+// conectați îl primesc live, ceilalți îl cer la conectare cu GET /api/announcements?after=<ultimul id văzut>.
+@Entity
+@Table(name = "announcements")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class Announcement {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false, length = 200)
+    private String title;
+
+    @Column(nullable = false, columnDefinition = "TEXT")
+    private String content;
+
+    @Column(nullable = false)
+    private Long createdById;
+
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+
+    // Sesiunile la care a ajuns fan-out-ul live (null până la finalul lui)
+    private Integer deliveredSessions;
+}
@@ -0,0 +1,38 @@
+package com.app_template.App_Template.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+// Cameră de chat de grup. lastSeq e numărul de ordine al ultimului mesaj (vezi RoomMessage.seq),
+// incrementat atomic la fiecare mesaj; rândul camerei e blocat până la commit, deci seq-urile apar în ordine.
+@Entity
+@Table(name = "chat_rooms")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ChatRoom {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false, length = 100)
+    private String name;
+
+    @Column(nullable = false)
+    private Long createdById;
+
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column(nullable = false)
+    @Builder.Default
+    private Long lastSeq = 0L;
+
+    @Column(nullable = false)
+    @Builder.Default
+    private Integer memberCount = 0;
+}
@@ -0,0 +1,41 @@
+package com.app_template.App_Template.entity;
+
+import com.app_template.App_Template.enums.RoomRole;
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+// Membrii unei camere. Starea de citire e un watermark pe seq (mesajele cu seq <= lastReadSeq sunt citite),
+// deci un mesaj nou nu atinge rândurile membrilor: necitite = ChatRoom.lastSeq - lastReadSeq.
+@Entity
+@Table(name = "chat_room_members",
+        uniqueConstraints = @UniqueConstraint(name = "uk_chat_room_members_room_user", columnNames = {"room_id", "user_id"}),
+        indexes = @Index(name = "idx_chat_room_members_user", columnList = "user_id"))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ChatRoomMember {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "room_id", nullable = false)
+    private Long roomId;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 16)
+    private RoomRole role;
+
+    @Column(nullable = false)
+    private LocalDateTime joinedAt;
+
+    @Column(nullable = false)
+    @Builder.Default
+    private Long lastReadSeq = 0L;
+}
@@ -0,0 +1,51 @@
+package com.app_template.App_Template.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+// Read model denormalizat pentru lista de chat: un rând per (owner, peer),
+// actualizat în aceeași tranzacție cu sendMessage / markReadUpTo.
+// Starea de citire e un watermark: mesajele de la peer cu id <= lastReadMessageId sunt citite de owner.
+@Entity
+@Table(name = "conversation_summaries",
+        uniqueConstraints = @UniqueConstraint(name = "uk_conversation_summaries_owner_peer", columnNames = {"owner_id", "peer_id"}),
+        indexes = @Index(name = "idx_conversation_summaries_owner_last", columnList = "owner_id, last_message_at"))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ConversationSummary {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "owner_id", nullable = false)
+    private User owner;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "peer_id", nullable = false)
+    private User peer;
+
+    // Fără FK către messages, ca tabela de mesaje să poată fi reorganizată independent
+    private Long lastMessageId;
+
+    private Long lastSenderId;
+
+    @Column(columnDefinition = "TEXT")
+    private String lastMessageContent;
+
+    private LocalDateTime lastMessageAt;
+
+    // Ultimul mesaj de la peer citit de owner (null = nimic citit; tratat ca 0)
+    @Builder.Default
+    private Long lastReadMessageId = 0L;
+
+    // Mesaje de la peer către owner încă necitite (cu id > lastReadMessageId)
+    @Column(nullable = false)
+    @Builder.Default
+    private Long unreadCount = 0L;
+}
@@ -2,21 +2,33 @@ package com.app_template.App_Template.entity;
 
 import jakarta.persistence.*;
 import lombok.*;
+import org.springframework.data.domain.Persistable;
 
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "messages")
+@Table(name = "messages", indexes = {
+        // Istoricul unei conversații: scanări de interval pe cheia canonică
+        @Index(name = "idx_messages_conversation_timestamp", columnList = "conversation_id, timestamp"),
+        @Index(name = "idx_messages_conversation_id", columnList = "conversation_id, id"),
+        // Filtrare pe direcție (expeditor -> destinatar)
+        @Index(name = "idx_messages_sender_receiver_id", columnList = "sender_id, receiver_id, id")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 @Builder
-public class Message {
+public class Message implements Persistable<Long> {
 
+    // Alocat de MessageIdGenerator înainte de insert (id ordonat în timp, vezi SnowflakeMessageIdGenerator)
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
+    // Cheie canonică a conversației, derivată din perechea ordonată de useri (vezi conversationIdOf).
+    // Nullable doar pentru ca ddl-auto=update să poată adăuga coloana; rândurile vechi sunt completate la pornire.
+    @Column(name = "conversation_id", length = 41)
+    private String conversationId;
+
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "sender_id", nullable = false)
     private User sender;
@@ -32,7 +44,32 @@ public class Message {
     @Column(nullable = false)
     private LocalDateTime timestamp;
 
-    @Column(nullable = false)
+    // Cu id-ul setat manual, save() ar face merge (SELECT + INSERT); ținem evidența explicit
+    @Transient
     @Builder.Default
-    private Boolean read = false;
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private boolean newEntity = true;
+
+    @Override
+    public boolean isNew() {
+        return newEntity;
+    }
+
+    @PostLoad
+    @PostPersist
+    void markNotNew() {
+        newEntity = false;
+    }
+
+    public static String conversationIdOf(Long userId1, Long userId2) {
+        return Math.min(userId1, userId2) + "_" + Math.max(userId1, userId2);
+    }
+
+    @PrePersist
+    void assignConversationId() {
+        if (conversationId == null && sender != null && receiver != null) {
+            conversationId = conversationIdOf(sender.getId(), receiver.getId());
+        }
+    }
 }
@@ -0,0 +1,49 @@
+package com.app_template.App_Template.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+// Tier-ul rece pentru mesaje: mesajele unei conversații dintr-o partiție lunară arhivată,
+// comprimate (gzip NDJSON) în blocuri de cel mult MessageArchive.BLOCK_SIZE mesaje
+@Entity
+@Table(name = "message_archive_blocks", indexes = {
+        @Index(name = "idx_message_archive_conversation_last", columnList = "conversation_id, last_message_id"),
+        @Index(name = "idx_message_archive_source_partition", columnList = "source_partition")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class MessageArchiveBlock {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "conversation_id", nullable = false, length = 41)
+    private String conversationId;
+
+    // Partiția din care provine blocul; permite reluarea unei arhivări întrerupte
+    @Column(name = "source_partition", nullable = false)
+    private String sourcePartition;
+
+    @Column(nullable = false)
+    private Long firstMessageId;
+
+    @Column(name = "last_message_id", nullable = false)
+    private Long lastMessageId;
+
+    @Column(nullable = false)
+    private LocalDateTime firstTimestamp;
+
+    @Column(nullable = false)
+    private LocalDateTime lastTimestamp;
+
+    @Column(nullable = false)
+    private Integer messageCount;
+
+    @Column(nullable = false, columnDefinition = "bytea")
+    private byte[] payload;
+}
@@ -0,0 +1,48 @@
+package com.app_template.App_Template.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+// Cutia poștală offline: mesajele care nu au putut fi livrate live (destinatarul nu era abonat la
+// /user/queue/messages pe niciun nod). Un rând e șters în aceeași tranzacție în care e preluat pentru livrare
+// (OfflineMailbox), deci fiecare mesaj pleacă din cutie cel mult o dată. Rândul are și conținutul mesajului
+// (codificat ca în messages), ca livrarea să nu aștepte scrierea write-behind a mesajului.
+@Entity
+@Table(name = "pending_deliveries",
+        uniqueConstraints = @UniqueConstraint(name = "uk_pending_deliveries_user_message", columnNames = {"user_id", "message_id"}),
+        indexes = {
+                @Index(name = "idx_pending_deliveries_enqueued_at", columnList = "enqueued_at"),
+                // Retenția șterge livrările mesajelor expirate după message_id
+                @Index(name = "idx_pending_deliveries_message_id", columnList = "message_id")
+        })
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class PendingDelivery {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Column(name = "message_id", nullable = false)
+    private Long messageId;
+
+    // null doar pentru rândurile adăugate înainte ca aceste coloane să existe (livrate din messages)
+    @Column(name = "sender_id")
+    private Long senderId;
+
+    @Column(name = "content", columnDefinition = "text")
+    private String content;
+
+    @Column(name = "sent_at")
+    private LocalDateTime sentAt;
+
+    @Column(name = "enqueued_at", nullable = false)
+    private LocalDateTime enqueuedAt;
+}
@@ -0,0 +1,58 @@
+package com.app_template.App_Template.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.springframework.data.domain.Persistable;
+
+import java.time.LocalDateTime;
+
+// Mesajele camerelor de grup, separate de messages (care are exact un destinatar).
+// Ordinea în cameră e dată de seq, continuu per cameră; id-ul vine din MessageIdGenerator, ca la Message.
+@Entity
+@Table(name = "room_messages",
+        uniqueConstraints = @UniqueConstraint(name = "uk_room_messages_room_seq", columnNames = {"room_id", "seq"}),
+        // Retenția per user șterge mesajele trimise de el pe acest index
+        indexes = @Index(name = "idx_room_messages_sender_id", columnList = "sender_id, id"))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class RoomMessage implements Persistable<Long> {
+
+    @Id
+    private Long id;
+
+    @Column(name = "room_id", nullable = false)
+    private Long roomId;
+
+    @Column(nullable = false)
+    private Long seq;
+
+    @Column(name = "sender_id", nullable = false)
+    private Long senderId;
+
+    // Codificat de MessageContentCodec, ca messages.content
+    @Column(nullable = false, columnDefinition = "TEXT")
+    private String content;
+
+    @Column(nullable = false)
+    private LocalDateTime timestamp;
+
+    // Cu id-ul setat manual, save() ar face merge (SELECT + INSERT); ținem evidența explicit
+    @Transient
+    @Builder.Default
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private boolean newEntity = true;
+
+    @Override
+    public boolean isNew() {
+        return newEntity;
+    }
+
+    @PostLoad
+    @PostPersist
+    void markNotNew() {
+        newEntity = false;
+    }
+}
@@ -0,0 +1,53 @@
+package com.app_template.App_Template.entity;
+
+import com.app_template.App_Template.enums.SyncEventType;
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+// Jurnalul de sincronizare: evenimentele livrate unui user, numerotate cu seq crescător per user
+// (alocat din UserSyncState). Un client reconectat cere doar evenimentele cu seq > ultimul văzut.
+@Entity
+@Table(name = "sync_events",
+        uniqueConstraints = @UniqueConstraint(name = "uk_sync_events_user_seq", columnNames = {"user_id", "seq"}),
+        indexes = {
+                @Index(name = "idx_sync_events_created_at", columnList = "created_at"),
+                // Retenția șterge evenimentele mesajelor expirate după message_id
+                @Index(name = "idx_sync_events_message_id", columnList = "message_id")
+        })
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class SyncEvent {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Column(nullable = false)
+    private Long seq;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 16)
+    private SyncEventType type;
+
+    // Celălalt participant la conversație
+    @Column(nullable = false)
+    private Long peerId;
+
+    // MESSAGE: mesajul livrat
+    private Long messageId;
+
+    // READ: cine a citit și până la ce mesaj
+    private Long readerId;
+
+    private Long lastReadMessageId;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+}
@@ -47,6 +47,10 @@ public class User implements UserDetails {
     private String secret;
     private String resetPasswordToken;
     private LocalDateTime resetPasswordExpiry;
+    // Mesajele trimise de user sunt șterse după atâtea zile (null = doar retenția globală)
+    private Integer messageRetentionDays;
+    // Ultima activitate prin WebSocket; scrisă în loturi de PresenceServiceImpl
+    private LocalDateTime lastSeenAt;
 
     public UserDto getUserDto() {
         UserDto userDto = new UserDto();
@@ -60,6 +64,7 @@ public class User implements UserDetails {
         userDto.setPreferredLanguage(preferredLanguage);
         userDto.setGoogleId(googleId);
         userDto.setMfaEnabled(mfaEnabled);
+        userDto.setMessageRetentionDays(messageRetentionDays);
         return userDto;
     }
 
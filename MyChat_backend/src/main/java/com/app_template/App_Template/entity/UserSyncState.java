@@ -0,0 +1,27 @@
+package com.app_template.App_Template.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+// Contorul de seq al unui user. Rândul e blocat de la alocare până la commit, deci evenimentele
+// unui user devin vizibile în ordinea seq-ului (un client nu poate sări peste unul încă necomis).
+@Entity
+@Table(name = "user_sync_state")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class UserSyncState {
+
+    @Id
+    @Column(name = "user_id")
+    private Long userId;
+
+    @Column(nullable = false)
+    private Long lastSeq;
+
+    // Evenimentele cu seq <= purgedThrough au fost șterse; un client rămas în urmă trebuie să reîncarce tot
+    @Column(nullable = false)
+    @Builder.Default
+    private Long purgedThrough = 0L;
+}
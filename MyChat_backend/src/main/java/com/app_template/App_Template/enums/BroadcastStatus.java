@@ -0,0 +1,9 @@
+package com.app_template.App_Template.enums;
+
+public enum BroadcastStatus {
+    QUEUED,
+    RUNNING,
+    COMPLETED,
+    CANCELLED,
+    FAILED
+}
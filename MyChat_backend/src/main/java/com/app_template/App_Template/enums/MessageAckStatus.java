@@ -0,0 +1,9 @@
+package com.app_template.App_Template.enums;
+
+// Răspunsul la un mesaj trimis prin /app/chat.sendMessage cu clientMessageId
+public enum MessageAckStatus {
+    // Mesajul a fost salvat (sau era deja salvat: retrimitere)
+    ACK,
+    // Mesajul nu a fost salvat; `retryable` spune dacă are rost retrimiterea cu același clientMessageId
+    NACK
+}
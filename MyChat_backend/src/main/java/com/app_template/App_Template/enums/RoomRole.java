@@ -0,0 +1,8 @@
+package com.app_template.App_Template.enums;
+
+// Rolul unui membru într-o cameră de grup (vezi ChatRoomMember)
+public enum RoomRole {
+    // Creatorul camerei: poate adăuga și scoate membri
+    OWNER,
+    MEMBER
+}
@@ -0,0 +1,9 @@
+package com.app_template.App_Template.enums;
+
+// Tipurile de evenimente din jurnalul de sincronizare al unui user (vezi SyncEvent)
+public enum SyncEventType {
+    // Un mesaj trimis sau primit de user
+    MESSAGE,
+    // Watermark-ul de citire s-a mutat (user-ul a citit, sau peer-ul a citit mesajele user-ului)
+    READ
+}
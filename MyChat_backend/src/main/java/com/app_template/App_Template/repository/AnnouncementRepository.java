@@ -0,0 +1,22 @@
+package com.app_template.App_Template.repository;
+
+import java.util.List;
+
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import com.app_template.App_Template.entity.Announcement;
+
+public interface AnnouncementRepository extends JpaRepository<Announcement, Long> {
+
+    List<Announcement> findByIdGreaterThanOrderByIdAsc(Long afterId, Limit limit);
+
+    List<Announcement> findAllByOrderByIdDesc(Limit limit);
+
+    @Modifying
+    @Query("UPDATE Announcement a SET a.deliveredSessions = :delivered WHERE a.id = :id")
+    int updateDeliveredSessions(@Param("id") Long id, @Param("delivered") Integer delivered);
+}
@@ -0,0 +1,49 @@
+package com.app_template.App_Template.repository;
+
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import com.app_template.App_Template.entity.ChatRoom;
+import com.app_template.App_Template.entity.ChatRoomMember;
+
+public interface ChatRoomMemberRepository extends JpaRepository<ChatRoomMember, Long> {
+
+    // Un rând din lista de camere a unui user: camera și apartenența lui (rol, watermark de citire)
+    interface RoomListRow {
+        ChatRoom getRoom();
+        ChatRoomMember getMember();
+    }
+
+    Optional<ChatRoomMember> findByRoomIdAndUserId(Long roomId, Long userId);
+
+    boolean existsByRoomIdAndUserId(Long roomId, Long userId);
+
+    @Query("SELECT r AS room, m AS member FROM ChatRoomMember m JOIN ChatRoom r ON r.id = m.roomId " +
+            "WHERE m.userId = :userId ORDER BY r.lastSeq DESC, r.id DESC")
+    List<RoomListRow> findRoomsOf(@Param("userId") Long userId);
+
+    @Query("SELECT m.userId FROM ChatRoomMember m WHERE m.roomId = :roomId ORDER BY m.id")
+    List<Long> findUserIds(@Param("roomId") Long roomId);
+
+    // Membership + id-ul userului dintr-un singur query (verificarea abonărilor STOMP, unde avem doar email-ul)
+    @Query("SELECT m.userId FROM ChatRoomMember m JOIN User u ON u.id = m.userId " +
+            "WHERE m.roomId = :roomId AND u.email = :email")
+    Optional<Long> findMemberIdByEmail(@Param("roomId") Long roomId, @Param("email") String email);
+
+    // Watermark-ul doar avansează și nu trece niciodată de ultimul mesaj al camerei (seq-ul vine de la client)
+    @Modifying
+    @Query(value = "UPDATE chat_room_members m SET last_read_seq = LEAST(:seq, r.last_seq) FROM chat_rooms r " +
+            "WHERE r.id = m.room_id AND m.room_id = :roomId AND m.user_id = :userId " +
+            "AND m.last_read_seq < LEAST(:seq, r.last_seq)",
+            nativeQuery = true)
+    int advanceReadSeq(@Param("roomId") Long roomId, @Param("userId") Long userId, @Param("seq") Long seq);
+
+    @Modifying
+    @Query("DELETE FROM ChatRoomMember m WHERE m.roomId = :roomId AND m.userId = :userId")
+    int deleteMember(@Param("roomId") Long roomId, @Param("userId") Long userId);
+}
@@ -0,0 +1,15 @@
+package com.app_template.App_Template.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import com.app_template.App_Template.entity.ChatRoom;
+
+public interface ChatRoomRepository extends JpaRepository<ChatRoom, Long> {
+
+    @Modifying
+    @Query("UPDATE ChatRoom r SET r.memberCount = r.memberCount + :delta WHERE r.id = :roomId")
+    int adjustMemberCount(@Param("roomId") Long roomId, @Param("delta") int delta);
+}
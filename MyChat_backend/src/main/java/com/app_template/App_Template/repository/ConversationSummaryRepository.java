@@ -0,0 +1,132 @@
+package com.app_template.App_Template.repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import com.app_template.App_Template.entity.ConversationSummary;
+import com.app_template.App_Template.entity.User;
+import com.app_template.App_Template.enums.Role;
+
+public interface ConversationSummaryRepository extends JpaRepository<ConversationSummary, Long> {
+
+    // Un rând din lista de chat: user-ul și (opțional) rezumatul conversației cu el
+    interface ChatListRow {
+        User getUser();
+        ConversationSummary getSummary();
+    }
+
+    // Watermark-ul de citire al lui owner pentru mesajele primite de la peer
+    interface ReadWatermark {
+        Long getOwnerId();
+        Long getPeerId();
+        Long getLastReadMessageId();
+    }
+
+    // Lista de chat într-un singur query: toți userii + rezumatul conversației owner-ului cu fiecare
+    @Query("SELECT u AS user, cs AS summary FROM User u " +
+            "LEFT JOIN ConversationSummary cs ON cs.peer = u AND cs.owner.id = :ownerId " +
+            "WHERE u.id <> :ownerId AND u.role <> :excludedRole " +
+            "ORDER BY cs.lastMessageAt DESC NULLS LAST, u.id ASC")
+    List<ChatListRow> findChatList(@Param("ownerId") Long ownerId, @Param("excludedRole") Role excludedRole);
+
+    // Upsert la fiecare mesaj nou; câmpurile last_* se suprascriu doar cu un mesaj mai nou
+    @Modifying
+    @Query(value = "INSERT INTO conversation_summaries " +
+            "(owner_id, peer_id, last_message_id, last_sender_id, last_message_content, last_message_at, last_read_message_id, unread_count) " +
+            "VALUES (:ownerId, :peerId, :messageId, :senderId, :content, :timestamp, 0, :unreadIncrement) " +
+            "ON CONFLICT (owner_id, peer_id) DO UPDATE SET " +
+            "unread_count = conversation_summaries.unread_count + EXCLUDED.unread_count, " +
+            "last_message_content = CASE WHEN conversation_summaries.last_message_id IS NULL OR EXCLUDED.last_message_id > conversation_summaries.last_message_id " +
+            "THEN EXCLUDED.last_message_content ELSE conversation_summaries.last_message_content END, " +
+            "last_message_at = CASE WHEN conversation_summaries.last_message_id IS NULL OR EXCLUDED.last_message_id > conversation_summaries.last_message_id " +
+            "THEN EXCLUDED.last_message_at ELSE conversation_summaries.last_message_at END, " +
+            "last_sender_id = CASE WHEN conversation_summaries.last_message_id IS NULL OR EXCLUDED.last_message_id > conversation_summaries.last_message_id " +
+            "THEN EXCLUDED.last_sender_id ELSE conversation_summaries.last_sender_id END, " +
+            "last_message_id = GREATEST(conversation_summaries.last_message_id, EXCLUDED.last_message_id)",
+            nativeQuery = true)
+    void upsertLastMessage(
+            @Param("ownerId") Long ownerId,
+            @Param("peerId") Long peerId,
+            @Param("messageId") Long messageId,
+            @Param("senderId") Long senderId,
+            @Param("content") String content,
+            @Param("timestamp") LocalDateTime timestamp,
+            @Param("unreadIncrement") long unreadIncrement
+    );
+
+    // Blochează rândul până la commit și întoarce watermark-ul curent. Apelat înainte de markReadUpTo: în READ
+    // COMMITTED statement-ul următor primește un snapshot nou, luat după lock, deci numărătoarea din markReadUpTo
+    // vede mesajele oricărui upsertLastMessage care a incrementat contorul înaintea lui
+    @Query(value = "SELECT last_read_message_id FROM conversation_summaries " +
+            "WHERE owner_id = :ownerId AND peer_id = :peerId FOR UPDATE", nativeQuery = true)
+    Long lockReadWatermark(@Param("ownerId") Long ownerId, @Param("peerId") Long peerId);
+
+    // Confirmare de citire: avansează watermark-ul lui owner (niciodată înapoi, niciodată peste ultimul mesaj)
+    // și recalculează contorul din mesajele rămase după el. Un singur rând actualizat; rândul trebuie blocat
+    // întâi cu lockReadWatermark (altfel subquery-ul, cu snapshot-ul de dinainte de așteptarea lock-ului, nu vede
+    // mesajul unui upsert concurent și îi anulează incrementul).
+    @Modifying
+    @Query(value = "UPDATE conversation_summaries SET " +
+            "last_read_message_id = GREATEST(COALESCE(last_read_message_id, 0), LEAST(:upToId, last_message_id)), " +
+            "unread_count = (SELECT COUNT(*) FROM messages m WHERE m.conversation_id = :conversationId " +
+            "AND m.sender_id = :peerId " +
+            "AND m.id > GREATEST(COALESCE(conversation_summaries.last_read_message_id, 0), " +
+            "LEAST(:upToId, conversation_summaries.last_message_id))) " +
+            "WHERE owner_id = :ownerId AND peer_id = :peerId",
+            nativeQuery = true)
+    int markReadUpTo(
+            @Param("ownerId") Long ownerId,
+            @Param("peerId") Long peerId,
+            @Param("conversationId") String conversationId,
+            @Param("upToId") long upToId
+    );
+
+    @Query("SELECT cs.lastReadMessageId FROM ConversationSummary cs WHERE cs.owner.id = :ownerId AND cs.peer.id = :peerId")
+    Long findLastReadMessageId(@Param("ownerId") Long ownerId, @Param("peerId") Long peerId);
+
+    // Watermark-urile dintre userii dați (ambele direcții ale unei conversații, sau toate perechile unei pagini)
+    @Query("SELECT cs.owner.id AS ownerId, cs.peer.id AS peerId, cs.lastReadMessageId AS lastReadMessageId " +
+            "FROM ConversationSummary cs WHERE cs.owner.id IN :userIds AND cs.peer.id IN :userIds")
+    List<ReadWatermark> findReadWatermarks(@Param("userIds") Collection<Long> userIds);
+
+    // Cât a citit fiecare peer din mesajele trimise de userId (pentru bifa "citit" din lista de chat)
+    @Query("SELECT cs.owner.id AS ownerId, cs.peer.id AS peerId, cs.lastReadMessageId AS lastReadMessageId " +
+            "FROM ConversationSummary cs WHERE cs.peer.id = :userId")
+    List<ReadWatermark> findReadWatermarksOf(@Param("userId") Long userId);
+
+    @Query("SELECT COALESCE(SUM(cs.unreadCount), 0) FROM ConversationSummary cs WHERE cs.owner.id = :ownerId")
+    Long sumUnreadCount(@Param("ownerId") Long ownerId);
+
+    // Reconstruiește read model-ul din tabela messages (folosit o singură dată, când tabela e goală)
+    @Modifying
+    @Query(value = "INSERT INTO conversation_summaries " +
+            "(owner_id, peer_id, last_message_id, last_sender_id, last_message_content, last_message_at, last_read_message_id, unread_count) " +
+            "SELECT DISTINCT ON (x.owner_id, x.peer_id) x.owner_id, x.peer_id, m.id, m.sender_id, m.content, m.timestamp, NULL, " +
+            "(SELECT COUNT(*) FROM messages u WHERE u.sender_id = x.peer_id AND u.receiver_id = x.owner_id) " +
+            "FROM (SELECT id, sender_id AS owner_id, receiver_id AS peer_id FROM messages " +
+            "UNION ALL SELECT id, receiver_id AS owner_id, sender_id AS peer_id FROM messages) x " +
+            "JOIN messages m ON m.id = x.id " +
+            "ORDER BY x.owner_id, x.peer_id, m.id DESC " +
+            "ON CONFLICT (owner_id, peer_id) DO NOTHING",
+            nativeQuery = true)
+    int rebuildFromMessages();
+
+    // Migrare din flag-urile read per rând: watermark = cel mai mare id citit, contorul = mesajele de după el.
+    // Atinge doar rândurile fără watermark (create înainte de coloană sau de rebuildFromMessages).
+    @Modifying
+    @Query(value = "UPDATE conversation_summaries cs SET last_read_message_id = w.last_read, " +
+            "unread_count = (SELECT COUNT(*) FROM messages u WHERE u.sender_id = cs.peer_id " +
+            "AND u.receiver_id = cs.owner_id AND u.id > w.last_read) " +
+            "FROM (SELECT s.id, COALESCE((SELECT MAX(m.id) FROM messages m WHERE m.sender_id = s.peer_id " +
+            "AND m.receiver_id = s.owner_id AND m.read = true), 0) AS last_read " +
+            "FROM conversation_summaries s WHERE s.last_read_message_id IS NULL) w " +
+            "WHERE cs.id = w.id",
+            nativeQuery = true)
+    int backfillReadWatermarksFromFlags();
+}
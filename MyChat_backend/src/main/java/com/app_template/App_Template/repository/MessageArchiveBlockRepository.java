@@ -0,0 +1,36 @@
+package com.app_template.App_Template.repository;
+
+import java.util.List;
+
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import com.app_template.App_Template.entity.MessageArchiveBlock;
+
+public interface MessageArchiveBlockRepository extends JpaRepository<MessageArchiveBlock, Long> {
+
+    // Blocurile care conțin mesaje mai vechi decât beforeId, de la cel mai nou la cel mai vechi
+    @Query("SELECT b FROM MessageArchiveBlock b WHERE b.conversationId = :conversationId AND b.firstMessageId < :beforeId " +
+            "ORDER BY b.lastMessageId DESC")
+    List<MessageArchiveBlock> findBlocksBefore(
+            @Param("conversationId") String conversationId,
+            @Param("beforeId") Long beforeId,
+            Limit limit
+    );
+
+    List<MessageArchiveBlock> findByConversationIdOrderByFirstMessageIdAsc(String conversationId);
+
+    // Pentru parcurgerea bloc cu bloc (export): id-urile întâi, apoi payload-ul fiecăruia, fără entități în context
+    @Query("SELECT b.id FROM MessageArchiveBlock b WHERE b.conversationId = :conversationId ORDER BY b.firstMessageId ASC")
+    List<Long> findBlockIds(@Param("conversationId") String conversationId);
+
+    @Query("SELECT b.payload FROM MessageArchiveBlock b WHERE b.id = :id")
+    byte[] findPayload(@Param("id") Long id);
+
+    @Modifying
+    @Query("DELETE FROM MessageArchiveBlock b WHERE b.sourcePartition = :sourcePartition")
+    int deleteBySourcePartition(@Param("sourcePartition") String sourcePartition);
+}
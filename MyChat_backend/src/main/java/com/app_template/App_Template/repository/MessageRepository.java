@@ -1,50 +1,89 @@
 package com.app_template.App_Template.repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
+import com.app_template.App_Template.dto.MessageDto;
 import com.app_template.App_Template.entity.Message;
 
 public interface MessageRepository extends JpaRepository<Message, Long> {
 
-    // Găsește toate mesajele între doi useri (bidirecțional)
-    @Query("SELECT m FROM Message m WHERE " +
-            "(m.sender.id = :userId1 AND m.receiver.id = :userId2) OR " +
-            "(m.sender.id = :userId2 AND m.receiver.id = :userId1) " +
-            "ORDER BY m.timestamp ASC")
-    List<Message> findConversation(@Param("userId1") Long userId1, @Param("userId2") Long userId2);
+    // Proiecție direct în MessageDto: un singur SELECT cu join pe useri, doar coloanele afișate
+    // (fără parola/secretul TOTP și fără lazy-load per mesaj). Conținutul rămâne codificat, iar `read`
+    // se derivă din watermark-uri; ambele sunt completate în MessageDtoMapper.
+    String DTO_SELECT = "SELECT new com.app_template.App_Template.dto.MessageDto(" +
+            "m.id, s.id, CONCAT(s.firstname, ' ', s.lastname), s.email, s.imageUrl, " +
+            "r.id, CONCAT(r.firstname, ' ', r.lastname), r.email, r.imageUrl, " +
+            "m.content, m.timestamp) " +
+            "FROM Message m JOIN m.sender s JOIN m.receiver r ";
+
+    // Găsește toate mesajele dintr-o conversație (cheia canonică din Message.conversationIdOf)
+    @Query(DTO_SELECT + "WHERE m.conversationId = :conversationId ORDER BY m.timestamp ASC")
+    List<MessageDto> findConversation(@Param("conversationId") String conversationId);
+
+    // Pagina următoare (keyset, crescător după id) a conversației; pentru export, fiecare pagină în tranzacția ei
+    @Query(DTO_SELECT + "WHERE m.conversationId = :conversationId AND m.id > :afterId ORDER BY m.id ASC")
+    List<MessageDto> findConversationAfter(
+            @Param("conversationId") String conversationId,
+            @Param("afterId") Long afterId,
+            Limit limit
+    );
 
     // Găsește conversația cu paginare
-    @Query("SELECT m FROM Message m WHERE " +
-            "(m.sender.id = :userId1 AND m.receiver.id = :userId2) OR " +
-            "(m.sender.id = :userId2 AND m.receiver.id = :userId1) " +
-            "ORDER BY m.timestamp DESC")
-    Page<Message> findConversationPaginated(
-            @Param("userId1") Long userId1,
-            @Param("userId2") Long userId2,
+    @Query(value = DTO_SELECT + "WHERE m.conversationId = :conversationId ORDER BY m.timestamp DESC",
+            countQuery = "SELECT COUNT(m) FROM Message m WHERE m.conversationId = :conversationId")
+    Page<MessageDto> findConversationPaginated(
+            @Param("conversationId") String conversationId,
             Pageable pageable
     );
 
-    // Numără mesajele necitite pentru un utilizator
-    @Query("SELECT COUNT(m) FROM Message m WHERE m.receiver.id = :receiverId AND m.read = false")
-    Long countUnreadMessages(@Param("receiverId") Long receiverId);
-
-    // Marchează mesajele ca citite între doi useri
-    @Modifying
-    @Query("UPDATE Message m SET m.read = true WHERE " +
-            "m.sender.id = :senderId AND m.receiver.id = :receiverId AND m.read = false")
-    void markMessagesAsRead(@Param("senderId") Long senderId, @Param("receiverId") Long receiverId);
-
-    // Găsește ultimul mesaj între doi useri
-    @Query("SELECT m FROM Message m WHERE " +
-            "(m.sender.id = :userId1 AND m.receiver.id = :userId2) OR " +
-            "(m.sender.id = :userId2 AND m.receiver.id = :userId1) " +
-            "ORDER BY m.timestamp DESC LIMIT 1")
-    Message findLastMessage(@Param("userId1") Long userId1, @Param("userId2") Long userId2);
+    // Paginare cu cursor (keyset): mesajele mai vechi decât beforeId, fără query de COUNT.
+    // O singură scanare inversă pe idx_messages_conversation_id.
+    @Query(DTO_SELECT + "WHERE m.conversationId = :conversationId AND m.id < :beforeId ORDER BY m.id DESC")
+    List<MessageDto> findConversationBefore(
+            @Param("conversationId") String conversationId,
+            @Param("beforeId") Long beforeId,
+            Limit limit
+    );
+
+    // La fel, limitat la mesajele de după `since`: pe tabela partiționată planner-ul elimină partițiile vechi
+    @Query(DTO_SELECT + "WHERE m.conversationId = :conversationId AND m.id < :beforeId " +
+            "AND m.timestamp >= :since ORDER BY m.id DESC")
+    List<MessageDto> findRecentConversationBefore(
+            @Param("conversationId") String conversationId,
+            @Param("beforeId") Long beforeId,
+            @Param("since") LocalDateTime since,
+            Limit limit
+    );
+
+    // Găsește ultimul mesaj dintr-o conversație
+    @Query(DTO_SELECT + "WHERE m.conversationId = :conversationId ORDER BY m.timestamp DESC LIMIT 1")
+    MessageDto findLastMessage(@Param("conversationId") String conversationId);
+
+    // Mesajele cu id-urile date, ca DTO (folosit de căutare)
+    @Query(DTO_SELECT + "WHERE m.id IN :ids")
+    List<MessageDto> findDtosByIds(@Param("ids") List<Long> ids);
+
+    // Completează conversation_id pentru rândurile vechi, în loturi mici ca să nu țină lock-uri lungi.
+    // Parcurge cheia primară (id > lastId), deci fiecare rând e citit o singură dată; întoarce ultimul id
+    // din lot (null la sfârșitul tabelei), de la care continuă lotul următor.
+    @Transactional
+    @Query(value = "WITH batch AS (SELECT id FROM messages WHERE id > :lastId ORDER BY id LIMIT :batchSize), " +
+            "filled AS (UPDATE messages m SET conversation_id = " +
+            "LEAST(m.sender_id, m.receiver_id) || '_' || GREATEST(m.sender_id, m.receiver_id) " +
+            "FROM batch b WHERE m.id = b.id AND m.conversation_id IS NULL) " +
+            "SELECT MAX(id) FROM batch",
+            nativeQuery = true)
+    Long backfillConversationIds(@Param("lastId") long lastId, @Param("batchSize") int batchSize);
+
+    boolean existsByConversationIdIsNull();
 }
\ No newline at end of file
@@ -0,0 +1,21 @@
+package com.app_template.App_Template.repository;
+
+import java.util.List;
+
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import com.app_template.App_Template.entity.RoomMessage;
+
+public interface RoomMessageRepository extends JpaRepository<RoomMessage, Long> {
+
+    // Mesajele ratate după reconectare, în ordine, pe indexul unic (room_id, seq)
+    @Query("SELECT m FROM RoomMessage m WHERE m.roomId = :roomId AND m.seq > :afterSeq ORDER BY m.seq ASC")
+    List<RoomMessage> findAfter(@Param("roomId") Long roomId, @Param("afterSeq") Long afterSeq, Limit limit);
+
+    // Istoric înapoi de la un seq (cele mai noi primele)
+    @Query("SELECT m FROM RoomMessage m WHERE m.roomId = :roomId AND m.seq < :beforeSeq ORDER BY m.seq DESC")
+    List<RoomMessage> findBefore(@Param("roomId") Long roomId, @Param("beforeSeq") Long beforeSeq, Limit limit);
+}
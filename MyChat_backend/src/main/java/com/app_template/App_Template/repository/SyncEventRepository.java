@@ -0,0 +1,17 @@
+package com.app_template.App_Template.repository;
+
+import java.util.List;
+
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import com.app_template.App_Template.entity.SyncEvent;
+
+public interface SyncEventRepository extends JpaRepository<SyncEvent, Long> {
+
+    // Evenimentele ratate, în ordine, pe indexul unic (user_id, seq)
+    @Query("SELECT e FROM SyncEvent e WHERE e.userId = :userId AND e.seq > :since ORDER BY e.seq ASC")
+    List<SyncEvent> findSince(@Param("userId") Long userId, @Param("since") Long since, Limit limit);
+}
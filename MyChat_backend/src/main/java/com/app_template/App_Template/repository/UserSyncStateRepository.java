@@ -0,0 +1,8 @@
+package com.app_template.App_Template.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import com.app_template.App_Template.entity.UserSyncState;
+
+public interface UserSyncStateRepository extends JpaRepository<UserSyncState, Long> {
+}
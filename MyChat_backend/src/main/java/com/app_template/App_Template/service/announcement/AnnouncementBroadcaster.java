@@ -0,0 +1,257 @@
+package com.app_template.App_Template.service.announcement;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.simp.user.SimpUser;
+import org.springframework.messaging.simp.user.SimpUserRegistry;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.app_template.App_Template.config.WirePayload;
+import com.app_template.App_Template.dto.AnnouncementDto;
+import com.app_template.App_Template.dto.BroadcastProgressDto;
+import com.app_template.App_Template.enums.BroadcastStatus;
+import com.app_template.App_Template.repository.AnnouncementRepository;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+// Fan-out-ul live al anunțurilor către sesiunile conectate pe acest nod, pe un singur thread, câte un
+// anunț o dată. Userii sunt parcurși în loturi de batch-size, cu pauză între loturi; înaintea fiecărui lot
+// se așteaptă ca coada canalului outbound să scadă sub max-outbound-backlog, ca mesajele de chat să nu
+// stea în spatele a zeci de mii de frame-uri de anunț. Payload-ul e serializat o singură dată (WirePayload).
+// Progresul e trimis adminului pe /user/queue/broadcasts la cel mult progress-interval-ms și la final.
+@Slf4j
+@Component
+public class AnnouncementBroadcaster {
+
+    private static final String ANNOUNCEMENT_DESTINATION = "/queue/announcements";
+    private static final String PROGRESS_DESTINATION = "/queue/broadcasts";
+    private static final int MAX_TRACKED_BROADCASTS = 50;
+
+    private final SimpMessagingTemplate messagingTemplate;
+    private final SimpUserRegistry simpUserRegistry;
+    private final ThreadPoolTaskExecutor outboundExecutor;
+    private final ThreadPoolTaskExecutor brokerExecutor;
+    private final AnnouncementRepository announcementRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+    private final long batchPauseMillis;
+    private final int maxOutboundBacklog;
+    private final long progressIntervalMillis;
+
+    // Ultimele fan-out-uri, în ordinea pornirii; accesat doar sub lock-ul lui
+    private final Map<Long, Broadcast> broadcasts = new LinkedHashMap<>();
+    private final AtomicInteger running = new AtomicInteger();
+    private final Counter deliveries;
+    private final Counter throttled;
+    private ExecutorService executor;
+    private volatile boolean stopping;
+
+    public AnnouncementBroadcaster(
+            SimpMessagingTemplate messagingTemplate,
+            SimpUserRegistry simpUserRegistry,
+            @Qualifier("clientOutboundChannelExecutor") ThreadPoolTaskExecutor outboundExecutor,
+            @Qualifier("brokerChannelExecutor") ThreadPoolTaskExecutor brokerExecutor,
+            AnnouncementRepository announcementRepository,
+            TransactionTemplate transactionTemplate,
+            MeterRegistry meterRegistry,
+            @Value("${app.broadcast.batch-size:500}") int batchSize,
+            @Value("${app.broadcast.batch-pause-ms:20}") long batchPauseMillis,
+            @Value("${app.broadcast.max-outbound-backlog:5000}") int maxOutboundBacklog,
+            @Value("${app.broadcast.progress-interval-ms:1000}") long progressIntervalMillis) {
+        this.messagingTemplate = messagingTemplate;
+        this.simpUserRegistry = simpUserRegistry;
+        this.outboundExecutor = outboundExecutor;
+        this.brokerExecutor = brokerExecutor;
+        this.announcementRepository = announcementRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.batchSize = batchSize;
+        this.batchPauseMillis = batchPauseMillis;
+        this.maxOutboundBacklog = maxOutboundBacklog;
+        this.progressIntervalMillis = progressIntervalMillis;
+        this.deliveries = Counter.builder("chat.broadcast.deliveries")
+                .description("Sessions that received an announcement")
+                .register(meterRegistry);
+        this.throttled = Counter.builder("chat.broadcast.throttled")
+                .description("Pauses taken because the outbound channel backlog was above the limit")
+                .register(meterRegistry);
+        Gauge.builder("chat.broadcast.running", running, AtomicInteger::get)
+                .description("1 while an announcement fan-out is in progress")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        executor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "announcement-fanout");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void stop() {
+        stopping = true;
+        executor.shutdownNow();
+    }
+
+    // Pune fan-out-ul în coadă (rulează după cele pornite înainte) și întoarce progresul inițial
+    public BroadcastProgressDto submit(AnnouncementDto announcement, String adminEmail) {
+        Broadcast broadcast = new Broadcast(announcement.getId(), adminEmail);
+        synchronized (broadcasts) {
+            broadcasts.put(broadcast.announcementId, broadcast);
+            if (broadcasts.size() > MAX_TRACKED_BROADCASTS) {
+                Long oldest = broadcasts.keySet().iterator().next();
+                broadcasts.remove(oldest);
+            }
+        }
+        executor.execute(() -> run(broadcast, announcement));
+        return broadcast.snapshot();
+    }
+
+    public BroadcastProgressDto progressOf(Long announcementId) {
+        synchronized (broadcasts) {
+            Broadcast broadcast = broadcasts.get(announcementId);
+            return broadcast != null ? broadcast.snapshot() : null;
+        }
+    }
+
+    // Oprește fan-out-ul înaintea lotului următor; anunțul rămâne salvat pentru cererile de la conectare
+    public boolean cancel(Long announcementId) {
+        synchronized (broadcasts) {
+            Broadcast broadcast = broadcasts.get(announcementId);
+            if (broadcast == null || broadcast.finishedAt != null) {
+                return false;
+            }
+            broadcast.cancelled = true;
+            return true;
+        }
+    }
+
+    void run(Broadcast broadcast, AnnouncementDto announcement) {
+        if (broadcast.cancelled) {
+            finish(broadcast, BroadcastStatus.CANCELLED);
+            return;
+        }
+        running.set(1);
+        try {
+            List<SimpUser> users = new ArrayList<>(simpUserRegistry.getUsers());
+            broadcast.startedAt = LocalDateTime.now();
+            broadcast.totalSessions = users.stream().mapToInt(user -> user.getSessions().size()).sum();
+            broadcast.status = BroadcastStatus.RUNNING;
+            report(broadcast);
+
+            WirePayload frame = WirePayload.of(announcement);
+            long lastReport = System.currentTimeMillis();
+            for (int from = 0; from < users.size(); from += batchSize) {
+                if (broadcast.cancelled || stopping) {
+                    finish(broadcast, BroadcastStatus.CANCELLED);
+                    return;
+                }
+                awaitOutboundCapacity();
+                for (SimpUser user : users.subList(from, Math.min(from + batchSize, users.size()))) {
+                    messagingTemplate.convertAndSendToUser(user.getName(), ANNOUNCEMENT_DESTINATION, frame);
+                    int sessions = user.getSessions().size();
+                    broadcast.deliveredSessions.addAndGet(sessions);
+                    deliveries.increment(sessions);
+                }
+                if (System.currentTimeMillis() - lastReport >= progressIntervalMillis) {
+                    report(broadcast);
+                    lastReport = System.currentTimeMillis();
+                }
+                pause(batchPauseMillis);
+            }
+            finish(broadcast, BroadcastStatus.COMPLETED);
+        } catch (Exception e) {
+            log.error("Announcement {} fan-out failed", broadcast.announcementId, e);
+            finish(broadcast, BroadcastStatus.FAILED);
+        } finally {
+            running.set(0);
+        }
+    }
+
+    // Cozile canalului broker și ale canalului outbound sunt partajate cu mesajele de chat; lotul următor
+    // pleacă doar după ce acestea s-au golit suficient
+    private void awaitOutboundCapacity() {
+        while (!stopping && (outboundExecutor.getQueueSize() > maxOutboundBacklog
+                || brokerExecutor.getQueueSize() > maxOutboundBacklog)) {
+            throttled.increment();
+            pause(Math.max(batchPauseMillis, 10));
+        }
+    }
+
+    private void finish(Broadcast broadcast, BroadcastStatus status) {
+        broadcast.status = status;
+        broadcast.finishedAt = LocalDateTime.now();
+        try {
+            transactionTemplate.executeWithoutResult(tx -> announcementRepository.updateDeliveredSessions(
+                    broadcast.announcementId, broadcast.deliveredSessions.get()));
+        } catch (Exception e) {
+            log.warn("Could not save delivery count of announcement {}: {}", broadcast.announcementId, e.getMessage());
+        }
+        report(broadcast);
+        log.info("Announcement {} fan-out {}: {}/{} sessions", broadcast.announcementId, status,
+                broadcast.deliveredSessions.get(), broadcast.totalSessions);
+    }
+
+    private void report(Broadcast broadcast) {
+        try {
+            messagingTemplate.convertAndSendToUser(broadcast.adminEmail, PROGRESS_DESTINATION, broadcast.snapshot());
+        } catch (Exception e) {
+            log.debug("Could not report progress of announcement {}: {}", broadcast.announcementId, e.getMessage());
+        }
+    }
+
+    private void pause(long millis) {
+        try {
+            TimeUnit.MILLISECONDS.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            stopping = true;
+        }
+    }
+
+    static final class Broadcast {
+        private final Long announcementId;
+        private final String adminEmail;
+        private final AtomicInteger deliveredSessions = new AtomicInteger();
+        private volatile BroadcastStatus status = BroadcastStatus.QUEUED;
+        private volatile Integer totalSessions;
+        private volatile LocalDateTime startedAt;
+        private volatile LocalDateTime finishedAt;
+        private volatile boolean cancelled;
+
+        Broadcast(Long announcementId, String adminEmail) {
+            this.announcementId = announcementId;
+            this.adminEmail = adminEmail;
+        }
+
+        BroadcastProgressDto snapshot() {
+            return BroadcastProgressDto.builder()
+                    .announcementId(announcementId)
+                    .status(status)
+                    .totalSessions(totalSessions)
+                    .deliveredSessions(deliveredSessions.get())
+                    .startedAt(startedAt)
+                    .finishedAt(finishedAt)
+                    .build();
+        }
+    }
+}
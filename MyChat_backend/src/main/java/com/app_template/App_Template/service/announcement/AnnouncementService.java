@@ -0,0 +1,15 @@
+package com.app_template.App_Template.service.announcement;
+
+import java.util.List;
+
+import com.app_template.App_Template.dto.AnnouncementDto;
+import com.app_template.App_Template.dto.BroadcastProgressDto;
+
+public interface AnnouncementService {
+    // Salvează anunțul și pornește fan-out-ul live; progresul ajunge la admin pe /user/queue/broadcasts
+    BroadcastProgressDto broadcast(Long adminId, String adminEmail, String title, String content);
+    BroadcastProgressDto getProgress(Long announcementId);
+    boolean cancel(Long announcementId);
+    // afterId: anunțurile ratate (crescător); fără afterId, cele mai recente (descrescător)
+    List<AnnouncementDto> getAnnouncements(Long afterId, int limit);
+}
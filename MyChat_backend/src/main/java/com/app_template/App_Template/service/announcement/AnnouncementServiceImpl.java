@@ -0,0 +1,85 @@
+package com.app_template.App_Template.service.announcement;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+
+import com.app_template.App_Template.dto.AnnouncementDto;
+import com.app_template.App_Template.dto.BroadcastProgressDto;
+import com.app_template.App_Template.entity.Announcement;
+import com.app_template.App_Template.repository.AnnouncementRepository;
+
+import jakarta.persistence.EntityNotFoundException;
+import lombok.RequiredArgsConstructor;
+
+@Service
+@RequiredArgsConstructor
+public class AnnouncementServiceImpl implements AnnouncementService {
+
+    private static final int MAX_TITLE_LENGTH = 200;
+    private static final int MAX_CONTENT_LENGTH = 10_000;
+    private static final int MAX_PAGE_SIZE = 100;
+
+    private final AnnouncementRepository announcementRepository;
+    private final AnnouncementBroadcaster announcementBroadcaster;
+
+    // Fără @Transactional: anunțul trebuie să fie vizibil (commit) înainte ca fan-out-ul să pornească,
+    // altfel un client care se conectează în timpul lui nu l-ar găsi la GET /api/announcements
+    @Override
+    public BroadcastProgressDto broadcast(Long adminId, String adminEmail, String title, String content) {
+        if (title == null || title.isBlank() || title.length() > MAX_TITLE_LENGTH) {
+            throw new IllegalArgumentException("Title must have between 1 and " + MAX_TITLE_LENGTH + " characters");
+        }
+        if (content == null || content.isBlank() || content.length() > MAX_CONTENT_LENGTH) {
+            throw new IllegalArgumentException("Content must have between 1 and " + MAX_CONTENT_LENGTH + " characters");
+        }
+        Announcement announcement = announcementRepository.save(Announcement.builder()
+                .title(title.trim())
+                .content(content)
+                .createdById(adminId)
+                .createdAt(LocalDateTime.now())
+                .build());
+        return announcementBroadcaster.submit(toDto(announcement), adminEmail);
+    }
+
+    @Override
+    public BroadcastProgressDto getProgress(Long announcementId) {
+        BroadcastProgressDto progress = announcementBroadcaster.progressOf(announcementId);
+        if (progress != null) {
+            return progress;
+        }
+        // Fan-out-uri vechi (sau de pe alt nod): doar rezultatul final salvat
+        Announcement announcement = announcementRepository.findById(announcementId)
+                .orElseThrow(() -> new EntityNotFoundException("Announcement not found"));
+        return BroadcastProgressDto.builder()
+                .announcementId(announcement.getId())
+                .deliveredSessions(announcement.getDeliveredSessions())
+                .startedAt(announcement.getCreatedAt())
+                .build();
+    }
+
+    @Override
+    public boolean cancel(Long announcementId) {
+        return announcementBroadcaster.cancel(announcementId);
+    }
+
+    @Override
+    public List<AnnouncementDto> getAnnouncements(Long afterId, int limit) {
+        Limit page = Limit.of(Math.max(1, Math.min(limit, MAX_PAGE_SIZE)));
+        List<Announcement> announcements = afterId != null
+                ? announcementRepository.findByIdGreaterThanOrderByIdAsc(afterId, page)
+                : announcementRepository.findAllByOrderByIdDesc(page);
+        return announcements.stream().map(AnnouncementServiceImpl::toDto).toList();
+    }
+
+    private static AnnouncementDto toDto(Announcement announcement) {
+        return AnnouncementDto.builder()
+                .id(announcement.getId())
+                .title(announcement.getTitle())
+                .content(announcement.getContent())
+                .createdAt(announcement.getCreatedAt())
+                .build();
+    }
+}
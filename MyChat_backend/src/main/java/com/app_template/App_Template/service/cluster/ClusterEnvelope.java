@@ -0,0 +1,8 @@
+package com.app_template.App_Template.service.cluster;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+// Un frame destinat unui user conectat pe alt nod: destinația e cea din convertAndSendToUser (ex. /queue/messages).
+// Cu user null e o publicare pe topic (destinația completă, ex. /topic/rooms.42)
+public record ClusterEnvelope(String user, String destination, JsonNode payload) {
+}
@@ -0,0 +1,188 @@
+package com.app_template.App_Template.service.cluster;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.simp.user.SimpUserRegistry;
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+// Echivalentul cluster-aware pentru convertAndSendToUser. Cu app.cluster.enabled=false trimite doar local,
+// ca înainte. Altfel livrează local dacă userul are sesiuni pe acest nod și pune frame-ul în coada fiecărui
+// nod pe care userul mai are sesiuni (ClusterSessionRegistry); cozile sunt golite în loturi, per nod, de un
+// singur thread, deci ordinea frame-urilor către un nod se păstrează.
+@Slf4j
+@Component
+public class ClusterMessenger {
+
+    private final SimpMessagingTemplate messagingTemplate;
+    private final SimpUserRegistry simpUserRegistry;
+    private final ClusterSessionRegistry sessionRegistry;
+    private final ClusterTransport transport;
+    private final ObjectMapper objectMapper;
+    private final int batchSize;
+    private final long flushIntervalMs;
+
+    private final Map<Integer, Queue<ClusterEnvelope>> outbox = new ConcurrentHashMap<>();
+    private final Map<Integer, AtomicInteger> outboxSizes = new ConcurrentHashMap<>();
+    private final Counter forwarded;
+    private final Counter received;
+    private final Counter batches;
+    private ScheduledExecutorService flusher;
+
+    public ClusterMessenger(
+            SimpMessagingTemplate messagingTemplate,
+            SimpUserRegistry simpUserRegistry,
+            ClusterSessionRegistry sessionRegistry,
+            ClusterTransport transport,
+            ObjectMapper objectMapper,
+            MeterRegistry meterRegistry,
+            @Value("${app.cluster.batch-size:100}") int batchSize,
+            @Value("${app.cluster.flush-interval-ms:5}") long flushIntervalMs) {
+        this.messagingTemplate = messagingTemplate;
+        this.simpUserRegistry = simpUserRegistry;
+        this.sessionRegistry = sessionRegistry;
+        this.transport = transport;
+        this.objectMapper = objectMapper;
+        this.batchSize = batchSize;
+        this.flushIntervalMs = flushIntervalMs;
+        this.forwarded = Counter.builder("chat.cluster.forwarded")
+                .description("Frames queued for delivery on other nodes")
+                .register(meterRegistry);
+        this.received = Counter.builder("chat.cluster.received")
+                .description("Frames received from other nodes and delivered locally")
+                .register(meterRegistry);
+        this.batches = Counter.builder("chat.cluster.batches")
+                .description("Batches sent to other nodes")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!sessionRegistry.isEnabled()) {
+            return;
+        }
+        flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "cluster-fanout");
+            thread.setDaemon(true);
+            return thread;
+        });
+        flusher.scheduleWithFixedDelay(this::flushAll, flushIntervalMs, flushIntervalMs, TimeUnit.MILLISECONDS);
+        transport.start(sessionRegistry.getNodeId(), this::deliverLocally, sessionRegistry::apply);
+        // Evenimentele de sesiune sunt primite de acum înainte; harta se încarcă o dată din ws_sessions
+        sessionRegistry.resync();
+        log.info("Cluster fan-out enabled on node {} (batch size {}, flush interval {} ms)",
+                sessionRegistry.getNodeId(), batchSize, flushIntervalMs);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (flusher == null) {
+            return;
+        }
+        flusher.shutdown();
+        try {
+            flusher.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        flushAll();
+        transport.stop();
+    }
+
+    public void sendToUser(String user, String destination, Object payload) {
+        if (!sessionRegistry.isEnabled()) {
+            messagingTemplate.convertAndSendToUser(user, destination, payload);
+            return;
+        }
+        if (simpUserRegistry.getUser(user) != null) {
+            messagingTemplate.convertAndSendToUser(user, destination, payload);
+        }
+        forward(sessionRegistry.remoteNodesOf(user), user, destination, payload);
+    }
+
+    // Publicare pe un topic (ex. camerele de grup): local o singură dată, iar abonații pot fi pe orice nod,
+    // deci frame-ul merge la toate nodurile vii, fără căutare per user
+    public void sendToTopic(String destination, Object payload) {
+        messagingTemplate.convertAndSend(destination, payload);
+        if (sessionRegistry.isEnabled()) {
+            forward(sessionRegistry.liveRemoteNodes(), null, destination, payload);
+        }
+    }
+
+    private void forward(List<Integer> nodes, String user, String destination, Object payload) {
+        if (nodes.isEmpty()) {
+            return;
+        }
+        // Convertit o singură dată, indiferent pe câte noduri ajunge
+        ClusterEnvelope envelope = new ClusterEnvelope(user, destination, objectMapper.valueToTree(payload));
+        for (Integer node : nodes) {
+            outbox.computeIfAbsent(node, key -> new ConcurrentLinkedQueue<>()).add(envelope);
+            forwarded.increment();
+            if (outboxSizes.computeIfAbsent(node, key -> new AtomicInteger()).incrementAndGet() == batchSize) {
+                flusher.execute(() -> flush(node));
+            }
+        }
+    }
+
+    private void flushAll() {
+        outbox.keySet().forEach(this::flush);
+    }
+
+    private void flush(Integer node) {
+        Queue<ClusterEnvelope> queue = outbox.get(node);
+        AtomicInteger size = outboxSizes.get(node);
+        List<ClusterEnvelope> batch = new ArrayList<>(batchSize);
+        ClusterEnvelope envelope;
+        while ((envelope = queue.poll()) != null) {
+            size.decrementAndGet();
+            batch.add(envelope);
+            if (batch.size() == batchSize) {
+                sendSafely(node, batch);
+                batch = new ArrayList<>(batchSize);
+            }
+        }
+        sendSafely(node, batch);
+    }
+
+    private void sendSafely(Integer node, List<ClusterEnvelope> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        try {
+            transport.send(node, batch);
+            batches.increment();
+        } catch (Exception e) {
+            // Livrarea live e best-effort; clientul recuperează frame-urile pierdute prin sync
+            log.warn("Dropped {} frames for node {}: {}", batch.size(), node, e.getMessage());
+        }
+    }
+
+    private void deliverLocally(List<ClusterEnvelope> batch) {
+        for (ClusterEnvelope envelope : batch) {
+            if (envelope.user() == null) {
+                messagingTemplate.convertAndSend(envelope.destination(), envelope.payload());
+            } else {
+                messagingTemplate.convertAndSendToUser(envelope.user(), envelope.destination(), envelope.payload());
+            }
+            received.increment();
+        }
+    }
+}
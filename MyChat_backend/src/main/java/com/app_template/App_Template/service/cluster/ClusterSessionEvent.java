@@ -0,0 +1,16 @@
+package com.app_template.App_Template.service.cluster;
+
+// Schimbare în sesiunile STOMP ale unui nod, trimisă tuturor nodurilor ca fiecare să-și țină în memorie
+// harta user -> noduri. NODE_RESET: nodul a (re)pornit sau se oprește, sesiunile lui anterioare nu mai există.
+// INBOX_SUBSCRIBED / INBOX_UNSUBSCRIBED: sesiunea are / nu mai are abonarea la /user/queue/messages confirmată
+// de broker (OfflineMailbox decide după ele dacă un mesaj ajunge live undeva în cluster).
+public record ClusterSessionEvent(Type type, int nodeId, String sessionId, String user) {
+
+    public enum Type {
+        CONNECTED,
+        DISCONNECTED,
+        NODE_RESET,
+        INBOX_SUBSCRIBED,
+        INBOX_UNSUBSCRIBED
+    }
+}
@@ -0,0 +1,268 @@
+package com.app_template.App_Template.service.cluster;
+
+import java.security.Principal;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiPredicate;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.messaging.SessionConnectedEvent;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+// Registrul sesiune -> nod, partajat prin Postgres: fiecare nod își scrie sesiunile STOMP în ws_sessions și
+// își reînnoiește rândul din cluster_nodes la fiecare heartbeat. Sesiunile unui nod care nu a mai dat
+// semn de viață în node-ttl-ms sunt ignorate la căutare și șterse ulterior.
+// Căutarea per frame (remoteNodesOf) nu atinge baza de date: fiecare nod ține în memorie sesiunile celorlalte,
+// actualizate din evenimentele de sesiune primite prin ClusterTransport și resincronizate din ws_sessions la
+// session-resync-ms (acoperă notificările pierdute cât timp conexiunea de ascultare era căzută).
+// Pentru fiecare sesiune se știe și dacă are abonarea la /user/queue/messages confirmată (inbox_subscribed),
+// ca un mesaj să intre în cutia offline doar când userul nu îl poate primi live pe niciun nod.
+@Slf4j
+@Component
+public class ClusterSessionRegistry {
+
+    private static final String REMOTE_SESSIONS_SQL =
+            "SELECT s.session_id, s.user_name, s.node_id, s.inbox_subscribed FROM ws_sessions s JOIN cluster_nodes n ON n.node_id = s.node_id " +
+                    "WHERE s.node_id <> ? AND n.last_seen > now() - make_interval(secs => ?)";
+
+    private static final String LIVE_NODES_SQL =
+            "SELECT node_id FROM cluster_nodes WHERE node_id <> ? AND last_seen > now() - make_interval(secs => ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ClusterTransport transport;
+    private final boolean enabled;
+    private final int nodeId;
+    private final long nodeTtlMillis;
+    private final long sessionResyncMillis;
+    // Celelalte noduri vii, reîmprospătate la heartbeat (publicările pe topic merg la toate)
+    private volatile List<Integer> liveRemoteNodes = List.of();
+    // user -> sessionId -> sesiunea de pe alt nod
+    private final Map<String, Map<String, RemoteSession>> remoteSessions = new ConcurrentHashMap<>();
+    private volatile long lastResyncMillis = System.currentTimeMillis();
+
+    public ClusterSessionRegistry(
+            JdbcTemplate jdbcTemplate,
+            ClusterTransport transport,
+            @Value("${app.cluster.enabled:false}") boolean enabled,
+            @Value("${app.node-id:-1}") int nodeId,
+            @Value("${app.cluster.node-ttl-ms:15000}") long nodeTtlMillis,
+            @Value("${app.cluster.session-resync-ms:60000}") long sessionResyncMillis) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transport = transport;
+        if (enabled && nodeId < 0) {
+            // Ca SnowflakeMessageIdGenerator: verificat înainte ca register() să atingă sesiunile altui nod
+            throw new IllegalStateException("app.node-id must be set to a distinct value on every node "
+                    + "when app.cluster.enabled=true");
+        }
+        this.enabled = enabled;
+        this.nodeId = Math.max(0, nodeId);
+        this.nodeTtlMillis = nodeTtlMillis;
+        this.sessionResyncMillis = sessionResyncMillis;
+    }
+
+    @PostConstruct
+    public void register() {
+        if (!enabled) {
+            return;
+        }
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS cluster_nodes (" +
+                "node_id integer PRIMARY KEY, " +
+                "last_seen timestamp(6) NOT NULL)");
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS ws_sessions (" +
+                "session_id varchar(64) PRIMARY KEY, " +
+                "user_name varchar(255) NOT NULL, " +
+                "node_id integer NOT NULL, " +
+                "connected_at timestamp(6) NOT NULL DEFAULT now())");
+        jdbcTemplate.execute("ALTER TABLE ws_sessions ADD COLUMN IF NOT EXISTS inbox_subscribed boolean NOT NULL DEFAULT false");
+        jdbcTemplate.execute("CREATE INDEX IF NOT EXISTS idx_ws_sessions_user ON ws_sessions (user_name)");
+        // Sesiunile rămase de la procesul anterior cu același node-id nu mai există
+        jdbcTemplate.update("DELETE FROM ws_sessions WHERE node_id = ?", nodeId);
+        transport.publish(new ClusterSessionEvent(ClusterSessionEvent.Type.NODE_RESET, nodeId, null, null));
+        heartbeat();
+    }
+
+    @PreDestroy
+    public void unregister() {
+        if (!enabled) {
+            return;
+        }
+        jdbcTemplate.update("DELETE FROM ws_sessions WHERE node_id = ?", nodeId);
+        jdbcTemplate.update("DELETE FROM cluster_nodes WHERE node_id = ?", nodeId);
+        transport.publish(new ClusterSessionEvent(ClusterSessionEvent.Type.NODE_RESET, nodeId, null, null));
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public int getNodeId() {
+        return nodeId;
+    }
+
+    // Nodurile vii (altele decât acesta) pe care userul are cel puțin o sesiune; fără acces la baza de date
+    public List<Integer> remoteNodesOf(String user) {
+        Map<String, RemoteSession> sessions = remoteSessions.get(user);
+        if (sessions == null) {
+            return List.of();
+        }
+        List<Integer> live = liveRemoteNodes;
+        return sessions.values().stream()
+                .map(RemoteSession::nodeId)
+                .distinct()
+                .filter(live::contains)
+                .toList();
+    }
+
+    public List<Integer> liveRemoteNodes() {
+        return liveRemoteNodes;
+    }
+
+    // Userul are pe un alt nod viu o sesiune abonată la /user/queue/messages; fără acces la baza de date
+    public boolean hasRemoteInboxSubscriber(String user) {
+        Map<String, RemoteSession> sessions = remoteSessions.get(user);
+        if (sessions == null) {
+            return false;
+        }
+        List<Integer> live = liveRemoteNodes;
+        return sessions.values().stream()
+                .anyMatch(session -> session.inboxSubscribed() && live.contains(session.nodeId()));
+    }
+
+    // Apelat de OfflineMailbox când broker-ul acestui nod confirmă / scoate abonarea unei sesiuni locale
+    public void setInboxSubscribed(String sessionId, String user, boolean subscribed) {
+        if (!enabled || sessionId == null) {
+            return;
+        }
+        jdbcTemplate.update("UPDATE ws_sessions SET inbox_subscribed = ? WHERE session_id = ?", subscribed, sessionId);
+        transport.publish(new ClusterSessionEvent(subscribed
+                ? ClusterSessionEvent.Type.INBOX_SUBSCRIBED
+                : ClusterSessionEvent.Type.INBOX_UNSUBSCRIBED, nodeId, sessionId, user));
+    }
+
+    @EventListener
+    public void onConnected(SessionConnectedEvent event) {
+        Principal user = event.getUser();
+        String sessionId = (String) event.getMessage().getHeaders().get("simpSessionId");
+        if (!enabled || user == null || sessionId == null) {
+            return;
+        }
+        jdbcTemplate.update("INSERT INTO ws_sessions (session_id, user_name, node_id) VALUES (?, ?, ?) " +
+                "ON CONFLICT (session_id) DO NOTHING", sessionId, user.getName(), nodeId);
+        transport.publish(new ClusterSessionEvent(ClusterSessionEvent.Type.CONNECTED, nodeId, sessionId, user.getName()));
+    }
+
+    @EventListener
+    public void onDisconnect(SessionDisconnectEvent event) {
+        if (!enabled) {
+            return;
+        }
+        jdbcTemplate.update("DELETE FROM ws_sessions WHERE session_id = ?", event.getSessionId());
+        Principal user = event.getUser();
+        transport.publish(new ClusterSessionEvent(ClusterSessionEvent.Type.DISCONNECTED, nodeId,
+                event.getSessionId(), user != null ? user.getName() : null));
+    }
+
+    // Evenimentele de sesiune ale celorlalte noduri (pe thread-ul transportului)
+    public void apply(ClusterSessionEvent event) {
+        if (event.nodeId() == nodeId) {
+            return;
+        }
+        switch (event.type()) {
+            case CONNECTED -> putSession(event.user(), event.sessionId(), event.nodeId(), false, System.nanoTime(), false);
+            case INBOX_SUBSCRIBED, INBOX_UNSUBSCRIBED -> putSession(event.user(), event.sessionId(), event.nodeId(),
+                    event.type() == ClusterSessionEvent.Type.INBOX_SUBSCRIBED, System.nanoTime(), true);
+            case DISCONNECTED -> {
+                if (event.user() != null) {
+                    removeSession(event.user(), event.sessionId());
+                } else {
+                    remoteSessions.keySet().forEach(user -> removeSession(user, event.sessionId()));
+                }
+            }
+            case NODE_RESET -> remoteSessions.keySet().forEach(user -> removeSessions(user,
+                    (sessionId, session) -> session.nodeId() == event.nodeId()));
+        }
+    }
+
+    // Reîncarcă harta din ws_sessions. Sesiunile adăugate sau modificate din evenimente după începutul citirii
+    // sunt păstrate; o deconectare primită în timpul citirii poate lăsa o sesiune în plus până la următoarea
+    // resincronizare (un frame trimis degeaba, nu unul pierdut).
+    public void resync() {
+        if (!enabled) {
+            return;
+        }
+        long startedAt = System.nanoTime();
+        Set<String> loaded = new HashSet<>();
+        jdbcTemplate.query(REMOTE_SESSIONS_SQL, rs -> {
+            String sessionId = rs.getString("session_id");
+            loaded.add(sessionId);
+            putSession(rs.getString("user_name"), sessionId, rs.getInt("node_id"), rs.getBoolean("inbox_subscribed"),
+                    startedAt, true);
+        }, nodeId, nodeTtlMillis / 1000.0);
+        remoteSessions.keySet().forEach(user -> removeSessions(user,
+                (sessionId, session) -> session.updatedAt() < startedAt && !loaded.contains(sessionId)));
+        lastResyncMillis = System.currentTimeMillis();
+    }
+
+    // replace=false: doar dacă sesiunea nu e deja cunoscută (CONNECTED nu șterge o abonare deja primită);
+    // altfel înlocuiește starea mai veche decât updatedAt (o resincronizare nu suprascrie un eveniment mai nou)
+    private void putSession(String user, String sessionId, int sessionNodeId, boolean inboxSubscribed,
+                            long updatedAt, boolean replace) {
+        if (user == null || sessionId == null) {
+            return;
+        }
+        RemoteSession session = new RemoteSession(sessionNodeId, inboxSubscribed, updatedAt);
+        remoteSessions.compute(user, (key, sessions) -> {
+            Map<String, RemoteSession> result = sessions != null ? sessions : new ConcurrentHashMap<>();
+            result.merge(sessionId, session, (current, next) ->
+                    replace && current.updatedAt() <= next.updatedAt() ? next : current);
+            return result;
+        });
+    }
+
+    private void removeSession(String user, String sessionId) {
+        removeSessions(user, (id, session) -> id.equals(sessionId));
+    }
+
+    // Userii rămași fără sesiuni sunt scoși din hartă; compute pe aceeași cheie ca putSession, deci o sesiune
+    // adăugată concurent nu ajunge într-o hartă deja scoasă
+    private void removeSessions(String user, BiPredicate<String, RemoteSession> filter) {
+        remoteSessions.computeIfPresent(user, (key, sessions) -> {
+            sessions.entrySet().removeIf(entry -> filter.test(entry.getKey(), entry.getValue()));
+            return sessions.isEmpty() ? null : sessions;
+        });
+    }
+
+    @Scheduled(fixedDelayString = "${app.cluster.heartbeat-ms:5000}")
+    public void heartbeat() {
+        if (!enabled) {
+            return;
+        }
+        jdbcTemplate.update("INSERT INTO cluster_nodes (node_id, last_seen) VALUES (?, now()) " +
+                "ON CONFLICT (node_id) DO UPDATE SET last_seen = EXCLUDED.last_seen", nodeId);
+        liveRemoteNodes = List.copyOf(jdbcTemplate.queryForList(LIVE_NODES_SQL, Integer.class, nodeId, nodeTtlMillis / 1000.0));
+        // Curăță sesiunile nodurilor căzute de mult (nu mai sunt oricum folosite la căutare)
+        int removed = jdbcTemplate.update("DELETE FROM ws_sessions s USING cluster_nodes n " +
+                "WHERE n.node_id = s.node_id AND n.last_seen < now() - make_interval(secs => ?)", nodeTtlMillis * 10 / 1000.0);
+        if (removed > 0) {
+            log.info("Removed {} sessions of nodes that stopped sending heartbeats", removed);
+        }
+        if (System.currentTimeMillis() - lastResyncMillis >= sessionResyncMillis) {
+            resync();
+        }
+    }
+
+    // updatedAt (System.nanoTime) decide ce poate șterge sau suprascrie o resincronizare
+    private record RemoteSession(int nodeId, boolean inboxSubscribed, long updatedAt) {
+    }
+}
@@ -0,0 +1,19 @@
+package com.app_template.App_Template.service.cluster;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+// Transportul dintre noduri: livrează loturi de frame-uri către un nod anume și evenimentele de sesiune
+// către toate nodurile. Implicit PostgresClusterTransport (LISTEN/NOTIFY); InMemoryClusterTransport pentru teste.
+public interface ClusterTransport {
+
+    // Începe să primească loturile adresate nodului localNodeId și evenimentele de sesiune ale tuturor nodurilor
+    void start(int localNodeId, Consumer<List<ClusterEnvelope>> receiver, Consumer<ClusterSessionEvent> sessionListener);
+
+    void send(int targetNodeId, List<ClusterEnvelope> batch);
+
+    // Ajunge la toate nodurile pornite, inclusiv la cel care îl trimite; best-effort
+    void publish(ClusterSessionEvent event);
+
+    void stop();
+}
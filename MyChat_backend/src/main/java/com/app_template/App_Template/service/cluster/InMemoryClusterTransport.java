@@ -0,0 +1,39 @@
+package com.app_template.App_Template.service.cluster;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+// Transport în proces: o singură instanță e partajată de mai multe "noduri" (ex. în teste); livrarea e sincronă
+public class InMemoryClusterTransport implements ClusterTransport {
+
+    private final Map<Integer, Consumer<List<ClusterEnvelope>>> receivers = new ConcurrentHashMap<>();
+    private final Map<Integer, Consumer<ClusterSessionEvent>> sessionListeners = new ConcurrentHashMap<>();
+
+    @Override
+    public void start(int localNodeId, Consumer<List<ClusterEnvelope>> receiver,
+                      Consumer<ClusterSessionEvent> sessionListener) {
+        receivers.put(localNodeId, receiver);
+        sessionListeners.put(localNodeId, sessionListener);
+    }
+
+    @Override
+    public void send(int targetNodeId, List<ClusterEnvelope> batch) {
+        Consumer<List<ClusterEnvelope>> receiver = receivers.get(targetNodeId);
+        if (receiver != null) {
+            receiver.accept(List.copyOf(batch));
+        }
+    }
+
+    @Override
+    public void publish(ClusterSessionEvent event) {
+        sessionListeners.values().forEach(listener -> listener.accept(event));
+    }
+
+    @Override
+    public void stop() {
+        receivers.clear();
+        sessionListeners.clear();
+    }
+}
@@ -0,0 +1,191 @@
+package com.app_template.App_Template.service.cluster;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.function.Consumer;
+
+import javax.sql.DataSource;
+
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import lombok.extern.slf4j.Slf4j;
+
+// Transport prin Postgres LISTEN/NOTIFY: fiecare nod ascultă pe canalul chat_node_<id> pe o conexiune dedicată.
+// Un lot e trimis ca array JSON într-un singur NOTIFY; loturile peste limita de 8000 de bytes a NOTIFY sunt
+// împărțite, iar un frame singur prea mare e pus în cluster_payloads și doar id-ul lui trece prin NOTIFY.
+// Evenimentele de sesiune merg pe canalul comun chat_sessions, ascultat de toate nodurile pe aceeași conexiune.
+// Notificările emise cât timp un nod e deconectat se pierd; clientul recuperează prin /api/messages/sync,
+// iar harta sesiunilor e resincronizată periodic din ws_sessions (ClusterSessionRegistry).
+@Slf4j
+@Component
+public class PostgresClusterTransport implements ClusterTransport {
+
+    private static final String CHANNEL_PREFIX = "chat_node_";
+    private static final String SESSIONS_CHANNEL = "chat_sessions";
+    // Limita NOTIFY e 8000 de bytes; rămâne loc pentru prefix
+    private static final int MAX_NOTIFY_BYTES = 7900;
+    private static final String STASH_PREFIX = "@";
+    private static final int POLL_TIMEOUT_MS = 500;
+    private static final long RECONNECT_DELAY_MS = 2000;
+    private static final TypeReference<List<ClusterEnvelope>> BATCH_TYPE = new TypeReference<>() {
+    };
+
+    private final DataSource dataSource;
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+
+    private volatile boolean running;
+    private Thread listener;
+
+    public PostgresClusterTransport(DataSource dataSource, JdbcTemplate jdbcTemplate, ObjectMapper objectMapper) {
+        this.dataSource = dataSource;
+        this.jdbcTemplate = jdbcTemplate;
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public void start(int localNodeId, Consumer<List<ClusterEnvelope>> receiver,
+                      Consumer<ClusterSessionEvent> sessionListener) {
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS cluster_payloads (" +
+                "id bigserial PRIMARY KEY, " +
+                "payload text NOT NULL, " +
+                "created_at timestamp(6) NOT NULL DEFAULT now())");
+        running = true;
+        listener = new Thread(() -> listen(CHANNEL_PREFIX + localNodeId, receiver, sessionListener), "cluster-listener");
+        listener.setDaemon(true);
+        listener.start();
+        log.info("Cluster transport listening on {}", CHANNEL_PREFIX + localNodeId);
+    }
+
+    @Override
+    public void send(int targetNodeId, List<ClusterEnvelope> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        String payload = serialize(batch);
+        if (payload.getBytes(StandardCharsets.UTF_8).length <= MAX_NOTIFY_BYTES) {
+            notify(targetNodeId, payload);
+        } else if (batch.size() > 1) {
+            int middle = batch.size() / 2;
+            send(targetNodeId, batch.subList(0, middle));
+            send(targetNodeId, batch.subList(middle, batch.size()));
+        } else {
+            Long id = jdbcTemplate.queryForObject(
+                    "INSERT INTO cluster_payloads (payload) VALUES (?) RETURNING id", Long.class, payload);
+            notify(targetNodeId, STASH_PREFIX + id);
+        }
+    }
+
+    @Override
+    public void publish(ClusterSessionEvent event) {
+        try {
+            jdbcTemplate.query("SELECT pg_notify(?, ?)", rs -> null, SESSIONS_CHANNEL, objectMapper.writeValueAsString(event));
+        } catch (Exception e) {
+            // Celelalte noduri află de sesiune la următoarea resincronizare
+            log.warn("Could not publish session event {}: {}", event.type(), e.getMessage());
+        }
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        if (listener != null) {
+            listener.interrupt();
+        }
+    }
+
+    // Frame-urile mari nerecuperate (nodul țintă a căzut între timp)
+    @Scheduled(fixedDelay = 3_600_000, initialDelay = 3_600_000)
+    public void purgeOrphanPayloads() {
+        if (running) {
+            jdbcTemplate.update("DELETE FROM cluster_payloads WHERE created_at < now() - interval '1 hour'");
+        }
+    }
+
+    private void notify(int targetNodeId, String payload) {
+        jdbcTemplate.query("SELECT pg_notify(?, ?)", rs -> null, CHANNEL_PREFIX + targetNodeId, payload);
+    }
+
+    private void listen(String channel, Consumer<List<ClusterEnvelope>> receiver,
+                        Consumer<ClusterSessionEvent> sessionListener) {
+        while (running) {
+            try (Connection connection = dataSource.getConnection()) {
+                connection.setAutoCommit(true);
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("LISTEN " + channel);
+                    statement.execute("LISTEN " + SESSIONS_CHANNEL);
+                }
+                PGConnection pgConnection = connection.unwrap(PGConnection.class);
+                while (running) {
+                    PGNotification[] notifications = pgConnection.getNotifications(POLL_TIMEOUT_MS);
+                    if (notifications == null) {
+                        continue;
+                    }
+                    for (PGNotification notification : notifications) {
+                        if (SESSIONS_CHANNEL.equals(notification.getName())) {
+                            receiveSessionEvent(notification.getParameter(), sessionListener);
+                        } else {
+                            receive(notification.getParameter(), receiver);
+                        }
+                    }
+                }
+            } catch (SQLException e) {
+                if (!running) {
+                    return;
+                }
+                log.warn("Cluster listener connection lost, reconnecting in {} ms: {}", RECONNECT_DELAY_MS, e.getMessage());
+                try {
+                    Thread.sleep(RECONNECT_DELAY_MS);
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    private void receive(String payload, Consumer<List<ClusterEnvelope>> receiver) {
+        try {
+            if (payload.startsWith(STASH_PREFIX)) {
+                List<String> stashed = jdbcTemplate.queryForList(
+                        "DELETE FROM cluster_payloads WHERE id = ? RETURNING payload", String.class,
+                        Long.parseLong(payload.substring(STASH_PREFIX.length())));
+                if (stashed.isEmpty()) {
+                    return;
+                }
+                payload = stashed.get(0);
+            }
+            receiver.accept(objectMapper.readValue(payload, BATCH_TYPE));
+        } catch (Exception e) {
+            // Un lot stricat nu trebuie să oprească ascultarea
+            log.error("Failed to deliver cluster batch", e);
+        }
+    }
+
+    private void receiveSessionEvent(String payload, Consumer<ClusterSessionEvent> sessionListener) {
+        try {
+            sessionListener.accept(objectMapper.readValue(payload, ClusterSessionEvent.class));
+        } catch (Exception e) {
+            log.error("Failed to apply cluster session event", e);
+        }
+    }
+
+    private String serialize(List<ClusterEnvelope> batch) {
+        try {
+            return objectMapper.writeValueAsString(batch);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot serialize cluster batch", e);
+        }
+    }
+}
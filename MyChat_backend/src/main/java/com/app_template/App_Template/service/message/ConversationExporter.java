@@ -0,0 +1,190 @@
+package com.app_template.App_Template.service.message;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.app_template.App_Template.dto.MessageDto;
+import com.app_template.App_Template.entity.Message;
+import com.app_template.App_Template.entity.User;
+import com.app_template.App_Template.repository.MessageRepository;
+import com.app_template.App_Template.repository.UserRepository;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+
+import lombok.extern.slf4j.Slf4j;
+
+// Exportă o conversație întreagă (arhivă + tabela hot) direct în stream-ul răspunsului, mesaj cu mesaj.
+// Memoria folosită nu depinde de lungimea conversației: arhiva e citită bloc cu bloc, tabela hot în pagini
+// keyset de PAGE_SIZE, iar DTO-urile din proiecție nu intră în persistence context.
+// Fiecare citire are tranzacția ei scurtă și nicio conexiune nu e ținută cât timp se scrie în răspuns,
+// deci un client care descarcă încet nu ocupă o conexiune din pool pe toată durata exportului.
+@Slf4j
+@Component
+public class ConversationExporter {
+
+    public enum Format {
+        NDJSON("application/x-ndjson", "ndjson"),
+        CSV("text/csv", "csv");
+
+        private final String contentType;
+        private final String extension;
+
+        Format(String contentType, String extension) {
+            this.contentType = contentType;
+            this.extension = extension;
+        }
+
+        public String getContentType() {
+            return contentType;
+        }
+
+        public String getExtension() {
+            return extension;
+        }
+    }
+
+    private static final int PAGE_SIZE = 500;
+    private static final int FLUSH_EVERY = 500;
+    private static final String CSV_HEADER =
+            "id,timestamp,senderId,senderName,receiverId,receiverName,read,content";
+
+    private final MessageRepository messageRepository;
+    private final UserRepository userRepository;
+    private final MessageArchive messageArchive;
+    private final MessageDtoMapper messageDtoMapper;
+    private final TransactionTemplate readOnlyTransaction;
+    private final ObjectWriter jsonWriter;
+
+    public ConversationExporter(
+            MessageRepository messageRepository,
+            UserRepository userRepository,
+            MessageArchive messageArchive,
+            MessageDtoMapper messageDtoMapper,
+            TransactionTemplate transactionTemplate,
+            ObjectMapper objectMapper) {
+        this.messageRepository = messageRepository;
+        this.userRepository = userRepository;
+        this.messageArchive = messageArchive;
+        this.messageDtoMapper = messageDtoMapper;
+        this.readOnlyTransaction = new TransactionTemplate(transactionTemplate.getTransactionManager());
+        this.readOnlyTransaction.setReadOnly(true);
+        // Stream-ul răspunsului e închis de Spring, nu de Jackson după fiecare linie
+        this.jsonWriter = objectMapper.writer().without(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+    }
+
+    public void export(Long userId1, Long userId2, Format format, OutputStream out) {
+        String conversationId = Message.conversationIdOf(userId1, userId2);
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        RowWriter rows = new RowWriter(writer, format);
+
+        ExportContext context = readOnlyTransaction.execute(status -> new ExportContext(
+                loadUsers(userId1, userId2),
+                messageDtoMapper.loadReadWatermarks(List.of(userId1, userId2))));
+        Map<String, Long> watermarks = context.watermarks();
+        rows.header();
+
+        // Arhiva conține mesajele mai vechi decât tabela hot; lastId evită dublurile la graniță
+        long[] lastId = {Long.MIN_VALUE};
+        messageArchive.forEach(conversationId, archived -> {
+            rows.write(messageDtoMapper.applyReadState(messageDtoMapper.toDto(archived, context.users()), watermarks));
+            lastId[0] = archived.getId();
+        });
+
+        List<MessageDto> page;
+        do {
+            long after = lastId[0];
+            page = readOnlyTransaction.execute(status ->
+                    messageRepository.findConversationAfter(conversationId, after, Limit.of(PAGE_SIZE)));
+            for (MessageDto message : page) {
+                rows.write(messageDtoMapper.applyReadState(messageDtoMapper.decodeContent(message), watermarks));
+                lastId[0] = message.getId();
+            }
+        } while (page.size() == PAGE_SIZE);
+
+        try {
+            writer.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        log.debug("Exported {} messages from conversation {}", rows.count, conversationId);
+    }
+
+    private Map<Long, User> loadUsers(Long userId1, Long userId2) {
+        return userRepository.findAllById(List.of(userId1, userId2)).stream()
+                .collect(Collectors.toMap(User::getId, Function.identity()));
+    }
+
+    private record ExportContext(Map<Long, User> users, Map<String, Long> watermarks) {
+    }
+
+    private final class RowWriter {
+        private final Writer writer;
+        private final Format format;
+        private long count;
+
+        private RowWriter(Writer writer, Format format) {
+            this.writer = writer;
+            this.format = format;
+        }
+
+        private void header() {
+            if (format == Format.CSV) {
+                try {
+                    append(CSV_HEADER);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+        }
+
+        private void write(MessageDto message) {
+            try {
+                append(format == Format.NDJSON ? jsonWriter.writeValueAsString(message) : csvLine(message));
+                // Flush periodic: clientul primește datele pe parcurs, iar buffer-ul rămâne mic
+                if (++count % FLUSH_EVERY == 0) {
+                    writer.flush();
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        private void append(String line) throws IOException {
+            writer.write(line);
+            writer.write('\n');
+        }
+
+        private String csvLine(MessageDto message) {
+            return message.getId() + "," +
+                    message.getTimestamp() + "," +
+                    message.getSenderId() + "," +
+                    csv(message.getSenderName()) + "," +
+                    message.getReceiverId() + "," +
+                    csv(message.getReceiverName()) + "," +
+                    message.getRead() + "," +
+                    csv(message.getContent());
+        }
+
+        // RFC 4180: câmpul e pus între ghilimele, iar ghilimelele interioare sunt dublate
+        private String csv(String value) {
+            if (value == null) {
+                return "";
+            }
+            return "\"" + value.replace("\"", "\"\"") + "\"";
+        }
+    }
+}
@@ -0,0 +1,258 @@
+package com.app_template.App_Template.service.message;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.app_template.App_Template.dto.ArchivedMessage;
+import com.app_template.App_Template.entity.MessageArchiveBlock;
+import com.app_template.App_Template.repository.MessageArchiveBlockRepository;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import lombok.extern.slf4j.Slf4j;
+
+// Citește și scrie tier-ul de arhivă (message_archive_blocks). Activ doar împreună cu partiționarea.
+@Slf4j
+@Component
+public class MessageArchive {
+
+    static final int BLOCK_SIZE = 1000;
+    private static final int BLOCKS_PER_READ = 4;
+    // Blocurile sunt inserate cu JdbcTemplate, câte BLOCKS_PER_INSERT într-un batch: prin repository ar rămâne
+    // toate (cu payload-ul comprimat) în persistence context până la commit
+    private static final int BLOCKS_PER_INSERT = 16;
+    private static final String INSERT_BLOCK_SQL =
+            "INSERT INTO message_archive_blocks (conversation_id, source_partition, first_message_id, last_message_id, " +
+                    "first_timestamp, last_timestamp, message_count, payload) VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private final MessageArchiveBlockRepository blockRepository;
+    private final JdbcTemplate jdbcTemplate;
+    // Copie separată cu fetch size setat, ca partiția să fie citită cu cursor, nu încărcată toată în memorie
+    private final JdbcTemplate streamingJdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final boolean enabled;
+
+    public MessageArchive(
+            MessageArchiveBlockRepository blockRepository,
+            JdbcTemplate jdbcTemplate,
+            TransactionTemplate transactionTemplate,
+            ObjectMapper objectMapper,
+            @Value("${app.messages.partitioning.enabled:false}") boolean enabled) {
+        this.blockRepository = blockRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.streamingJdbcTemplate = new JdbcTemplate(jdbcTemplate.getDataSource());
+        this.streamingJdbcTemplate.setFetchSize(BLOCK_SIZE);
+        this.transactionTemplate = transactionTemplate;
+        this.objectMapper = objectMapper;
+        this.enabled = enabled;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    // Cel mult `limit` mesaje arhivate cu id < beforeId, de la cel mai nou la cel mai vechi
+    public List<ArchivedMessage> findBefore(String conversationId, long beforeId, int limit) {
+        List<ArchivedMessage> result = new ArrayList<>();
+        if (!enabled || limit <= 0) {
+            return result;
+        }
+        long cursor = beforeId;
+        while (result.size() < limit) {
+            List<MessageArchiveBlock> blocks = blockRepository.findBlocksBefore(conversationId, cursor, Limit.of(BLOCKS_PER_READ));
+            if (blocks.isEmpty()) {
+                break;
+            }
+            List<ArchivedMessage> candidates = new ArrayList<>();
+            for (MessageArchiveBlock block : blocks) {
+                for (ArchivedMessage message : decode(block.getPayload())) {
+                    if (message.getId() < cursor) {
+                        candidates.add(message);
+                    }
+                }
+            }
+            if (candidates.isEmpty()) {
+                break;
+            }
+            candidates.sort(Comparator.comparing(ArchivedMessage::getId).reversed());
+            for (ArchivedMessage message : candidates) {
+                if (result.size() == limit) {
+                    break;
+                }
+                result.add(message);
+            }
+            cursor = result.get(result.size() - 1).getId();
+        }
+        return result;
+    }
+
+    // Toată arhiva unei conversații, în ordine cronologică
+    public List<ArchivedMessage> findAll(String conversationId) {
+        List<ArchivedMessage> result = new ArrayList<>();
+        if (!enabled) {
+            return result;
+        }
+        for (MessageArchiveBlock block : blockRepository.findByConversationIdOrderByFirstMessageIdAsc(conversationId)) {
+            result.addAll(decode(block.getPayload()));
+        }
+        result.sort(Comparator.comparing(ArchivedMessage::getId));
+        return result;
+    }
+
+    // Parcurge arhiva unei conversații în ordine, ținând în memorie un singur bloc
+    public void forEach(String conversationId, Consumer<ArchivedMessage> consumer) {
+        if (!enabled) {
+            return;
+        }
+        for (Long blockId : blockRepository.findBlockIds(conversationId)) {
+            List<ArchivedMessage> messages = decode(blockRepository.findPayload(blockId));
+            messages.sort(Comparator.comparing(ArchivedMessage::getId));
+            messages.forEach(consumer);
+        }
+    }
+
+    // Copiază o partiție (deja în afara ferestrei "hot") în blocuri comprimate. Idempotent: blocurile
+    // unei încercări anterioare pentru aceeași partiție sunt șterse întâi. Rândurile sunt citite cu cursor,
+    // iar blocurile scrise pe măsură ce se umplu, deci memoria folosită e de ordinul câtorva blocuri. Se alătură tranzacției apelantului, dacă există.
+    public long archivePartition(String partitionName) {
+        Long archived = transactionTemplate.execute(status -> {
+            blockRepository.deleteBySourcePartition(partitionName);
+            return copyToBlocks(partitionName, "", List.of());
+        });
+        log.info("Archived {} messages from partition {}", archived, partitionName);
+        return archived == null ? 0 : archived;
+    }
+
+    // Pentru partițiile care acoperă multe luni (messages_legacy): copiază în blocuri cel mult `limit` mesaje,
+    // primele în ordinea id-ului dintre cele mai vechi decât `before`, și întoarce id-ul ultimului (null dacă
+    // nu mai e nimic de arhivat). Apelantul șterge aceleași rânduri (id <= rezultat, timestamp < before) în
+    // tranzacția lui, deci fiecare bucată e mutată o singură dată și nu e nevoie de curățarea unei încercări anterioare.
+    public Long archiveChunk(String partitionName, LocalDate before, int limit) {
+        Timestamp cutoff = Timestamp.valueOf(before.atStartOfDay());
+        return transactionTemplate.execute(status -> {
+            // Id-urile sunt ordonate în timp: dacă nici cel mai vechi rând nu e înainte de `before`, nu e nimic de
+            // arhivat, fără să parcurgem indexul întregii partiții în căutarea unui rând rece
+            Timestamp oldest = jdbcTemplate.queryForList("SELECT timestamp FROM " + partitionName + " ORDER BY id LIMIT 1",
+                    Timestamp.class).stream().findFirst().orElse(null);
+            if (oldest == null || !oldest.before(cutoff)) {
+                return null;
+            }
+            Long upToId = jdbcTemplate.queryForObject("SELECT MAX(id) FROM (SELECT id FROM " + partitionName +
+                    " WHERE timestamp < ? ORDER BY id LIMIT ?) chunk", Long.class, cutoff, limit);
+            if (upToId != null) {
+                copyToBlocks(partitionName, " WHERE id <= ? AND timestamp < ?", List.of(upToId, cutoff));
+            }
+            return upToId;
+        });
+    }
+
+    private long copyToBlocks(String partitionName, String where, List<Object> args) {
+        BlockBuilder builder = new BlockBuilder(partitionName);
+        streamingJdbcTemplate.query(
+                "SELECT id, COALESCE(conversation_id, LEAST(sender_id, receiver_id) || '_' || GREATEST(sender_id, receiver_id)) " +
+                        "AS conversation_id, sender_id, receiver_id, content, timestamp FROM " + partitionName + where +
+                        " ORDER BY conversation_id, id",
+                rs -> {
+                    builder.add(rs.getString("conversation_id"), new ArchivedMessage(
+                            rs.getLong("id"),
+                            rs.getLong("sender_id"),
+                            rs.getLong("receiver_id"),
+                            rs.getString("content"),
+                            rs.getTimestamp("timestamp").toLocalDateTime()));
+                },
+                args.toArray());
+        builder.flush();
+        builder.insertBlocks();
+        return builder.total;
+    }
+
+    private byte[] encode(List<ArchivedMessage> messages) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(bytes)) {
+            for (ArchivedMessage message : messages) {
+                gzip.write(objectMapper.writeValueAsBytes(message));
+                gzip.write('\n');
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    private List<ArchivedMessage> decode(byte[] payload) {
+        try (GZIPInputStream gzip = new GZIPInputStream(new ByteArrayInputStream(payload));
+             MappingIterator<ArchivedMessage> lines = objectMapper.readerFor(ArchivedMessage.class).readValues(gzip)) {
+            return lines.readAll();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // Grupează rândurile (ordonate după conversație, id) în blocuri de cel mult BLOCK_SIZE mesaje
+    private final class BlockBuilder {
+        private final String sourcePartition;
+        private final List<ArchivedMessage> current = new ArrayList<>(BLOCK_SIZE);
+        private final List<Object[]> blocks = new ArrayList<>(BLOCKS_PER_INSERT);
+        private String conversationId;
+        private long total;
+
+        private BlockBuilder(String sourcePartition) {
+            this.sourcePartition = sourcePartition;
+        }
+
+        private void add(String rowConversationId, ArchivedMessage message) {
+            if (!rowConversationId.equals(conversationId) || current.size() == BLOCK_SIZE) {
+                flush();
+                conversationId = rowConversationId;
+            }
+            current.add(message);
+        }
+
+        private void flush() {
+            if (current.isEmpty()) {
+                return;
+            }
+            ArchivedMessage first = current.get(0);
+            ArchivedMessage last = current.get(current.size() - 1);
+            blocks.add(new Object[] {
+                    conversationId,
+                    sourcePartition,
+                    first.getId(),
+                    last.getId(),
+                    Timestamp.valueOf(first.getTimestamp()),
+                    Timestamp.valueOf(last.getTimestamp()),
+                    current.size(),
+                    encode(current)
+            });
+            total += current.size();
+            current.clear();
+            if (blocks.size() == BLOCKS_PER_INSERT) {
+                insertBlocks();
+            }
+        }
+
+        private void insertBlocks() {
+            if (!blocks.isEmpty()) {
+                jdbcTemplate.batchUpdate(INSERT_BLOCK_SQL, blocks);
+                blocks.clear();
+            }
+        }
+    }
+}
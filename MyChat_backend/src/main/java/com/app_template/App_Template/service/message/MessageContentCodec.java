@@ -0,0 +1,118 @@
+package com.app_template.App_Template.service.message;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+
+// Codec pentru coloanele de conținut (messages.content, conversation_summaries.last_message_content, arhivă):
+// textele peste prag sunt comprimate cu Deflate și păstrate ca "\u0001D" + Base64, restul rămân neschimbate.
+// Conținutul stocat se decodează doar la construirea DTO-urilor.
+@Component
+public class MessageContentCodec {
+
+    private static final char MARKER = '\u0001';
+    private static final char DEFLATE = 'D';
+    // Text care începe întâmplător cu MARKER, păstrat necomprimat
+    private static final char RAW = 'R';
+
+    private final boolean enabled;
+    private final int thresholdBytes;
+    private final DistributionSummary compressionRatio;
+    private final Counter originalBytes;
+    private final Counter storedBytes;
+
+    public MessageContentCodec(
+            MeterRegistry meterRegistry,
+            @Value("${app.messages.compression.enabled:true}") boolean enabled,
+            @Value("${app.messages.compression.threshold-bytes:4096}") int thresholdBytes) {
+        this.enabled = enabled;
+        this.thresholdBytes = thresholdBytes;
+        this.compressionRatio = DistributionSummary.builder("chat.message.compression.ratio")
+                .description("Stored size / original size for compressed message bodies")
+                .register(meterRegistry);
+        this.originalBytes = Counter.builder("chat.message.compression.bytes")
+                .tag("stage", "original")
+                .description("UTF-8 size of message bodies that went through compression")
+                .register(meterRegistry);
+        this.storedBytes = Counter.builder("chat.message.compression.bytes")
+                .tag("stage", "stored")
+                .description("Stored size of message bodies that went through compression")
+                .register(meterRegistry);
+    }
+
+    public String encode(String content) {
+        if (content == null) {
+            return null;
+        }
+        byte[] utf8 = content.getBytes(StandardCharsets.UTF_8);
+        if (enabled && utf8.length >= thresholdBytes) {
+            String compressed = MARKER + String.valueOf(DEFLATE) + Base64.getEncoder().encodeToString(deflate(utf8));
+            // Compresia nu merită (ex. text deja aleator): îl păstrăm ca atare
+            if (compressed.length() < utf8.length) {
+                originalBytes.increment(utf8.length);
+                storedBytes.increment(compressed.length());
+                compressionRatio.record((double) compressed.length() / utf8.length);
+                return compressed;
+            }
+        }
+        return content.isEmpty() || content.charAt(0) != MARKER ? content : MARKER + String.valueOf(RAW) + content;
+    }
+
+    public String decode(String stored) {
+        if (stored == null || stored.length() < 2 || stored.charAt(0) != MARKER) {
+            return stored;
+        }
+        return switch (stored.charAt(1)) {
+            case DEFLATE -> new String(inflate(Base64.getDecoder().decode(stored.substring(2))), StandardCharsets.UTF_8);
+            case RAW -> stored.substring(2);
+            default -> stored;
+        };
+    }
+
+    private static byte[] deflate(byte[] input) {
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        try {
+            deflater.setInput(input);
+            deflater.finish();
+            ByteArrayOutputStream out = new ByteArrayOutputStream(input.length / 2);
+            byte[] buffer = new byte[8192];
+            while (!deflater.finished()) {
+                out.write(buffer, 0, deflater.deflate(buffer));
+            }
+            return out.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private static byte[] inflate(byte[] input) {
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(input);
+            ByteArrayOutputStream out = new ByteArrayOutputStream(input.length * 3);
+            byte[] buffer = new byte[8192];
+            while (!inflater.finished()) {
+                int read = inflater.inflate(buffer);
+                if (read == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    throw new IllegalStateException("Truncated compressed message content");
+                }
+                out.write(buffer, 0, read);
+            }
+            return out.toByteArray();
+        } catch (DataFormatException e) {
+            throw new IllegalStateException("Corrupted compressed message content", e);
+        } finally {
+            inflater.end();
+        }
+    }
+}
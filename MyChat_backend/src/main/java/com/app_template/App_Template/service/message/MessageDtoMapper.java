@@ -0,0 +1,105 @@
+package com.app_template.App_Template.service.message;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.springframework.stereotype.Component;
+
+import com.app_template.App_Template.dto.ArchivedMessage;
+import com.app_template.App_Template.dto.MessageDto;
+import com.app_template.App_Template.entity.Message;
+import com.app_template.App_Template.entity.User;
+import com.app_template.App_Template.repository.ConversationSummaryRepository;
+
+import lombok.RequiredArgsConstructor;
+
+// Conversia Message/ArchivedMessage -> MessageDto, comună serviciului de mesaje și căutării.
+// Starea de citire nu mai e stocată per mesaj: applyReadState o derivă din watermark-urile destinatarilor.
+@Component
+@RequiredArgsConstructor
+public class MessageDtoMapper {
+
+    private final MessageContentCodec messageContentCodec;
+    private final ConversationSummaryRepository conversationSummaryRepository;
+
+    public MessageDto toDto(Message message) {
+        return MessageDto.builder()
+                .id(message.getId())
+                .senderId(message.getSender().getId())
+                .senderName(message.getSender().getFirstname() + " " + message.getSender().getLastname())
+                .senderEmail(message.getSender().getEmail())
+                .senderImageUrl(message.getSender().getImageUrl())
+                .receiverId(message.getReceiver().getId())
+                .receiverName(message.getReceiver().getFirstname() + " " + message.getReceiver().getLastname())
+                .receiverEmail(message.getReceiver().getEmail())
+                .receiverImageUrl(message.getReceiver().getImageUrl())
+                .content(messageContentCodec.decode(message.getContent()))
+                .timestamp(message.getTimestamp())
+                // Mesaj abia trimis: destinatarul nu l-a citit încă
+                .read(false)
+                .build();
+    }
+
+    // DTO-urile din proiecțiile MessageRepository au conținutul încă codificat
+    public MessageDto decodeContent(MessageDto dto) {
+        dto.setContent(messageContentCodec.decode(dto.getContent()));
+        return dto;
+    }
+
+    // Mesaj din arhivă: datele userilor vin din map-ul deja încărcat (un user șters rămâne fără nume)
+    public MessageDto toDto(ArchivedMessage message, Map<Long, User> users) {
+        User sender = users.get(message.getSenderId());
+        User receiver = users.get(message.getReceiverId());
+        return MessageDto.builder()
+                .id(message.getId())
+                .senderId(message.getSenderId())
+                .senderName(sender != null ? sender.getFirstname() + " " + sender.getLastname() : null)
+                .senderEmail(sender != null ? sender.getEmail() : null)
+                .senderImageUrl(sender != null ? sender.getImageUrl() : null)
+                .receiverId(message.getReceiverId())
+                .receiverName(receiver != null ? receiver.getFirstname() + " " + receiver.getLastname() : null)
+                .receiverEmail(receiver != null ? receiver.getEmail() : null)
+                .receiverImageUrl(receiver != null ? receiver.getImageUrl() : null)
+                .content(messageContentCodec.decode(message.getContent()))
+                .timestamp(message.getTimestamp())
+                .build();
+    }
+
+    // Un singur query pentru toate perechile din pagină: mesajul e citit dacă id <= watermark-ul destinatarului
+    public List<MessageDto> applyReadState(List<MessageDto> messages) {
+        if (messages.isEmpty()) {
+            return messages;
+        }
+        Set<Long> userIds = new HashSet<>();
+        for (MessageDto message : messages) {
+            userIds.add(message.getSenderId());
+            userIds.add(message.getReceiverId());
+        }
+        Map<String, Long> watermarks = loadReadWatermarks(userIds);
+        for (MessageDto message : messages) {
+            applyReadState(message, watermarks);
+        }
+        return messages;
+    }
+
+    // Watermark-urile dintre userii dați, cheie "owner>peer"; pentru fluxuri lungi (export) se încarcă o dată
+    public Map<String, Long> loadReadWatermarks(Collection<Long> userIds) {
+        Map<String, Long> watermarks = new HashMap<>();
+        for (ConversationSummaryRepository.ReadWatermark watermark : conversationSummaryRepository.findReadWatermarks(userIds)) {
+            if (watermark.getLastReadMessageId() != null) {
+                watermarks.put(watermark.getOwnerId() + ">" + watermark.getPeerId(), watermark.getLastReadMessageId());
+            }
+        }
+        return watermarks;
+    }
+
+    public MessageDto applyReadState(MessageDto message, Map<String, Long> watermarks) {
+        long lastRead = watermarks.getOrDefault(message.getReceiverId() + ">" + message.getSenderId(), 0L);
+        message.setRead(message.getId() <= lastRead);
+        return message;
+    }
+}
@@ -0,0 +1,7 @@
+package com.app_template.App_Template.service.message;
+
+// Alocă id-ul unui mesaj înainte de insert, ca mesajele să poată fi scrise în loturi JDBC
+public interface MessageIdGenerator {
+
+    long nextId();
+}
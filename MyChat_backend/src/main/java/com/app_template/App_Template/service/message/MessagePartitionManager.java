@@ -0,0 +1,288 @@
+package com.app_template.App_Template.service.message;
+
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.dao.DataAccessException;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import lombok.extern.slf4j.Slf4j;
+
+// Partiționare lunară (RANGE pe timestamp) pentru tabela messages, opțională (app.messages.partitioning.enabled).
+// La prima pornire tabela existentă devine partiția messages_legacy; un job zilnic creează partițiile
+// lunilor următoare și mută partițiile mai vechi de hot-months în tier-ul de arhivă (MessageArchive).
+// messages_legacy (tot istoricul de dinainte de partiționare) e mutată în arhivă în bucăți de archive-chunk-size
+// mesaje, fiecare în tranzacția ei; partiția e ștearsă când nu mai conține nimic din afara ferestrei "hot".
+@Slf4j
+@Component
+public class MessagePartitionManager {
+
+    // Cheie pentru pg_advisory_xact_lock: un singur nod face mentenanța la un moment dat
+    private static final long MAINTENANCE_LOCK_KEY = 7_310_420_061L;
+    private static final DateTimeFormatter PARTITION_SUFFIX = DateTimeFormatter.ofPattern("yyyy_MM");
+    private static final Pattern RANGE_BOUND = Pattern.compile(
+            "FROM \\((MINVALUE|'([0-9-]+)[^']*')\\) TO \\((MAXVALUE|'([0-9-]+)[^']*')\\)");
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final MessageArchive messageArchive;
+    private final boolean enabled;
+    private final int monthsAhead;
+    private final int hotMonths;
+    private final int archiveChunkSize;
+
+    public MessagePartitionManager(
+            JdbcTemplate jdbcTemplate,
+            TransactionTemplate transactionTemplate,
+            MessageArchive messageArchive,
+            @Value("${app.messages.partitioning.enabled:false}") boolean enabled,
+            @Value("${app.messages.partitioning.months-ahead:2}") int monthsAhead,
+            @Value("${app.messages.partitioning.hot-months:6}") int hotMonths,
+            @Value("${app.messages.partitioning.archive-chunk-size:50000}") int archiveChunkSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.messageArchive = messageArchive;
+        this.enabled = enabled;
+        this.monthsAhead = monthsAhead;
+        this.hotMonths = hotMonths;
+        this.archiveChunkSize = archiveChunkSize;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onStartup() {
+        if (!enabled) {
+            return;
+        }
+        transactionTemplate.executeWithoutResult(status -> {
+            if (tryLock() && !isPartitioned()) {
+                convertToPartitionedTable();
+            }
+        });
+        maintainPartitions();
+    }
+
+    @Scheduled(cron = "${app.messages.partitioning.maintenance-cron:0 30 3 * * *}")
+    public void maintainPartitions() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                if (tryLock()) {
+                    createUpcomingPartitions();
+                }
+            });
+        } catch (DataAccessException e) {
+            // Fără partiția lunii, inserturile ajung în messages_default; se reîncearcă la următoarea rulare
+            log.error("Could not create the upcoming message partitions; new messages go to messages_default " +
+                    "until the next maintenance run succeeds", e);
+        }
+        archiveColdPartitions();
+    }
+
+    private boolean tryLock() {
+        return Boolean.TRUE.equals(jdbcTemplate.queryForObject(
+                "SELECT pg_try_advisory_xact_lock(?)", Boolean.class, MAINTENANCE_LOCK_KEY));
+    }
+
+    private boolean isPartitioned() {
+        String relkind = jdbcTemplate.queryForObject(
+                "SELECT (SELECT relkind::text FROM pg_class WHERE oid = to_regclass('messages'))", String.class);
+        return "p".equals(relkind);
+    }
+
+    // Migrare unică: tabela veche e redenumită și atașată ca partiție pentru tot intervalul de până la luna următoare.
+    // Ține un ACCESS EXCLUSIVE lock cât timp se construiește indexul unic (id, timestamp) pe datele existente.
+    private void convertToPartitionedTable() {
+        log.info("Converting messages to a partitioned table");
+        jdbcTemplate.execute("LOCK TABLE messages IN ACCESS EXCLUSIVE MODE");
+
+        List<Map<String, Object>> indexes = jdbcTemplate.queryForList(
+                "SELECT i.relname AS name, pg_get_indexdef(i.oid) AS definition, x.indisunique AS is_unique " +
+                        "FROM pg_index x JOIN pg_class i ON i.oid = x.indexrelid WHERE x.indrelid = 'messages'::regclass");
+        List<Map<String, Object>> foreignKeys = jdbcTemplate.queryForList(
+                "SELECT conname AS name, pg_get_constraintdef(oid) AS definition FROM pg_constraint " +
+                        "WHERE conrelid = 'messages'::regclass AND contype = 'f'");
+        LocalDate legacyUpperBound = jdbcTemplate.queryForObject(
+                "SELECT (date_trunc('month', COALESCE(MAX(timestamp), now())) + interval '1 month')::date FROM messages",
+                LocalDate.class);
+
+        jdbcTemplate.execute("ALTER TABLE messages RENAME TO messages_legacy");
+        jdbcTemplate.execute("ALTER TABLE messages_legacy ALTER COLUMN id DROP IDENTITY IF EXISTS");
+        jdbcTemplate.execute("ALTER TABLE messages_legacy ALTER COLUMN id DROP DEFAULT");
+        for (Map<String, Object> index : indexes) {
+            String name = (String) index.get("name");
+            jdbcTemplate.execute("ALTER INDEX " + name + " RENAME TO " + truncate(name + "_legacy"));
+        }
+
+        jdbcTemplate.execute("CREATE TABLE messages (LIKE messages_legacy INCLUDING DEFAULTS INCLUDING CONSTRAINTS) " +
+                "PARTITION BY RANGE (timestamp)");
+        jdbcTemplate.execute("ALTER TABLE messages ADD CONSTRAINT messages_pkey PRIMARY KEY (id, timestamp)");
+        for (Map<String, Object> foreignKey : foreignKeys) {
+            jdbcTemplate.execute("ALTER TABLE messages ADD CONSTRAINT " + foreignKey.get("name") + " " + foreignKey.get("definition"));
+        }
+        // Definițiile au fost citite înainte de redenumire, deci indică numele originale și noua tabelă părinte;
+        // la ATTACH, Postgres leagă indexurile echivalente deja existente pe messages_legacy în loc să le reconstruiască
+        for (Map<String, Object> index : indexes) {
+            if (!Boolean.TRUE.equals(index.get("is_unique"))) {
+                jdbcTemplate.execute((String) index.get("definition"));
+            }
+        }
+
+        jdbcTemplate.execute("ALTER TABLE messages ATTACH PARTITION messages_legacy FOR VALUES FROM (MINVALUE) TO ('" +
+                legacyUpperBound + "')");
+        // Plasă de siguranță: un insert în afara partițiilor create nu eșuează
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS messages_default PARTITION OF messages DEFAULT");
+        log.info("messages is now partitioned by month; existing rows live in messages_legacy (until {})", legacyUpperBound);
+    }
+
+    // Întâi lunile care au deja rânduri în messages_default (scrise cât timp partiția lipsea): CREATE TABLE ...
+    // PARTITION OF ar eșua pentru ele, deci rândurile sunt mutate într-o tabelă nouă, atașată apoi ca partiție.
+    private void createUpcomingPartitions() {
+        List<Partition> partitions = new ArrayList<>(listPartitions());
+        List<LocalDate> defaultMonths = jdbcTemplate.queryForList(
+                "SELECT DISTINCT date_trunc('month', timestamp)::date FROM messages_default ORDER BY 1", LocalDate.class);
+        for (LocalDate from : defaultMonths) {
+            LocalDate to = from.plusMonths(1);
+            if (partitions.stream().noneMatch(p -> p.overlaps(from, to))) {
+                partitions.add(moveOutOfDefault(from, to));
+            }
+        }
+
+        LocalDate month = LocalDate.now().withDayOfMonth(1);
+        for (int i = 0; i <= monthsAhead; i++, month = month.plusMonths(1)) {
+            LocalDate from = month;
+            LocalDate to = month.plusMonths(1);
+            boolean overlaps = partitions.stream().anyMatch(p -> p.overlaps(from, to));
+            if (!overlaps) {
+                String name = "messages_p" + from.format(PARTITION_SUFFIX);
+                jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS " + name + " PARTITION OF messages " +
+                        "FOR VALUES FROM ('" + from + "') TO ('" + to + "')");
+                log.info("Created message partition {}", name);
+            }
+        }
+    }
+
+    // La ATTACH, Postgres creează indexurile părintelui pe tabela nouă și verifică că în DEFAULT nu mai e nimic din interval
+    private Partition moveOutOfDefault(LocalDate from, LocalDate to) {
+        String name = "messages_p" + from.format(PARTITION_SUFFIX);
+        jdbcTemplate.execute("CREATE TABLE " + name + " (LIKE messages INCLUDING DEFAULTS INCLUDING CONSTRAINTS)");
+        int moved = jdbcTemplate.update("WITH moved AS (DELETE FROM messages_default WHERE timestamp >= ? AND timestamp < ? " +
+                "RETURNING *) INSERT INTO " + name + " SELECT * FROM moved",
+                Timestamp.valueOf(from.atStartOfDay()), Timestamp.valueOf(to.atStartOfDay()));
+        jdbcTemplate.execute("ALTER TABLE messages ATTACH PARTITION " + name + " FOR VALUES FROM ('" + from +
+                "') TO ('" + to + "')");
+        log.warn("Moved {} messages from messages_default into the new partition {}", moved, name);
+        return new Partition(name, from, to);
+    }
+
+    // Copierea, DETACH și DROP sunt în aceeași tranzacție, deci cititorii văd mesajele fie în partiție, fie în arhivă.
+    // Copierea citește direct partiția (lock doar pe ea); lock-ul exclusiv pe părinte e luat abia la DETACH, la final.
+    private void archiveColdPartitions() {
+        LocalDate hotStart = LocalDate.now().withDayOfMonth(1).minusMonths(hotMonths);
+        List<Partition> partitions = listPartitions();
+        for (Partition partition : partitions) {
+            if (partition.from == null && !archiveLegacyInChunks(partition, hotStart)) {
+                return;
+            }
+        }
+        List<Partition> cold = partitions.stream()
+                .filter(p -> p.from != null && p.to != null && !p.to.isAfter(hotStart))
+                .toList();
+        for (Partition partition : cold) {
+            transactionTemplate.executeWithoutResult(status -> {
+                if (!tryLock()) {
+                    return;
+                }
+                messageArchive.archivePartition(partition.name);
+                jdbcTemplate.execute("ALTER TABLE messages DETACH PARTITION " + partition.name);
+                jdbcTemplate.execute("DROP TABLE " + partition.name);
+                log.info("Partition {} moved to the archive tier", partition.name);
+            });
+        }
+    }
+
+    // Bucată cu bucată: arhivare + DELETE în aceeași tranzacție, deci cititorii văd fiecare mesaj fie în partiție,
+    // fie în arhivă, iar o tranzacție atinge cel mult archiveChunkSize mesaje. Întoarce false dacă alt nod ține lock-ul.
+    private boolean archiveLegacyInChunks(Partition partition, LocalDate hotStart) {
+        AtomicBoolean locked = new AtomicBoolean(true);
+        long archived = 0;
+        while (true) {
+            Long upToId = transactionTemplate.execute(status -> {
+                if (!tryLock()) {
+                    locked.set(false);
+                    return null;
+                }
+                Long chunkEnd = messageArchive.archiveChunk(partition.name, hotStart, archiveChunkSize);
+                if (chunkEnd != null) {
+                    jdbcTemplate.update("DELETE FROM " + partition.name + " WHERE id <= ? AND timestamp < ?",
+                            chunkEnd, Timestamp.valueOf(hotStart.atStartOfDay()));
+                }
+                return chunkEnd;
+            });
+            if (!locked.get()) {
+                return false;
+            }
+            if (upToId == null) {
+                break;
+            }
+            archived = upToId;
+        }
+        if (archived > 0) {
+            log.info("Cold messages of partition {} moved to the archive tier (up to id {})", partition.name, archived);
+        }
+        // Intervalul partiției e în întregime înainte de hotStart, deci bucățile de mai sus au golit-o
+        if (partition.to != null && !partition.to.isAfter(hotStart)) {
+            transactionTemplate.executeWithoutResult(status -> {
+                if (tryLock()) {
+                    jdbcTemplate.execute("ALTER TABLE messages DETACH PARTITION " + partition.name);
+                    jdbcTemplate.execute("DROP TABLE " + partition.name);
+                    log.info("Partition {} fully archived and dropped", partition.name);
+                }
+            });
+        }
+        return true;
+    }
+
+    private List<Partition> listPartitions() {
+        List<Partition> partitions = new ArrayList<>();
+        jdbcTemplate.query(
+                "SELECT c.relname AS name, pg_get_expr(c.relpartbound, c.oid) AS bound FROM pg_inherits i " +
+                        "JOIN pg_class c ON c.oid = i.inhrelid WHERE i.inhparent = 'messages'::regclass",
+                rs -> {
+                    Matcher matcher = RANGE_BOUND.matcher(rs.getString("bound"));
+                    if (matcher.find()) {
+                        LocalDate from = matcher.group(2) != null ? LocalDate.parse(matcher.group(2)) : null;
+                        LocalDate to = matcher.group(4) != null ? LocalDate.parse(matcher.group(4)) : null;
+                        partitions.add(new Partition(rs.getString("name"), from, to));
+                    }
+                });
+        return partitions;
+    }
+
+    private static String truncate(String identifier) {
+        return identifier.length() <= 63 ? identifier : identifier.substring(0, 63);
+    }
+
+    // from/to null înseamnă MINVALUE/MAXVALUE; partiția DEFAULT nu apare aici
+    private record Partition(String name, LocalDate from, LocalDate to) {
+        boolean overlaps(LocalDate otherFrom, LocalDate otherTo) {
+            boolean startsBeforeOtherEnds = from == null || from.isBefore(otherTo);
+            boolean endsAfterOtherStarts = to == null || to.isAfter(otherFrom);
+            return startsBeforeOtherEnds && endsAfterOtherStarts;
+        }
+    }
+}
@@ -0,0 +1,339 @@
+package com.app_template.App_Template.service.message;
+
+import java.sql.Array;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+// Retenția mesajelor: globală (app.messages.retention.days) și per user (User.messageRetentionDays, aplicată
+// mesajelor trimise de el; poate doar scurta retenția globală), pentru mesajele directe și cele din camere.
+// Odată cu un mesaj direct dispar și rândurile care îl referă (message_search, sync_events, pending_deliveries).
+// Ștergerea merge în loturi mici, fiecare în tranzacția lui, pe indexuri (cheia primară, respectiv
+// (conversation_id, id) și (sender_id, id)), cu pauză între loturi,
+// ca lock-urile să fie scurte și WAL-ul să fie produs treptat. Loturile sunt idempotente (SKIP LOCKED),
+// deci mai multe noduri pot rula job-ul simultan fără să se blocheze reciproc.
+@Slf4j
+@Component
+public class MessageRetentionPurger {
+
+    // Id-urile sunt Snowflake: mesajele mai vechi decât cutoff au sigur id < firstIdAt(cutoff) (și id-urile
+    // vechi, secvențiale, sunt mai mici), deci scanarea pe cheia primară se oprește la acel id
+    private static final String SELECT_EXPIRED_SQL =
+            "SELECT id FROM messages WHERE id > ? AND id < ? AND timestamp < ? ORDER BY id LIMIT ? FOR UPDATE SKIP LOCKED";
+    private static final String SELECT_EXPIRED_SENT_SQL =
+            "SELECT id FROM messages WHERE conversation_id = ? AND sender_id = ? AND id > ? AND id < ? AND timestamp < ? " +
+                    "ORDER BY id LIMIT ? FOR UPDATE SKIP LOCKED";
+    private static final String SELECT_EXPIRED_ROOM_SQL =
+            "SELECT id FROM room_messages WHERE id > ? AND id < ? AND timestamp < ? ORDER BY id LIMIT ? FOR UPDATE SKIP LOCKED";
+    private static final String SELECT_EXPIRED_ROOM_SENT_SQL =
+            "SELECT id FROM room_messages WHERE sender_id = ? AND id > ? AND id < ? AND timestamp < ? " +
+                    "ORDER BY id LIMIT ? FOR UPDATE SKIP LOCKED";
+    private static final String SELECT_EXPIRED_BLOCKS_SQL =
+            "SELECT id FROM message_archive_blocks WHERE last_timestamp < ? ORDER BY id LIMIT ? FOR UPDATE SKIP LOCKED";
+
+    private static final String RECOUNT_UNREAD_SQL =
+            "UPDATE conversation_summaries cs SET unread_count = (SELECT COUNT(*) FROM messages m " +
+                    "WHERE m.conversation_id = LEAST(cs.owner_id, cs.peer_id) || '_' || GREATEST(cs.owner_id, cs.peer_id) " +
+                    "AND m.sender_id = cs.peer_id AND m.id > COALESCE(cs.last_read_message_id, 0)) " +
+                    "WHERE cs.id IN (SELECT id FROM conversation_summaries WHERE id > ? AND unread_count > 0 " +
+                    "ORDER BY id LIMIT ?) RETURNING cs.id";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final int retentionDays;
+    private final int batchSize;
+    private final long batchPauseMillis;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+    private final AtomicInteger runningGauge = new AtomicInteger();
+    private volatile boolean stopping;
+
+    private final Counter purgedMessages;
+    private final Counter purgedRoomMessages;
+    private final Counter purgedArchiveBlocks;
+    private final Timer batchTimer;
+
+    public MessageRetentionPurger(
+            JdbcTemplate jdbcTemplate,
+            TransactionTemplate transactionTemplate,
+            MeterRegistry meterRegistry,
+            @Value("${app.messages.retention.days:0}") int retentionDays,
+            @Value("${app.messages.retention.batch-size:1000}") int batchSize,
+            @Value("${app.messages.retention.batch-pause-ms:200}") long batchPauseMillis) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.retentionDays = retentionDays;
+        this.batchSize = batchSize;
+        this.batchPauseMillis = batchPauseMillis;
+        this.purgedMessages = Counter.builder("chat.retention.purged")
+                .tag("type", "messages")
+                .description("Messages deleted by the retention job")
+                .register(meterRegistry);
+        this.purgedRoomMessages = Counter.builder("chat.retention.purged")
+                .tag("type", "room_messages")
+                .description("Room messages deleted by the retention job")
+                .register(meterRegistry);
+        this.purgedArchiveBlocks = Counter.builder("chat.retention.purged")
+                .tag("type", "archive_blocks")
+                .description("Archive blocks deleted by the retention job")
+                .register(meterRegistry);
+        this.batchTimer = Timer.builder("chat.retention.batch")
+                .description("Duration of one retention delete batch (one transaction)")
+                .register(meterRegistry);
+        Gauge.builder("chat.retention.running", runningGauge, AtomicInteger::get)
+                .description("1 while a retention run is in progress")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(cron = "${app.messages.retention.cron:0 0 2 * * *}")
+    public void purge() {
+        if (!running.compareAndSet(false, true)) {
+            return;
+        }
+        runningGauge.set(1);
+        try {
+            long total = 0;
+            if (retentionDays > 0) {
+                LocalDateTime cutoff = LocalDateTime.now().minusDays(retentionDays);
+                total += purgeExpired(cutoff);
+                total += purgeRoomMessages(cutoff, null);
+                total += purgeArchiveBlocks(cutoff);
+                clearSummaryPreviews(cutoff, null);
+            }
+            total += purgePerUser();
+            if (total > 0) {
+                recountUnread();
+                log.info("Retention run finished: {} rows deleted", total);
+            }
+        } finally {
+            runningGauge.set(0);
+            running.set(false);
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        stopping = true;
+    }
+
+    private long purgeExpired(LocalDateTime cutoff) {
+        long upperId = upperIdFor(cutoff);
+        long cursor = Long.MIN_VALUE;
+        long deleted = 0;
+        while (!stopping) {
+            long after = cursor;
+            List<Long> ids = inBatch(() -> {
+                List<Long> batch = jdbcTemplate.queryForList(SELECT_EXPIRED_SQL, Long.class,
+                        after, upperId, Timestamp.valueOf(cutoff), batchSize);
+                deleteMessages(batch);
+                return batch;
+            });
+            if (ids.isEmpty()) {
+                break;
+            }
+            deleted += ids.size();
+            cursor = ids.get(ids.size() - 1);
+            pause();
+        }
+        if (deleted > 0) {
+            log.info("Retention: deleted {} messages older than {}", deleted, cutoff);
+        }
+        return deleted;
+    }
+
+    // Pentru fiecare user cu retenție proprie, mai scurtă decât cea globală: conversație cu conversație,
+    // pe indexul (conversation_id, id)
+    private long purgePerUser() {
+        List<UserRetention> users = jdbcTemplate.query(
+                "SELECT id, message_retention_days FROM users WHERE message_retention_days > 0" +
+                        (retentionDays > 0 ? " AND message_retention_days < " + retentionDays : ""),
+                (rs, rowNum) -> new UserRetention(rs.getLong(1), rs.getInt(2)));
+        long deleted = 0;
+        for (UserRetention user : users) {
+            LocalDateTime cutoff = LocalDateTime.now().minusDays(user.days());
+            long upperId = upperIdFor(cutoff);
+            List<String> conversations = jdbcTemplate.queryForList(
+                    "SELECT LEAST(owner_id, peer_id) || '_' || GREATEST(owner_id, peer_id) FROM conversation_summaries " +
+                            "WHERE owner_id = ?", String.class, user.userId());
+            for (String conversationId : conversations) {
+                long cursor = Long.MIN_VALUE;
+                while (!stopping) {
+                    long after = cursor;
+                    List<Long> ids = inBatch(() -> {
+                        List<Long> batch = jdbcTemplate.queryForList(SELECT_EXPIRED_SENT_SQL, Long.class,
+                                conversationId, user.userId(), after, upperId, Timestamp.valueOf(cutoff), batchSize);
+                        deleteMessages(batch);
+                        return batch;
+                    });
+                    if (ids.isEmpty()) {
+                        break;
+                    }
+                    deleted += ids.size();
+                    cursor = ids.get(ids.size() - 1);
+                    pause();
+                }
+            }
+            clearSummaryPreviews(cutoff, user.userId());
+            deleted += purgeRoomMessages(cutoff, user.userId());
+        }
+        return deleted;
+    }
+
+    // Mesajele din camere: toate (senderId null) pe cheia primară, sau doar cele trimise de un user, pe
+    // indexul (sender_id, id). Camerele nu au căutare, jurnal de sync sau cutie offline, deci nimic altceva de șters.
+    private long purgeRoomMessages(LocalDateTime cutoff, Long senderId) {
+        long upperId = upperIdFor(cutoff);
+        long cursor = Long.MIN_VALUE;
+        long deleted = 0;
+        while (!stopping) {
+            long after = cursor;
+            List<Long> ids = inBatch(() -> {
+                List<Long> batch = senderId == null
+                        ? jdbcTemplate.queryForList(SELECT_EXPIRED_ROOM_SQL, Long.class,
+                                after, upperId, Timestamp.valueOf(cutoff), batchSize)
+                        : jdbcTemplate.queryForList(SELECT_EXPIRED_ROOM_SENT_SQL, Long.class,
+                                senderId, after, upperId, Timestamp.valueOf(cutoff), batchSize);
+                if (!batch.isEmpty()) {
+                    jdbcTemplate.update("DELETE FROM room_messages WHERE id = ANY(?)",
+                            ps -> ps.setArray(1, bigintArray(ps.getConnection(), batch)));
+                }
+                return batch;
+            });
+            if (ids.isEmpty()) {
+                break;
+            }
+            purgedRoomMessages.increment(ids.size());
+            deleted += ids.size();
+            cursor = ids.get(ids.size() - 1);
+            pause();
+        }
+        if (deleted > 0) {
+            log.info("Retention: deleted {} room messages older than {}{}", deleted, cutoff,
+                    senderId == null ? "" : " sent by user " + senderId);
+        }
+        return deleted;
+    }
+
+    // Arhiva e ștearsă bloc cu bloc, doar când tot blocul a expirat (retenția per user nu rescrie blocurile)
+    private long purgeArchiveBlocks(LocalDateTime cutoff) {
+        long deleted = 0;
+        while (!stopping) {
+            int count = inBatch(() -> {
+                List<Long> ids = jdbcTemplate.queryForList(SELECT_EXPIRED_BLOCKS_SQL, Long.class,
+                        Timestamp.valueOf(cutoff), batchSize / 10 + 1);
+                if (!ids.isEmpty()) {
+                    jdbcTemplate.update("DELETE FROM message_archive_blocks WHERE id = ANY(?)",
+                            ps -> ps.setArray(1, bigintArray(ps.getConnection(), ids)));
+                }
+                return ids.size();
+            });
+            if (count == 0) {
+                break;
+            }
+            purgedArchiveBlocks.increment(count);
+            deleted += count;
+            pause();
+        }
+        return deleted;
+    }
+
+    // Mesajul și tot ce îl referă prin id dispar în aceeași tranzacție: intrarea din indexul de căutare,
+    // evenimentele MESSAGE din jurnalul de sync (altfel sync-ul ar livra evenimente fără mesaj) și livrările
+    // offline încă neluate. Golurile de seq din sync_events nu contează: sync-ul citește seq > since.
+    private void deleteMessages(List<Long> ids) {
+        if (ids.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.update("DELETE FROM message_search WHERE message_id = ANY(?)",
+                ps -> ps.setArray(1, bigintArray(ps.getConnection(), ids)));
+        jdbcTemplate.update("DELETE FROM sync_events WHERE message_id = ANY(?)",
+                ps -> ps.setArray(1, bigintArray(ps.getConnection(), ids)));
+        jdbcTemplate.update("DELETE FROM pending_deliveries WHERE message_id = ANY(?)",
+                ps -> ps.setArray(1, bigintArray(ps.getConnection(), ids)));
+        jdbcTemplate.update("DELETE FROM messages WHERE id = ANY(?)",
+                ps -> ps.setArray(1, bigintArray(ps.getConnection(), ids)));
+        purgedMessages.increment(ids.size());
+    }
+
+    // Previzualizarea din lista de chat nu trebuie să păstreze textul unui mesaj șters
+    private void clearSummaryPreviews(LocalDateTime cutoff, Long senderId) {
+        transactionTemplate.executeWithoutResult(status -> {
+            if (senderId == null) {
+                jdbcTemplate.update("UPDATE conversation_summaries SET last_message_content = NULL " +
+                        "WHERE last_message_at < ? AND last_message_content IS NOT NULL", Timestamp.valueOf(cutoff));
+            } else {
+                jdbcTemplate.update("UPDATE conversation_summaries SET last_message_content = NULL " +
+                        "WHERE last_sender_id = ? AND last_message_at < ? AND last_message_content IS NOT NULL",
+                        senderId, Timestamp.valueOf(cutoff));
+            }
+        });
+    }
+
+    // Mesaje necitite pot fi șterse: contoarele se recalculează din watermark, doar unde nu sunt deja 0.
+    // Pe cheia primară, câte batchSize rânduri per tranzacție, cu pauză între loturi, ca la ștergere.
+    private void recountUnread() {
+        long cursor = 0;
+        while (!stopping) {
+            long after = cursor;
+            List<Long> ids = inBatch(() -> jdbcTemplate.queryForList(RECOUNT_UNREAD_SQL, Long.class, after, batchSize));
+            if (ids.isEmpty()) {
+                break;
+            }
+            cursor = Collections.max(ids);
+            pause();
+        }
+    }
+
+    private <T> T inBatch(Supplier<T> work) {
+        return batchTimer.record(() -> transactionTemplate.execute(status -> work.get()));
+    }
+
+    private void pause() {
+        if (batchPauseMillis <= 0) {
+            return;
+        }
+        try {
+            TimeUnit.MILLISECONDS.sleep(batchPauseMillis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            stopping = true;
+        }
+    }
+
+    private static long upperIdFor(LocalDateTime cutoff) {
+        Instant instant = cutoff.atZone(ZoneId.systemDefault()).toInstant();
+        // Înainte de epoca generatorului nu există id-uri Snowflake; limita pe id nu ajută
+        return instant.toEpochMilli() <= SnowflakeMessageIdGenerator.EPOCH_MILLIS
+                ? Long.MAX_VALUE
+                : SnowflakeMessageIdGenerator.firstIdAt(instant);
+    }
+
+    private static Array bigintArray(Connection connection, List<Long> ids) throws SQLException {
+        return connection.createArrayOf("bigint", ids.toArray());
+    }
+
+    private record UserRetention(long userId, int days) {
+    }
+}
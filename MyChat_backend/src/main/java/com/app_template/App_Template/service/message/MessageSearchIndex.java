@@ -0,0 +1,119 @@
+package com.app_template.App_Template.service.message;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import com.app_template.App_Template.entity.Message;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+
+// Index full-text incremental: un rând tsvector per mesaj în message_search (GIN), scris de MessageWriter
+// în aceeași tranzacție cu mesajele. Ține textul decodat, deci funcționează și cu conținutul comprimat.
+@Slf4j
+@Component
+public class MessageSearchIndex {
+
+    private static final int BACKFILL_BATCH = 1000;
+    private static final String INSERT_SQL =
+            "INSERT INTO message_search (message_id, conversation_id, sender_id, receiver_id, timestamp, search_vector) " +
+                    "VALUES (?, ?, ?, ?, ?, to_tsvector(CAST(? AS regconfig), ?)) ON CONFLICT (message_id) DO NOTHING";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final MessageContentCodec messageContentCodec;
+    private final String textSearchConfig;
+
+    public MessageSearchIndex(
+            JdbcTemplate jdbcTemplate,
+            MessageContentCodec messageContentCodec,
+            @Value("${app.messages.search.ts-config:simple}") String textSearchConfig) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.messageContentCodec = messageContentCodec;
+        this.textSearchConfig = textSearchConfig;
+    }
+
+    public String getTextSearchConfig() {
+        return textSearchConfig;
+    }
+
+    public void index(List<Message> messages) {
+        jdbcTemplate.batchUpdate(
+                INSERT_SQL,
+                messages,
+                messages.size(),
+                (ps, message) -> {
+                    ps.setLong(1, message.getId());
+                    ps.setString(2, message.getConversationId());
+                    ps.setLong(3, message.getSender().getId());
+                    ps.setLong(4, message.getReceiver().getId());
+                    ps.setTimestamp(5, Timestamp.valueOf(message.getTimestamp()));
+                    ps.setString(6, textSearchConfig);
+                    ps.setString(7, messageContentCodec.decode(message.getContent()));
+                });
+    }
+
+    // Tabela nu e gestionată de Hibernate: coloana tsvector și indexul GIN nu se pot descrie prin JPA.
+    // Creată la inițializarea bean-ului, înainte ca primul mesaj să poată fi scris.
+    @PostConstruct
+    public void createTable() {
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS message_search (" +
+                "message_id bigint PRIMARY KEY, " +
+                "conversation_id varchar(41) NOT NULL, " +
+                "sender_id bigint NOT NULL, " +
+                "receiver_id bigint NOT NULL, " +
+                "timestamp timestamp(6) NOT NULL, " +
+                "search_vector tsvector NOT NULL)");
+        jdbcTemplate.execute("CREATE INDEX IF NOT EXISTS idx_message_search_vector ON message_search USING gin (search_vector)");
+        jdbcTemplate.execute("CREATE INDEX IF NOT EXISTS idx_message_search_sender ON message_search (sender_id)");
+        jdbcTemplate.execute("CREATE INDEX IF NOT EXISTS idx_message_search_receiver ON message_search (receiver_id)");
+    }
+
+    // Indexează mesajele existente, în loturi după id (doar la prima pornire, când indexul e gol)
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfill() {
+        Boolean empty = jdbcTemplate.queryForObject("SELECT NOT EXISTS (SELECT 1 FROM message_search)", Boolean.class);
+        if (!Boolean.TRUE.equals(empty)) {
+            return;
+        }
+        long cursor = Long.MIN_VALUE;
+        long total = 0;
+        while (true) {
+            List<Object[]> rows = new ArrayList<>();
+            jdbcTemplate.query(
+                    "SELECT id, COALESCE(conversation_id, LEAST(sender_id, receiver_id) || '_' || GREATEST(sender_id, receiver_id)), " +
+                            "sender_id, receiver_id, timestamp, content FROM messages WHERE id > ? ORDER BY id LIMIT ?",
+                    rs -> {
+                        rows.add(new Object[]{
+                                rs.getLong(1), rs.getString(2), rs.getLong(3), rs.getLong(4), rs.getTimestamp(5),
+                                messageContentCodec.decode(rs.getString(6))});
+                    },
+                    cursor, BACKFILL_BATCH);
+            if (rows.isEmpty()) {
+                break;
+            }
+            jdbcTemplate.batchUpdate(
+                    INSERT_SQL,
+                    rows,
+                    rows.size(),
+                    (ps, row) -> {
+                        for (int i = 0; i < 5; i++) {
+                            ps.setObject(i + 1, row[i]);
+                        }
+                        ps.setString(6, textSearchConfig);
+                        ps.setString(7, (String) row[5]);
+                    });
+            total += rows.size();
+            cursor = (Long) rows.get(rows.size() - 1)[0];
+        }
+        if (total > 0) {
+            log.info("Search index backfilled with {} messages", total);
+        }
+    }
+}
@@ -0,0 +1,9 @@
+package com.app_template.App_Template.service.message;
+
+import com.app_template.App_Template.dto.MessageSearchResultDto;
+
+public interface MessageSearchService {
+
+    // Caută doar în conversațiile lui userId (opțional doar în cea cu peerId)
+    MessageSearchResultDto search(Long userId, String query, Long peerId, String cursor, int size);
+}
@@ -0,0 +1,159 @@
+package com.app_template.App_Template.service.message;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import com.app_template.App_Template.dto.MessageDto;
+import com.app_template.App_Template.dto.MessageSearchHitDto;
+import com.app_template.App_Template.dto.MessageSearchResultDto;
+import com.app_template.App_Template.entity.Message;
+import com.app_template.App_Template.repository.MessageRepository;
+
+import jakarta.transaction.Transactional;
+import lombok.RequiredArgsConstructor;
+
+@Service
+@RequiredArgsConstructor
+public class MessageSearchServiceImpl implements MessageSearchService {
+
+    private static final int MAX_PAGE_SIZE = 50;
+    private static final Pattern WORD = Pattern.compile("[\\p{L}\\p{N}]+");
+
+    // Scorul e calculat o singură dată în CTE; paginarea e keyset pe (rank DESC, message_id DESC).
+    // Mesajele mutate în arhivă rămân în index, dar nu mai au rând în messages: sunt excluse înainte de LIMIT,
+    // altfel o pagină ar putea ieși incompletă (sau goală) cu hasMore=true
+    private static final String SEARCH_SQL =
+            "WITH q AS (SELECT plainto_tsquery(CAST(? AS regconfig), ?) AS query), " +
+                    "hits AS (SELECT s.message_id, ts_rank(s.search_vector, q.query) AS rank " +
+                    "FROM message_search s, q " +
+                    "WHERE s.search_vector @@ q.query AND (s.sender_id = ? OR s.receiver_id = ?)%s " +
+                    "AND EXISTS (SELECT 1 FROM messages m WHERE m.id = s.message_id)) " +
+                    "SELECT message_id, rank FROM hits%s ORDER BY rank DESC, message_id DESC LIMIT ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final MessageSearchIndex messageSearchIndex;
+    private final MessageRepository messageRepository;
+    private final MessageDtoMapper messageDtoMapper;
+
+    private record SearchRow(long messageId, float rank) {
+    }
+
+    @Override
+    @Transactional
+    public MessageSearchResultDto search(Long userId, String query, Long peerId, String cursor, int size) {
+        if (query == null || query.isBlank()) {
+            return MessageSearchResultDto.builder().hits(Collections.emptyList()).hasMore(false).build();
+        }
+        int pageSize = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+
+        List<Object> params = new ArrayList<>(List.of(messageSearchIndex.getTextSearchConfig(), query, userId, userId));
+        String conversationFilter = "";
+        if (peerId != null) {
+            conversationFilter = " AND s.conversation_id = ?";
+            params.add(Message.conversationIdOf(userId, peerId));
+        }
+        String cursorFilter = "";
+        SearchRow after = parseCursor(cursor);
+        if (after != null) {
+            cursorFilter = " WHERE rank < ? OR (rank = ? AND message_id < ?)";
+            params.add(after.rank());
+            params.add(after.rank());
+            params.add(after.messageId());
+        }
+        params.add(pageSize + 1);
+
+        List<SearchRow> rows = jdbcTemplate.query(
+                String.format(SEARCH_SQL, conversationFilter, cursorFilter),
+                (rs, rowNum) -> new SearchRow(rs.getLong(1), rs.getFloat(2)),
+                params.toArray());
+
+        boolean hasMore = rows.size() > pageSize;
+        if (hasMore) {
+            rows = rows.subList(0, pageSize);
+        }
+
+        Map<Long, MessageDto> messages = messageRepository.findDtosByIds(rows.stream().map(SearchRow::messageId).toList())
+                .stream()
+                .collect(Collectors.toMap(MessageDto::getId, Function.identity()));
+        Set<String> terms = queryTerms(query);
+
+        List<MessageSearchHitDto> hits = new ArrayList<>(rows.size());
+        for (SearchRow row : rows) {
+            MessageDto message = messages.get(row.messageId());
+            // Șters între căutare și încărcare (ex. de retenție)
+            if (message == null) {
+                continue;
+            }
+            MessageDto dto = messageDtoMapper.decodeContent(message);
+            hits.add(MessageSearchHitDto.builder()
+                    .message(dto)
+                    .rank(row.rank())
+                    .highlights(highlights(dto.getContent(), terms))
+                    .build());
+        }
+
+        messageDtoMapper.applyReadState(hits.stream().map(MessageSearchHitDto::getMessage).toList());
+
+        String nextCursor = null;
+        if (hasMore) {
+            SearchRow last = rows.get(rows.size() - 1);
+            nextCursor = last.rank() + "_" + last.messageId();
+        }
+        return MessageSearchResultDto.builder()
+                .hits(hits)
+                .nextCursor(nextCursor)
+                .hasMore(hasMore)
+                .build();
+    }
+
+    // Cursorul e "rank_messageId"; Float.toString/parseFloat păstrează exact valoarea din Postgres (real)
+    private SearchRow parseCursor(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return null;
+        }
+        int separator = cursor.lastIndexOf('_');
+        try {
+            return new SearchRow(
+                    Long.parseLong(cursor.substring(separator + 1)),
+                    Float.parseFloat(cursor.substring(0, separator)));
+        } catch (NumberFormatException | StringIndexOutOfBoundsException e) {
+            throw new IllegalArgumentException("Invalid search cursor");
+        }
+    }
+
+    private Set<String> queryTerms(String query) {
+        Set<String> terms = new HashSet<>();
+        Matcher matcher = WORD.matcher(query);
+        while (matcher.find()) {
+            terms.add(matcher.group().toLowerCase(Locale.ROOT));
+        }
+        return terms;
+    }
+
+    // Poziții calculate pe textul decodat, după aceeași regulă de tokenizare ca plainto_tsquery('simple')
+    private List<int[]> highlights(String content, Set<String> terms) {
+        List<int[]> ranges = new ArrayList<>();
+        if (content == null) {
+            return ranges;
+        }
+        Matcher matcher = WORD.matcher(content);
+        while (matcher.find()) {
+            if (terms.contains(matcher.group().toLowerCase(Locale.ROOT))) {
+                ranges.add(new int[]{matcher.start(), matcher.end()});
+            }
+        }
+        return ranges;
+    }
+}
@@ -0,0 +1,323 @@
+package com.app_template.App_Template.service.message;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.stereotype.Component;
+
+import com.app_template.App_Template.config.WirePayload;
+import com.app_template.App_Template.dto.MessageAckDto;
+import com.app_template.App_Template.dto.MessageDto;
+import com.app_template.App_Template.dto.RoomMessageDto;
+import com.app_template.App_Template.dto.WireMessageDto;
+import com.app_template.App_Template.entity.User;
+import com.app_template.App_Template.enums.MessageAckStatus;
+import com.app_template.App_Template.repository.UserRepository;
+import com.app_template.App_Template.service.cluster.ClusterMessenger;
+import com.app_template.App_Template.service.room.RoomService;
+import com.app_template.App_Template.service.typing.TypingRelay;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityNotFoundException;
+import lombok.extern.slf4j.Slf4j;
+
+// Trimiterea mesajelor prin WebSocket, scoasă de pe thread-ul canalului inbound: controller-ul doar pune
+// cererea aici, iar salvarea (lookup-uri + insert) rulează pe virtual threads, în ordine per expeditor.
+// Cu clientMessageId, expeditorul primește ACK/NACK pe /user/queue/acks după salvare, iar retrimiterile
+// (același expeditor + clientMessageId, în idempotency-window) nu mai salvează mesajul a doua oară.
+// Fără clientMessageId (clienți vechi) expeditorul primește ca înainte mesajul pe /queue/messages.
+// Pe WebSocket mesajul pleacă slim (WireMessageDto), același WirePayload pentru toți destinatarii.
+// În modul write-behind, ACK-ul confirmă intrarea mesajului în coada de scriere.
+// Mesajele de cameră (submitToRoom) trec prin același lanț per expeditor și aceeași idempotență; sunt
+// publicate o singură dată pe topicul camerei, iar broker-ul scrie același payload tuturor abonaților.
+@Slf4j
+@Component
+public class MessageSendPipeline {
+
+    private static final String ACK_DESTINATION = "/queue/acks";
+    // Marcaj întors de register când cache-ul de idempotență e plin
+    private static final Attempt CACHE_FULL = new Attempt(null, 0);
+    private static final int MAX_CLIENT_MESSAGE_ID_LENGTH = 64;
+
+    private final MessageService messageService;
+    private final RoomService roomService;
+    private final UserRepository userRepository;
+    private final ClusterMessenger clusterMessenger;
+    private final OfflineMailbox offlineMailbox;
+    private final TypingRelay typingRelay;
+    private final long idempotencyWindowMs;
+    private final int idempotencyMaxEntries;
+
+    private final ExecutorService executor = Executors.newThreadPerTaskExecutor(
+            Thread.ofVirtual().name("message-send-", 0).factory());
+    // Limitează mesajele în lucru; peste limită clientul primește NACK retryable în loc să crească o coadă
+    private final Semaphore inFlight;
+    // Ultima sarcină a fiecărui expeditor: următoarea pornește după ea, deci mesajele lui se salvează în ordine
+    private final Map<String, CompletableFuture<Void>> senderTails = new ConcurrentHashMap<>();
+    private final Map<String, Attempt> attempts = new ConcurrentHashMap<>();
+    // Încercările în ordinea creării; accesată doar sub lock-ul ei
+    private final Deque<Attempt> attemptOrder = new ArrayDeque<>();
+
+    private final Timer persistTimer;
+    private final Counter duplicates;
+    private final Counter rejected;
+
+    public MessageSendPipeline(
+            MessageService messageService,
+            RoomService roomService,
+            UserRepository userRepository,
+            ClusterMessenger clusterMessenger,
+            OfflineMailbox offlineMailbox,
+            TypingRelay typingRelay,
+            MeterRegistry meterRegistry,
+            @Value("${app.messages.send.max-in-flight:500}") int maxInFlight,
+            @Value("${app.messages.send.idempotency-window-ms:300000}") long idempotencyWindowMs,
+            @Value("${app.messages.send.idempotency-max-entries:100000}") int idempotencyMaxEntries) {
+        this.messageService = messageService;
+        this.roomService = roomService;
+        this.userRepository = userRepository;
+        this.clusterMessenger = clusterMessenger;
+        this.offlineMailbox = offlineMailbox;
+        this.typingRelay = typingRelay;
+        this.idempotencyWindowMs = idempotencyWindowMs;
+        this.idempotencyMaxEntries = idempotencyMaxEntries;
+        this.inFlight = new Semaphore(maxInFlight);
+        this.persistTimer = Timer.builder("chat.send.persist")
+                .description("Time from accepting a WebSocket message to its ack")
+                .register(meterRegistry);
+        this.duplicates = Counter.builder("chat.send.duplicates")
+                .description("Retried sends answered from the idempotency cache")
+                .register(meterRegistry);
+        this.rejected = Counter.builder("chat.send.rejected")
+                .description("Sends refused because too many were in flight or the idempotency cache was full")
+                .register(meterRegistry);
+        Gauge.builder("chat.send.in-flight", inFlight, semaphore -> maxInFlight - semaphore.availablePermits())
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        executor.shutdown();
+        executor.awaitTermination(10, TimeUnit.SECONDS);
+    }
+
+    // senderId poate lipsi (sesiunea nu e încă în PresenceService); atunci e căutat după email, tot pe executor.
+    // Nu blochează: validare, cache de idempotență și punerea sarcinii în lanțul expeditorului.
+    public void submit(Long senderId, String senderEmail, Long receiverId, String clientMessageId, String content) {
+        enqueue(senderEmail, clientMessageId, receiverId, null, content,
+                () -> deliverToUser(senderId, senderEmail, receiverId, clientMessageId, content));
+    }
+
+    // Ca submit, pentru o cameră de grup: expeditorul trebuie să fie membru, altfel primește NACK
+    public void submitToRoom(Long senderId, String senderEmail, Long roomId, String clientMessageId, String content) {
+        enqueue(senderEmail, clientMessageId, null, roomId, content,
+                () -> deliverToRoom(senderId, senderEmail, roomId, clientMessageId, content));
+    }
+
+    private void enqueue(String senderEmail, String clientMessageId, Long receiverId, Long roomId, String content,
+                         Delivery delivery) {
+        if (clientMessageId != null && (clientMessageId.isBlank() || clientMessageId.length() > MAX_CLIENT_MESSAGE_ID_LENGTH)) {
+            clusterMessenger.sendToUser(senderEmail, ACK_DESTINATION, nack(clientMessageId, receiverId, roomId, "Invalid clientMessageId", false));
+            return;
+        }
+        if (content == null || content.isBlank()) {
+            if (clientMessageId != null) {
+                clusterMessenger.sendToUser(senderEmail, ACK_DESTINATION, nack(clientMessageId, receiverId, roomId, "Empty message", false));
+            }
+            return;
+        }
+
+        String key = clientMessageId != null ? senderEmail + "\n" + clientMessageId : null;
+        Attempt attempt = key != null ? new Attempt(key, System.currentTimeMillis()) : null;
+        if (key != null) {
+            Attempt existing = register(key, attempt);
+            if (existing == CACHE_FULL) {
+                // Nicio încercare neexpirată nu e evacuată: retrimiterea ei trebuie să găsească cheia
+                rejected.increment();
+                clusterMessenger.sendToUser(senderEmail, ACK_DESTINATION, nack(clientMessageId, receiverId, roomId, "Server busy", true));
+                return;
+            }
+            if (existing != null) {
+                duplicates.increment();
+                // Încă în lucru: ACK-ul va veni la finalul primei încercări
+                if (existing.ack != null) {
+                    clusterMessenger.sendToUser(senderEmail, ACK_DESTINATION, existing.ack);
+                }
+                return;
+            }
+        }
+
+        if (!inFlight.tryAcquire()) {
+            rejected.increment();
+            if (key != null) {
+                attempts.remove(key, attempt);
+                clusterMessenger.sendToUser(senderEmail, ACK_DESTINATION, nack(clientMessageId, receiverId, roomId, "Server busy", true));
+            } else {
+                log.warn("Dropped message from {}: too many sends in flight", senderEmail);
+            }
+            return;
+        }
+
+        long acceptedAt = System.nanoTime();
+        Runnable task = () -> {
+            try {
+                persist(senderEmail, clientMessageId, receiverId, roomId, delivery, key, attempt);
+            } finally {
+                inFlight.release();
+                persistTimer.record(System.nanoTime() - acceptedAt, TimeUnit.NANOSECONDS);
+            }
+        };
+        CompletableFuture<Void> next = senderTails.compute(senderEmail, (sender, tail) -> tail == null
+                ? CompletableFuture.runAsync(task, executor)
+                : tail.exceptionally(error -> null).thenRunAsync(task, executor));
+        // Înregistrat după compute, ca lanțul să fie scos din map și când sarcina s-a terminat deja
+        next.whenComplete((result, error) -> senderTails.remove(senderEmail, next));
+    }
+
+    private void persist(String senderEmail, String clientMessageId, Long receiverId, Long roomId, Delivery delivery,
+                         String key, Attempt attempt) {
+        MessageAckDto ack;
+        try {
+            ack = delivery.deliver();
+        } catch (EntityNotFoundException | AccessDeniedException e) {
+            ack = nack(clientMessageId, receiverId, roomId, e.getMessage(), false);
+        } catch (Exception e) {
+            log.error("Failed to persist message from {}", senderEmail, e);
+            ack = nack(clientMessageId, receiverId, roomId, "Message could not be saved", true);
+        }
+        if (key == null) {
+            return;
+        }
+        if (ack.isRetryable()) {
+            // Retrimiterea trebuie să încerce din nou salvarea
+            attempts.remove(key, attempt);
+        } else {
+            attempt.ack = ack;
+        }
+        clusterMessenger.sendToUser(senderEmail, ACK_DESTINATION, ack);
+    }
+
+    // null pentru clienții fără clientMessageId (nu primesc ACK)
+    private MessageAckDto deliverToUser(Long senderId, String senderEmail, Long receiverId, String clientMessageId, String content) {
+        Long resolvedSenderId = resolveSender(senderId, senderEmail);
+        MessageDto saved = messageService.sendMessage(resolvedSenderId, receiverId, content);
+        typingRelay.clear(resolvedSenderId, receiverId);
+
+        // Trimite mesajul către receiver prin WebSocket (și pe celelalte noduri unde e conectat);
+        // dacă nu e abonat nicăieri, rămâne în cutia lui offline până la următoarea abonare
+        WireMessageDto wire = WireMessageDto.from(saved);
+        WirePayload frame = WirePayload.of(wire);
+        offlineMailbox.deliver(receiverId, saved.getReceiverEmail(), wire, frame);
+        if (clientMessageId == null) {
+            // Clienții fără clientMessageId primesc mesajul înapoi pentru confirmare (serializat o singură dată)
+            clusterMessenger.sendToUser(senderEmail, "/queue/messages", frame);
+            return null;
+        }
+        return MessageAckDto.builder()
+                .clientMessageId(clientMessageId)
+                .status(MessageAckStatus.ACK)
+                .messageId(saved.getId())
+                .timestamp(saved.getTimestamp())
+                .receiverId(receiverId)
+                .build();
+    }
+
+    // Un singur frame pe topicul camerei (expeditorul îl primește și el, dacă e abonat)
+    private MessageAckDto deliverToRoom(Long senderId, String senderEmail, Long roomId, String clientMessageId, String content) {
+        RoomMessageDto saved = roomService.sendMessage(roomId, resolveSender(senderId, senderEmail), content);
+        saved.setClientMessageId(clientMessageId);
+        clusterMessenger.sendToTopic(RoomService.destinationOf(roomId), WirePayload.of(saved));
+        if (clientMessageId == null) {
+            return null;
+        }
+        return MessageAckDto.builder()
+                .clientMessageId(clientMessageId)
+                .status(MessageAckStatus.ACK)
+                .messageId(saved.getId())
+                .timestamp(saved.getTimestamp())
+                .roomId(roomId)
+                .build();
+    }
+
+    private Long resolveSender(Long senderId, String senderEmail) {
+        return senderId != null ? senderId : userRepository.findByEmail(senderEmail)
+                .map(User::getId)
+                .orElseThrow(() -> new EntityNotFoundException("User not found"));
+    }
+
+    // null dacă cheia e nouă (și attempt a fost înregistrată), încercarea existentă (în lucru sau în fereastră),
+    // ori CACHE_FULL dacă sunt idempotency-max-entries încercări care nu pot fi evacuate
+    private Attempt register(String key, Attempt attempt) {
+        synchronized (attemptOrder) {
+            evictExpired(attempt.createdAt);
+            Attempt existing = attempts.get(key);
+            if (existing != null && (existing.ack == null || attempt.createdAt - existing.createdAt <= idempotencyWindowMs)) {
+                return existing;
+            }
+            if (existing == null && attempts.size() >= idempotencyMaxEntries) {
+                return CACHE_FULL;
+            }
+            attempts.put(key, attempt);
+            attemptOrder.add(attempt);
+            return null;
+        }
+    }
+
+    // Încercările sunt adăugate în ordinea creării, deci cele expirate sunt la începutul cozii. Sunt evacuate
+    // doar cele terminate (cu ACK) și ieșite din fereastră; una încă în lucru oprește evacuarea până se termină.
+    // Încercările scoase deja din map (NACK retryable, înlocuite) doar își eliberează locul din coadă.
+    private void evictExpired(long now) {
+        Attempt oldest;
+        while ((oldest = attemptOrder.peek()) != null) {
+            boolean current = attempts.get(oldest.key) == oldest;
+            if (current && (oldest.ack == null || now - oldest.createdAt <= idempotencyWindowMs)) {
+                return;
+            }
+            attemptOrder.poll();
+            if (current) {
+                attempts.remove(oldest.key, oldest);
+            }
+        }
+    }
+
+    private static MessageAckDto nack(String clientMessageId, Long receiverId, Long roomId, String error, boolean retryable) {
+        return MessageAckDto.builder()
+                .clientMessageId(clientMessageId)
+                .status(MessageAckStatus.NACK)
+                .receiverId(receiverId)
+                .roomId(roomId)
+                .error(error)
+                .retryable(retryable)
+                .build();
+    }
+
+    @FunctionalInterface
+    private interface Delivery {
+        MessageAckDto deliver();
+    }
+
+    private static final class Attempt {
+        private final String key;
+        private final long createdAt;
+        // null cât timp salvarea e în curs
+        private volatile MessageAckDto ack;
+
+        private Attempt(String key, long createdAt) {
+            this.key = key;
+            this.createdAt = createdAt;
+        }
+    }
+}
@@ -4,6 +4,7 @@ import java.util.List;
 
 import org.springframework.data.domain.Page;
 
+import com.app_template.App_Template.dto.ConversationHistoryDto;
 import com.app_template.App_Template.dto.MessageDto;
 
 public interface MessageService {
@@ -14,9 +15,14 @@ public interface MessageService {
 
     Page<MessageDto> getConversationPaginated(Long userId1, Long userId2, int page, int size);
 
+    ConversationHistoryDto getConversationBefore(Long userId1, Long userId2, Long beforeId, int size);
+
     List<MessageDto> getAllUsersForChat(Long currentUserId);
 
     void markMessagesAsRead(Long senderId, Long receiverId);
 
+    // readerId a citit mesajele de la peerId până la (inclusiv) upToMessageId
+    void markReadUpTo(Long readerId, Long peerId, long upToMessageId);
+
     Long getUnreadCount(Long userId);
 }
\ No newline at end of file
@@ -1,21 +1,34 @@
 package com.app_template.App_Template.service.message;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 import com.app_template.App_Template.enums.Role;
 import jakarta.transaction.Transactional;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 
+import com.app_template.App_Template.entity.ConversationSummary;
 import com.app_template.App_Template.entity.Message;
+import com.app_template.App_Template.dto.ArchivedMessage;
+import com.app_template.App_Template.dto.ConversationHistoryDto;
 import com.app_template.App_Template.dto.MessageDto;
 import com.app_template.App_Template.entity.User;
+import com.app_template.App_Template.repository.ConversationSummaryRepository;
 import com.app_template.App_Template.repository.MessageRepository;
 import com.app_template.App_Template.repository.UserRepository;
+import com.app_template.App_Template.service.sync.SyncEventLog;
 
 import jakarta.persistence.EntityNotFoundException;
 import lombok.RequiredArgsConstructor;
@@ -24,10 +37,21 @@ import lombok.RequiredArgsConstructor;
 @RequiredArgsConstructor
 public class MessageServiceImpl implements MessageService {
 
+    private static final int MAX_HISTORY_PAGE_SIZE = 200;
+
     private final MessageRepository messageRepository;
     private final UserRepository userRepository;
+    private final ConversationSummaryRepository conversationSummaryRepository;
+    private final MessageIdGenerator messageIdGenerator;
+    private final MessageWriter messageWriter;
+    private final MessageWriteBehindBuffer writeBehindBuffer;
+    private final MessageArchive messageArchive;
+    private final MessageContentCodec messageContentCodec;
+    private final MessageDtoMapper messageDtoMapper;
+    private final SyncEventLog syncEventLog;
 
     @Override
+    @Transactional
     public MessageDto sendMessage(Long senderId, Long receiverId, String content) {
         User sender = userRepository.findById(senderId)
                 .orElseThrow(() -> new EntityNotFoundException("Sender not found"));
@@ -36,51 +60,118 @@ public class MessageServiceImpl implements MessageService {
                 .orElseThrow(() -> new EntityNotFoundException("Receiver not found"));
 
         Message message = Message.builder()
+                .id(messageIdGenerator.nextId())
+                .conversationId(Message.conversationIdOf(senderId, receiverId))
                 .sender(sender)
                 .receiver(receiver)
-                .content(content)
+                // Conținutul mare e stocat comprimat; se decodează în MessageDtoMapper
+                .content(messageContentCodec.encode(content))
                 .timestamp(LocalDateTime.now())
-                .read(false)
                 .build();
 
-        Message savedMessage = messageRepository.save(message);
-        return convertToDto(savedMessage);
+        // În modul write-behind mesajul e scris în lotul următor; fan-out-ul WebSocket nu îl așteaptă
+        if (!writeBehindBuffer.offer(message)) {
+            messageWriter.write(List.of(message));
+        }
+        return messageDtoMapper.toDto(message);
     }
 
     @Override
     @Transactional
     public List<MessageDto> getConversation(Long userId1, Long userId2) {
-        List<Message> messages = messageRepository.findConversation(userId1, userId2);
-        return messages.stream()
-                .map(this::convertToDto)
-                .collect(Collectors.toList());
+        String conversationId = Message.conversationIdOf(userId1, userId2);
+        List<MessageDto> messages = messageRepository.findConversation(conversationId);
+        List<MessageDto> conversation = new ArrayList<>();
+
+        // Mesajele arhivate sunt mai vechi decât cele din tabela hot, deci vin primele
+        List<ArchivedMessage> archived = messageArchive.findAll(conversationId);
+        if (!archived.isEmpty()) {
+            Set<Long> hotIds = messages.stream().map(MessageDto::getId).collect(Collectors.toSet());
+            Map<Long, User> users = loadUsers(userId1, userId2);
+            archived.stream()
+                    .filter(message -> !hotIds.contains(message.getId()))
+                    .map(message -> messageDtoMapper.toDto(message, users))
+                    .forEach(conversation::add);
+        }
+
+        messages.stream()
+                .map(messageDtoMapper::decodeContent)
+                .forEach(conversation::add);
+        return messageDtoMapper.applyReadState(conversation);
     }
 
     @Override
     @Transactional
     public Page<MessageDto> getConversationPaginated(Long userId1, Long userId2, int page, int size) {
         Pageable pageable = PageRequest.of(page, size);
-        Page<Message> messages = messageRepository.findConversationPaginated(userId1, userId2, pageable);
-        return messages.map(this::convertToDto);
+        Page<MessageDto> messages = messageRepository.findConversationPaginated(
+                Message.conversationIdOf(userId1, userId2), pageable);
+        messageDtoMapper.applyReadState(messages.getContent());
+        return messages.map(messageDtoMapper::decodeContent);
     }
 
     @Override
     @Transactional
-    public List<MessageDto> getAllUsersForChat(Long currentUserId) {
-        // Obține toți userii exceptând cel curent
-        List<User> allUsers = userRepository.findAll();
+    public ConversationHistoryDto getConversationBefore(Long userId1, Long userId2, Long beforeId, int size) {
+        String conversationId = Message.conversationIdOf(userId1, userId2);
+        int pageSize = Math.max(1, Math.min(size, MAX_HISTORY_PAGE_SIZE));
+        long cursor = beforeId != null ? beforeId : Long.MAX_VALUE;
+
+        // Cerem un rând în plus ca să știm dacă mai există pagini, fără COUNT.
+        // Pentru ultima pagină (cazul comun) încercăm întâi doar mesajele recente, ca pe tabela
+        // partiționată să fie atinse doar partițiile lunilor recente.
+        List<MessageDto> messages = List.of();
+        if (beforeId == null) {
+            messages = messageRepository.findRecentConversationBefore(
+                    conversationId, cursor, recentWindowStart(), Limit.of(pageSize + 1));
+        }
+        if (messages.size() <= pageSize) {
+            messages = messageRepository.findConversationBefore(conversationId, cursor, Limit.of(pageSize + 1));
+        }
+
+        List<MessageDto> page = messages.stream()
+                .map(messageDtoMapper::decodeContent)
+                .collect(Collectors.toList());
 
-        return allUsers.stream()
-                .filter(user -> !user.getId().equals(currentUserId))
-                .filter(user -> user.getRole() != Role.ADMIN)
-                .map(user -> {
-                    // Găsește ultimul mesaj cu acest user
-                    Message lastMessage = messageRepository.findLastMessage(currentUserId, user.getId());
+        // Tabela hot nu mai are mesaje: continuăm transparent din arhivă
+        if (page.size() <= pageSize && messageArchive.isEnabled()) {
+            long archiveCursor = page.isEmpty() ? cursor : page.get(page.size() - 1).getId();
+            List<ArchivedMessage> archived = messageArchive.findBefore(conversationId, archiveCursor, pageSize + 1 - page.size());
+            if (!archived.isEmpty()) {
+                Map<Long, User> users = loadUsers(userId1, userId2);
+                archived.forEach(message -> page.add(messageDtoMapper.toDto(message, users)));
+            }
+        }
+
+        boolean hasMore = page.size() > pageSize;
+        List<MessageDto> result = new ArrayList<>(hasMore ? page.subList(0, pageSize) : page);
+        // Query-ul întoarce cele mai noi primele; clientul le afișează cronologic
+        Collections.reverse(result);
+        messageDtoMapper.applyReadState(result);
+
+        return ConversationHistoryDto.builder()
+                .messages(result)
+                .nextCursor(result.isEmpty() ? null : result.get(0).getId())
+                .hasMore(hasMore)
+                .build();
+    }
 
-                    // Numără mesajele necitite
-                    Long unreadCount = messageRepository.countUnreadMessages(user.getId()) > 0
-                            ? messageRepository.countUnreadMessages(user.getId())
-                            : 0L;
+    @Override
+    @Transactional
+    public List<MessageDto> getAllUsersForChat(Long currentUserId) {
+        // Un query: userii (fără cel curent și fără admini) + rezumatul conversației cu fiecare;
+        // încă unul pentru cât a citit fiecare peer din mesajele userului curent
+        Map<Long, Long> readByPeer = new HashMap<>();
+        for (ConversationSummaryRepository.ReadWatermark watermark : conversationSummaryRepository.findReadWatermarksOf(currentUserId)) {
+            if (watermark.getLastReadMessageId() != null) {
+                readByPeer.put(watermark.getOwnerId(), watermark.getLastReadMessageId());
+            }
+        }
+        return conversationSummaryRepository.findChatList(currentUserId, Role.ADMIN)
+                .stream()
+                .map(row -> {
+                    User user = row.getUser();
+                    ConversationSummary summary = row.getSummary();
 
                     // Creează un MessageDto special care reprezintă un user pentru lista de chat
                     MessageDto dto = new MessageDto();
@@ -88,16 +179,21 @@ public class MessageServiceImpl implements MessageService {
                     dto.setReceiverName(user.getFirstname() + " " + user.getLastname());
                     dto.setReceiverEmail(user.getEmail());
                     dto.setReceiverImageUrl(user.getImageUrl());
-
-                    if (lastMessage != null) {
-                        dto.setContent(lastMessage.getContent());
-                        dto.setTimestamp(lastMessage.getTimestamp());
-                        dto.setRead(lastMessage.getRead());
+                    dto.setUnreadCount(0L);
+
+                    if (summary != null) {
+                        dto.setId(summary.getLastMessageId());
+                        dto.setSenderId(summary.getLastSenderId());
+                        dto.setContent(messageContentCodec.decode(summary.getLastMessageContent()));
+                        dto.setTimestamp(summary.getLastMessageAt());
+                        // Ultimul mesaj e citit dacă watermark-ul destinatarului lui a ajuns la el
+                        long lastRead = currentUserId.equals(summary.getLastSenderId())
+                                ? readByPeer.getOrDefault(user.getId(), 0L)
+                                : summary.getLastReadMessageId() != null ? summary.getLastReadMessageId() : 0L;
+                        dto.setRead(summary.getLastMessageId() != null && summary.getLastMessageId() <= lastRead);
+                        dto.setUnreadCount(summary.getUnreadCount());
                     }
 
-                    // Folosim un câmp custom pentru unread count (poți adăuga în DTO)
-                    // Pentru acum, folosim read=false dacă există mesaje necitite
-
                     return dto;
                 })
                 .collect(Collectors.toList());
@@ -106,28 +202,36 @@ public class MessageServiceImpl implements MessageService {
     @Override
     @Transactional
     public void markMessagesAsRead(Long senderId, Long receiverId) {
-        messageRepository.markMessagesAsRead(senderId, receiverId);
+        markReadUpTo(receiverId, senderId, Long.MAX_VALUE);
+    }
+
+    @Override
+    @Transactional
+    public void markReadUpTo(Long readerId, Long peerId, long upToMessageId) {
+        // Watermark-ul e limitat la ultimul mesaj din conversație, deci Long.MAX_VALUE înseamnă "tot"
+        Long previous = conversationSummaryRepository.lockReadWatermark(readerId, peerId);
+        conversationSummaryRepository.markReadUpTo(
+                readerId, peerId, Message.conversationIdOf(readerId, peerId), upToMessageId);
+        Long current = conversationSummaryRepository.findLastReadMessageId(readerId, peerId);
+
+        // Eveniment de sincronizare doar dacă watermark-ul chiar s-a mutat (mark-read e apelat des)
+        if (current != null && !current.equals(previous)) {
+            syncEventLog.recordRead(readerId, peerId, current);
+        }
     }
 
     @Override
     public Long getUnreadCount(Long userId) {
-        return messageRepository.countUnreadMessages(userId);
+        return conversationSummaryRepository.sumUnreadCount(userId);
     }
 
-    private MessageDto convertToDto(Message message) {
-        return MessageDto.builder()
-                .id(message.getId())
-                .senderId(message.getSender().getId())
-                .senderName(message.getSender().getFirstname() + " " + message.getSender().getLastname())
-                .senderEmail(message.getSender().getEmail())
-                .senderImageUrl(message.getSender().getImageUrl())
-                .receiverId(message.getReceiver().getId())
-                .receiverName(message.getReceiver().getFirstname() + " " + message.getReceiver().getLastname())
-                .receiverEmail(message.getReceiver().getEmail())
-                .receiverImageUrl(message.getReceiver().getImageUrl())
-                .content(message.getContent())
-                .timestamp(message.getTimestamp())
-                .read(message.getRead())
-                .build();
+    // Începutul lunii trecute: "recent" acoperă cel puțin o lună întreagă
+    private LocalDateTime recentWindowStart() {
+        return LocalDate.now().withDayOfMonth(1).minusMonths(1).atStartOfDay();
+    }
+
+    private Map<Long, User> loadUsers(Long userId1, Long userId2) {
+        return userRepository.findAllById(List.of(userId1, userId2)).stream()
+                .collect(Collectors.toMap(User::getId, Function.identity()));
     }
-}
\ No newline at end of file
+}
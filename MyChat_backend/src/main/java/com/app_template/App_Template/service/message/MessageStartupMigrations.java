@@ -0,0 +1,88 @@
+package com.app_template.App_Template.service.message;
+
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import com.app_template.App_Template.repository.ConversationSummaryRepository;
+import com.app_template.App_Template.repository.MessageRepository;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.transaction.Transactional;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+// Migrări de date pentru mesaje, rulate la pornire (schema e gestionată de ddl-auto=update)
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class MessageStartupMigrations {
+
+    private static final int CONVERSATION_ID_BACKFILL_BATCH = 5000;
+
+    private final MessageRepository messageRepository;
+    private final ConversationSummaryRepository conversationSummaryRepository;
+    private final JdbcTemplate jdbcTemplate;
+
+    // Coloana messages.read nu mai e mapată (starea de citire e un watermark în conversation_summaries).
+    // Rămâne în tabelă pentru migrarea watermark-urilor, dar nu mai poate fi NOT NULL: insert-urile n-o mai setează.
+    // Rulează înainte ca aplicația să accepte mesaje.
+    @PostConstruct
+    public void relaxLegacyReadColumn() {
+        if (hasLegacyReadColumn(true)) {
+            jdbcTemplate.execute("ALTER TABLE messages ALTER COLUMN read DROP NOT NULL");
+        }
+    }
+
+    // Fiecare lot rulează în tranzacția lui; o singură trecere pe cheia primară, doar dacă mai există
+    // rânduri fără conversation_id
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(1)
+    public void backfillConversationIds() {
+        if (!messageRepository.existsByConversationIdIsNull()) {
+            return;
+        }
+        long batches = 0;
+        Long lastId = Long.MIN_VALUE;
+        while ((lastId = messageRepository.backfillConversationIds(lastId, CONVERSATION_ID_BACKFILL_BATCH)) != null) {
+            batches++;
+        }
+        log.info("Conversation ids backfilled ({} batches of up to {} messages scanned)", batches, CONVERSATION_ID_BACKFILL_BATCH);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(2)
+    @Transactional
+    public void backfillConversationSummaries() {
+        if (conversationSummaryRepository.count() > 0 || messageRepository.count() == 0) {
+            return;
+        }
+        int rows = conversationSummaryRepository.rebuildFromMessages();
+        log.info("Conversation summaries backfilled: {} rows", rows);
+    }
+
+    // Rezumatele fără watermark primesc unul derivat din vechile flag-uri read (după backfillConversationSummaries)
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(3)
+    @Transactional
+    public void backfillReadWatermarks() {
+        if (!hasLegacyReadColumn(false)) {
+            return;
+        }
+        int rows = conversationSummaryRepository.backfillReadWatermarksFromFlags();
+        if (rows > 0) {
+            log.info("Read watermarks backfilled for {} conversation summaries", rows);
+        }
+    }
+
+    private boolean hasLegacyReadColumn(boolean notNullOnly) {
+        Boolean exists = jdbcTemplate.queryForObject(
+                "SELECT EXISTS (SELECT 1 FROM information_schema.columns WHERE table_schema = current_schema() " +
+                        "AND table_name = 'messages' AND column_name = 'read'" +
+                        (notNullOnly ? " AND is_nullable = 'NO')" : ")"),
+                Boolean.class);
+        return Boolean.TRUE.equals(exists);
+    }
+}
@@ -0,0 +1,162 @@
+package com.app_template.App_Template.service.message;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.app_template.App_Template.entity.Message;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+// Mod opțional write-behind: mesajele intră într-o coadă limitată și sunt scrise în loturi
+// de un singur thread, la un interval scurt sau când coada atinge batch-size.
+// Dacă modul e dezactivat sau coada e plină, MessageServiceImpl scrie sincron.
+// Un lot care eșuează de max-attempts ori e scris pe bucăți (înjumătățit), ca un singur rând invalid
+// să nu blocheze scrierile următoare; mesajul izolat e logat și numărat în chat.messages.write-behind.dropped.
+@Slf4j
+@Component
+public class MessageWriteBehindBuffer {
+
+    private final MessageWriter messageWriter;
+    private final boolean enabled;
+    private final int batchSize;
+    private final long flushIntervalMs;
+    private final int maxAttempts;
+    private final BlockingQueue<Message> queue;
+    private final AtomicBoolean flushRequested = new AtomicBoolean(false);
+    private final Counter dropped;
+
+    // Lotul care a eșuat la scriere; se reîncearcă înaintea mesajelor noi, ca ordinea să se păstreze
+    private List<Message> pending = new ArrayList<>();
+    private int failedAttempts;
+    private ScheduledExecutorService flusher;
+
+    public MessageWriteBehindBuffer(
+            MessageWriter messageWriter,
+            @Value("${app.messages.write-behind.enabled:false}") boolean enabled,
+            @Value("${app.messages.write-behind.queue-capacity:10000}") int queueCapacity,
+            @Value("${app.messages.write-behind.batch-size:200}") int batchSize,
+            @Value("${app.messages.write-behind.flush-interval-ms:50}") long flushIntervalMs,
+            @Value("${app.messages.write-behind.max-attempts:3}") int maxAttempts,
+            MeterRegistry meterRegistry) {
+        this.messageWriter = messageWriter;
+        this.enabled = enabled;
+        this.batchSize = batchSize;
+        this.flushIntervalMs = flushIntervalMs;
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.dropped = Counter.builder("chat.messages.write-behind.dropped")
+                .description("Messages that could not be written even when isolated from their batch")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "message-write-behind");
+            thread.setDaemon(true);
+            return thread;
+        });
+        flusher.scheduleWithFixedDelay(this::flushSafely, flushIntervalMs, flushIntervalMs, TimeUnit.MILLISECONDS);
+        log.info("Message write-behind enabled (batch size {}, flush interval {} ms)", batchSize, flushIntervalMs);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    // false când coada e plină: apelantul trebuie să scrie mesajul sincron
+    public boolean offer(Message message) {
+        if (!enabled || !queue.offer(message)) {
+            return false;
+        }
+        if (queue.size() >= batchSize && flushRequested.compareAndSet(false, true)) {
+            flusher.execute(this::flushSafely);
+        }
+        return true;
+    }
+
+    void flushSafely() {
+        flushRequested.set(false);
+        try {
+            flush();
+        } catch (Exception e) {
+            if (++failedAttempts < maxAttempts) {
+                log.warn("Write-behind flush failed ({}/{}), {} messages will be retried: {}",
+                        failedAttempts, maxAttempts, pending.size(), e.getMessage());
+                return;
+            }
+            log.error("Write-behind batch of {} messages failed {} times, writing it in parts: {}",
+                    pending.size(), failedAttempts, e.getMessage());
+            List<Message> failed = pending;
+            pending = new ArrayList<>();
+            failedAttempts = 0;
+            writeIsolating(failed);
+        }
+    }
+
+    // Înjumătățește lotul până rămân doar mesajele care nu pot fi scrise; ordinea celorlalte se păstrează
+    private void writeIsolating(List<Message> batch) {
+        try {
+            messageWriter.write(batch);
+        } catch (Exception e) {
+            if (batch.size() == 1) {
+                Message message = batch.get(0);
+                dropped.increment();
+                log.error("Dropping message {} ({} -> {}) that cannot be persisted: {}", message.getId(),
+                        message.getSender().getId(), message.getReceiver().getId(), e.getMessage());
+                return;
+            }
+            int middle = batch.size() / 2;
+            writeIsolating(new ArrayList<>(batch.subList(0, middle)));
+            writeIsolating(new ArrayList<>(batch.subList(middle, batch.size())));
+        }
+    }
+
+    // Rulează doar pe thread-ul message-write-behind (sau la oprire, după ce acesta s-a terminat)
+    private void flush() {
+        while (true) {
+            if (pending.isEmpty()) {
+                queue.drainTo(pending, batchSize);
+                if (pending.isEmpty()) {
+                    return;
+                }
+            }
+            messageWriter.write(pending);
+            pending = new ArrayList<>();
+            failedAttempts = 0;
+        }
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        if (flusher == null) {
+            return;
+        }
+        flusher.shutdown();
+        // Golirea finală rulează pe acest thread doar dacă flusher-ul s-a oprit; altfel ar atinge pending concurent
+        if (!flusher.awaitTermination(5, TimeUnit.SECONDS)) {
+            log.warn("Write-behind flusher did not stop in time, {} queued messages were not written", queue.size());
+            return;
+        }
+        flushSafely();
+        if (!pending.isEmpty() || !queue.isEmpty()) {
+            log.warn("Write-behind stopped with {} messages not written", pending.size() + queue.size());
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package com.app_template.App_Template.service.message;
+
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.springframework.stereotype.Component;
+
+import com.app_template.App_Template.entity.Message;
+import com.app_template.App_Template.repository.ConversationSummaryRepository;
+import com.app_template.App_Template.repository.MessageRepository;
+import com.app_template.App_Template.service.sync.SyncEventLog;
+
+import jakarta.transaction.Transactional;
+import lombok.RequiredArgsConstructor;
+
+// Persistă un lot de mesaje (cu id-uri deja alocate) și actualizează inbox-ul, indexul de căutare
+// și jurnalul de sincronizare în aceeași tranzacție
+@Component
+@RequiredArgsConstructor
+public class MessageWriter {
+
+    private final MessageRepository messageRepository;
+    private final ConversationSummaryRepository conversationSummaryRepository;
+    private final MessageSearchIndex messageSearchIndex;
+    private final SyncEventLog syncEventLog;
+
+    @Transactional
+    public void write(List<Message> messages) {
+        // Id-urile sunt alocate dinainte, deci insert-urile pot fi grupate de Hibernate (hibernate.jdbc.batch_size)
+        messageRepository.saveAll(messages);
+        updateConversationSummaries(messages);
+        messageSearchIndex.index(messages);
+        syncEventLog.recordMessages(messages);
+    }
+
+    // Un singur upsert per (owner, peer) din lot: ultimul mesaj + câte mesaje necitite s-au adăugat.
+    // TreeMap: rândurile sunt blocate mereu în ordinea (owner_id, peer_id), deci A→B și B→A scrise
+    // concurent nu fac deadlock (ca în SyncEventLog)
+    private void updateConversationSummaries(List<Message> messages) {
+        Map<SummaryKey, SummaryDelta> deltas = new TreeMap<>();
+        for (Message message : messages) {
+            Long senderId = message.getSender().getId();
+            Long receiverId = message.getReceiver().getId();
+
+            deltas.computeIfAbsent(new SummaryKey(senderId, receiverId), key -> new SummaryDelta(senderId, receiverId))
+                    .apply(message, 0L);
+            deltas.computeIfAbsent(new SummaryKey(receiverId, senderId), key -> new SummaryDelta(receiverId, senderId))
+                    .apply(message, 1L);
+        }
+
+        for (SummaryDelta delta : deltas.values()) {
+            Message last = delta.lastMessage;
+            conversationSummaryRepository.upsertLastMessage(delta.ownerId, delta.peerId, last.getId(),
+                    last.getSender().getId(), last.getContent(), last.getTimestamp(), delta.unreadIncrement);
+        }
+    }
+
+    private record SummaryKey(Long ownerId, Long peerId) implements Comparable<SummaryKey> {
+        @Override
+        public int compareTo(SummaryKey other) {
+            int byOwner = ownerId.compareTo(other.ownerId);
+            return byOwner != 0 ? byOwner : peerId.compareTo(other.peerId);
+        }
+    }
+
+    private static final class SummaryDelta {
+        private final Long ownerId;
+        private final Long peerId;
+        private Message lastMessage;
+        private long unreadIncrement;
+
+        private SummaryDelta(Long ownerId, Long peerId) {
+            this.ownerId = ownerId;
+            this.peerId = peerId;
+        }
+
+        private void apply(Message message, long unread) {
+            if (lastMessage == null || message.getId() > lastMessage.getId()) {
+                lastMessage = message;
+            }
+            unreadIncrement += unread;
+        }
+    }
+}
@@ -0,0 +1,368 @@
+package com.app_template.App_Template.service.message;
+
+import java.security.Principal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.simp.user.SimpUser;
+import org.springframework.messaging.simp.user.SimpUserRegistry;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.core.Authentication;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+import org.springframework.web.socket.messaging.SessionUnsubscribeEvent;
+
+import com.app_template.App_Template.config.BrokerSubscriptionEvent;
+import com.app_template.App_Template.config.WebSocketSessionRegistry;
+import com.app_template.App_Template.config.WirePayload;
+import com.app_template.App_Template.dto.WireMessageDto;
+import com.app_template.App_Template.entity.User;
+import com.app_template.App_Template.repository.UserRepository;
+import com.app_template.App_Template.service.cluster.ClusterMessenger;
+import com.app_template.App_Template.service.cluster.ClusterSessionRegistry;
+import com.app_template.App_Template.service.presence.PresenceService;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+// Livrarea mesajelor către userii care nu erau abonați la /user/queue/messages când mesajul a fost trimis.
+// Un mesaj pleacă pe o singură cale: live, dacă userul are pe vreun nod o abonare confirmată de broker
+// (local: subscribedSessions; celelalte noduri: ClusterSessionRegistry), altfel doar în pending_deliveries.
+// Când broker-ul înregistrează abonarea userului la /queue/messages, cutia e golită în loturi de batch-size,
+// pe un pool mic de thread-uri (drain-threads), ca o reconectare în masă să nu lovească baza de date deodată.
+// Fiecare lot e preluat și șters în aceeași tranzacție (SKIP LOCKED), deci un mesaj nu pleacă de două ori,
+// nici când userul are sesiuni pe mai multe noduri. Clientul nu mai trebuie să ceară conversațiile prin REST.
+@Slf4j
+@Component
+public class OfflineMailbox {
+
+    private static final String MESSAGES_DESTINATION = "/queue/messages";
+    // Destinația abonării la /user/queue/messages, după rezolvarea de către UserDestinationMessageHandler
+    private static final String RESOLVED_MESSAGES_PREFIX = "/queue/messages-user";
+
+    private static final String ENQUEUE_SQL =
+            "INSERT INTO pending_deliveries (user_id, message_id, sender_id, content, sent_at, enqueued_at) " +
+                    "VALUES (?, ?, ?, ?, ?, ?) ON CONFLICT (user_id, message_id) DO NOTHING";
+    // Rândurile au conținutul mesajului, deci nu așteaptă scrierea write-behind; doar cele vechi, fără
+    // conținut, sunt livrate din messages (și doar după ce mesajul există acolo). În ordinea id-urilor.
+    private static final String CLAIM_SQL =
+            "DELETE FROM pending_deliveries WHERE id IN (" +
+                    "SELECT p.id FROM pending_deliveries p WHERE p.user_id = ? " +
+                    "AND (p.sender_id IS NOT NULL OR EXISTS (SELECT 1 FROM messages m WHERE m.id = p.message_id)) " +
+                    "ORDER BY p.message_id LIMIT ? FOR UPDATE SKIP LOCKED) " +
+                    "RETURNING message_id, sender_id, content, sent_at";
+    // Un lot de intrări expirate, pe indexul enqueued_at (SKIP LOCKED: nu așteaptă după o golire în curs)
+    private static final String PURGE_BATCH_SQL =
+            "DELETE FROM pending_deliveries WHERE id IN (SELECT id FROM pending_deliveries WHERE enqueued_at < ? " +
+                    "ORDER BY enqueued_at LIMIT ? FOR UPDATE SKIP LOCKED)";
+    private static final String LOAD_SQL =
+            "SELECT id, sender_id, receiver_id, content, timestamp FROM messages WHERE id = ANY(?) ORDER BY id";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ClusterMessenger clusterMessenger;
+    private final ClusterSessionRegistry clusterSessionRegistry;
+    private final SimpUserRegistry simpUserRegistry;
+    private final PresenceService presenceService;
+    private final WebSocketSessionRegistry webSocketSessionRegistry;
+    private final UserRepository userRepository;
+    private final MessageContentCodec messageContentCodec;
+    private final int batchSize;
+    private final long batchPauseMillis;
+    private final int drainThreads;
+    private final int retentionDays;
+    private final long remoteRecheckMillis;
+    private final int purgeBatchSize;
+    private volatile boolean stopping;
+
+    // userId -> true dacă s-a cerut o golire nouă în timp ce una rula (se mai face o trecere)
+    private final Map<Long, Boolean> draining = new ConcurrentHashMap<>();
+    // Sesiunile locale a căror abonare la /user/queue/messages a ajuns deja în indexul broker-ului
+    // (sessionId -> id-urile abonărilor, scoase la UNSUBSCRIBE și la deconectare)
+    private final Map<String, Set<String>> subscribedSessions = new ConcurrentHashMap<>();
+    private final AtomicInteger activeDrains = new AtomicInteger();
+    private final Counter enqueued;
+    private final Counter delivered;
+    private ScheduledExecutorService executor;
+
+    public OfflineMailbox(
+            JdbcTemplate jdbcTemplate,
+            TransactionTemplate transactionTemplate,
+            ClusterMessenger clusterMessenger,
+            ClusterSessionRegistry clusterSessionRegistry,
+            SimpUserRegistry simpUserRegistry,
+            PresenceService presenceService,
+            WebSocketSessionRegistry webSocketSessionRegistry,
+            UserRepository userRepository,
+            MessageContentCodec messageContentCodec,
+            MeterRegistry meterRegistry,
+            @Value("${app.mailbox.batch-size:100}") int batchSize,
+            @Value("${app.mailbox.batch-pause-ms:10}") long batchPauseMillis,
+            @Value("${app.mailbox.drain-threads:2}") int drainThreads,
+            @Value("${app.mailbox.retention-days:30}") int retentionDays,
+            @Value("${app.mailbox.remote-recheck-ms:1000}") long remoteRecheckMillis,
+            @Value("${app.mailbox.purge-batch-size:1000}") int purgeBatchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.clusterMessenger = clusterMessenger;
+        this.clusterSessionRegistry = clusterSessionRegistry;
+        this.simpUserRegistry = simpUserRegistry;
+        this.presenceService = presenceService;
+        this.webSocketSessionRegistry = webSocketSessionRegistry;
+        this.userRepository = userRepository;
+        this.messageContentCodec = messageContentCodec;
+        this.batchSize = batchSize;
+        this.batchPauseMillis = batchPauseMillis;
+        this.drainThreads = drainThreads;
+        this.retentionDays = retentionDays;
+        this.remoteRecheckMillis = remoteRecheckMillis;
+        this.purgeBatchSize = purgeBatchSize;
+        this.enqueued = Counter.builder("chat.mailbox.enqueued")
+                .description("Messages stored because the receiver was not subscribed anywhere")
+                .register(meterRegistry);
+        this.delivered = Counter.builder("chat.mailbox.delivered")
+                .description("Stored messages delivered after the receiver subscribed")
+                .register(meterRegistry);
+        Gauge.builder("chat.mailbox.draining", activeDrains, AtomicInteger::get)
+                .description("Users whose mailbox is being delivered right now")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        AtomicInteger threadNumber = new AtomicInteger();
+        executor = Executors.newScheduledThreadPool(drainThreads, runnable -> {
+            Thread thread = new Thread(runnable, "mailbox-drain-" + threadNumber.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void stop() {
+        stopping = true;
+        executor.shutdownNow();
+    }
+
+    // Live dacă userul e abonat pe vreun nod, altfel doar în cutie (niciodată pe ambele căi, deci fără dubluri).
+    // message e forma de pe fir a frame-ului, păstrată în cutie fără să aștepte scrierea în messages.
+    public void deliver(Long userId, String email, WireMessageDto message, Object frame) {
+        if (isSubscribedAnywhere(email)) {
+            clusterMessenger.sendToUser(email, MESSAGES_DESTINATION, frame);
+            return;
+        }
+        jdbcTemplate.update(ENQUEUE_SQL, userId, message.getId(), message.getSenderId(),
+                messageContentCodec.encode(message.getContent()),
+                message.getTimestamp() != null ? Timestamp.valueOf(message.getTimestamp()) : null,
+                Timestamp.valueOf(LocalDateTime.now()));
+        enqueued.increment();
+        // Abonarea poate să fi apărut între verificare și insert, iar golirea ei să se fi terminat deja
+        if (isSubscribedAnywhere(email)) {
+            requestDrain(userId, email);
+        } else if (!clusterSessionRegistry.remoteNodesOf(email).isEmpty()) {
+            // Abonarea de pe alt nod ajunge aici cu întârzierea notificării: dacă a apărut între timp,
+            // golirea ei poate să fi rulat înaintea insert-ului, deci verificăm din nou mai târziu
+            executor.schedule(() -> {
+                if (isSubscribedAnywhere(email)) {
+                    requestDrain(userId, email);
+                }
+            }, remoteRecheckMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @EventListener
+    public void onSubscribed(BrokerSubscriptionEvent event) {
+        if (!event.destination().startsWith(RESOLVED_MESSAGES_PREFIX)) {
+            return;
+        }
+        String email = emailOf(event);
+        if (email == null) {
+            return;
+        }
+        boolean first = subscribedSessions.compute(event.sessionId(), (key, ids) -> {
+            Set<String> result = ids != null ? ids : ConcurrentHashMap.newKeySet();
+            result.add(event.subscriptionId());
+            return result;
+        }).size() == 1;
+        if (first) {
+            clusterSessionRegistry.setInboxSubscribed(event.sessionId(), email, true);
+        }
+        Long userId = presenceService.userIdOfSession(event.sessionId());
+        if (userId != null) {
+            requestDrain(userId, email);
+            return;
+        }
+        // Prezența e înregistrată la CONNECTED; dacă nu e încă, id-ul e căutat pe thread-ul de golire
+        executor.execute(() -> userRepository.findByEmail(email)
+                .map(User::getId)
+                .ifPresent(id -> requestDrain(id, email)));
+    }
+
+    // Evenimentul vine înaintea procesării de către broker; după el frame-urile nu mai ajung la abonare
+    @EventListener
+    public void onUnsubscribe(SessionUnsubscribeEvent event) {
+        StompHeaderAccessor accessor = StompHeaderAccessor.wrap(event.getMessage());
+        String sessionId = accessor.getSessionId();
+        String subscriptionId = accessor.getSubscriptionId();
+        if (sessionId == null || subscriptionId == null) {
+            return;
+        }
+        boolean[] last = {false};
+        subscribedSessions.computeIfPresent(sessionId, (key, ids) -> {
+            last[0] = ids.remove(subscriptionId) && ids.isEmpty();
+            return ids.isEmpty() ? null : ids;
+        });
+        if (last[0]) {
+            Principal user = event.getUser();
+            clusterSessionRegistry.setInboxSubscribed(sessionId, user != null ? user.getName() : null, false);
+        }
+    }
+
+    // Sesiunea dispare și din ClusterSessionRegistry (DISCONNECTED), cu tot cu abonare
+    @EventListener
+    public void onDisconnect(SessionDisconnectEvent event) {
+        subscribedSessions.remove(event.getSessionId());
+    }
+
+    // O singură golire activă per user; cererile venite între timp produc încă o trecere
+    void requestDrain(Long userId, String email) {
+        if (draining.put(userId, Boolean.TRUE) == null) {
+            executor.execute(() -> drain(userId, email));
+        }
+    }
+
+    private void drain(Long userId, String email) {
+        activeDrains.incrementAndGet();
+        try {
+            do {
+                draining.put(userId, Boolean.FALSE);
+                drainBatches(userId, email);
+            } while (!draining.remove(userId, Boolean.FALSE));
+        } catch (Exception e) {
+            draining.remove(userId);
+            log.warn("Mailbox delivery for user {} failed: {}", userId, e.getMessage());
+        } finally {
+            activeDrains.decrementAndGet();
+        }
+    }
+
+    private void drainBatches(Long userId, String email) {
+        while (isSubscribedAnywhere(email)) {
+            List<WireMessageDto> batch = transactionTemplate.execute(tx -> claim(userId));
+            if (batch == null || batch.isEmpty()) {
+                return;
+            }
+            for (WireMessageDto message : batch) {
+                clusterMessenger.sendToUser(email, MESSAGES_DESTINATION, WirePayload.of(message));
+            }
+            delivered.increment(batch.size());
+            if (batch.size() < batchSize) {
+                return;
+            }
+            pause();
+        }
+    }
+
+    // Preia și șterge un lot din cutie; rândurile vechi, fără conținut, sunt citite din messages în aceeași tranzacție
+    private List<WireMessageDto> claim(Long userId) {
+        List<WireMessageDto> batch = new ArrayList<>();
+        Set<Long> legacyIds = new HashSet<>();
+        jdbcTemplate.query(CLAIM_SQL, rs -> {
+            long senderId = rs.getLong("sender_id");
+            if (rs.wasNull()) {
+                legacyIds.add(rs.getLong("message_id"));
+                return;
+            }
+            Timestamp sentAt = rs.getTimestamp("sent_at");
+            batch.add(WireMessageDto.builder()
+                    .id(rs.getLong("message_id"))
+                    .senderId(senderId)
+                    .receiverId(userId)
+                    .content(messageContentCodec.decode(rs.getString("content")))
+                    .timestamp(sentAt != null ? sentAt.toLocalDateTime() : null)
+                    .build());
+        }, userId, batchSize);
+        if (!legacyIds.isEmpty()) {
+            batch.addAll(jdbcTemplate.query(LOAD_SQL,
+                    ps -> ps.setArray(1, ps.getConnection().createArrayOf("bigint", legacyIds.toArray())),
+                    (rs, rowNum) -> WireMessageDto.builder()
+                            .id(rs.getLong("id"))
+                            .senderId(rs.getLong("sender_id"))
+                            .receiverId(rs.getLong("receiver_id"))
+                            .content(messageContentCodec.decode(rs.getString("content")))
+                            .timestamp(rs.getTimestamp("timestamp").toLocalDateTime())
+                            .build()));
+        }
+        // DELETE ... RETURNING nu păstrează ordinea subinterogării
+        batch.sort(Comparator.comparing(WireMessageDto::getId));
+        return batch;
+    }
+
+    // Mesajele vechi rămase în cutie (userul nu s-a mai conectat) sunt oricum în istoricul REST.
+    // În loturi de purge-batch-size, fiecare în tranzacția lui, cu batch-pause-ms între ele.
+    @Scheduled(cron = "${app.mailbox.purge-cron:0 15 4 * * *}")
+    public void purgeExpired() {
+        Timestamp cutoff = Timestamp.valueOf(LocalDateTime.now().minusDays(retentionDays));
+        long removed = 0;
+        while (!stopping) {
+            int count = jdbcTemplate.update(PURGE_BATCH_SQL, cutoff, purgeBatchSize);
+            if (count == 0) {
+                break;
+            }
+            removed += count;
+            pause();
+        }
+        if (removed > 0) {
+            log.info("Removed {} expired mailbox entries", removed);
+        }
+    }
+
+    // Doar abonările confirmate de broker: SimpUserRegistry le vede înainte ca broker-ul să le fi înregistrat
+    boolean isSubscribed(String email) {
+        SimpUser user = simpUserRegistry.getUser(email);
+        return user != null && user.getSessions().stream()
+                .anyMatch(session -> subscribedSessions.containsKey(session.getId()));
+    }
+
+    boolean isSubscribedAnywhere(String email) {
+        return isSubscribed(email) || clusterSessionRegistry.hasRemoteInboxSubscriber(email);
+    }
+
+    private String emailOf(BrokerSubscriptionEvent event) {
+        Principal user = event.user();
+        if (user != null) {
+            return user.getName();
+        }
+        Authentication authentication = webSocketSessionRegistry.getAuthentication(event.sessionId());
+        return authentication != null ? authentication.getName() : null;
+    }
+
+    private void pause() {
+        try {
+            TimeUnit.MILLISECONDS.sleep(batchPauseMillis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            stopping = true;
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package com.app_template.App_Template.service.message;
+
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+// Id-uri pe 64 de biți ordonate în timp (tip Snowflake), generate în proces fără acces la DB:
+// 41 biți milisecunde de la EPOCH_MILLIS | 10 biți node id | 12 biți secvență în aceeași milisecundă.
+// Unice între noduri dacă fiecare nod are alt app.node-id; cu app.cluster.enabled=true, app.node-id e obligatoriu
+// (două noduri pornite fără el ar genera aceleași id-uri), altfel nodul unic folosește 0.
+@Component
+public class SnowflakeMessageIdGenerator implements MessageIdGenerator {
+
+    // 2025-01-01T00:00:00Z
+    static final long EPOCH_MILLIS = 1735689600000L;
+    static final int NODE_BITS = 10;
+    static final int SEQUENCE_BITS = 12;
+    static final long MAX_NODE_ID = (1L << NODE_BITS) - 1;
+    static final long SEQUENCE_MASK = (1L << SEQUENCE_BITS) - 1;
+
+    private final long nodeBits;
+
+    // (milisecunde << SEQUENCE_BITS) | secvență; când secvența depășește 4095, +1 trece în milisecunda următoare,
+    // iar dacă ceasul sistemului merge înapoi continuăm de la ultima valoare, deci id-urile rămân monotone
+    private final AtomicLong state = new AtomicLong();
+
+    public SnowflakeMessageIdGenerator(
+            @Value("${app.node-id:-1}") long nodeId,
+            @Value("${app.cluster.enabled:false}") boolean clusterEnabled) {
+        if (nodeId == -1) {
+            if (clusterEnabled) {
+                throw new IllegalStateException("app.node-id must be set to a distinct value on every node "
+                        + "when app.cluster.enabled=true");
+            }
+            nodeId = 0;
+        }
+        if (nodeId < 0 || nodeId > MAX_NODE_ID) {
+            throw new IllegalArgumentException("app.node-id must be between 0 and " + MAX_NODE_ID);
+        }
+        this.nodeBits = nodeId << SEQUENCE_BITS;
+    }
+
+    // Fără lock-uri și fără alocări: doar un CAS pe un long (verificat de SnowflakeMessageIdGeneratorBenchmark)
+    @Override
+    public long nextId() {
+        long now = System.currentTimeMillis() - EPOCH_MILLIS;
+        long current;
+        long next;
+        do {
+            current = state.get();
+            long nowState = now << SEQUENCE_BITS;
+            next = nowState > current ? nowState : current + 1;
+        } while (!state.compareAndSet(current, next));
+
+        long millis = next >>> SEQUENCE_BITS;
+        return (millis << (NODE_BITS + SEQUENCE_BITS)) | nodeBits | (next & SEQUENCE_MASK);
+    }
+
+    public static Instant timestampOf(long id) {
+        return Instant.ofEpochMilli((id >>> (NODE_BITS + SEQUENCE_BITS)) + EPOCH_MILLIS);
+    }
+
+    // Cel mai mic id care poate fi generat la momentul dat; toate id-urile generate înainte sunt mai mici
+    public static long firstIdAt(Instant instant) {
+        return Math.max(0, instant.toEpochMilli() - EPOCH_MILLIS) << (NODE_BITS + SEQUENCE_BITS);
+    }
+
+    public static long nodeIdOf(long id) {
+        return (id >>> SEQUENCE_BITS) & MAX_NODE_ID;
+    }
+}
@@ -0,0 +1,21 @@
+package com.app_template.App_Template.service.presence;
+
+import java.util.Collection;
+import java.util.List;
+
+import com.app_template.App_Template.dto.PresenceDto;
+
+public interface PresenceService {
+
+    // Starea curentă (online + last seen) pentru userii ceruți; pentru încărcarea inițială a listei de chat
+    List<PresenceDto> getPresence(Collection<Long> userIds);
+
+    // Heartbeat de la client pe sesiunea STOMP; doar în memorie
+    void heartbeat(String sessionId);
+
+    // Userul sesiunii STOMP, dacă e conectată pe acest nod (fără DB)
+    Long userIdOfSession(String sessionId);
+
+    // Email-ul unui user conectat pe acest nod, altfel null (fără DB)
+    String onlineEmailOf(Long userId);
+}
@@ -0,0 +1,374 @@
+package com.app_template.App_Template.service.presence;
+
+import java.security.Principal;
+import java.sql.Array;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.web.socket.messaging.SessionConnectedEvent;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+
+import com.app_template.App_Template.dto.PresenceDto;
+import com.app_template.App_Template.repository.UserRepository;
+import com.app_template.App_Template.service.cluster.ClusterMessenger;
+import com.app_template.App_Template.service.cluster.ClusterSessionRegistry;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+// Prezența userilor, în memorie: sesiunile fiecărui user sunt ținute în stripe-uri (lock per stripe, după userId),
+// deci conectările/deconectările unor useri diferiți nu se blochează între ele. Tranzițiile online/offline sunt
+// adunate și trimise la flush-interval-ms, o singură dată per user interesat (cei care au conversație cu userul
+// schimbat), pe /user/queue/presence. Last seen e actualizat în memorie și scris în users în loturi.
+@Slf4j
+@Service
+public class PresenceServiceImpl implements PresenceService {
+
+    private static final String INTERESTED_OWNERS_SQL =
+            "SELECT cs.peer_id, cs.owner_id, u.email FROM conversation_summaries cs " +
+                    "JOIN users u ON u.id = cs.owner_id WHERE cs.peer_id = ANY(?)";
+    private static final String LAST_SEEN_SQL = "SELECT id, email, last_seen_at FROM users WHERE id = ANY(?)";
+    private static final String UPDATE_LAST_SEEN_SQL =
+            "UPDATE users SET last_seen_at = GREATEST(COALESCE(last_seen_at, ?), ?) WHERE id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final UserRepository userRepository;
+    private final ClusterMessenger clusterMessenger;
+    private final ClusterSessionRegistry clusterSessionRegistry;
+    private final long flushIntervalMs;
+    private final long heartbeatTtlMs;
+    private final long lastSeenFlushMs;
+
+    private final Stripe[] stripes;
+    private final Map<String, Long> sessionOwners = new ConcurrentHashMap<>();
+    // Ultima tranziție nepublicată per user (coalescată: contează doar starea finală din interval)
+    private final Map<Long, Delta> pending = new ConcurrentHashMap<>();
+    // Userii anunțați ca online; absent = offline
+    private final Set<Long> publishedOnline = ConcurrentHashMap.newKeySet();
+    private final Map<Long, LocalDateTime> dirtyLastSeen = new ConcurrentHashMap<>();
+    private final AtomicInteger onlineUsers = new AtomicInteger();
+    private ScheduledExecutorService scheduler;
+
+    public PresenceServiceImpl(
+            JdbcTemplate jdbcTemplate,
+            UserRepository userRepository,
+            ClusterMessenger clusterMessenger,
+            ClusterSessionRegistry clusterSessionRegistry,
+            MeterRegistry meterRegistry,
+            @Value("${app.presence.stripes:64}") int stripeCount,
+            @Value("${app.presence.flush-interval-ms:250}") long flushIntervalMs,
+            @Value("${app.presence.heartbeat-ttl-ms:90000}") long heartbeatTtlMs,
+            @Value("${app.presence.last-seen-flush-ms:60000}") long lastSeenFlushMs) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.userRepository = userRepository;
+        this.clusterMessenger = clusterMessenger;
+        this.clusterSessionRegistry = clusterSessionRegistry;
+        this.flushIntervalMs = flushIntervalMs;
+        this.heartbeatTtlMs = heartbeatTtlMs;
+        this.lastSeenFlushMs = lastSeenFlushMs;
+        this.stripes = new Stripe[stripeCount];
+        for (int i = 0; i < stripeCount; i++) {
+            stripes[i] = new Stripe();
+        }
+        Gauge.builder("chat.presence.online", onlineUsers, AtomicInteger::get)
+                .description("Users with at least one WebSocket session on this node")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "presence");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(() -> runSafely(this::flushDeltas), flushIntervalMs, flushIntervalMs, TimeUnit.MILLISECONDS);
+        long sweepInterval = Math.max(1000, heartbeatTtlMs / 3);
+        scheduler.scheduleWithFixedDelay(() -> runSafely(this::expireSilentSessions), sweepInterval, sweepInterval, TimeUnit.MILLISECONDS);
+        scheduler.scheduleWithFixedDelay(() -> runSafely(this::flushLastSeen), lastSeenFlushMs, lastSeenFlushMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        scheduler.shutdown();
+        try {
+            scheduler.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        runSafely(this::flushLastSeen);
+    }
+
+    @EventListener
+    public void onConnected(SessionConnectedEvent event) {
+        Principal principal = event.getUser();
+        String sessionId = (String) event.getMessage().getHeaders().get("simpSessionId");
+        if (principal == null || sessionId == null) {
+            return;
+        }
+        userRepository.findByEmail(principal.getName()).ifPresent(user -> {
+            sessionOwners.put(sessionId, user.getId());
+            addSession(user.getId(), user.getEmail(), sessionId);
+        });
+    }
+
+    @EventListener
+    public void onDisconnect(SessionDisconnectEvent event) {
+        Long userId = sessionOwners.remove(event.getSessionId());
+        if (userId != null) {
+            removeSession(userId, event.getSessionId());
+        }
+    }
+
+    @Override
+    public void heartbeat(String sessionId) {
+        Long userId = sessionId != null ? sessionOwners.get(sessionId) : null;
+        if (userId == null) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        Stripe stripe = stripeOf(userId);
+        stripe.lock.lock();
+        try {
+            UserPresence presence = stripe.users.get(userId);
+            if (presence != null) {
+                presence.sessions.computeIfPresent(sessionId, (key, previous) -> now);
+            }
+        } finally {
+            stripe.lock.unlock();
+        }
+        dirtyLastSeen.put(userId, LocalDateTime.now());
+    }
+
+    @Override
+    public Long userIdOfSession(String sessionId) {
+        return sessionId != null ? sessionOwners.get(sessionId) : null;
+    }
+
+    @Override
+    public String onlineEmailOf(Long userId) {
+        Stripe stripe = stripeOf(userId);
+        stripe.lock.lock();
+        try {
+            UserPresence presence = stripe.users.get(userId);
+            return presence != null ? presence.email : null;
+        } finally {
+            stripe.lock.unlock();
+        }
+    }
+
+    @Override
+    public List<PresenceDto> getPresence(Collection<Long> userIds) {
+        if (userIds.isEmpty()) {
+            return List.of();
+        }
+        Map<Long, PresenceDto> result = new LinkedHashMap<>();
+        jdbcTemplate.query(LAST_SEEN_SQL, ps -> ps.setArray(1, bigintArray(ps.getConnection(), userIds)), rs -> {
+            long userId = rs.getLong("id");
+            Timestamp stored = rs.getTimestamp("last_seen_at");
+            LocalDateTime lastSeen = latest(stored != null ? stored.toLocalDateTime() : null, dirtyLastSeen.get(userId));
+            boolean online = isOnlineLocally(userId)
+                    || (clusterSessionRegistry.isEnabled() && !clusterSessionRegistry.remoteNodesOf(rs.getString("email")).isEmpty());
+            result.put(userId, PresenceDto.builder().userId(userId).online(online).lastSeen(lastSeen).build());
+        });
+        return new ArrayList<>(result.values());
+    }
+
+    private void addSession(Long userId, String email, String sessionId) {
+        boolean first;
+        Stripe stripe = stripeOf(userId);
+        stripe.lock.lock();
+        try {
+            UserPresence presence = stripe.users.computeIfAbsent(userId, key -> new UserPresence(email));
+            first = presence.sessions.isEmpty();
+            // 0 = sesiunea nu a trimis încă heartbeat (clienții vechi nu trimit; nu expiră)
+            presence.sessions.put(sessionId, 0L);
+        } finally {
+            stripe.lock.unlock();
+        }
+        dirtyLastSeen.put(userId, LocalDateTime.now());
+        if (first) {
+            onlineUsers.incrementAndGet();
+            pending.put(userId, new Delta(email, true, null));
+        }
+    }
+
+    private void removeSession(Long userId, String sessionId) {
+        String lastSessionOf = null;
+        Stripe stripe = stripeOf(userId);
+        stripe.lock.lock();
+        try {
+            UserPresence presence = stripe.users.get(userId);
+            if (presence != null && presence.sessions.remove(sessionId) != null && presence.sessions.isEmpty()) {
+                stripe.users.remove(userId);
+                lastSessionOf = presence.email;
+            }
+        } finally {
+            stripe.lock.unlock();
+        }
+        if (lastSessionOf != null) {
+            LocalDateTime now = LocalDateTime.now();
+            dirtyLastSeen.put(userId, now);
+            onlineUsers.decrementAndGet();
+            pending.put(userId, new Delta(lastSessionOf, false, now));
+        }
+    }
+
+    // Sesiunile care au trimis heartbeat-uri și apoi au tăcut (socket închis fără DISCONNECT)
+    private void expireSilentSessions() {
+        long cutoff = System.currentTimeMillis() - heartbeatTtlMs;
+        List<Map.Entry<Long, String>> expired = new ArrayList<>();
+        for (Stripe stripe : stripes) {
+            stripe.lock.lock();
+            try {
+                for (Map.Entry<Long, UserPresence> user : stripe.users.entrySet()) {
+                    for (Map.Entry<String, Long> session : user.getValue().sessions.entrySet()) {
+                        if (session.getValue() > 0 && session.getValue() < cutoff) {
+                            expired.add(Map.entry(user.getKey(), session.getKey()));
+                        }
+                    }
+                }
+            } finally {
+                stripe.lock.unlock();
+            }
+        }
+        for (Map.Entry<Long, String> session : expired) {
+            sessionOwners.remove(session.getValue());
+            removeSession(session.getKey(), session.getValue());
+        }
+    }
+
+    void flushDeltas() {
+        if (pending.isEmpty()) {
+            return;
+        }
+        Map<Long, Delta> changes = new HashMap<>();
+        for (Long userId : pending.keySet()) {
+            Delta delta = pending.remove(userId);
+            if (delta != null && isPublishable(userId, delta)) {
+                changes.put(userId, delta);
+            }
+        }
+        if (changes.isEmpty()) {
+            return;
+        }
+
+        Map<String, List<PresenceDto>> byOwner = new HashMap<>();
+        jdbcTemplate.query(INTERESTED_OWNERS_SQL, ps -> ps.setArray(1, bigintArray(ps.getConnection(), changes.keySet())), rs -> {
+            long ownerId = rs.getLong("owner_id");
+            // Fără cluster, doar userii conectați aici pot primi frame-ul
+            if (!clusterSessionRegistry.isEnabled() && !isOnlineLocally(ownerId)) {
+                return;
+            }
+            long peerId = rs.getLong("peer_id");
+            Delta delta = changes.get(peerId);
+            byOwner.computeIfAbsent(rs.getString("email"), key -> new ArrayList<>())
+                    .add(PresenceDto.builder().userId(peerId).online(delta.online()).lastSeen(delta.at()).build());
+        });
+        byOwner.forEach((owner, deltas) -> clusterMessenger.sendToUser(owner, "/queue/presence", deltas));
+    }
+
+    // Renunță la tranzițiile care nu schimbă starea deja anunțată (ex. reconectare rapidă)
+    private boolean isPublishable(Long userId, Delta delta) {
+        if (delta.online()) {
+            return publishedOnline.add(userId);
+        }
+        if (!publishedOnline.contains(userId)) {
+            return false;
+        }
+        // Userul poate fi încă conectat pe alt nod
+        if (clusterSessionRegistry.isEnabled() && !clusterSessionRegistry.remoteNodesOf(delta.email()).isEmpty()) {
+            return false;
+        }
+        publishedOnline.remove(userId);
+        return true;
+    }
+
+    void flushLastSeen() {
+        if (dirtyLastSeen.isEmpty()) {
+            return;
+        }
+        List<Object[]> updates = new ArrayList<>();
+        for (Long userId : dirtyLastSeen.keySet()) {
+            LocalDateTime lastSeen = dirtyLastSeen.remove(userId);
+            if (lastSeen != null) {
+                Timestamp timestamp = Timestamp.valueOf(lastSeen);
+                updates.add(new Object[]{timestamp, timestamp, userId});
+            }
+        }
+        jdbcTemplate.batchUpdate(UPDATE_LAST_SEEN_SQL, updates);
+    }
+
+    private boolean isOnlineLocally(Long userId) {
+        Stripe stripe = stripeOf(userId);
+        stripe.lock.lock();
+        try {
+            return stripe.users.containsKey(userId);
+        } finally {
+            stripe.lock.unlock();
+        }
+    }
+
+    private Stripe stripeOf(Long userId) {
+        return stripes[Math.floorMod(Long.hashCode(userId), stripes.length)];
+    }
+
+    private void runSafely(Runnable task) {
+        try {
+            task.run();
+        } catch (Exception e) {
+            log.error("Presence task failed", e);
+        }
+    }
+
+    private static LocalDateTime latest(LocalDateTime first, LocalDateTime second) {
+        if (first == null) {
+            return second;
+        }
+        return second != null && second.isAfter(first) ? second : first;
+    }
+
+    private static Array bigintArray(Connection connection, Collection<Long> ids) throws SQLException {
+        return connection.createArrayOf("bigint", ids.toArray());
+    }
+
+    private record Delta(String email, boolean online, LocalDateTime at) {
+    }
+
+    private static final class UserPresence {
+        private final String email;
+        // sessionId -> momentul ultimului heartbeat (ms)
+        private final Map<String, Long> sessions = new HashMap<>(2);
+
+        private UserPresence(String email) {
+            this.email = email;
+        }
+    }
+
+    private static final class Stripe {
+        private final ReentrantLock lock = new ReentrantLock();
+        private final Map<Long, UserPresence> users = new HashMap<>();
+    }
+}
@@ -0,0 +1,28 @@
+package com.app_template.App_Template.service.room;
+
+import java.util.Collection;
+import java.util.List;
+
+import com.app_template.App_Template.dto.RoomDto;
+import com.app_template.App_Template.dto.RoomMessageDto;
+
+public interface RoomService {
+
+    // Mesajele unei camere sunt publicate o singură dată pe acest topic, indiferent de numărul de membri
+    String DESTINATION_PREFIX = "/topic/rooms.";
+
+    static String destinationOf(Long roomId) {
+        return DESTINATION_PREFIX + roomId;
+    }
+
+    RoomDto createRoom(Long ownerId, String name, Collection<Long> memberIds);
+    List<RoomDto> getRooms(Long userId);
+    List<Long> getMemberIds(Long roomId, Long requesterId);
+    int addMembers(Long roomId, Long requesterId, Collection<Long> userIds);
+    void removeMember(Long roomId, Long requesterId, Long userId);
+    RoomMessageDto sendMessage(Long roomId, Long senderId, String content);
+    List<RoomMessageDto> getMessages(Long roomId, Long userId, Long afterSeq, Long beforeSeq, int limit);
+    void markRead(Long roomId, Long userId, Long seq);
+    // id-ul userului dacă e membru al camerei, altfel null
+    Long memberIdByEmail(Long roomId, String email);
+}
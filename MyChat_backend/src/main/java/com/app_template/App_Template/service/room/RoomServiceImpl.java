@@ -0,0 +1,277 @@
+package com.app_template.App_Template.service.room;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.stereotype.Service;
+
+import com.app_template.App_Template.dto.RoomDto;
+import com.app_template.App_Template.dto.RoomMessageDto;
+import com.app_template.App_Template.entity.ChatRoom;
+import com.app_template.App_Template.entity.ChatRoomMember;
+import com.app_template.App_Template.entity.RoomMessage;
+import com.app_template.App_Template.enums.RoomRole;
+import com.app_template.App_Template.repository.ChatRoomMemberRepository;
+import com.app_template.App_Template.repository.ChatRoomRepository;
+import com.app_template.App_Template.repository.RoomMessageRepository;
+import com.app_template.App_Template.service.message.MessageContentCodec;
+import com.app_template.App_Template.service.message.MessageIdGenerator;
+
+import jakarta.persistence.EntityNotFoundException;
+import jakarta.transaction.Transactional;
+
+@Service
+public class RoomServiceImpl implements RoomService {
+
+    private static final int MAX_NAME_LENGTH = 100;
+    private static final int MAX_PAGE_SIZE = 200;
+
+    // Incrementul și citirea seq-ului într-un singur statement; rândul camerei rămâne blocat până la commit,
+    // deci mesajele concurente dintr-o cameră primesc seq-uri în ordinea în care devin vizibile
+    private static final String NEXT_SEQ_SQL =
+            "UPDATE chat_rooms SET last_seq = last_seq + 1 WHERE id = ? RETURNING last_seq";
+
+    // Schimbările de membri într-o cameră sunt serializate pe rândul camerei (blocat până la commit), deci
+    // verificarea limitei de membri și transferul de owner văd numărul/rolurile actuale, nu unele depășite
+    private static final String LOCK_ROOM_SQL =
+            "SELECT member_count FROM chat_rooms WHERE id = ? FOR UPDATE";
+
+    // Ownerul care pleacă îl lasă owner pe cel mai vechi membru rămas
+    private static final String PROMOTE_OLDEST_MEMBER_SQL =
+            "UPDATE chat_room_members SET role = ? WHERE id = (" +
+                    "SELECT id FROM chat_room_members WHERE room_id = ? ORDER BY joined_at, id LIMIT 1)";
+
+    // Userii inexistenți sunt ignorați de join; membrii noi pornesc cu istoricul existent marcat ca citit
+    private static final String INSERT_MEMBER_SQL =
+            "INSERT INTO chat_room_members (room_id, user_id, role, joined_at, last_read_seq) " +
+                    "SELECT r.id, u.id, ?, ?, r.last_seq FROM chat_rooms r JOIN users u ON u.id = ? WHERE r.id = ? " +
+                    "ON CONFLICT (room_id, user_id) DO NOTHING";
+
+    private final ChatRoomRepository chatRoomRepository;
+    private final ChatRoomMemberRepository chatRoomMemberRepository;
+    private final RoomMessageRepository roomMessageRepository;
+    private final MessageIdGenerator messageIdGenerator;
+    private final MessageContentCodec messageContentCodec;
+    private final JdbcTemplate jdbcTemplate;
+    private final int maxMembers;
+
+    public RoomServiceImpl(
+            ChatRoomRepository chatRoomRepository,
+            ChatRoomMemberRepository chatRoomMemberRepository,
+            RoomMessageRepository roomMessageRepository,
+            MessageIdGenerator messageIdGenerator,
+            MessageContentCodec messageContentCodec,
+            JdbcTemplate jdbcTemplate,
+            @Value("${app.rooms.max-members:5000}") int maxMembers) {
+        this.chatRoomRepository = chatRoomRepository;
+        this.chatRoomMemberRepository = chatRoomMemberRepository;
+        this.roomMessageRepository = roomMessageRepository;
+        this.messageIdGenerator = messageIdGenerator;
+        this.messageContentCodec = messageContentCodec;
+        this.jdbcTemplate = jdbcTemplate;
+        this.maxMembers = maxMembers;
+    }
+
+    @Override
+    @Transactional
+    public RoomDto createRoom(Long ownerId, String name, Collection<Long> memberIds) {
+        if (name == null || name.isBlank() || name.length() > MAX_NAME_LENGTH) {
+            throw new IllegalArgumentException("Room name must have between 1 and " + MAX_NAME_LENGTH + " characters");
+        }
+        Set<Long> others = new LinkedHashSet<>(memberIds != null ? memberIds : List.of());
+        others.remove(ownerId);
+        if (others.size() + 1 > maxMembers) {
+            throw new IllegalArgumentException("A room can have at most " + maxMembers + " members");
+        }
+
+        ChatRoom room = chatRoomRepository.save(ChatRoom.builder()
+                .name(name.trim())
+                .createdById(ownerId)
+                .createdAt(LocalDateTime.now())
+                .build());
+        int added = insertMembers(room.getId(), List.of(ownerId), RoomRole.OWNER);
+        if (added == 0) {
+            throw new EntityNotFoundException("User not found");
+        }
+        added += insertMembers(room.getId(), others, RoomRole.MEMBER);
+        chatRoomRepository.adjustMemberCount(room.getId(), added);
+
+        return RoomDto.builder()
+                .id(room.getId())
+                .name(room.getName())
+                .memberCount(added)
+                .createdAt(room.getCreatedAt())
+                .lastSeq(0L)
+                .role(RoomRole.OWNER)
+                .lastReadSeq(0L)
+                .unreadCount(0L)
+                .build();
+    }
+
+    @Override
+    public List<RoomDto> getRooms(Long userId) {
+        return chatRoomMemberRepository.findRoomsOf(userId).stream()
+                .map(row -> {
+                    ChatRoom room = row.getRoom();
+                    ChatRoomMember member = row.getMember();
+                    return RoomDto.builder()
+                            .id(room.getId())
+                            .name(room.getName())
+                            .memberCount(room.getMemberCount())
+                            .createdAt(room.getCreatedAt())
+                            .lastSeq(room.getLastSeq())
+                            .role(member.getRole())
+                            .lastReadSeq(member.getLastReadSeq())
+                            .unreadCount(Math.max(0L, room.getLastSeq() - member.getLastReadSeq()))
+                            .build();
+                })
+                .toList();
+    }
+
+    @Override
+    public List<Long> getMemberIds(Long roomId, Long requesterId) {
+        requireMember(roomId, requesterId);
+        return chatRoomMemberRepository.findUserIds(roomId);
+    }
+
+    @Override
+    @Transactional
+    public int addMembers(Long roomId, Long requesterId, Collection<Long> userIds) {
+        int memberCount = lockRoom(roomId);
+        requireOwner(roomId, requesterId);
+        Set<Long> distinct = new LinkedHashSet<>(userIds);
+        if (memberCount + distinct.size() > maxMembers) {
+            throw new IllegalArgumentException("A room can have at most " + maxMembers + " members");
+        }
+        int added = insertMembers(roomId, distinct, RoomRole.MEMBER);
+        if (added > 0) {
+            chatRoomRepository.adjustMemberCount(roomId, added);
+        }
+        return added;
+    }
+
+    // Ownerul scoate pe oricine; un membru doar pe sine (părăsește camera). Camera nu rămâne fără owner:
+    // dacă pleacă ownerul, rolul trece la cel mai vechi membru rămas.
+    @Override
+    @Transactional
+    public void removeMember(Long roomId, Long requesterId, Long userId) {
+        lockRoom(roomId);
+        if (!requesterId.equals(userId)) {
+            requireOwner(roomId, requesterId);
+        }
+        ChatRoomMember member = chatRoomMemberRepository.findByRoomIdAndUserId(roomId, userId)
+                .orElseThrow(() -> new EntityNotFoundException("Member not found"));
+        chatRoomMemberRepository.deleteMember(roomId, userId);
+        chatRoomRepository.adjustMemberCount(roomId, -1);
+        if (member.getRole() == RoomRole.OWNER) {
+            jdbcTemplate.update(PROMOTE_OLDEST_MEMBER_SQL, RoomRole.OWNER.name(), roomId);
+        }
+    }
+
+    @Override
+    @Transactional
+    public RoomMessageDto sendMessage(Long roomId, Long senderId, String content) {
+        requireMember(roomId, senderId);
+        Long seq = jdbcTemplate.queryForList(NEXT_SEQ_SQL, Long.class, roomId).stream()
+                .findFirst()
+                .orElseThrow(() -> new EntityNotFoundException("Room not found"));
+
+        RoomMessage message = roomMessageRepository.save(RoomMessage.builder()
+                .id(messageIdGenerator.nextId())
+                .roomId(roomId)
+                .seq(seq)
+                .senderId(senderId)
+                .content(messageContentCodec.encode(content))
+                .timestamp(LocalDateTime.now())
+                .build());
+        return toDto(message, content);
+    }
+
+    // afterSeq: mesajele ratate, crescător; altfel pagina dinaintea lui beforeSeq (implicit cele mai noi).
+    // Ambele întoarse în ordine crescătoare de seq.
+    @Override
+    public List<RoomMessageDto> getMessages(Long roomId, Long userId, Long afterSeq, Long beforeSeq, int limit) {
+        requireMember(roomId, userId);
+        Limit page = Limit.of(Math.max(1, Math.min(limit, MAX_PAGE_SIZE)));
+        List<RoomMessage> messages;
+        if (afterSeq != null) {
+            messages = roomMessageRepository.findAfter(roomId, afterSeq, page);
+        } else {
+            messages = new ArrayList<>(roomMessageRepository.findBefore(
+                    roomId, beforeSeq != null ? beforeSeq : Long.MAX_VALUE, page));
+            Collections.reverse(messages);
+        }
+        return messages.stream()
+                .map(message -> toDto(message, messageContentCodec.decode(message.getContent())))
+                .toList();
+    }
+
+    @Override
+    @Transactional
+    public void markRead(Long roomId, Long userId, Long seq) {
+        chatRoomMemberRepository.advanceReadSeq(roomId, userId, seq);
+    }
+
+    @Override
+    public Long memberIdByEmail(Long roomId, String email) {
+        return chatRoomMemberRepository.findMemberIdByEmail(roomId, email).orElse(null);
+    }
+
+    // Inserare în lot (un singur round-trip pentru mii de membri); întoarce câți membri noi au fost adăugați
+    private int insertMembers(Long roomId, Collection<Long> userIds, RoomRole role) {
+        if (userIds.isEmpty()) {
+            return 0;
+        }
+        Timestamp joinedAt = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> rows = new ArrayList<>(userIds.size());
+        for (Long userId : userIds) {
+            rows.add(new Object[]{role.name(), joinedAt, userId, roomId});
+        }
+        int added = 0;
+        for (int count : jdbcTemplate.batchUpdate(INSERT_MEMBER_SQL, rows)) {
+            added += Math.max(count, 0);
+        }
+        return added;
+    }
+
+    private int lockRoom(Long roomId) {
+        return jdbcTemplate.queryForList(LOCK_ROOM_SQL, Integer.class, roomId).stream()
+                .findFirst()
+                .orElseThrow(() -> new EntityNotFoundException("Room not found"));
+    }
+
+    private void requireMember(Long roomId, Long userId) {
+        if (!chatRoomMemberRepository.existsByRoomIdAndUserId(roomId, userId)) {
+            throw new AccessDeniedException("Not a member of this room");
+        }
+    }
+
+    private void requireOwner(Long roomId, Long userId) {
+        ChatRoomMember member = chatRoomMemberRepository.findByRoomIdAndUserId(roomId, userId)
+                .orElseThrow(() -> new AccessDeniedException("Not a member of this room"));
+        if (member.getRole() != RoomRole.OWNER) {
+            throw new AccessDeniedException("Only the room owner can change its members");
+        }
+    }
+
+    private static RoomMessageDto toDto(RoomMessage message, String content) {
+        return RoomMessageDto.builder()
+                .id(message.getId())
+                .roomId(message.getRoomId())
+                .seq(message.getSeq())
+                .senderId(message.getSenderId())
+                .content(content)
+                .timestamp(message.getTimestamp())
+                .build();
+    }
+}
@@ -0,0 +1,161 @@
+package com.app_template.App_Template.service.sync;
+
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.app_template.App_Template.entity.Message;
+import com.app_template.App_Template.entity.SyncEvent;
+import com.app_template.App_Template.enums.SyncEventType;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+// Scrie evenimentele de sincronizare în tranzacția apelantului (MessageWriter, markReadUpTo)
+// și șterge periodic evenimentele mai vechi de retention-days, în loturi mici (fiecare o singură instrucțiune,
+// deci o tranzacție scurtă), pe indexul created_at, cu pauză între loturi, ca la MessageRetentionPurger.
+@Slf4j
+@Component
+public class SyncEventLog {
+
+    // Rezervă `count` seq-uri pentru un user și întoarce ultimul; blochează rândul până la commit
+    private static final String ALLOCATE_SQL =
+            "INSERT INTO user_sync_state (user_id, last_seq, purged_through) VALUES (?, ?, 0) " +
+                    "ON CONFLICT (user_id) DO UPDATE SET last_seq = user_sync_state.last_seq + EXCLUDED.last_seq " +
+                    "RETURNING last_seq";
+    private static final String INSERT_SQL =
+            "INSERT INTO sync_events (user_id, seq, type, peer_id, message_id, reader_id, last_read_message_id, created_at) " +
+                    "VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+    // Un lot: șterge și reține, per user, până la ce seq s-a șters (ca sync-ul să poată cere reîncărcare
+    // completă); întoarce câte evenimente a șters
+    private static final String PURGE_BATCH_SQL =
+            "WITH purged AS (DELETE FROM sync_events WHERE id IN (" +
+                    "SELECT id FROM sync_events WHERE created_at < ? ORDER BY created_at LIMIT ? FOR UPDATE SKIP LOCKED) " +
+                    "RETURNING user_id, seq), " +
+                    "advanced AS (UPDATE user_sync_state s SET purged_through = GREATEST(s.purged_through, p.max_seq) " +
+                    "FROM (SELECT user_id, MAX(seq) AS max_seq FROM purged GROUP BY user_id) p " +
+                    "WHERE s.user_id = p.user_id) " +
+                    "SELECT COUNT(*) FROM purged";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final int retentionDays;
+    private final int purgeBatchSize;
+    private final long purgeBatchPauseMillis;
+    private volatile boolean stopping;
+
+    public SyncEventLog(
+            JdbcTemplate jdbcTemplate,
+            @Value("${app.sync.retention-days:30}") int retentionDays,
+            @Value("${app.sync.purge-batch-size:1000}") int purgeBatchSize,
+            @Value("${app.sync.purge-batch-pause-ms:200}") long purgeBatchPauseMillis) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.retentionDays = retentionDays;
+        this.purgeBatchSize = purgeBatchSize;
+        this.purgeBatchPauseMillis = purgeBatchPauseMillis;
+    }
+
+    // Fiecare mesaj produce un eveniment pentru expeditor și unul pentru destinatar
+    public void recordMessages(List<Message> messages) {
+        Map<Long, List<SyncEvent>> byUser = new TreeMap<>();
+        LocalDateTime now = LocalDateTime.now();
+        List<Message> ordered = new ArrayList<>(messages);
+        ordered.sort(Comparator.comparing(Message::getId));
+        for (Message message : ordered) {
+            Long senderId = message.getSender().getId();
+            Long receiverId = message.getReceiver().getId();
+            add(byUser, SyncEvent.builder().userId(senderId).type(SyncEventType.MESSAGE)
+                    .peerId(receiverId).messageId(message.getId()).createdAt(now).build());
+            add(byUser, SyncEvent.builder().userId(receiverId).type(SyncEventType.MESSAGE)
+                    .peerId(senderId).messageId(message.getId()).createdAt(now).build());
+        }
+        append(byUser);
+    }
+
+    // readerId a citit mesajele lui peerId până la lastReadMessageId; ambii primesc evenimentul
+    public void recordRead(Long readerId, Long peerId, Long lastReadMessageId) {
+        Map<Long, List<SyncEvent>> byUser = new TreeMap<>();
+        LocalDateTime now = LocalDateTime.now();
+        add(byUser, SyncEvent.builder().userId(readerId).type(SyncEventType.READ).peerId(peerId)
+                .readerId(readerId).lastReadMessageId(lastReadMessageId).createdAt(now).build());
+        add(byUser, SyncEvent.builder().userId(peerId).type(SyncEventType.READ).peerId(readerId)
+                .readerId(readerId).lastReadMessageId(lastReadMessageId).createdAt(now).build());
+        append(byUser);
+    }
+
+    @Scheduled(cron = "${app.sync.purge-cron:0 0 4 * * *}")
+    public void purgeExpired() {
+        Timestamp cutoff = Timestamp.valueOf(LocalDateTime.now().minusDays(retentionDays));
+        long purged = 0;
+        while (!stopping) {
+            Long count = jdbcTemplate.queryForObject(PURGE_BATCH_SQL, Long.class, cutoff, purgeBatchSize);
+            if (count == null || count == 0) {
+                break;
+            }
+            purged += count;
+            pause();
+        }
+        if (purged > 0) {
+            log.info("Purged {} sync events older than {} days", purged, retentionDays);
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        stopping = true;
+    }
+
+    private void pause() {
+        if (purgeBatchPauseMillis <= 0) {
+            return;
+        }
+        try {
+            TimeUnit.MILLISECONDS.sleep(purgeBatchPauseMillis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            stopping = true;
+        }
+    }
+
+    private void add(Map<Long, List<SyncEvent>> byUser, SyncEvent event) {
+        byUser.computeIfAbsent(event.getUserId(), key -> new ArrayList<>()).add(event);
+    }
+
+    // TreeMap: contoarele sunt blocate mereu în ordinea user_id, deci două loturi concurente nu fac deadlock
+    private void append(Map<Long, List<SyncEvent>> byUser) {
+        List<SyncEvent> events = new ArrayList<>();
+        for (Map.Entry<Long, List<SyncEvent>> entry : byUser.entrySet()) {
+            List<SyncEvent> userEvents = entry.getValue();
+            Long lastSeq = jdbcTemplate.queryForObject(ALLOCATE_SQL, Long.class, entry.getKey(), userEvents.size());
+            long seq = lastSeq - userEvents.size() + 1;
+            for (SyncEvent event : userEvents) {
+                event.setSeq(seq++);
+            }
+            events.addAll(userEvents);
+        }
+        jdbcTemplate.batchUpdate(
+                INSERT_SQL,
+                events,
+                events.size(),
+                (ps, event) -> {
+                    ps.setLong(1, event.getUserId());
+                    ps.setLong(2, event.getSeq());
+                    ps.setString(3, event.getType().name());
+                    ps.setLong(4, event.getPeerId());
+                    ps.setObject(5, event.getMessageId(), Types.BIGINT);
+                    ps.setObject(6, event.getReaderId(), Types.BIGINT);
+                    ps.setObject(7, event.getLastReadMessageId(), Types.BIGINT);
+                    ps.setTimestamp(8, Timestamp.valueOf(event.getCreatedAt()));
+                });
+    }
+}
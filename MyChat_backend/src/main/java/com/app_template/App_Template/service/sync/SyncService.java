@@ -0,0 +1,9 @@
+package com.app_template.App_Template.service.sync;
+
+import com.app_template.App_Template.dto.SyncBatchDto;
+
+public interface SyncService {
+
+    // Evenimentele userului cu seq > since, în ordine, cel mult `limit`
+    SyncBatchDto getEventsSince(Long userId, long since, int limit);
+}
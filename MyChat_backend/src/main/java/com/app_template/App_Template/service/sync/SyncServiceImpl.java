@@ -0,0 +1,92 @@
+package com.app_template.App_Template.service.sync;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+
+import com.app_template.App_Template.dto.MessageDto;
+import com.app_template.App_Template.dto.SyncBatchDto;
+import com.app_template.App_Template.dto.SyncEventDto;
+import com.app_template.App_Template.entity.SyncEvent;
+import com.app_template.App_Template.entity.UserSyncState;
+import com.app_template.App_Template.repository.MessageRepository;
+import com.app_template.App_Template.repository.SyncEventRepository;
+import com.app_template.App_Template.repository.UserSyncStateRepository;
+import com.app_template.App_Template.service.message.MessageDtoMapper;
+
+import jakarta.transaction.Transactional;
+import lombok.RequiredArgsConstructor;
+
+@Service
+@RequiredArgsConstructor
+public class SyncServiceImpl implements SyncService {
+
+    private static final int MAX_BATCH_SIZE = 500;
+
+    private final SyncEventRepository syncEventRepository;
+    private final UserSyncStateRepository userSyncStateRepository;
+    private final MessageRepository messageRepository;
+    private final MessageDtoMapper messageDtoMapper;
+
+    @Override
+    @Transactional
+    public SyncBatchDto getEventsSince(Long userId, long since, int limit) {
+        int batchSize = Math.max(1, Math.min(limit, MAX_BATCH_SIZE));
+        UserSyncState state = userSyncStateRepository.findById(userId).orElse(null);
+        long lastSeq = state != null ? state.getLastSeq() : 0L;
+
+        // Cursor mai vechi decât retenția sau dintr-un jurnal care nu mai există: nu putem livra un delta complet
+        if (since < 0 || since > lastSeq || (state != null && since < state.getPurgedThrough())) {
+            return SyncBatchDto.builder()
+                    .events(Collections.emptyList())
+                    .lastSeq(lastSeq)
+                    .hasMore(false)
+                    .resetRequired(true)
+                    .build();
+        }
+
+        // Un rând în plus ca să știm dacă mai urmează un lot
+        List<SyncEvent> events = syncEventRepository.findSince(userId, since, Limit.of(batchSize + 1));
+        boolean hasMore = events.size() > batchSize;
+        if (hasMore) {
+            events = events.subList(0, batchSize);
+        }
+
+        List<Long> messageIds = events.stream()
+                .map(SyncEvent::getMessageId)
+                .filter(Objects::nonNull)
+                .distinct()
+                .toList();
+        Map<Long, MessageDto> messages = messageIds.isEmpty()
+                ? Map.of()
+                : messageRepository.findDtosByIds(messageIds).stream()
+                        .map(messageDtoMapper::decodeContent)
+                        .collect(Collectors.toMap(MessageDto::getId, Function.identity()));
+        messageDtoMapper.applyReadState(new ArrayList<>(messages.values()));
+
+        List<SyncEventDto> result = events.stream()
+                .map(event -> SyncEventDto.builder()
+                        .seq(event.getSeq())
+                        .type(event.getType())
+                        .peerId(event.getPeerId())
+                        .message(event.getMessageId() != null ? messages.get(event.getMessageId()) : null)
+                        .readerId(event.getReaderId())
+                        .lastReadMessageId(event.getLastReadMessageId())
+                        .build())
+                .collect(Collectors.toList());
+
+        return SyncBatchDto.builder()
+                .events(result)
+                .lastSeq(result.isEmpty() ? since : result.get(result.size() - 1).getSeq())
+                .hasMore(hasMore)
+                .resetRequired(false)
+                .build();
+    }
+}
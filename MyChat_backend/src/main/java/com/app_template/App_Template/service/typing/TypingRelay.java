@@ -0,0 +1,218 @@
+package com.app_template.App_Template.service.typing;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.app_template.App_Template.dto.TypingDto;
+import com.app_template.App_Template.entity.User;
+import com.app_template.App_Template.repository.UserRepository;
+import com.app_template.App_Template.service.cluster.ClusterMessenger;
+import com.app_template.App_Template.service.cluster.ClusterSessionRegistry;
+import com.app_template.App_Template.service.presence.PresenceService;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+// Indicatorii "scrie..." nu ating baza de date: starea e doar în memorie, per (sender, receiver).
+// Un "start" repetat produce cel mult un frame la interval-ms; un "stop" fără "start" e ignorat.
+// Dacă stop-ul nu mai vine (tab închis), un timing wheel trimite stop după expire-ms de la ultimul start.
+@Slf4j
+@Component
+public class TypingRelay {
+
+    private static final String DESTINATION = "/queue/typing";
+    private static final int WHEEL_SIZE = 128;
+    private static final int EMAIL_CACHE_SIZE = 10_000;
+
+    private final ClusterMessenger clusterMessenger;
+    private final ClusterSessionRegistry clusterSessionRegistry;
+    private final PresenceService presenceService;
+    private final UserRepository userRepository;
+    private final long intervalMs;
+    private final long expireMs;
+    private final long tickMs;
+
+    private final Map<TypingKey, TypingState> states = new ConcurrentHashMap<>();
+    @SuppressWarnings("unchecked")
+    private final Set<TypingKey>[] wheel = new Set[WHEEL_SIZE];
+    // Email-urile destinatarilor de pe alte noduri (doar cu cluster activ); emailul unui user se schimbă rar
+    private final Map<Long, String> remoteEmails = new LinkedHashMap<>(256, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, String> eldest) {
+            return size() > EMAIL_CACHE_SIZE;
+        }
+    };
+    private final Counter relayed;
+    private final Counter suppressed;
+    private ScheduledExecutorService ticker;
+    private long lastTick;
+
+    public TypingRelay(
+            ClusterMessenger clusterMessenger,
+            ClusterSessionRegistry clusterSessionRegistry,
+            PresenceService presenceService,
+            UserRepository userRepository,
+            MeterRegistry meterRegistry,
+            @Value("${app.typing.interval-ms:2000}") long intervalMs,
+            @Value("${app.typing.expire-ms:6000}") long expireMs,
+            @Value("${app.typing.tick-ms:100}") long tickMs) {
+        this.clusterMessenger = clusterMessenger;
+        this.clusterSessionRegistry = clusterSessionRegistry;
+        this.presenceService = presenceService;
+        this.userRepository = userRepository;
+        this.intervalMs = intervalMs;
+        this.expireMs = expireMs;
+        this.tickMs = tickMs;
+        for (int i = 0; i < WHEEL_SIZE; i++) {
+            wheel[i] = ConcurrentHashMap.newKeySet();
+        }
+        this.relayed = Counter.builder("chat.typing.relayed")
+                .description("Typing frames sent to receivers")
+                .register(meterRegistry);
+        this.suppressed = Counter.builder("chat.typing.suppressed")
+                .description("Typing updates dropped by dedupe or rate limit")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        lastTick = System.currentTimeMillis() / tickMs;
+        ticker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "typing-wheel");
+            thread.setDaemon(true);
+            return thread;
+        });
+        ticker.scheduleAtFixedRate(this::tickSafely, tickMs, tickMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        ticker.shutdownNow();
+    }
+
+    public void update(Long senderId, Long receiverId, boolean typing) {
+        TypingKey key = new TypingKey(senderId, receiverId);
+        long now = System.currentTimeMillis();
+        if (!typing) {
+            if (states.remove(key) != null) {
+                send(key, false);
+            } else {
+                suppressed.increment();
+            }
+            return;
+        }
+
+        TypingState state = states.get(key);
+        if (state == null) {
+            TypingState created = new TypingState(now, now + expireMs);
+            state = states.putIfAbsent(key, created);
+            if (state == null) {
+                schedule(key, created.deadline);
+                send(key, true);
+                return;
+            }
+        }
+        state.deadline = now + expireMs;
+        if (now - state.lastSentAt >= intervalMs) {
+            state.lastSentAt = now;
+            send(key, true);
+        } else {
+            suppressed.increment();
+        }
+    }
+
+    // Mesajul trimis încheie indicatorul; clientul îl ascunde singur la primirea mesajului, deci fără frame
+    public void clear(Long senderId, Long receiverId) {
+        states.remove(new TypingKey(senderId, receiverId));
+    }
+
+    private void schedule(TypingKey key, long deadline) {
+        wheel[(int) ((deadline / tickMs) % WHEEL_SIZE)].add(key);
+    }
+
+    private void tickSafely() {
+        try {
+            tick(System.currentTimeMillis());
+        } catch (Exception e) {
+            log.error("Typing wheel tick failed", e);
+        }
+    }
+
+    // Parcurge sloturile de la ultimul tick (inclusiv cele sărite dacă thread-ul a întârziat);
+    // cheile al căror termen a fost prelungit sunt mutate în slotul noului termen
+    void tick(long now) {
+        long currentTick = now / tickMs;
+        long from = Math.max(lastTick + 1, currentTick - WHEEL_SIZE + 1);
+        for (long tick = from; tick <= currentTick; tick++) {
+            Set<TypingKey> slot = wheel[(int) (tick % WHEEL_SIZE)];
+            for (TypingKey key : slot) {
+                slot.remove(key);
+                TypingState state = states.get(key);
+                if (state == null) {
+                    continue;
+                }
+                if (state.deadline <= now) {
+                    if (states.remove(key, state)) {
+                        send(key, false);
+                    }
+                } else {
+                    schedule(key, state.deadline);
+                }
+            }
+        }
+        lastTick = currentTick;
+    }
+
+    private void send(TypingKey key, boolean typing) {
+        String receiverEmail = emailOf(key.receiverId());
+        if (receiverEmail == null) {
+            return;
+        }
+        clusterMessenger.sendToUser(receiverEmail, DESTINATION, new TypingDto(key.senderId(), typing));
+        relayed.increment();
+    }
+
+    private String emailOf(Long userId) {
+        String email = presenceService.onlineEmailOf(userId);
+        if (email != null || !clusterSessionRegistry.isEnabled()) {
+            // Fără cluster, un destinatar care nu e conectat aici e offline
+            return email;
+        }
+        synchronized (remoteEmails) {
+            email = remoteEmails.get(userId);
+        }
+        if (email == null) {
+            email = userRepository.findById(userId).map(User::getEmail).orElse(null);
+            if (email != null) {
+                synchronized (remoteEmails) {
+                    remoteEmails.put(userId, email);
+                }
+            }
+        }
+        return email;
+    }
+
+    private record TypingKey(Long senderId, Long receiverId) {
+    }
+
+    private static final class TypingState {
+        private volatile long lastSentAt;
+        private volatile long deadline;
+
+        private TypingState(long lastSentAt, long deadline) {
+            this.lastSentAt = lastSentAt;
+            this.deadline = deadline;
+        }
+    }
+}
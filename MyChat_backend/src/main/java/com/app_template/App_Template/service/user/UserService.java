@@ -2,9 +2,12 @@ package com.app_template.App_Template.service.user;
 
 import com.app_template.App_Template.auth.UpdateInfosRequest;
 import com.app_template.App_Template.auth.UpdatePasswordRequest;
+import com.app_template.App_Template.dto.ChatProfileDto;
 import com.app_template.App_Template.dto.UserDto;
 
 import java.io.IOException;
+import java.util.Collection;
+import java.util.List;
 
 public interface UserService {
     void deleteAccount(Long userId);
@@ -12,5 +15,7 @@ public interface UserService {
     UserDto updatePassword(UpdatePasswordRequest request);
     UserDto updatePreferredTheme(Long userId, String theme);
     UserDto updatePreferredLanguage(Long userId, String language);
+    UserDto updateMessageRetention(Long userId, int days);
+    List<ChatProfileDto> getChatProfiles(Collection<Long> userIds);
 
 }
@@ -1,6 +1,8 @@
 package com.app_template.App_Template.service.user;
 
 import java.io.IOException;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 import org.springframework.beans.factory.annotation.Autowired;
@@ -10,6 +12,7 @@ import org.springframework.stereotype.Service;
 import com.app_template.App_Template.auth.UpdateInfosRequest;
 import com.app_template.App_Template.auth.UpdatePasswordRequest;
 import com.app_template.App_Template.entity.User;
+import com.app_template.App_Template.dto.ChatProfileDto;
 import com.app_template.App_Template.dto.UserDto;
 import com.app_template.App_Template.repository.UserRepository;
 import com.app_template.App_Template.service.image.ImageService;
@@ -136,4 +139,27 @@ public class UserServiceImpl implements UserService {
         throw new EntityNotFoundException("User not found");
     }
 
+    @Override
+    public UserDto updateMessageRetention(Long userId, int days) {
+        Optional<User> presentUser = userRepository.findFirstById(userId);
+        if (presentUser.isPresent()) {
+            User user = presentUser.get();
+            // 0 sau negativ: fără retenție proprie, se aplică doar cea globală
+            user.setMessageRetentionDays(days > 0 ? days : null);
+            return (userRepository.save(user)).getUserDto();
+        }
+        throw new EntityNotFoundException("User not found");
+    }
+
+    // Profilurile pentru mesajele slim de pe WebSocket; userii inexistenți (ex. conturi șterse) lipsesc din listă
+    @Override
+    public List<ChatProfileDto> getChatProfiles(Collection<Long> userIds) {
+        return userRepository.findAllById(userIds).stream()
+                .map(user -> ChatProfileDto.builder()
+                        .userId(user.getId())
+                        .name(user.getFirstname() + " " + user.getLastname())
+                        .imageUrl(user.getImageUrl())
+                        .build())
+                .toList();
+    }
 }
@@ -0,0 +1,134 @@
+package com.app_template.App_Template.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.SessionLimitExceededException;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class BoundedWebSocketSessionTest {
+
+    private final CountDownLatch socketBlocked = new CountDownLatch(1);
+    private final CountDownLatch releaseSocket = new CountDownLatch(1);
+    private final List<String> written = new CopyOnWriteArrayList<>();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final OutboundBacklogMonitor monitor = new OutboundBacklogMonitor(meterRegistry);
+    private Thread writer;
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        releaseSocket.countDown();
+        if (writer != null) {
+            writer.join(5000);
+        }
+    }
+
+    @Test
+    void dropsEphemeralFramesFirstAndDisconnectsWhenMessagesStillDoNotFit() throws Exception {
+        BoundedWebSocketSession session = blockedSession(new SlowConsumerPolicy.DropEphemeral());
+
+        session.sendMessage(frame("/user/a/queue/typing", 20));
+        session.sendMessage(frame("/user/a/queue/messages", 60));
+        // Coada e aproape plină: typing nou e refuzat, iar un mesaj nou scoate typing-ul din coadă
+        session.sendMessage(frame("/user/a/queue/typing", 20));
+        session.sendMessage(frame("/user/a/queue/messages", 30));
+        assertThat(meterRegistry.get("ws.outbound.dropped").tag("reason", "rejected").counter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("ws.outbound.dropped").tag("reason", "evicted").counter().count()).isEqualTo(1);
+        assertThat(monitor.topLagging(10)).singleElement()
+                .satisfies(lagging -> assertThat(lagging.getBufferedFrames()).isEqualTo(2));
+
+        assertThatThrownBy(() -> session.sendMessage(frame("/user/a/queue/messages", 60)))
+                .isInstanceOf(SessionLimitExceededException.class);
+        assertThat(meterRegistry.get("ws.outbound.disconnected").tag("reason", "buffer").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void coalescesEphemeralFramesPerDestination() throws Exception {
+        BoundedWebSocketSession session = blockedSession(new SlowConsumerPolicy.Coalesce());
+
+        session.sendMessage(frame("/user/a/queue/messages", 60));
+        session.sendMessage(frame("/user/a/queue/presence", 30));
+        session.sendMessage(frame("/user/a/queue/presence", 31));
+
+        releaseSocket.countDown();
+        writer.join(5000);
+        assertThat(written).hasSize(3);
+        assertThat(written.get(2)).contains("/queue/presence").hasSize(31 + header("/user/a/queue/presence").length());
+    }
+
+    @Test
+    void packsQueuedMessageFramesIntoOneWriteUpToMaxBytes() throws Exception {
+        int frameSize = frame("/user/a/queue/messages", 10).getPayloadLength();
+        BoundedWebSocketSession session = blockedSession(new SlowConsumerPolicy.DropEphemeral(),
+                new BoundedWebSocketSession.Batching(0, frameSize * 2));
+
+        session.sendMessage(frame("/user/a/queue/messages", 10));
+        session.sendMessage(frame("/user/a/queue/typing", 10));
+        session.sendMessage(frame("/user/a/queue/messages", 10));
+
+        releaseSocket.countDown();
+        writer.join(5000);
+        // Frame-ul inițial, apoi primele două împreună; al treilea nu mai încape în maxBytes
+        assertThat(written).hasSize(3);
+        assertThat(written.get(1)).isEqualTo(frame("/user/a/queue/messages", 10).getPayload()
+                + frame("/user/a/queue/typing", 10).getPayload());
+        assertThat(meterRegistry.get("ws.outbound.batch.frames").summary().max()).isEqualTo(2);
+    }
+
+    private BoundedWebSocketSession blockedSession(SlowConsumerPolicy policy) throws Exception {
+        return blockedSession(policy, null);
+    }
+
+    // Prima scriere (un frame de 1 byte) rămâne blocată în socket până la releaseSocket, deci restul stau în coadă
+    private BoundedWebSocketSession blockedSession(SlowConsumerPolicy policy,
+                                                   BoundedWebSocketSession.Batching batching) throws Exception {
+        WebSocketSession delegate = mock(WebSocketSession.class);
+        when(delegate.getId()).thenReturn("s1");
+        when(delegate.isOpen()).thenReturn(true);
+        doAnswer(invocation -> {
+            WebSocketMessage<?> message = invocation.getArgument(0);
+            if (written.isEmpty()) {
+                socketBlocked.countDown();
+                releaseSocket.await(5, TimeUnit.SECONDS);
+            }
+            written.add(message.getPayload().toString());
+            return null;
+        }).when(delegate).sendMessage(any());
+
+        BoundedWebSocketSession session = new BoundedWebSocketSession(delegate, 60_000, 200, policy, monitor, batching);
+        monitor.register(session);
+        writer = new Thread(() -> {
+            try {
+                session.sendMessage(new TextMessage("x"));
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        writer.start();
+        assertThat(socketBlocked.await(5, TimeUnit.SECONDS)).isTrue();
+        return session;
+    }
+
+    private static TextMessage frame(String destination, int bodyLength) {
+        return new TextMessage(header(destination) + "x".repeat(bodyLength));
+    }
+
+    private static String header(String destination) {
+        return "MESSAGE\ndestination:" + destination + "\n\n";
+    }
+}
@@ -0,0 +1,76 @@
+package com.app_template.App_Template.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageDeliveryException;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+
+import com.app_template.App_Template.service.room.RoomService;
+
+class RoomSubscriptionInterceptorTest {
+
+    private final RoomService roomService = mock(RoomService.class);
+    private final WebSocketSessionRegistry sessionRegistry = mock(WebSocketSessionRegistry.class);
+    private final MessageChannel brokerChannel = mock(MessageChannel.class);
+    private final RoomSubscriptionInterceptor interceptor =
+            new RoomSubscriptionInterceptor(roomService, sessionRegistry, brokerChannel);
+
+    @Test
+    void onlyMembersSubscribeAndRemovedMembersAreUnsubscribed() {
+        when(sessionRegistry.getAuthentication("s1"))
+                .thenReturn(new UsernamePasswordAuthenticationToken("ann@x.com", null, List.of()));
+        when(roomService.memberIdByEmail(7L, "ann@x.com")).thenReturn(1L);
+        when(roomService.memberIdByEmail(8L, "ann@x.com")).thenReturn(null);
+
+        interceptor.preSend(subscribe("s1", "sub-0", "/topic/rooms.7"), null);
+        assertThat(interceptor.subscriptionCount()).isEqualTo(1);
+        assertThatThrownBy(() -> interceptor.preSend(subscribe("s1", "sub-1", "/topic/rooms.8"), null))
+                .isInstanceOf(MessageDeliveryException.class);
+        assertThatThrownBy(() -> interceptor.preSend(subscribe("s1", "sub-2", "/topic/rooms.*"), null))
+                .isInstanceOf(MessageDeliveryException.class);
+
+        interceptor.revoke(7L, 1L);
+        ArgumentCaptor<Message<?>> unsubscribe = ArgumentCaptor.forClass(Message.class);
+        verify(brokerChannel).send(unsubscribe.capture());
+        assertThat(SimpMessageHeaderAccessor.getMessageType(unsubscribe.getValue().getHeaders()))
+                .isEqualTo(SimpMessageType.UNSUBSCRIBE);
+        assertThat(SimpMessageHeaderAccessor.getSubscriptionId(unsubscribe.getValue().getHeaders())).isEqualTo("sub-0");
+        assertThat(interceptor.subscriptionCount()).isZero();
+    }
+
+    @Test
+    void rejectsClientPublishesToTopics() {
+        StompHeaderAccessor accessor = StompHeaderAccessor.create(StompCommand.SEND);
+        accessor.setSessionId("s1");
+        accessor.setDestination("/topic/rooms.7");
+        Message<byte[]> send = MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders());
+
+        assertThatThrownBy(() -> interceptor.preSend(send, null)).isInstanceOf(MessageDeliveryException.class);
+        verify(brokerChannel, never()).send(any());
+    }
+
+    private static Message<byte[]> subscribe(String sessionId, String subscriptionId, String destination) {
+        StompHeaderAccessor accessor = StompHeaderAccessor.create(StompCommand.SUBSCRIBE);
+        accessor.setSessionId(sessionId);
+        accessor.setSubscriptionId(subscriptionId);
+        accessor.setDestination(destination);
+        return MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders());
+    }
+}
@@ -0,0 +1,97 @@
+package com.app_template.App_Template.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.support.ExecutorSubscribableChannel;
+import org.springframework.messaging.support.MessageBuilder;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class ShardedBrokerMessageHandlerTest {
+
+    private final BlockingQueue<Message<?>> outbound = new LinkedBlockingQueue<>();
+    private ShardedBrokerMessageHandler broker;
+
+    @BeforeEach
+    void setUp() {
+        ExecutorSubscribableChannel clientOutboundChannel = new ExecutorSubscribableChannel();
+        clientOutboundChannel.subscribe(outbound::add);
+        broker = new ShardedBrokerMessageHandler(new ExecutorSubscribableChannel(), clientOutboundChannel,
+                new ExecutorSubscribableChannel(), List.of("/topic", "/user"), 4, 16, new SimpleMeterRegistry());
+        broker.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        broker.stop();
+    }
+
+    @Test
+    void deliversToExactAndPatternSubscriptionsAcrossPartitions() throws InterruptedException {
+        broker.handleMessage(subscribe("s1", "sub-1", "/user/a@x.com/queue/messages"));
+        broker.handleMessage(subscribe("s2", "sub-2", "/user/a@x.com/queue/messages"));
+        broker.handleMessage(subscribe("s3", "sub-3", "/topic/**"));
+        broker.handleMessage(subscribe("s4", "sub-4", "/user/b@x.com/queue/messages"));
+
+        broker.handleMessage(publish("/user/a@x.com/queue/messages", "hi"));
+        broker.handleMessage(publish("/topic/status", "online"));
+
+        List<String> received = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            Message<?> message = outbound.poll(5, TimeUnit.SECONDS);
+            assertThat(message).isNotNull();
+            received.add(SimpMessageHeaderAccessor.getSessionId(message.getHeaders()) + ":"
+                    + SimpMessageHeaderAccessor.getSubscriptionId(message.getHeaders()) + ":" + message.getPayload());
+        }
+        assertThat(received).containsExactlyInAnyOrder("s1:sub-1:hi", "s2:sub-2:hi", "s3:sub-3:online");
+        assertThat(outbound.poll(200, TimeUnit.MILLISECONDS)).isNull();
+    }
+
+    @Test
+    void preservesOrderPerSessionAndStopsAfterDisconnect() throws InterruptedException {
+        broker.handleMessage(subscribe("s1", "sub-1", "/topic/room"));
+        for (int i = 0; i < 1000; i++) {
+            broker.handleMessage(publish("/topic/room", String.valueOf(i)));
+        }
+        for (int i = 0; i < 1000; i++) {
+            Message<?> message = outbound.poll(5, TimeUnit.SECONDS);
+            assertThat(message).isNotNull();
+            assertThat(message.getPayload()).isEqualTo(String.valueOf(i));
+        }
+
+        SimpMessageHeaderAccessor disconnect = SimpMessageHeaderAccessor.create(SimpMessageType.DISCONNECT);
+        disconnect.setSessionId("s1");
+        broker.handleMessage(MessageBuilder.createMessage(new byte[0], disconnect.getMessageHeaders()));
+        Message<?> ack = outbound.poll(5, TimeUnit.SECONDS);
+        assertThat(SimpMessageHeaderAccessor.getMessageType(ack.getHeaders())).isEqualTo(SimpMessageType.DISCONNECT_ACK);
+
+        broker.handleMessage(publish("/topic/room", "late"));
+        assertThat(outbound.poll(200, TimeUnit.MILLISECONDS)).isNull();
+    }
+
+    private static Message<byte[]> subscribe(String sessionId, String subscriptionId, String destination) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.SUBSCRIBE);
+        accessor.setSessionId(sessionId);
+        accessor.setSubscriptionId(subscriptionId);
+        accessor.setDestination(destination);
+        return MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders());
+    }
+
+    private static Message<String> publish(String destination, String payload) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        accessor.setDestination(destination);
+        return MessageBuilder.createMessage(payload, accessor.getMessageHeaders());
+    }
+}
@@ -0,0 +1,40 @@
+package com.app_template.App_Template.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Collections;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import jakarta.servlet.http.HttpServletRequest;
+
+class WebSocketCompressionFilterTest {
+
+    private static final String OFFER = "permessage-deflate; client_max_window_bits, x-webkit-deflate-frame";
+
+    @Test
+    void disablingContextTakeoverAddsBothParametersOnce() {
+        WebSocketCompressionFilter filter = new WebSocketCompressionFilter(true, false);
+
+        assertThat(filter.rewrite(OFFER)).isEqualTo("permessage-deflate; client_max_window_bits; "
+                + "server_no_context_takeover; client_no_context_takeover, x-webkit-deflate-frame");
+        assertThat(filter.rewrite("permessage-deflate; server_no_context_takeover"))
+                .isEqualTo("permessage-deflate; server_no_context_takeover; client_no_context_takeover");
+    }
+
+    @Test
+    void hidesTheOfferWhenCompressionIsDisabled() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/ws-native");
+        request.addHeader(WebSocketCompressionFilter.EXTENSIONS_HEADER, "permessage-deflate; client_max_window_bits");
+        MockFilterChain chain = new MockFilterChain();
+
+        new WebSocketCompressionFilter(false, true).doFilter(request, new MockHttpServletResponse(), chain);
+
+        HttpServletRequest filtered = (HttpServletRequest) chain.getRequest();
+        assertThat(filtered.getHeader(WebSocketCompressionFilter.EXTENSIONS_HEADER)).isNull();
+        assertThat(Collections.list(filtered.getHeaderNames())).doesNotContain(WebSocketCompressionFilter.EXTENSIONS_HEADER);
+    }
+}
@@ -0,0 +1,100 @@
+package com.app_template.App_Template.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Date;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageDeliveryException;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetailsService;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class WebSocketSessionRegistryTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final WebSocketSessionRegistry registry = new WebSocketSessionRegistry(meterRegistry, 1000, 60_000);
+
+    @Test
+    void evictsOnTokenExpiryIdleAndDisconnect() {
+        long now = System.currentTimeMillis();
+        registry.register("expired", auth("a@x.com"), now - 1);
+        registry.register("idle", auth("b@x.com"), now + 3_600_000);
+        registry.register("active", auth("c@x.com"), now + 3_600_000);
+        registry.register("closed", auth("d@x.com"), now + 3_600_000);
+
+        assertThat(registry.getAuthentication("expired")).isNull();
+        registry.remove("closed");
+        // Fără niciun frame în idle-timeout-ms, ambele sesiuni rămase sunt scoase
+        registry.sweep(now + 2000);
+        assertThat(registry.getAuthentication("idle")).isNull();
+        assertThat(registry.size()).isZero();
+
+        // getAuthentication marchează activitatea, deci sesiunea rămâne la următorul sweep
+        registry.register("active", auth("c@x.com"), now + 3_600_000);
+        assertThat(registry.getAuthentication("active").getName()).isEqualTo("c@x.com");
+        registry.sweep(System.currentTimeMillis() + 500);
+        assertThat(registry.size()).isEqualTo(1);
+
+        assertThat(evicted("token")).isEqualTo(1);
+        assertThat(evicted("idle")).isEqualTo(2);
+        assertThat(evicted("disconnect")).isEqualTo(1);
+        assertThat(meterRegistry.get("ws.sessions.registered").gauge().value()).isEqualTo(1);
+    }
+
+    @Test
+    void interceptorLoadsTheUserOnlyAtConnect() {
+        JwtService jwtService = mock(JwtService.class);
+        UserDetailsService userDetailsService = mock(UserDetailsService.class);
+        var userDetails = User.withUsername("a@x.com").password("x").authorities(List.of()).build();
+        when(jwtService.extractUsername("token")).thenReturn("a@x.com");
+        when(jwtService.isTokenValid("token", userDetails)).thenReturn(true);
+        when(jwtService.extractClaim(eq("token"), any())).thenReturn(new Date(System.currentTimeMillis() + 60_000));
+        when(userDetailsService.loadUserByUsername("a@x.com")).thenReturn(userDetails);
+        JwtChannelInterceptor interceptor = new JwtChannelInterceptor(jwtService, userDetailsService, registry);
+        MessageChannel channel = mock(MessageChannel.class);
+
+        StompHeaderAccessor connect = StompHeaderAccessor.create(StompCommand.CONNECT);
+        connect.setSessionId("s1");
+        connect.setNativeHeader("Authorization", "Bearer token");
+        interceptor.preSend(MessageBuilder.createMessage(new byte[0], connect.getMessageHeaders()), channel);
+        for (int i = 0; i < 3; i++) {
+            interceptor.preSend(frame(StompCommand.SEND, "s1"), channel);
+        }
+        verify(userDetailsService, times(1)).loadUserByUsername("a@x.com");
+
+        interceptor.preSend(frame(StompCommand.DISCONNECT, "s1"), channel);
+        assertThatThrownBy(() -> interceptor.preSend(frame(StompCommand.SEND, "s1"), channel))
+                .isInstanceOf(MessageDeliveryException.class);
+    }
+
+    private double evicted(String reason) {
+        return meterRegistry.get("ws.sessions.evicted").tag("reason", reason).counter().count();
+    }
+
+    private static Message<byte[]> frame(StompCommand command, String sessionId) {
+        StompHeaderAccessor accessor = StompHeaderAccessor.create(command);
+        accessor.setSessionId(sessionId);
+        return MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders());
+    }
+
+    private static Authentication auth(String name) {
+        return new UsernamePasswordAuthenticationToken(name, null, List.of());
+    }
+}
@@ -0,0 +1,127 @@
+package com.app_template.App_Template.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageHandler;
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.messaging.support.NativeMessageHeaderAccessor;
+import org.springframework.util.MimeTypeUtils;
+
+import com.app_template.App_Template.dto.MessageDto;
+import com.app_template.App_Template.dto.WireMessageDto;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class WireFormatInterceptorTest {
+
+    private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+    private final WireMessageConverter converter = new WireMessageConverter(objectMapper);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final WireFormatInterceptor interceptor = new WireFormatInterceptor(converter, meterRegistry);
+    private final MessageChannel channel = mock(MessageChannel.class);
+    private final MessageHandler handler = mock(MessageHandler.class);
+
+    @Test
+    void encodesOncePerCodecAndOnlyGrantsBinaryOnNativeTransport() throws Exception {
+        interceptor.preSend(connect("native", "cbor", true), channel);
+        interceptor.preSend(connect("sockjs", "cbor", false), channel);
+        interceptor.preSend(connect("plain", null, true), channel);
+        assertThat(interceptor.codecOf("native")).isEqualTo(WireCodec.CBOR);
+        assertThat(interceptor.codecOf("sockjs")).isEqualTo(WireCodec.JSON);
+
+        WirePayload payload = WirePayload.of(WireMessageDto.from(fullMessage()));
+        Message<?> toNative = interceptor.beforeHandle(outbound("native", payload), channel, handler);
+        Message<?> toSockJs = interceptor.beforeHandle(outbound("sockjs", payload), channel, handler);
+        Message<?> toPlain = interceptor.beforeHandle(outbound("plain", payload), channel, handler);
+
+        // Aceiași bytes pentru sesiunile cu același format: serializat o singură dată
+        assertThat(toSockJs.getPayload()).isSameAs(toPlain.getPayload());
+        assertThat(toSockJs.getHeaders().get(MessageHeaders.CONTENT_TYPE)).isEqualTo(MimeTypeUtils.APPLICATION_JSON);
+        assertThat(toNative.getHeaders().get(MessageHeaders.CONTENT_TYPE)).isEqualTo(MimeTypeUtils.APPLICATION_OCTET_STREAM);
+        assertThat(NativeMessageHeaderAccessor.getFirstNativeHeader(WireCodec.HEADER, toNative.getHeaders())).isEqualTo("cbor");
+        assertThat(meterRegistry.get("ws.wire.payload.bytes").tag("codec", "json").summary().count()).isEqualTo(1);
+
+        JsonNode decoded = new ObjectMapper(new CBORFactory()).readTree((byte[]) toNative.getPayload());
+        assertThat(decoded.get("content").asText()).isEqualTo("salut");
+        assertThat(decoded.get("senderId").asLong()).isEqualTo(1L);
+        assertThat(((byte[]) toNative.getPayload()).length).isLessThan(((byte[]) toSockJs.getPayload()).length);
+
+        interceptor.preSend(disconnect("native"), channel);
+        assertThat(interceptor.codecOf("native")).isEqualTo(WireCodec.JSON);
+    }
+
+    @Test
+    void slimMessageIsMuchSmallerThanFullDto() throws Exception {
+        MessageDto message = fullMessage();
+        byte[] full = objectMapper.writeValueAsBytes(message);
+        byte[] slim = converter.encode(WirePayload.of(WireMessageDto.from(message)), WireCodec.JSON);
+
+        assertThat(slim.length * 2).isLessThan(full.length);
+    }
+
+    @Test
+    void leavesStringsAndBytesToTheDefaultConverters() {
+        assertThat(converter.toMessage("text", null)).isNull();
+        assertThat(converter.toMessage(new byte[] {1}, null)).isNull();
+        assertThat(converter.toMessage(Map.of("a", 1), null).getPayload()).isInstanceOf(WirePayload.class);
+    }
+
+    private static MessageDto fullMessage() {
+        return MessageDto.builder()
+                .id(123456789L)
+                .senderId(1L)
+                .senderName("Alexandru Popescu")
+                .senderEmail("alexandru.popescu@example.com")
+                .senderImageUrl("http://localhost:8080/uploads/users/1/profile-picture.jpg")
+                .receiverId(2L)
+                .receiverName("Maria Ionescu")
+                .receiverEmail("maria.ionescu@example.com")
+                .receiverImageUrl("http://localhost:8080/uploads/users/2/profile-picture.jpg")
+                .content("salut")
+                .timestamp(LocalDateTime.of(2025, 1, 1, 12, 0))
+                .read(false)
+                .build();
+    }
+
+    private static Message<byte[]> connect(String sessionId, String codec, boolean nativeTransport) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.CONNECT);
+        accessor.setSessionId(sessionId);
+        Map<String, Object> attributes = new HashMap<>();
+        if (nativeTransport) {
+            attributes.put(BinaryTransportHandshakeInterceptor.ATTRIBUTE, Boolean.TRUE);
+        }
+        accessor.setSessionAttributes(attributes);
+        if (codec != null) {
+            accessor.setNativeHeader(WireCodec.HEADER, codec);
+        }
+        return MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders());
+    }
+
+    private static Message<byte[]> disconnect(String sessionId) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.DISCONNECT);
+        accessor.setSessionId(sessionId);
+        return MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders());
+    }
+
+    private static Message<WirePayload> outbound(String sessionId, WirePayload payload) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        accessor.setSessionId(sessionId);
+        accessor.setDestination("/user/maria.ionescu@example.com/queue/messages");
+        return MessageBuilder.createMessage(payload, accessor.getMessageHeaders());
+    }
+}
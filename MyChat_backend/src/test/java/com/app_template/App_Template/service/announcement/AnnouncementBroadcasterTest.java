@@ -0,0 +1,111 @@
+package com.app_template.App_Template.service.announcement;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.atLeast;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.simp.user.SimpSession;
+import org.springframework.messaging.simp.user.SimpUser;
+import org.springframework.messaging.simp.user.SimpUserRegistry;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.app_template.App_Template.config.WirePayload;
+import com.app_template.App_Template.dto.AnnouncementDto;
+import com.app_template.App_Template.dto.BroadcastProgressDto;
+import com.app_template.App_Template.enums.BroadcastStatus;
+import com.app_template.App_Template.repository.AnnouncementRepository;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class AnnouncementBroadcasterTest {
+
+    private final SimpMessagingTemplate messagingTemplate = mock(SimpMessagingTemplate.class);
+    private final SimpUserRegistry userRegistry = mock(SimpUserRegistry.class);
+    private final ThreadPoolTaskExecutor outboundExecutor = mock(ThreadPoolTaskExecutor.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final AnnouncementBroadcaster broadcaster = new AnnouncementBroadcaster(messagingTemplate, userRegistry,
+            outboundExecutor, mock(ThreadPoolTaskExecutor.class), mock(AnnouncementRepository.class),
+            mock(TransactionTemplate.class), meterRegistry, 2, 1, 100, 0);
+
+    @AfterEach
+    void tearDown() {
+        broadcaster.stop();
+    }
+
+    @Test
+    void sendsOneSharedPayloadPerUserInBatchesAndWaitsForTheOutboundBacklog() {
+        broadcaster.start();
+        Set<SimpUser> users = IntStream.range(0, 5).mapToObj(i -> user("u" + i + "@x.com", i == 0 ? 2 : 1))
+                .collect(Collectors.toCollection(LinkedHashSet::new));
+        when(userRegistry.getUsers()).thenReturn(users);
+        // Primul lot așteaptă până scade coada canalului outbound
+        when(outboundExecutor.getQueueSize()).thenReturn(500, 500, 0);
+
+        AnnouncementDto announcement = AnnouncementDto.builder().id(1L).title("Maintenance").content("Tonight").build();
+        AnnouncementBroadcaster.Broadcast broadcast = new AnnouncementBroadcaster.Broadcast(1L, "admin@x.com");
+        broadcaster.run(broadcast, announcement);
+
+        ArgumentCaptor<Object> frames = ArgumentCaptor.forClass(Object.class);
+        verify(messagingTemplate, times(5)).convertAndSendToUser(any(), eq("/queue/announcements"), frames.capture());
+        assertThat(frames.getAllValues()).allMatch(frame -> frame == frames.getAllValues().get(0));
+        assertThat(((WirePayload) frames.getValue()).getValue()).isSameAs(announcement);
+        assertThat(meterRegistry.get("chat.broadcast.throttled").counter().count()).isEqualTo(2);
+
+        BroadcastProgressDto progress = broadcast.snapshot();
+        assertThat(progress.getStatus()).isEqualTo(BroadcastStatus.COMPLETED);
+        assertThat(progress.getTotalSessions()).isEqualTo(6);
+        assertThat(progress.getDeliveredSessions()).isEqualTo(6);
+        verify(messagingTemplate, atLeast(2))
+                .convertAndSendToUser(eq("admin@x.com"), eq("/queue/broadcasts"), any());
+    }
+
+    @Test
+    void cancelledBroadcastsStopBeforeTheNextBatch() throws InterruptedException {
+        broadcaster.start();
+        Set<SimpUser> users = IntStream.range(0, 3).mapToObj(i -> user("u" + i + "@x.com", 1))
+                .collect(Collectors.toCollection(LinkedHashSet::new));
+        when(userRegistry.getUsers()).thenReturn(users);
+        when(outboundExecutor.getQueueSize()).thenAnswer(invocation -> {
+            broadcaster.cancel(4L);
+            return 0;
+        });
+
+        broadcaster.submit(AnnouncementDto.builder().id(4L).build(), "admin@x.com");
+        BroadcastProgressDto progress = broadcaster.progressOf(4L);
+        for (int i = 0; i < 500 && progress.getFinishedAt() == null; i++) {
+            Thread.sleep(10);
+            progress = broadcaster.progressOf(4L);
+        }
+
+        assertThat(progress.getStatus()).isEqualTo(BroadcastStatus.CANCELLED);
+        assertThat(progress.getDeliveredSessions()).isEqualTo(2);
+        assertThat(broadcaster.cancel(4L)).isFalse();
+        assertThat(broadcaster.cancel(99L)).isFalse();
+    }
+
+    private static SimpUser user(String name, int sessionCount) {
+        SimpUser user = mock(SimpUser.class);
+        when(user.getName()).thenReturn(name);
+        Set<SimpSession> sessions = new LinkedHashSet<>();
+        for (int i = 0; i < sessionCount; i++) {
+            sessions.add(mock(SimpSession.class));
+        }
+        when(user.getSessions()).thenReturn(sessions);
+        return user;
+    }
+}
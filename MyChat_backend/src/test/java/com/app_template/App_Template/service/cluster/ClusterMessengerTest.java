@@ -0,0 +1,89 @@
+package com.app_template.App_Template.service.cluster;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.simp.user.SimpUserRegistry;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class ClusterMessengerTest {
+
+    private final InMemoryClusterTransport transport = new InMemoryClusterTransport();
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final SimpMessagingTemplate templateA = mock(SimpMessagingTemplate.class);
+    private final SimpMessagingTemplate templateB = mock(SimpMessagingTemplate.class);
+    private final ClusterSessionRegistry registryA = registry(1);
+    private final ClusterSessionRegistry registryB = registry(2);
+    private final SimpleMeterRegistry metersA = new SimpleMeterRegistry();
+
+    private final ClusterMessenger nodeA = new ClusterMessenger(templateA, mock(SimpUserRegistry.class), registryA,
+            transport, objectMapper, metersA, 100, 5);
+    private final ClusterMessenger nodeB = new ClusterMessenger(templateB, mock(SimpUserRegistry.class), registryB,
+            transport, objectMapper, new SimpleMeterRegistry(), 100, 5);
+
+    @AfterEach
+    void tearDown() {
+        nodeA.stop();
+        nodeB.stop();
+    }
+
+    @Test
+    void forwardsFramesForRemoteUsersInBatchesAndInOrder() {
+        nodeA.start();
+        nodeB.start();
+        when(registryA.remoteNodesOf("bob@x.com")).thenReturn(List.of(2));
+
+        IntStream.range(0, 250).forEach(i -> nodeA.sendToUser("bob@x.com", "/queue/messages", new Frame(i)));
+
+        ArgumentCaptor<Object> payloads = ArgumentCaptor.forClass(Object.class);
+        verify(templateB, timeout(5000).times(250))
+                .convertAndSendToUser(eq("bob@x.com"), eq("/queue/messages"), payloads.capture());
+        assertThat(payloads.getAllValues())
+                .extracting(payload -> ((JsonNode) payload).get("seq").asInt())
+                .containsExactlyElementsOf(IntStream.range(0, 250).boxed().toList());
+        assertThat(metersA.get("chat.cluster.batches").counter().count()).isBetween(3.0, 250.0);
+        // bob nu are sesiuni pe nodul A
+        verify(templateA, never()).convertAndSendToUser(anyString(), anyString(), any(Object.class));
+    }
+
+    @Test
+    void sendsOnlyLocallyWhenClusterIsDisabled() {
+        when(registryA.isEnabled()).thenReturn(false);
+        nodeA.start();
+
+        nodeA.sendToUser("bob@x.com", "/queue/messages", new Frame(1));
+
+        verify(templateA).convertAndSendToUser(eq("bob@x.com"), eq("/queue/messages"), any(Object.class));
+        verify(registryA, never()).remoteNodesOf(anyString());
+    }
+
+    private static ClusterSessionRegistry registry(int nodeId) {
+        ClusterSessionRegistry registry = mock(ClusterSessionRegistry.class);
+        when(registry.isEnabled()).thenReturn(true);
+        when(registry.getNodeId()).thenReturn(nodeId);
+        when(registry.remoteNodesOf(anyString())).thenReturn(List.of());
+        return registry;
+    }
+
+    record Frame(int seq) {
+    }
+}
@@ -0,0 +1,95 @@
+package com.app_template.App_Template.service.cluster;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.sql.ResultSet;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+
+import com.app_template.App_Template.service.cluster.ClusterSessionEvent.Type;
+
+class ClusterSessionRegistryTest {
+
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+    private final ClusterSessionRegistry registry =
+            new ClusterSessionRegistry(jdbcTemplate, new InMemoryClusterTransport(), true, 1, 15000, 60000);
+
+    @Test
+    void tracksRemoteSessionsFromEventsWithoutQueryingPerLookup() {
+        liveNodes(2, 3);
+
+        registry.apply(new ClusterSessionEvent(Type.CONNECTED, 2, "a1", "ann@x.com"));
+        registry.apply(new ClusterSessionEvent(Type.CONNECTED, 3, "a2", "ann@x.com"));
+        registry.apply(new ClusterSessionEvent(Type.CONNECTED, 2, "b1", "bob@x.com"));
+        // Propriile evenimente sunt ignorate: sesiunile locale le știe SimpUserRegistry
+        registry.apply(new ClusterSessionEvent(Type.CONNECTED, 1, "c1", "cat@x.com"));
+
+        assertThat(registry.remoteNodesOf("ann@x.com")).containsExactlyInAnyOrder(2, 3);
+        assertThat(registry.remoteNodesOf("cat@x.com")).isEmpty();
+
+        registry.apply(new ClusterSessionEvent(Type.DISCONNECTED, 3, "a2", "ann@x.com"));
+        assertThat(registry.remoteNodesOf("ann@x.com")).containsExactly(2);
+
+        registry.apply(new ClusterSessionEvent(Type.NODE_RESET, 2, null, null));
+        assertThat(registry.remoteNodesOf("ann@x.com")).isEmpty();
+        assertThat(registry.remoteNodesOf("bob@x.com")).isEmpty();
+    }
+
+    @Test
+    void tracksInboxSubscriptionsOfRemoteSessions() {
+        liveNodes(2);
+        registry.apply(new ClusterSessionEvent(Type.CONNECTED, 2, "a1", "ann@x.com"));
+        assertThat(registry.hasRemoteInboxSubscriber("ann@x.com")).isFalse();
+
+        registry.apply(new ClusterSessionEvent(Type.INBOX_SUBSCRIBED, 2, "a1", "ann@x.com"));
+        // Un CONNECTED întârziat nu șterge abonarea deja primită
+        registry.apply(new ClusterSessionEvent(Type.CONNECTED, 2, "a1", "ann@x.com"));
+        assertThat(registry.hasRemoteInboxSubscriber("ann@x.com")).isTrue();
+
+        registry.apply(new ClusterSessionEvent(Type.INBOX_UNSUBSCRIBED, 2, "a1", "ann@x.com"));
+        assertThat(registry.hasRemoteInboxSubscriber("ann@x.com")).isFalse();
+        assertThat(registry.remoteNodesOf("ann@x.com")).containsExactly(2);
+    }
+
+    @Test
+    void ignoresNodesThatStoppedSendingHeartbeats() {
+        liveNodes(2);
+        registry.apply(new ClusterSessionEvent(Type.CONNECTED, 3, "a1", "ann@x.com"));
+
+        assertThat(registry.remoteNodesOf("ann@x.com")).isEmpty();
+    }
+
+    @Test
+    void resyncDropsSessionsMissedByEventsAndLoadsNewOnes() throws Exception {
+        liveNodes(2);
+        registry.apply(new ClusterSessionEvent(Type.CONNECTED, 2, "stale", "ann@x.com"));
+
+        ResultSet row = mock(ResultSet.class);
+        when(row.getString("session_id")).thenReturn("b1");
+        when(row.getString("user_name")).thenReturn("bob@x.com");
+        when(row.getInt("node_id")).thenReturn(2);
+        doAnswer(invocation -> {
+            ((RowCallbackHandler) invocation.getArgument(1)).processRow(row);
+            return null;
+        }).when(jdbcTemplate).query(anyString(), any(RowCallbackHandler.class), eq(1), eq(15.0));
+
+        registry.resync();
+
+        assertThat(registry.remoteNodesOf("ann@x.com")).isEmpty();
+        assertThat(registry.remoteNodesOf("bob@x.com")).containsExactly(2);
+    }
+
+    private void liveNodes(Integer... nodes) {
+        when(jdbcTemplate.queryForList(anyString(), eq(Integer.class), any(), any())).thenReturn(List.of(nodes));
+        registry.heartbeat();
+    }
+}
@@ -0,0 +1,136 @@
+package com.app_template.App_Template.service.message;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.lang.ref.WeakReference;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.LongStream;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Limit;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.app_template.App_Template.dto.MessageDto;
+import com.app_template.App_Template.repository.ConversationSummaryRepository;
+import com.app_template.App_Template.repository.MessageRepository;
+import com.app_template.App_Template.repository.UserRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class ConversationExporterTest {
+
+    private static final int MESSAGES = 200_000;
+    private static final String CONTENT = "x".repeat(1024);
+
+    private final MessageRepository messageRepository = mock(MessageRepository.class);
+    private final UserRepository userRepository = mock(UserRepository.class);
+    private final ConversationSummaryRepository summaryRepository = mock(ConversationSummaryRepository.class);
+    private final MessageArchive messageArchive = mock(MessageArchive.class);
+
+    private final ConversationExporter exporter = new ConversationExporter(
+            messageRepository,
+            userRepository,
+            messageArchive,
+            new MessageDtoMapper(new MessageContentCodec(new SimpleMeterRegistry(), true, 4096), summaryRepository),
+            new TransactionTemplate(mock(PlatformTransactionManager.class)),
+            new ObjectMapper().findAndRegisterModules());
+
+    // 200k mesaje de ~1 KB (~200 MB dacă ar fi materializate), citite în pagini: rândurile deja scrise trebuie să
+    // poată fi colectate cât timp exportul încă rulează, iar ieșirea trebuie să curgă înainte ca sursa să fie epuizată
+    @Test
+    void exportDoesNotRetainRowsAlreadyWritten() {
+        AtomicLong produced = new AtomicLong();
+        WeakReference<?>[] early = new WeakReference<?>[1];
+        boolean[] earlyRowCollected = {false};
+
+        when(messageRepository.findConversationAfter(anyString(), anyLong(), any())).thenAnswer(invocation -> {
+            long after = Math.max(0L, invocation.<Long>getArgument(1));
+            Limit limit = invocation.getArgument(2);
+            return LongStream.rangeClosed(after + 1, Math.min(MESSAGES, after + limit.max())).mapToObj(id -> {
+                produced.incrementAndGet();
+                MessageDto message = message(id);
+                if (id == 1_000) {
+                    early[0] = new WeakReference<>(message);
+                } else if (id == MESSAGES / 2) {
+                    System.gc();
+                    earlyRowCollected[0] = early[0].get() == null;
+                }
+                return message;
+            }).toList();
+        });
+        when(userRepository.findAllById(any())).thenReturn(List.of());
+
+        CountingOutputStream out = new CountingOutputStream(produced);
+        exporter.export(1L, 2L, ConversationExporter.Format.NDJSON, out);
+
+        assertThat(out.lines).isEqualTo(MESSAGES);
+        assertThat(out.producedAtFirstWrite).isLessThan(MESSAGES / 100);
+        assertThat(earlyRowCollected[0]).as("row 1000 still reachable halfway through the export").isTrue();
+    }
+
+    @Test
+    void csvEscapesQuotesAndKeepsOneRecordPerMessage() {
+        MessageDto message = message(42L);
+        message.setContent("say \"hi\", ok");
+        when(messageRepository.findConversationAfter(anyString(), anyLong(), any())).thenReturn(List.of(message));
+        when(userRepository.findAllById(any())).thenReturn(List.of());
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        exporter.export(1L, 2L, ConversationExporter.Format.CSV, out);
+
+        String[] lines = out.toString().split("\n");
+        assertThat(lines).hasSize(2);
+        assertThat(lines[1]).startsWith("42,").endsWith(",false,\"say \"\"hi\"\", ok\"");
+    }
+
+    private static MessageDto message(long id) {
+        return new MessageDto(id, 1L, "Ana Pop", "ana@example.com", null,
+                2L, "Dan Ionescu", "dan@example.com", null,
+                CONTENT + id, LocalDateTime.of(2025, 1, 1, 12, 0), null, null);
+    }
+
+    private static final class CountingOutputStream extends OutputStream {
+        private final AtomicLong produced;
+        private long producedAtFirstWrite = -1;
+        private long lines;
+
+        private CountingOutputStream(AtomicLong produced) {
+            this.produced = produced;
+        }
+
+        @Override
+        public void write(int b) {
+            track();
+            if (b == '\n') {
+                lines++;
+            }
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            track();
+            for (int i = off; i < off + len; i++) {
+                if (b[i] == '\n') {
+                    lines++;
+                }
+            }
+        }
+
+        private void track() {
+            if (producedAtFirstWrite < 0) {
+                producedAtFirstWrite = produced.get();
+            }
+        }
+    }
+}
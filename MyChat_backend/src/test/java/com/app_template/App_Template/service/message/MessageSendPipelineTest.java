@@ -0,0 +1,149 @@
+package com.app_template.App_Template.service.message;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.security.access.AccessDeniedException;
+
+import com.app_template.App_Template.config.WirePayload;
+
+import com.app_template.App_Template.dto.MessageAckDto;
+import com.app_template.App_Template.dto.MessageDto;
+import com.app_template.App_Template.dto.RoomMessageDto;
+import com.app_template.App_Template.enums.MessageAckStatus;
+import com.app_template.App_Template.repository.UserRepository;
+import com.app_template.App_Template.service.cluster.ClusterMessenger;
+import com.app_template.App_Template.service.room.RoomService;
+import com.app_template.App_Template.service.typing.TypingRelay;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityNotFoundException;
+
+class MessageSendPipelineTest {
+
+    private final MessageService messageService = mock(MessageService.class);
+    private final RoomService roomService = mock(RoomService.class);
+    private final ClusterMessenger clusterMessenger = mock(ClusterMessenger.class);
+    private final OfflineMailbox offlineMailbox = mock(OfflineMailbox.class);
+    private final List<String> persisted = new CopyOnWriteArrayList<>();
+    private final AtomicLong ids = new AtomicLong(100);
+
+    private final MessageSendPipeline pipeline = new MessageSendPipeline(messageService, roomService, mock(UserRepository.class),
+            clusterMessenger, offlineMailbox, mock(TypingRelay.class), new SimpleMeterRegistry(), 100, 60_000, 1000);
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        pipeline.stop();
+    }
+
+    @Test
+    void persistsInOrderPerSenderAndAnswersRetriesFromTheCache() {
+        when(messageService.sendMessage(eq(1L), eq(2L), anyString())).thenAnswer(invocation -> {
+            String content = invocation.getArgument(2);
+            Thread.sleep(content.equals("a") ? 50 : 0);
+            persisted.add(content);
+            return MessageDto.builder().id(ids.incrementAndGet()).senderId(1L).receiverId(2L)
+                    .receiverEmail("bob@x.com").content(content).timestamp(LocalDateTime.now()).build();
+        });
+
+        pipeline.submit(1L, "ann@x.com", 2L, "c-1", "a");
+        pipeline.submit(1L, "ann@x.com", 2L, "c-2", "b");
+        pipeline.submit(1L, "ann@x.com", 2L, "c-1", "a");
+
+        ArgumentCaptor<Object> acks = ArgumentCaptor.forClass(Object.class);
+        verify(clusterMessenger, timeout(5000).times(2)).sendToUser(eq("ann@x.com"), eq("/queue/acks"), acks.capture());
+        assertThat(persisted).containsExactly("a", "b");
+        verify(offlineMailbox, times(2)).deliver(eq(2L), eq("bob@x.com"), any(), any());
+
+        // Retrimiterea după ACK primește același id, fără o nouă salvare
+        pipeline.submit(1L, "ann@x.com", 2L, "c-1", "a");
+        verify(clusterMessenger, timeout(5000).times(3)).sendToUser(eq("ann@x.com"), eq("/queue/acks"), acks.capture());
+        List<MessageAckDto> sent = acks.getAllValues().stream().map(MessageAckDto.class::cast).toList();
+        assertThat(sent.get(sent.size() - 1).getMessageId()).isEqualTo(sent.get(0).getMessageId());
+        assertThat(persisted).hasSize(2);
+    }
+
+    @Test
+    void refusesNewSendsInsteadOfEvictingAttemptsStillInTheWindow() throws InterruptedException {
+        MessageSendPipeline small = new MessageSendPipeline(messageService, roomService, mock(UserRepository.class),
+                clusterMessenger, offlineMailbox, mock(TypingRelay.class), new SimpleMeterRegistry(), 100, 60_000, 1);
+        when(messageService.sendMessage(eq(1L), eq(2L), anyString())).thenAnswer(invocation -> {
+            persisted.add(invocation.getArgument(2));
+            return MessageDto.builder().id(ids.incrementAndGet()).senderId(1L).receiverId(2L)
+                    .receiverEmail("bob@x.com").content(invocation.getArgument(2)).timestamp(LocalDateTime.now()).build();
+        });
+        try {
+            small.submit(1L, "ann@x.com", 2L, "c-1", "a");
+            verify(clusterMessenger, timeout(5000)).sendToUser(eq("ann@x.com"), eq("/queue/acks"), any());
+
+            // Cache plin cu o încercare încă în fereastră: mesajul nou primește NACK retryable
+            small.submit(1L, "ann@x.com", 2L, "c-2", "b");
+            ArgumentCaptor<Object> acks = ArgumentCaptor.forClass(Object.class);
+            verify(clusterMessenger, timeout(5000).times(2)).sendToUser(eq("ann@x.com"), eq("/queue/acks"), acks.capture());
+            MessageAckDto busy = (MessageAckDto) acks.getValue();
+            assertThat(busy.getStatus()).isEqualTo(MessageAckStatus.NACK);
+            assertThat(busy.isRetryable()).isTrue();
+
+            // Retrimiterea primei încercări e încă recunoscută și nu e salvată a doua oară
+            small.submit(1L, "ann@x.com", 2L, "c-1", "a");
+            verify(clusterMessenger, timeout(5000).times(3)).sendToUser(eq("ann@x.com"), eq("/queue/acks"), any());
+            assertThat(persisted).containsExactly("a");
+        } finally {
+            small.stop();
+        }
+    }
+
+    @Test
+    void nacksUnknownReceiversWithoutRetry() {
+        when(messageService.sendMessage(anyLong(), eq(9L), anyString()))
+                .thenThrow(new EntityNotFoundException("Receiver not found"));
+
+        pipeline.submit(1L, "ann@x.com", 9L, "c-1", "hello");
+
+        ArgumentCaptor<Object> ack = ArgumentCaptor.forClass(Object.class);
+        verify(clusterMessenger, timeout(5000)).sendToUser(eq("ann@x.com"), eq("/queue/acks"), ack.capture());
+        MessageAckDto nack = (MessageAckDto) ack.getValue();
+        assertThat(nack.getStatus()).isEqualTo(MessageAckStatus.NACK);
+        assertThat(nack.isRetryable()).isFalse();
+    }
+
+    @Test
+    void publishesRoomMessagesOnceOnTheRoomTopic() {
+        when(roomService.sendMessage(7L, 1L, "hi")).thenReturn(RoomMessageDto.builder()
+                .id(500L).roomId(7L).seq(3L).senderId(1L).content("hi").timestamp(LocalDateTime.now()).build());
+        when(roomService.sendMessage(8L, 1L, "hi")).thenThrow(new AccessDeniedException("Not a member of this room"));
+
+        pipeline.submitToRoom(1L, "ann@x.com", 7L, "c-1", "hi");
+        pipeline.submitToRoom(1L, "ann@x.com", 8L, "c-2", "hi");
+
+        ArgumentCaptor<Object> acks = ArgumentCaptor.forClass(Object.class);
+        verify(clusterMessenger, timeout(5000).times(2)).sendToUser(eq("ann@x.com"), eq("/queue/acks"), acks.capture());
+        ArgumentCaptor<Object> frame = ArgumentCaptor.forClass(Object.class);
+        verify(clusterMessenger).sendToTopic(eq("/topic/rooms.7"), frame.capture());
+        RoomMessageDto published = (RoomMessageDto) ((WirePayload) frame.getValue()).getValue();
+        assertThat(published.getSeq()).isEqualTo(3L);
+        assertThat(published.getClientMessageId()).isEqualTo("c-1");
+
+        List<MessageAckDto> sent = acks.getAllValues().stream().map(MessageAckDto.class::cast).toList();
+        assertThat(sent.get(0).getStatus()).isEqualTo(MessageAckStatus.ACK);
+        assertThat(sent.get(0).getRoomId()).isEqualTo(7L);
+        assertThat(sent.get(1).getStatus()).isEqualTo(MessageAckStatus.NACK);
+        assertThat(sent.get(1).isRetryable()).isFalse();
+    }
+}
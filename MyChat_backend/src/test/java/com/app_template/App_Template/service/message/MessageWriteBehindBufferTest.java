@@ -0,0 +1,60 @@
+package com.app_template.App_Template.service.message;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.app_template.App_Template.entity.Message;
+import com.app_template.App_Template.entity.User;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class MessageWriteBehindBufferTest {
+
+    private final MessageWriter messageWriter = mock(MessageWriter.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final MessageWriteBehindBuffer buffer =
+            new MessageWriteBehindBuffer(messageWriter, true, 100, 100, 50, 2, meterRegistry);
+
+    @Test
+    void badMessageIsIsolatedAfterMaxAttemptsAndTheRestIsWrittenInOrder() {
+        List<Long> written = new ArrayList<>();
+        doAnswer(invocation -> {
+            List<Message> batch = invocation.getArgument(0);
+            if (batch.stream().anyMatch(message -> message.getId() == 3L)) {
+                throw new IllegalStateException("constraint violation");
+            }
+            batch.forEach(message -> written.add(message.getId()));
+            return null;
+        }).when(messageWriter).write(anyList());
+
+        for (long id = 1; id <= 5; id++) {
+            assertThat(buffer.offer(message(id))).isTrue();
+        }
+
+        buffer.flushSafely();
+        assertThat(written).isEmpty();
+
+        buffer.flushSafely();
+        assertThat(written).containsExactly(1L, 2L, 4L, 5L);
+        assertThat(meterRegistry.counter("chat.messages.write-behind.dropped").count()).isEqualTo(1.0);
+
+        buffer.offer(message(6L));
+        buffer.flushSafely();
+        assertThat(written).containsExactly(1L, 2L, 4L, 5L, 6L);
+    }
+
+    private static Message message(long id) {
+        User sender = new User();
+        sender.setId(1L);
+        User receiver = new User();
+        receiver.setId(2L);
+        return Message.builder().id(id).sender(sender).receiver(receiver).content("m" + id).build();
+    }
+}
@@ -0,0 +1,145 @@
+package com.app_template.App_Template.service.message;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+import java.util.Set;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.simp.user.SimpSession;
+import org.springframework.messaging.simp.user.SimpUser;
+import org.springframework.messaging.simp.user.SimpUserRegistry;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.socket.messaging.SessionUnsubscribeEvent;
+
+import com.app_template.App_Template.config.BrokerSubscriptionEvent;
+import com.app_template.App_Template.config.WebSocketSessionRegistry;
+import com.app_template.App_Template.config.WirePayload;
+import com.app_template.App_Template.dto.WireMessageDto;
+import com.app_template.App_Template.repository.UserRepository;
+import com.app_template.App_Template.service.cluster.ClusterMessenger;
+import com.app_template.App_Template.service.cluster.ClusterSessionRegistry;
+import com.app_template.App_Template.service.presence.PresenceService;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class OfflineMailboxTest {
+
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+    private final TransactionTemplate transactionTemplate = mock(TransactionTemplate.class);
+    private final ClusterMessenger clusterMessenger = mock(ClusterMessenger.class);
+    private final ClusterSessionRegistry clusterSessionRegistry = mock(ClusterSessionRegistry.class);
+    private final SimpUserRegistry userRegistry = mock(SimpUserRegistry.class);
+    private final PresenceService presenceService = mock(PresenceService.class);
+    private final OfflineMailbox mailbox = new OfflineMailbox(jdbcTemplate, transactionTemplate, clusterMessenger,
+            clusterSessionRegistry, userRegistry, presenceService, mock(WebSocketSessionRegistry.class), mock(UserRepository.class),
+            mock(MessageContentCodec.class), new SimpleMeterRegistry(), 2, 0, 1, 30, 1000, 1000);
+
+    @BeforeEach
+    void setUp() {
+        mailbox.start();
+        SimpSession session = mock(SimpSession.class);
+        when(session.getId()).thenReturn("s1");
+        SimpUser user = mock(SimpUser.class);
+        when(user.getSessions()).thenReturn(Set.of(session));
+        when(userRegistry.getUser("bob@x.com")).thenReturn(user);
+        when(presenceService.userIdOfSession("s1")).thenReturn(2L);
+    }
+
+    @AfterEach
+    void tearDown() {
+        mailbox.stop();
+    }
+
+    @Test
+    void storesMessagesUntilTheBrokerConfirmsTheSubscriptionThenDrainsInBatches() {
+        // Conectat, dar încă neabonat la /user/queue/messages: mesajul intră doar în cutie
+        mailbox.deliver(2L, "bob@x.com", message(10L), "frame");
+        verify(jdbcTemplate).update(anyString(), eq(2L), eq(10L), eq(1L), any(), any(), any());
+        verify(clusterMessenger, never()).sendToUser(anyString(), anyString(), eq("frame"));
+
+        when(transactionTemplate.execute(any())).thenReturn(
+                List.of(message(10L), message(11L)), List.of(message(12L)), List.of());
+        subscribe("sub-0", "/queue/messages-users1");
+        verify(clusterSessionRegistry).setInboxSubscribed("s1", "bob@x.com", true);
+
+        // Lot plin (2) -> încă un lot; lotul incomplet (1) încheie golirea
+        verify(clusterMessenger, timeout(5000).times(3)).sendToUser(eq("bob@x.com"), eq("/queue/messages"), any(WirePayload.class));
+        verify(transactionTemplate, times(2)).execute(any());
+
+        // Abonat: livrare doar live
+        mailbox.deliver(2L, "bob@x.com", message(13L), "frame");
+        verify(clusterMessenger).sendToUser("bob@x.com", "/queue/messages", "frame");
+        verify(jdbcTemplate, never()).update(anyString(), eq(2L), eq(13L), any(), any(), any(), any());
+    }
+
+    @Test
+    void deliversOnlyLiveWhenAnotherNodeHasTheSubscription() {
+        when(clusterSessionRegistry.hasRemoteInboxSubscriber("bob@x.com")).thenReturn(true);
+
+        mailbox.deliver(2L, "bob@x.com", message(10L), "frame");
+
+        verify(clusterMessenger).sendToUser("bob@x.com", "/queue/messages", "frame");
+        verify(jdbcTemplate, never()).update(anyString(), eq(2L), eq(10L), any(), any(), any(), any());
+    }
+
+    @Test
+    void storesMessagesAgainAfterUnsubscribe() {
+        when(transactionTemplate.execute(any())).thenReturn(List.of());
+        subscribe("sub-0", "/queue/messages-users1");
+        subscribe("sub-1", "/queue/messages-users1");
+
+        unsubscribe("sub-0");
+        mailbox.deliver(2L, "bob@x.com", message(10L), "frame");
+        verify(clusterMessenger).sendToUser("bob@x.com", "/queue/messages", "frame");
+
+        unsubscribe("sub-1");
+        verify(clusterSessionRegistry).setInboxSubscribed("s1", "bob@x.com", false);
+        mailbox.deliver(2L, "bob@x.com", message(11L), "frame");
+        verify(jdbcTemplate).update(anyString(), eq(2L), eq(11L), eq(1L), any(), any(), any());
+    }
+
+    @Test
+    void ignoresSubscriptionsToOtherDestinations() {
+        subscribe("sub-0", "/queue/typing-users1");
+
+        mailbox.deliver(2L, "bob@x.com", message(10L), "frame");
+        verify(jdbcTemplate).update(anyString(), eq(2L), eq(10L), eq(1L), any(), any(), any());
+        verify(transactionTemplate, never()).execute(any());
+    }
+
+    private void subscribe(String subscriptionId, String destination) {
+        mailbox.onSubscribed(new BrokerSubscriptionEvent("s1", subscriptionId, destination, bob()));
+    }
+
+    private void unsubscribe(String subscriptionId) {
+        StompHeaderAccessor accessor = StompHeaderAccessor.create(StompCommand.UNSUBSCRIBE);
+        accessor.setSessionId("s1");
+        accessor.setSubscriptionId(subscriptionId);
+        mailbox.onUnsubscribe(new SessionUnsubscribeEvent(this,
+                MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders()), bob()));
+    }
+
+    private static UsernamePasswordAuthenticationToken bob() {
+        return new UsernamePasswordAuthenticationToken("bob@x.com", null, List.of());
+    }
+
+    private static WireMessageDto message(Long id) {
+        return WireMessageDto.builder().id(id).senderId(1L).receiverId(2L).content("m" + id).build();
+    }
+}
@@ -0,0 +1,76 @@
+package com.app_template.App_Template.service.message;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+// Măsurătoare, nu test unitar: depinde de JIT și de numărul de procesoare, deci e exclusă din suita implicită.
+// Rulare: mvn test -Pbenchmark -Dtest=SnowflakeMessageIdGeneratorBenchmark
+@Tag("benchmark")
+class SnowflakeMessageIdGeneratorBenchmark {
+
+    private static final int THREADS = 8;
+    private static final int WARMUP_IDS = 2_000_000;
+    private static final int MEASURED_IDS = 5_000_000;
+    // Toleranță pentru alocările făcute de măsurarea în sine
+    private static final long MAX_ALLOCATED_BYTES = 4096;
+
+    @Test
+    void generatesWithoutAllocatingUnderContention() throws InterruptedException {
+        SnowflakeMessageIdGenerator generator = new SnowflakeMessageIdGenerator(3, false);
+        com.sun.management.ThreadMXBean threadBean =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long[] allocated = new long[THREADS];
+        long[] sinks = new long[THREADS];
+        CountDownLatch warmedUp = new CountDownLatch(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        Thread[] threads = new Thread[THREADS];
+
+        for (int t = 0; t < THREADS; t++) {
+            int index = t;
+            threads[t] = new Thread(() -> {
+                long sink = 0;
+                // Încălzire, ca nextId să fie compilat de JIT înainte de măsurare
+                for (int i = 0; i < WARMUP_IDS; i++) {
+                    sink ^= generator.nextId();
+                }
+                warmedUp.countDown();
+                awaitQuietly(start);
+                // Toate thread-urile generează simultan, deci CAS-ul e disputat
+                long before = threadBean.getCurrentThreadAllocatedBytes();
+                for (int i = 0; i < MEASURED_IDS; i++) {
+                    sink ^= generator.nextId();
+                }
+                allocated[index] = threadBean.getCurrentThreadAllocatedBytes() - before;
+                sinks[index] = sink;
+            });
+            threads[t].start();
+        }
+        warmedUp.await();
+        long startNanos = System.nanoTime();
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        long elapsedNanos = System.nanoTime() - startNanos;
+
+        System.out.printf("Snowflake: %d ids on %d threads in %d ms (%.1f ns/id); allocated per thread: %s bytes%n",
+                (long) THREADS * MEASURED_IDS, THREADS, elapsedNanos / 1_000_000,
+                (double) elapsedNanos / ((long) THREADS * MEASURED_IDS), Arrays.toString(allocated));
+        assertThat(sinks).doesNotContain(0L);
+        assertThat(Arrays.stream(allocated).max().orElse(0)).isLessThan(MAX_ALLOCATED_BYTES);
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
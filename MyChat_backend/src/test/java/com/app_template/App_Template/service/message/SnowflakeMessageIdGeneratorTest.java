@@ -0,0 +1,85 @@
+package com.app_template.App_Template.service.message;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+
+import org.junit.jupiter.api.Test;
+
+class SnowflakeMessageIdGeneratorTest {
+
+    private static final int THREADS = 8;
+    private static final int IDS_PER_THREAD = 200_000;
+
+    @Test
+    void idsAreUniqueAndOrderedPerThreadUnderContention() throws InterruptedException {
+        SnowflakeMessageIdGenerator generator = new SnowflakeMessageIdGenerator(7, true);
+        long[][] ids = new long[THREADS][IDS_PER_THREAD];
+        CountDownLatch start = new CountDownLatch(1);
+        Thread[] threads = new Thread[THREADS];
+
+        for (int t = 0; t < THREADS; t++) {
+            long[] out = ids[t];
+            threads[t] = new Thread(() -> {
+                awaitQuietly(start);
+                for (int i = 0; i < IDS_PER_THREAD; i++) {
+                    out[i] = generator.nextId();
+                }
+            });
+            threads[t].start();
+        }
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        long[] all = new long[THREADS * IDS_PER_THREAD];
+        for (int t = 0; t < THREADS; t++) {
+            for (int i = 1; i < IDS_PER_THREAD; i++) {
+                assertThat(ids[t][i]).isGreaterThan(ids[t][i - 1]);
+            }
+            System.arraycopy(ids[t], 0, all, t * IDS_PER_THREAD, IDS_PER_THREAD);
+        }
+        Arrays.sort(all);
+        for (int i = 1; i < all.length; i++) {
+            assertThat(all[i]).isNotEqualTo(all[i - 1]);
+        }
+        assertThat(SnowflakeMessageIdGenerator.nodeIdOf(all[0])).isEqualTo(7);
+    }
+
+    @Test
+    void idEncodesGenerationTime() {
+        SnowflakeMessageIdGenerator generator = new SnowflakeMessageIdGenerator(1, false);
+        Instant before = Instant.now();
+        long id = generator.nextId();
+
+        // Secvența poate împrumuta câteva milisecunde din viitor sub încărcare, nu mai mult
+        assertThat(SnowflakeMessageIdGenerator.timestampOf(id))
+                .isBetween(before.minusMillis(1), Instant.now().plus(Duration.ofSeconds(1)));
+    }
+
+    @Test
+    void rejectsNodeIdOutOfRange() {
+        assertThatThrownBy(() -> new SnowflakeMessageIdGenerator(1024, false))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void requiresExplicitNodeIdInACluster() {
+        assertThatThrownBy(() -> new SnowflakeMessageIdGenerator(-1, true))
+                .isInstanceOf(IllegalStateException.class);
+        assertThat(SnowflakeMessageIdGenerator.nodeIdOf(new SnowflakeMessageIdGenerator(-1, false).nextId())).isZero();
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
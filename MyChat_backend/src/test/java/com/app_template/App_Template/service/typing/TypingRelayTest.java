@@ -0,0 +1,61 @@
+package com.app_template.App_Template.service.typing;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import com.app_template.App_Template.dto.TypingDto;
+import com.app_template.App_Template.repository.UserRepository;
+import com.app_template.App_Template.service.cluster.ClusterMessenger;
+import com.app_template.App_Template.service.cluster.ClusterSessionRegistry;
+import com.app_template.App_Template.service.presence.PresenceService;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class TypingRelayTest {
+
+    private final ClusterMessenger clusterMessenger = mock(ClusterMessenger.class);
+    private final PresenceService presenceService = mock(PresenceService.class);
+    private final UserRepository userRepository = mock(UserRepository.class);
+    private final TypingRelay relay = new TypingRelay(clusterMessenger, mock(ClusterSessionRegistry.class),
+            presenceService, userRepository, new SimpleMeterRegistry(), 2000, 6000, 100);
+
+    @Test
+    void sendsOneFramePerIntervalAndExpiresWithoutStop() {
+        when(presenceService.onlineEmailOf(2L)).thenReturn("bob@x.com");
+
+        for (int i = 0; i < 20; i++) {
+            relay.update(1L, 2L, true);
+        }
+        ArgumentCaptor<Object> frames = ArgumentCaptor.forClass(Object.class);
+        verify(clusterMessenger).sendToUser(eq("bob@x.com"), eq("/queue/typing"), frames.capture());
+        assertThat(frames.getValue()).isEqualTo(new TypingDto(1L, true));
+
+        relay.tick(System.currentTimeMillis() + 1000);
+        verify(clusterMessenger, times(1)).sendToUser(eq("bob@x.com"), eq("/queue/typing"), any());
+
+        relay.tick(System.currentTimeMillis() + 6500);
+        verify(clusterMessenger, times(2)).sendToUser(eq("bob@x.com"), eq("/queue/typing"), frames.capture());
+        assertThat(frames.getValue()).isEqualTo(new TypingDto(1L, false));
+
+        // Un stop după expirare nu mai produce frame
+        relay.update(1L, 2L, false);
+        verify(clusterMessenger, times(2)).sendToUser(eq("bob@x.com"), eq("/queue/typing"), any());
+    }
+
+    @Test
+    void dropsFramesForOfflineReceiversWithoutDatabaseLookup() {
+        relay.update(1L, 3L, true);
+        relay.update(1L, 3L, false);
+
+        verifyNoInteractions(clusterMessenger, userRepository);
+    }
+}
@@ -12,6 +12,15 @@ export interface UserData {
   mfaEnabled: boolean;
 }
 
+export interface BroadcastProgress {
+  announcementId: number;
+  status?: 'QUEUED' | 'RUNNING' | 'COMPLETED' | 'CANCELLED' | 'FAILED';
+  totalSessions?: number;
+  deliveredSessions?: number;
+  startedAt?: string;
+  finishedAt?: string;
+}
+
 export interface PaginatedResponse {
   content: UserData[];
   totalElements: number;
@@ -63,6 +72,25 @@ export class AdminService {
     });
   }
 
+  // Anunț către toți userii; fan-out-ul rulează pe server, progresul se citește cu getBroadcastProgress
+  broadcastAnnouncement(title: string, content: string): Observable<BroadcastProgress> {
+    return this.http.post<BroadcastProgress>(`${this.baseUrl}/broadcasts`, { title, content }, {
+      headers: this.createAuthorizationHeader()
+    });
+  }
+
+  getBroadcastProgress(announcementId: number): Observable<BroadcastProgress> {
+    return this.http.get<BroadcastProgress>(`${this.baseUrl}/broadcasts/${announcementId}`, {
+      headers: this.createAuthorizationHeader()
+    });
+  }
+
+  cancelBroadcast(announcementId: number) {
+    return this.http.delete(`${this.baseUrl}/broadcasts/${announcementId}`, {
+      headers: this.createAuthorizationHeader()
+    });
+  }
+
   getUserById(userId: number){
     return this.http.get(`${this.baseUrl}/get-user/${userId}`, {
       headers: this.createAuthorizationHeader()
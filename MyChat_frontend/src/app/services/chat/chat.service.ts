@@ -19,6 +19,46 @@ export interface ChatMessageDto {
   content: string;
   timestamp?: string;
   read?: boolean;
+  unreadCount?: number;
+  // Mesajele trimise de acest client: confirmate de server prin /queue/acks
+  clientMessageId?: string;
+  status?: 'pending' | 'sent' | 'failed';
+}
+
+export interface MessageAckDto {
+  clientMessageId: string;
+  status: 'ACK' | 'NACK';
+  messageId?: number;
+  timestamp?: string;
+  receiverId?: number;
+  error?: string;
+  retryable?: boolean;
+}
+
+// Profilul unui user din mesajele slim primite pe WebSocket (doar id-uri), ținut în cache pe client
+export interface ChatProfileDto {
+  userId: number;
+  name: string;
+  imageUrl?: string;
+}
+
+// Anunț trimis de un admin tuturor userilor
+export interface AnnouncementDto {
+  id: number;
+  title: string;
+  content: string;
+  createdAt?: string;
+}
+
+export interface PresenceDto {
+  userId: number;
+  online: boolean;
+  lastSeen?: string;
+}
+
+export interface TypingDto {
+  senderId: number;
+  typing: boolean;
 }
 
 export interface UserForChat {
@@ -38,6 +78,18 @@ export class ChatService {
   private messagesSubject = new BehaviorSubject<ChatMessageDto[]>([]);
   private currentReceiverId: number | null = null;
   private messagesByConversation = new Map<string, BehaviorSubject<ChatMessageDto[]>>();
+  private presenceSubject = new BehaviorSubject<Map<number, PresenceDto>>(new Map());
+  private presenceSubscription: StompSubscription | null = null;
+  private presenceHeartbeat: ReturnType<typeof setInterval> | null = null;
+  private typingSubject = new BehaviorSubject<Set<number>>(new Set());
+  private typingSubscription: StompSubscription | null = null;
+  private ackSubscription: StompSubscription | null = null;
+  private announcementSubscription: StompSubscription | null = null;
+  private announcementsSubject = new BehaviorSubject<AnnouncementDto[]>([]);
+  // Mesajele trimise și neconfirmate încă; retrimise cu același clientMessageId la reconectare
+  private pendingMessages = new Map<string, ChatMessageDto>();
+  private profiles = new Map<number, ChatProfileDto>();
+  private profileRequests = new Set<number>();
 
   constructor(private http: HttpClient) {}
 
@@ -100,10 +152,16 @@ export class ChatService {
       this.client.onConnect = (frame) => {
         console.log('WebSocket connected successfully:', frame);
         this.subscribeToPrivateMessages();
+        this.subscribeToPresence();
+        this.subscribeToTyping();
+        this.subscribeToAcks();
+        this.subscribeToAnnouncements();
+        this.resendPendingMessages();
       };
 
       this.client.onDisconnect = () => {
         console.log('WebSocket disconnected');
+        this.stopPresenceHeartbeat();
       };
 
       this.client.activate();
@@ -126,16 +184,234 @@ export class ChatService {
 
     this.subscription = this.client.subscribe(destination, (msg: IMessage) => {
       try {
-        const dto: ChatMessageDto = JSON.parse(msg.body);
+        // Serverul trimite doar id-urile userilor; numele și poza vin din cache-ul de profiluri
+        const dto: ChatMessageDto = this.withProfiles(JSON.parse(msg.body));
 
         // Adaugă mesajul în conversația corespunzătoare
         this.addMessageToConversation(dto);
+        this.loadMissingProfiles([dto.senderId!, dto.receiverId!]);
       } catch (error) {
         console.error('Error parsing message:', error);
       }
     });
   }
 
+  // Schimbările de prezență ale userilor din lista de chat, trimise de server în loturi
+  private subscribeToPresence(): void {
+    if (!this.client?.connected) return;
+
+    const user = StorageService.getUser();
+    if (!user?.email) return;
+
+    this.presenceSubscription = this.client.subscribe(`/user/${user.email}/queue/presence`, (msg: IMessage) => {
+      try {
+        this.applyPresence(JSON.parse(msg.body) as PresenceDto[]);
+      } catch (error) {
+        console.error('Error parsing presence:', error);
+      }
+    });
+
+    this.stopPresenceHeartbeat();
+    this.presenceHeartbeat = setInterval(() => {
+      if (this.client?.connected) {
+        this.client.publish({ destination: '/app/presence.heartbeat', body: '' });
+      }
+    }, 30000);
+  }
+
+  // Userii care scriu acum către userul curent; serverul trimite stop și la expirare
+  private subscribeToTyping(): void {
+    if (!this.client?.connected) return;
+
+    const user = StorageService.getUser();
+    if (!user?.email) return;
+
+    this.typingSubscription = this.client.subscribe(`/user/${user.email}/queue/typing`, (msg: IMessage) => {
+      try {
+        const update: TypingDto = JSON.parse(msg.body);
+        const typing = new Set(this.typingSubject.value);
+        if (update.typing) {
+          typing.add(update.senderId);
+        } else {
+          typing.delete(update.senderId);
+        }
+        this.typingSubject.next(typing);
+      } catch (error) {
+        console.error('Error parsing typing:', error);
+      }
+    });
+  }
+
+  private subscribeToAcks(): void {
+    if (!this.client?.connected) return;
+
+    const user = StorageService.getUser();
+    if (!user?.email) return;
+
+    this.ackSubscription = this.client.subscribe(`/user/${user.email}/queue/acks`, (msg: IMessage) => {
+      try {
+        this.applyAck(JSON.parse(msg.body) as MessageAckDto);
+      } catch (error) {
+        console.error('Error parsing ack:', error);
+      }
+    });
+  }
+
+  // Anunțurile noi vin live; cele publicate cât clientul a fost deconectat sunt cerute după ultimul id văzut
+  private subscribeToAnnouncements(): void {
+    if (!this.client?.connected) return;
+
+    const user = StorageService.getUser();
+    if (!user?.email) return;
+
+    this.announcementSubscription = this.client.subscribe(`/user/${user.email}/queue/announcements`, (msg: IMessage) => {
+      try {
+        this.addAnnouncements([JSON.parse(msg.body) as AnnouncementDto]);
+      } catch (error) {
+        console.error('Error parsing announcement:', error);
+      }
+    });
+
+    const lastSeen = localStorage.getItem('lastAnnouncementId');
+    this.http.get<AnnouncementDto[]>('http://localhost:8080/api/announcements', {
+      headers: this.createAuthorizationHeader(),
+      params: lastSeen ? { after: lastSeen } : { limit: '1' }
+    }).subscribe({
+      next: announcements => this.addAnnouncements(announcements),
+      error: error => console.error('Error loading announcements:', error)
+    });
+  }
+
+  private addAnnouncements(announcements: AnnouncementDto[]): void {
+    const known = new Set(this.announcementsSubject.value.map(a => a.id));
+    const added = announcements.filter(a => !known.has(a.id));
+    if (added.length === 0) return;
+    const all = [...this.announcementsSubject.value, ...added].sort((a, b) => a.id - b.id);
+    localStorage.setItem('lastAnnouncementId', String(all[all.length - 1].id));
+    this.announcementsSubject.next(all);
+  }
+
+  getAnnouncements(): Observable<AnnouncementDto[]> {
+    return this.announcementsSubject.asObservable();
+  }
+
+  // Actualizează mesajul afișat optimist; ack-urile pentru mesaje trimise din alt tab sunt ignorate
+  private applyAck(ack: MessageAckDto): void {
+    const pending = this.pendingMessages.get(ack.clientMessageId);
+    if (!pending) return;
+
+    if (ack.status === 'NACK' && ack.retryable) {
+      // Serverul e ocupat: retrimite cu același clientMessageId după o scurtă pauză
+      console.warn('Message not saved yet, will retry:', ack.error);
+      setTimeout(() => {
+        if (this.client?.connected && this.pendingMessages.has(ack.clientMessageId)) {
+          this.publishMessage(pending);
+        }
+      }, 1000);
+      return;
+    }
+    this.pendingMessages.delete(ack.clientMessageId);
+
+    const updated: ChatMessageDto = ack.status === 'ACK'
+      ? { ...pending, id: ack.messageId, timestamp: ack.timestamp, status: 'sent' }
+      : { ...pending, status: 'failed' };
+    this.replaceInConversation(pending.receiverId!, ack.clientMessageId, updated);
+  }
+
+  private replaceInConversation(peerId: number, clientMessageId: string, updated: ChatMessageDto): void {
+    const conversationKey = this.getConversationKey(StorageService.getUserId(), peerId);
+    const subject = this.messagesByConversation.get(conversationKey);
+    if (!subject) return;
+    subject.next(subject.value.map(m => m.clientMessageId === clientMessageId ? updated : m));
+  }
+
+  private resendPendingMessages(): void {
+    this.pendingMessages.forEach(message => this.publishMessage(message));
+  }
+
+  private publishMessage(message: ChatMessageDto): void {
+    this.client?.publish({
+      destination: '/app/chat.sendMessage',
+      body: JSON.stringify({
+        content: message.content,
+        receiverId: message.receiverId,
+        clientMessageId: message.clientMessageId
+      })
+    });
+  }
+
+  typingUsers(): Observable<Set<number>> {
+    return this.typingSubject.asObservable();
+  }
+
+  // Poate fi apelat la fiecare tastă; serverul limitează frecvența
+  sendTyping(receiverId: number, typing: boolean): void {
+    if (!this.client?.connected) return;
+    this.client.publish({
+      destination: '/app/chat.typing',
+      body: JSON.stringify({ receiverId, typing })
+    });
+  }
+
+  private stopPresenceHeartbeat(): void {
+    if (this.presenceHeartbeat) {
+      clearInterval(this.presenceHeartbeat);
+      this.presenceHeartbeat = null;
+    }
+  }
+
+  private applyPresence(updates: PresenceDto[]): void {
+    const presence = new Map(this.presenceSubject.value);
+    updates.forEach(update => presence.set(update.userId, update));
+    this.presenceSubject.next(presence);
+  }
+
+  presence(): Observable<Map<number, PresenceDto>> {
+    return this.presenceSubject.asObservable();
+  }
+
+  // REST endpoint - starea inițială de prezență pentru userii din lista de chat
+  private withProfiles(dto: ChatMessageDto): ChatMessageDto {
+    const sender = this.profiles.get(dto.senderId!);
+    const receiver = this.profiles.get(dto.receiverId!);
+    return {
+      ...dto,
+      senderName: dto.senderName ?? sender?.name,
+      senderImageUrl: dto.senderImageUrl ?? sender?.imageUrl,
+      receiverName: dto.receiverName ?? receiver?.name,
+      receiverImageUrl: dto.receiverImageUrl ?? receiver?.imageUrl
+    };
+  }
+
+  // Cere o singură dată profilurile necunoscute, apoi completează mesajele deja afișate
+  private loadMissingProfiles(userIds: number[]): void {
+    const missing = userIds.filter(id => id != null && !this.profiles.has(id) && !this.profileRequests.has(id));
+    if (missing.length === 0) return;
+    missing.forEach(id => this.profileRequests.add(id));
+
+    this.http.get<ChatProfileDto[]>('http://localhost:8080/api/messages/profiles', {
+      headers: this.createAuthorizationHeader(),
+      params: { userIds: missing.join(',') }
+    }).subscribe({
+      next: profiles => {
+        profiles.forEach(profile => this.profiles.set(profile.userId, profile));
+        this.messagesByConversation.forEach(subject =>
+          subject.next(subject.value.map(m => this.withProfiles(m))));
+        this.messagesSubject.next(this.messagesSubject.value.map(m => this.withProfiles(m)));
+      },
+      error: () => missing.forEach(id => this.profileRequests.delete(id)),
+      complete: () => missing.forEach(id => this.profileRequests.delete(id))
+    });
+  }
+
+  loadPresence(userIds: number[]): void {
+    if (userIds.length === 0) return;
+    this.http.get<PresenceDto[]>('http://localhost:8080/api/presence', {
+      headers: this.createAuthorizationHeader(),
+      params: { userIds: userIds.join(',') }
+    }).subscribe(updates => this.applyPresence(updates));
+  }
+
   private addMessageToConversation(message: ChatMessageDto): void {
     const currentUserId = StorageService.getUserId();
     const otherUserId = message.senderId === currentUserId
@@ -153,8 +429,18 @@ export class ChatService {
     const subject = this.messagesByConversation.get(conversationKey)!;
     const currentMessages = subject.value;
 
-    // Verifică dacă mesajul există deja (după id)
-    if (!currentMessages.find(m => m.id === message.id)) {
+    // Mesajul primit încheie indicatorul "scrie..." al expeditorului
+    if (this.typingSubject.value.has(message.senderId!)) {
+      const typing = new Set(this.typingSubject.value);
+      typing.delete(message.senderId!);
+      this.typingSubject.next(typing);
+    }
+
+    // Verifică dacă mesajul există deja (după id sau, pentru mesajele pending, după clientMessageId)
+    const exists = currentMessages.find(m =>
+      (message.id != null && m.id === message.id) ||
+      (message.clientMessageId != null && m.clientMessageId === message.clientMessageId));
+    if (!exists) {
       subject.next([...currentMessages, message]);
     }
 
@@ -186,24 +472,26 @@ export class ChatService {
     return this.messagesSubject.asObservable();
   }
 
+  // Mesajul apare imediat (pending) și e confirmat de ACK-ul serverului; retrimiterea e sigură (clientMessageId)
   send(message: ChatMessageDto): void {
     if (!this.client) this.connect();
 
+    const currentUserId = StorageService.getUserId();
+    const pending: ChatMessageDto = {
+      ...message,
+      senderId: currentUserId,
+      clientMessageId: crypto.randomUUID(),
+      timestamp: new Date().toISOString(),
+      status: 'pending'
+    };
+    this.pendingMessages.set(pending.clientMessageId!, pending);
+    this.addMessageToConversation(pending);
+
     if (!this.client?.connected) {
-      console.error('WebSocket not connected');
+      console.warn('WebSocket not connected, message will be sent after reconnect');
       return;
     }
-
-    const currentUserId = StorageService.getUserId();
-
-    this.client.publish({
-      destination: '/app/chat.sendMessage',
-      body: JSON.stringify({
-        content: message.content,
-        receiverId: message.receiverId,
-        senderId: currentUserId
-      })
-    });
+    this.publishMessage(pending);
   }
 
   // REST endpoint - obține lista de useri
@@ -212,6 +500,12 @@ export class ChatService {
       headers: this.createAuthorizationHeader()
     }).pipe(
       map((dtos: ChatMessageDto[]) => {
+        // Lista de chat conține deja profilurile: le refolosim pentru mesajele slim de pe WebSocket
+        dtos.forEach(dto => this.profiles.set(dto.receiverId!, {
+          userId: dto.receiverId!,
+          name: dto.receiverName || '',
+          imageUrl: dto.receiverImageUrl
+        }));
         return dtos.map(dto => ({
           userId: dto.receiverId!,
           name: dto.receiverName || '',
@@ -219,7 +513,7 @@ export class ChatService {
           imageUrl: dto.receiverImageUrl,
           lastMessage: dto.content,
           lastMessageTimestamp: dto.timestamp,
-          unreadCount: dto.read === false ? 1 : 0
+          unreadCount: dto.unreadCount ?? 0
         }));
       })
     );
@@ -260,6 +554,27 @@ export class ChatService {
       this.subscription.unsubscribe();
       this.subscription = null;
     }
+    if (this.presenceSubscription) {
+      this.presenceSubscription.unsubscribe();
+      this.presenceSubscription = null;
+    }
+    if (this.typingSubscription) {
+      this.typingSubscription.unsubscribe();
+      this.typingSubscription = null;
+    }
+    if (this.ackSubscription) {
+      this.ackSubscription.unsubscribe();
+      this.ackSubscription = null;
+    }
+    if (this.announcementSubscription) {
+      this.announcementSubscription.unsubscribe();
+      this.announcementSubscription = null;
+    }
+    this.announcementsSubject.next([]);
+    this.pendingMessages.clear();
+    this.stopPresenceHeartbeat();
+    this.presenceSubject.next(new Map());
+    this.typingSubject.next(new Set());
     this.messagesByConversation.clear();
     this.client?.deactivate();
     this.client = null;